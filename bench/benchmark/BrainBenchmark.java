@@ -0,0 +1,239 @@
+package benchmark;
+
+import behaviour.primaryStates.PrimaryState;
+import bot.Bot;
+import bot.BotContext;
+import bot.DecisionTrace;
+import brain.ArsenalTable;
+import brain.Brain;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+import knowledge.EnemyInfo;
+import knowledge.ItemValuation;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
+import knowledge.WorldSnapshotPool;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class BrainBenchmark {
+
+    // *************************************************************************
+    //                                 MAIN
+    // *************************************************************************
+
+
+    /**
+     * Measures the Brain decision functions that run every logic tick. It
+     * exits with an error if the steady-state tick allocates anything.
+     * @param args [filter] [iteration ms] [warm up iterations] [iterations]
+     */
+    public static void main (String args[]) {
+        String filter = args.length > 0 && !args [0].equals ("all") ? args [0] : null;
+        long iterationMillis = args.length > 1 ? Long.parseLong (args [1]) : 200;
+        int warmUp = args.length > 2 ? Integer.parseInt (args [2]) : 5;
+        int iterations = args.length > 3 ? Integer.parseInt (args [3]) : 10;
+
+        Harness harness = new Harness (iterationMillis, warmUp, iterations, filter);
+        final BotContext context = new BotContext ();
+        final Brain brain = new Brain (null, context);
+
+
+        // COMPARE ARSENALS
+
+
+        for (int w = 0; w < Fixtures.WEAPONRY.length; ++w) {
+            for (int a = 0; a < Fixtures.ARSENALS.length; ++a) {
+                final Weaponry weaponry = Fixtures.weaponry (w);
+                final boolean arsenal [] = Fixtures.ARSENALS [a];
+
+                harness.measure ("compareArsenals", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " enemy=" + Fixtures.ARSENAL_NAMES [a],
+                                 new Harness.Benchmark () {
+                    public long run (int operations) {
+                        long result = 0;
+                        for (int i = 0; i < operations; ++i) {
+                            result += brain.compareArsenals (weaponry, arsenal) [0];
+                        }
+                        return result;
+                    }
+                });
+
+                harness.measure ("compareArsenalsTable", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " enemy=" + Fixtures.ARSENAL_NAMES [a],
+                                 new Harness.Benchmark () {
+                    public long run (int operations) {
+                        long result = 0;
+                        for (int i = 0; i < operations; ++i) {
+                            int comparison = brain.compareArsenals (ArsenalTable.getMask (weaponry), ArsenalTable.getMask (arsenal));
+                            result += ArsenalTable.getBestScore (comparison);
+                        }
+                        return result;
+                    }
+                });
+            }
+        }
+
+
+        // ESTIMATE PRIMARY STATE
+
+
+        for (int w = 0; w < Fixtures.WEAPONRY.length; ++w) {
+            for (int a = 0; a < Fixtures.ARSENALS.length; ++a) {
+                for (int h = 0; h < Fixtures.HEALTH.length; ++h) {
+                    Weaponry weaponry = Fixtures.weaponry (w);
+                    AgentInfo info = Fixtures.info (Fixtures.HEALTH [h]);
+                    EnemyInfo enemyInfo = Fixtures.enemyInfo (100, a);
+                    Player enemy = Fixtures.enemy (Fixtures.DISTANCE [1]);
+                    final WorldSnapshot snapshot = new WorldSnapshot (info, weaponry, Fixtures.game (10), enemy, enemyInfo);
+
+                    harness.measure ("estimatePrimaryState", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " enemy="
+                                     + Fixtures.ARSENAL_NAMES [a] + " health=" + Fixtures.HEALTH [h],
+                                     new Harness.Benchmark () {
+                        public long run (int operations) {
+                            long result = 0;
+                            for (int i = 0; i < operations; ++i) {
+                                result += brain.estimatePrimaryState (snapshot);
+                            }
+                            return result;
+                        }
+                    });
+                }
+            }
+        }
+
+
+        // ESTIMATE SECONDARY STATE
+
+
+        for (int w = 0; w < Fixtures.WEAPONRY.length; ++w) {
+            for (int h = 0; h < Fixtures.HEALTH.length; ++h) {
+                for (int d = 0; d < Fixtures.DISTANCE.length; ++d) {
+                    Weaponry weaponry = Fixtures.weaponry (w);
+                    AgentInfo info = Fixtures.info (Fixtures.HEALTH [h]);
+                    EnemyInfo enemyInfo = Fixtures.enemyInfo (100, 0);
+                    Player enemy = Fixtures.enemy (Fixtures.DISTANCE [d]);
+                    final WorldSnapshot snapshot = new WorldSnapshot (info, weaponry, Fixtures.game (10), enemy, enemyInfo);
+
+                    harness.measure ("estimateSecondaryState", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " health="
+                                     + Fixtures.HEALTH [h] + " distance=" + (int) Fixtures.DISTANCE [d],
+                                     new Harness.Benchmark () {
+                        public long run (int operations) {
+                            long result = 0;
+                            for (int i = 0; i < operations; ++i) {
+                                result += brain.estimateSecondaryState (Bot.ATTACK, snapshot);
+                            }
+                            return result;
+                        }
+                    });
+                }
+            }
+        }
+
+
+        // ITEM PRIORITY
+
+
+        final ItemType visibleItems [] = {
+            ItemType.HEALTH_PACK, ItemType.MINI_HEALTH_PACK, ItemType.SHIELD_PACK, ItemType.FLAK_CANNON_AMMO,
+            ItemType.SHOCK_RIFLE, ItemType.MINIGUN, ItemType.ROCKET_LAUNCHER, ItemType.LIGHTNING_GUN
+        };
+
+        for (int w = 0; w < Fixtures.WEAPONRY.length; ++w) {
+            for (int h = 0; h < Fixtures.HEALTH.length; ++h) {
+                final Weaponry weaponry = Fixtures.weaponry (w);
+                final ItemValuation valuation = ItemValuation.greedy ();
+                final int health = Fixtures.HEALTH [h];
+
+                harness.measure ("itemPriority", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " health=" + health + " items="
+                                 + visibleItems.length, new Harness.Benchmark () {
+                    public long run (int operations) {
+                        long result = 0;
+                        for (int i = 0; i < operations; ++i) {
+                            valuation.update (weaponry);
+                            for (int j = 0; j < visibleItems.length; ++j) {
+                                result += valuation.getPriority (visibleItems [j], health);
+                            }
+                        }
+                        return result;
+                    }
+                });
+            }
+        }
+
+
+        // ESTIMATE PROFILE
+
+
+        for (int d = 0; d < Fixtures.DISTANCE.length; ++d) {
+            for (int sweetSpot = 0; sweetSpot < 3; ++sweetSpot) {
+                final double distance = Fixtures.DISTANCE [d];
+                final int range = sweetSpot;
+
+                harness.measure ("estimateProfile", "distance=" + (int) distance + " sweetSpot=" + range,
+                                 new Harness.Benchmark () {
+                    public long run (int operations) {
+                        long result = 0;
+                        for (int i = 0; i < operations; ++i) {
+                            // The profit varies so the call can't be hoisted out of the loop
+                            result += brain.estimateProfile (distance, 1 + (i & 3), 3, range);
+                        }
+                        return result;
+                    }
+                });
+            }
+        }
+
+
+        // STEADY-STATE TICK
+
+
+        // The decisions of a logic tick that don't need a game: snapshot, states,
+        // weapon, random draws and trace. Once warmed up they mustn't allocate
+        final WeaponKnowledge knowledge = WeaponKnowledge.load ();
+
+        for (int w = 0; w < Fixtures.WEAPONRY.length; ++w) {
+            for (int d = -1; d < Fixtures.DISTANCE.length; ++d) {
+                final Weaponry weaponry = Fixtures.weaponry (w);
+                final AgentInfo info = Fixtures.info (Fixtures.HEALTH [2]);
+                final Game game = Fixtures.game (10);
+                final Player enemy = d != -1 ? Fixtures.enemy (Fixtures.DISTANCE [d]) : null;
+                final EnemyInfo enemyInfo = Fixtures.enemyInfo (100, 1);
+                final int loadedWeapons = Fixtures.loadedMask (w);
+                final WorldSnapshotPool snapshots = new WorldSnapshotPool ();
+                final DecisionTrace trace = new DecisionTrace (64);
+
+                harness.measureAllocationFree ("tick", "weaponry=" + Fixtures.WEAPONRY_NAMES [w] + " distance="
+                                               + (d != -1 ? String.valueOf ((int) Fixtures.DISTANCE [d]) : "unseen"),
+                                               new Harness.Benchmark () {
+                    public long run (int operations) {
+                        long result = 0;
+                        for (int i = 0; i < operations; ++i) {
+                            WorldSnapshot snapshot = snapshots.take (info, weaponry, game, enemy, enemyInfo);
+                            int primaryState = brain.estimatePrimaryState (snapshot);
+                            int secondaryState = brain.estimateSecondaryState (primaryState, snapshot);
+                            int weapon = PrimaryState.estimateBestWeapon (knowledge, loadedWeapons, false, snapshot);
+                            trace.record (snapshot, primaryState, secondaryState, null, null, loadedWeapons, null, 0);
+                            result += primaryState + secondaryState + weapon + context.random.nextInt (100);
+                        }
+                        return result;
+                    }
+                });
+            }
+        }
+
+        // A regression in the steady-state tick fails the build
+        if (!harness.getFailures ().isEmpty ()) {
+            for (String failure : harness.getFailures ()) {
+                System.err.println (failure);
+            }
+            System.exit (1);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package benchmark;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Rotation;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Velocity;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.PlayerMessage;
+import java.lang.reflect.Constructor;
+import java.util.HashSet;
+import java.util.Set;
+import knowledge.EnemyInfo;
+import knowledge.WeaponKnowledge;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class Fixtures {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Names of the weaponry combinations */
+    public static final String WEAPONRY_NAMES [] = {"default", "sniper+shock", "flak+mini+shock", "full"};
+
+    /** Loaded weapons of every weaponry combination (shield gun and assault rifle are always loaded) */
+    public static final ItemType WEAPONRY [][] = {
+        {},
+        {ItemType.SNIPER_RIFLE, ItemType.SHOCK_RIFLE},
+        {ItemType.FLAK_CANNON, ItemType.MINIGUN, ItemType.SHOCK_RIFLE},
+        {ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN, ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER,
+         ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE, ItemType.LIGHTNING_GUN}
+    };
+
+    /** Names of the enemy arsenal vectors */
+    public static final String ARSENAL_NAMES [] = {"default", "lightning+shock", "flak+link", "full"};
+
+    /** Enemy arsenal vectors (indexed as in EnemyInfo) */
+    public static final boolean ARSENALS [][] = {
+        {true, true, false, false, false, false, false, false, false},
+        {true, true, false, false, false, false, false, true, true},
+        {true, true, false, true, false, true, false, false, false},
+        {true, true, true, true, true, true, true, true, true}
+    };
+
+    /** Health bands: critical, low, normal and overcharged */
+    public static final int HEALTH [] = {25, 55, 110, 150};
+
+    /** Distances to the enemy: close, average, far and very far */
+    public static final double DISTANCE [] = {300, 900, 1400, 2500};
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Builds a weaponry that only answers which weapons are loaded.
+     * @param combination Index in WEAPONRY.
+     * @return The weaponry.
+     */
+    public static Weaponry weaponry (int combination) {
+        FixedWeaponry weaponry = allocate (FixedWeaponry.class);
+        weaponry.loaded = new HashSet <ItemType> ();
+        weaponry.loaded.add (ItemType.SHIELD_GUN);
+        weaponry.loaded.add (ItemType.ASSAULT_RIFLE);
+
+        for (ItemType type : WEAPONRY [combination]) {
+            weaponry.loaded.add (type);
+        }
+
+        return weaponry;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weapons of a weaponry combination as WeaponKnowledge.getLoadedMask
+     * returns them.
+     * @param combination Index in WEAPONRY.
+     * @return Mask of the loaded weapons.
+     */
+    public static int loadedMask (int combination) {
+        int mask = (1 << WeaponKnowledge.getWeapon (ItemType.SHIELD_GUN)) | (1 << WeaponKnowledge.getWeapon (ItemType.ASSAULT_RIFLE));
+
+        for (ItemType type : WEAPONRY [combination]) {
+            if (WeaponKnowledge.getWeapon (type) != -1) {
+                mask |= 1 << WeaponKnowledge.getWeapon (type);
+            }
+        }
+
+        return mask;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the agent information of a bot standing at the origin.
+     * @param health Bot's health.
+     * @return The agent information.
+     */
+    public static AgentInfo info (int health) {
+        FixedAgentInfo info = allocate (FixedAgentInfo.class);
+        info.health = health;
+        info.location = new Location (0, 0, 0);
+
+        return info;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the game information.
+     * @param time Current game time.
+     * @return The game information.
+     */
+    public static Game game (double time) {
+        FixedGame game = allocate (FixedGame.class);
+        game.time = time;
+
+        return game;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds an enemy in sight.
+     * @param distance Distance from the origin.
+     * @return The enemy.
+     */
+    public static Player enemy (double distance) {
+        return new PlayerMessage (UnrealId.get ("DM-Bench.xPawn0"), "", "Enemy", "", true, new Rotation (0, 0, 0),
+                                  new Location (distance, 0, 0), new Velocity (0, 0, 0), 255, "XWeapons.FlakCannon", true, 0);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the guessed information about the enemy.
+     * @param health Enemy's health.
+     * @param arsenal Index in ARSENALS.
+     * @return The enemy information.
+     */
+    public static EnemyInfo enemyInfo (int health, int arsenal) {
+        return new EnemyInfo (health, 0, ARSENALS [arsenal].clone ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Creates an instance without running its constructors, Pogamut modules
+     * can't be built without a connected bot and the fixtures don't need one.
+     * @param type Class to be instantiated.
+     * @return The instance (its fields are not initialized).
+     */
+    @SuppressWarnings ("unchecked")
+    private static <T> T allocate (Class <T> type) {
+        try {
+            Class <?> factoryClass = Class.forName ("sun.reflect.ReflectionFactory");
+            Object factory = factoryClass.getMethod ("getReflectionFactory").invoke (null);
+            Constructor <?> constructor = (Constructor <?>) factoryClass
+                .getMethod ("newConstructorForSerialization", Class.class, Constructor.class)
+                .invoke (factory, type, Object.class.getDeclaredConstructor ());
+
+            return (T) constructor.newInstance ();
+        }
+        catch (Exception e) {
+            throw new IllegalStateException ("Can't allocate " + type.getName (), e);
+        }
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Weaponry with a fixed set of loaded weapons.
+     */
+    private static class FixedWeaponry extends Weaponry {
+        private Set <ItemType> loaded;
+
+        private FixedWeaponry () {
+            super (null);
+        }
+
+        @Override
+        public boolean hasLoadedWeapon (ItemType type) {
+            return loaded.contains (type);
+        }
+
+        @Override
+        public boolean hasWeapon (ItemType type) {
+            return loaded.contains (type);
+        }
+
+        @Override
+        public boolean isLoaded (ItemType type) {
+            return loaded.contains (type);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Agent information with a fixed health and location.
+     */
+    private static class FixedAgentInfo extends AgentInfo {
+        // Boxed once, as the Self message keeps it, so reading it doesn't allocate
+        private Integer health;
+        private Location location;
+
+        private FixedAgentInfo () {
+            super (null);
+        }
+
+        @Override
+        public Integer getHealth () {
+            return health;
+        }
+
+        @Override
+        public Location getLocation () {
+            return location;
+        }
+
+        @Override
+        public Double getDistance (ILocated target) {
+            return location.getDistance (target.getLocation ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game information with a fixed time.
+     */
+    private static class FixedGame extends Game {
+        private double time;
+
+        private FixedGame () {
+            super (null);
+        }
+
+        @Override
+        public double getTime () {
+            return time;
+        }
+    }
+}
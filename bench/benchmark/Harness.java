@@ -0,0 +1,213 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class Harness {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Milliseconds each iteration lasts (approximately) */
+    private long iterationMillis;
+    /** Number of warm up iterations */
+    private int warmUpIterations;
+    /** Number of measured iterations */
+    private int iterations;
+    /** Only benchmarks whose name contains this string are run (null runs all of them) */
+    private String filter;
+    /** Thread MX bean used to count allocated bytes */
+    private ThreadMXBean threads;
+    /** ThreadMXBean.getThreadAllocatedBytes (long), null if the JVM doesn't have it */
+    private Method allocatedBytes;
+    /** Bytes allocated by reading the allocation counter (subtracted from every measure) */
+    private long counterOverhead = 0;
+    /** Benchmarks that had to be allocation free and allocated (one line each) */
+    private List <String> failures = new ArrayList <String> ();
+    /** Results are folded here so the JIT can't discard the benchmarked code */
+    public static volatile long sink;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Piece of code to be measured.
+     */
+    public interface Benchmark {
+        /**
+         * Runs the code under measurement.
+         * @param operations Number of times the code must be run.
+         * @return Any value that depends on the results (it is consumed by
+         * the harness so that the code isn't optimized away).
+         */
+        long run (int operations);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor.
+     * @param iterationMillis Milliseconds each iteration lasts.
+     * @param warmUpIterations Number of warm up iterations.
+     * @param iterations Number of measured iterations.
+     * @param filter Only benchmarks whose name contains it are run (null runs all).
+     */
+    public Harness (final long iterationMillis, final int warmUpIterations, final int iterations, final String filter) {
+        this.iterationMillis = iterationMillis;
+        this.warmUpIterations = warmUpIterations;
+        this.iterations = iterations;
+        this.filter = filter;
+
+        threads = ManagementFactory.getThreadMXBean ();
+        try {
+            // Only HotSpot (6u25 and later) exposes allocation counters
+            allocatedBytes = Class.forName ("com.sun.management.ThreadMXBean").getMethod ("getThreadAllocatedBytes", long.class);
+            allocatedBytes.invoke (threads, Thread.currentThread ().getId ());
+        }
+        catch (Exception e) {
+            allocatedBytes = null;
+        }
+
+        // The reflective call boxes its argument and its result, measure it
+        // once its accessor is settled so it can be subtracted
+        if (allocatedBytes != null) {
+            for (int i = 0; i < 64; ++i) {
+                getAllocatedBytes ();
+            }
+
+            counterOverhead = Long.MAX_VALUE;
+            for (int i = 0; i < 16; ++i) {
+                long before = getAllocatedBytes ();
+                counterOverhead = Math.min (counterOverhead, getAllocatedBytes () - before);
+            }
+        }
+
+        System.out.println (String.format ("%-24s %-52s %12s %10s %10s", "Benchmark", "(params)", "ns/op", "error", "B/op"));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Measures a benchmark and prints a line with the results: mean time per
+     * operation, 99.9% error and allocated bytes per operation.
+     * @param name Name of the benchmark.
+     * @param params Description of the parameters used.
+     * @param benchmark Code to be measured.
+     * @return Allocated bytes per operation, NaN if the benchmark didn't run
+     * or the JVM doesn't count them.
+     */
+    public double measure (final String name, final String params, final Benchmark benchmark) {
+        if (filter != null && !(name + " " + params).contains (filter)) {
+            return Double.NaN;
+        }
+
+        // Calibrate the number of operations per iteration
+        int operations = 1;
+        long elapsed;
+        do {
+            operations *= 2;
+            long start = System.nanoTime ();
+            sink += benchmark.run (operations);
+            elapsed = System.nanoTime () - start;
+        } while (elapsed < iterationMillis * 1000000L / 10 && operations < (1 << 28));
+
+        operations = (int) Math.max (1, Math.min (Integer.MAX_VALUE, operations * (iterationMillis * 1000000L / Math.max (elapsed, 1))));
+
+        for (int i = 0; i < warmUpIterations; ++i) {
+            sink += benchmark.run (operations);
+        }
+
+        double score [] = new double [iterations];
+        long bytes = getAllocatedBytes ();
+
+        for (int i = 0; i < iterations; ++i) {
+            long start = System.nanoTime ();
+            sink += benchmark.run (operations);
+            score [i] = (System.nanoTime () - start) / (double) operations;
+        }
+
+        bytes = Math.max (0, getAllocatedBytes () - bytes - counterOverhead);
+
+        double mean = 0;
+        for (int i = 0; i < iterations; ++i) {
+            mean += score [i];
+        }
+        mean /= iterations;
+
+        double variance = 0;
+        for (int i = 0; i < iterations; ++i) {
+            variance += (score [i] - mean) * (score [i] - mean);
+        }
+        variance /= Math.max (iterations - 1, 1);
+
+        // 3.29 is the z value for a 99.9% confidence interval
+        double error = 3.29 * Math.sqrt (variance / iterations);
+        double bytesPerOperation = allocatedBytes == null ? Double.NaN : bytes / ((double) operations * iterations);
+        String allocation = allocatedBytes == null ? "n/a" : String.format ("%.2f", bytesPerOperation);
+
+        System.out.println (String.format ("%-24s %-52s %12.2f %10.2f %10s", name, params, mean, error, allocation));
+
+        return bytesPerOperation;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Measures a benchmark that mustn't allocate anything (see measure). If
+     * it allocates it is reported as a failure (see getFailures).
+     * @param name Name of the benchmark.
+     * @param params Description of the parameters used.
+     * @param benchmark Code to be measured.
+     */
+    public void measureAllocationFree (final String name, final String params, final Benchmark benchmark) {
+        double bytesPerOperation = measure (name, params, benchmark);
+
+        if (bytesPerOperation > 0) {
+            failures.add (String.format ("%s %s allocates %.2f B/op", name, params, bytesPerOperation));
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Benchmarks measured with measureAllocationFree that allocated.
+     * @return One line per benchmark.
+     */
+    public List <String> getFailures () {
+        return failures;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Bytes allocated by the current thread so far.
+     * @return Allocated bytes or -1 if the JVM doesn't track them.
+     */
+    private long getAllocatedBytes () {
+        if (allocatedBytes == null) {
+            return -1;
+        }
+
+        try {
+            return ((Long) allocatedBytes.invoke (threads, Thread.currentThread ().getId ())).longValue ();
+        }
+        catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package behaviour.primaryStates;
 
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
 import cz.cuni.amis.pogamut.base.communication.command.IAct;
@@ -18,9 +19,7 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.bot.command.ImprovedShooting;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
-import java.util.Random;
 
 
 /**
@@ -40,6 +39,17 @@ public class Attack extends PrimaryState {
     private boolean pendulum;
 
 
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Direction of a dodge to the left (move.dodge only reads it) */
+    private static final Location DODGE_LEFT = new Location (0, -1, 0);
+    /** Direction of a dodge to the right (move.dodge only reads it) */
+    private static final Location DODGE_RIGHT = new Location (0, 1, 0);
+
+
     // *************************************************************************
     //                                  METHODS
     // *************************************************************************
@@ -60,14 +70,15 @@ public class Attack extends PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     public Attack (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                    final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                    final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                    final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                   final ImprovedShooting shoot) {
+                   final ImprovedShooting shoot, final BotContext context) {
 
-        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
     }
 
     //__________________________________________________________________________
@@ -76,21 +87,20 @@ public class Attack extends PrimaryState {
      * Makes the bot move randomly. If we are seeing an enemy, the bot will dodge
      * and strafe randomly. If we are not seeing an enemy the bot will strafe from
      * left to right like a pendulum.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location that the bot has to face.
-     * @param enemyInfo Guess/Known information about the enemy.
      */
-    public void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot) {
 
-        if (crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            crouched = false;
+            context.crouched = false;
         }
 
-        if (enemy != null) {
+        if (snapshot.isEnemyVisible ()) {
             Location focus = facingSpot;
             if (focus == null) {
-                focus = enemy.getLocation ();
+                focus = snapshot.getEnemyLocation ();
             }
 
             if (pathExecutor.isExecuting()) {
@@ -99,11 +109,10 @@ public class Attack extends PrimaryState {
 
             if (!raycasting.getAllRaysInitialized().getFlag()) return;
 
-            double eastDistance = info.getDistance(cardinalRayArray [EAST].getHitLocation());
-            double westDistance = info.getDistance(cardinalRayArray [WEST].getHitLocation());
+            double eastDistance = snapshot.getDistance(cardinalRayArray [EAST].getHitLocation());
+            double westDistance = snapshot.getDistance(cardinalRayArray [WEST].getHitLocation());
 
-            Random rand = new Random();
-            int chance = rand.nextInt(100);
+            int chance = context.random.nextInt (100);
             if (chance < 30) {
                 if (westDistance > 200) {
                     move.strafeLeft(200, focus);
@@ -122,18 +131,18 @@ public class Attack extends PrimaryState {
             }
             else if (chance < 80) {
                 if (westDistance > 400) {
-                    move.dodge (new Location (0, -1, 0), false);
+                    move.dodge (DODGE_LEFT, false);
                 }
                 else {
-                    move.dodge (new Location (0, 1, 0), false);
+                    move.dodge (DODGE_RIGHT, false);
                 }
             }
             else if (chance < 100) {
                 if (eastDistance > 400) {
-                    move.dodge (new Location (0, 1, 0), false);
+                    move.dodge (DODGE_RIGHT, false);
                 }
                 else {
-                    move.dodge (new Location (0, -1, 0), false);
+                    move.dodge (DODGE_LEFT, false);
                 }
             }
         }
@@ -144,8 +153,8 @@ public class Attack extends PrimaryState {
 
             if (!raycasting.getAllRaysInitialized().getFlag()) return;
 
-            double eastDistance = info.getDistance(cardinalRayArray [EAST].getHitLocation());
-            double westDistance = info.getDistance(cardinalRayArray [WEST].getHitLocation());
+            double eastDistance = snapshot.getDistance(cardinalRayArray [EAST].getHitLocation());
+            double westDistance = snapshot.getDistance(cardinalRayArray [WEST].getHitLocation());
 
             // Pendulum tells us where to strafe
             if (!pendulum) {
@@ -1,6 +1,7 @@
 package behaviour.primaryStates;
 
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.WorldSnapshot;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
 import cz.cuni.amis.pogamut.base.communication.command.IAct;
 import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
@@ -17,7 +18,6 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.bot.command.ImprovedShooting;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 
 /**
@@ -47,27 +47,27 @@ public class Camp extends PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     public Camp (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                     final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                     final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                     final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                    final ImprovedShooting shoot) {
+                    final ImprovedShooting shoot, final BotContext context) {
 
-        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Makes the bot crouch. It crouches to improve his shooting and camp easily.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location that the bot has to face.
-     * @param enemyInfo Guess/Known information about the enemy.
      */
-    public void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot) {
 
-        if (!crouched) {
+        if (!context.crouched) {
             if (pathExecutor.isExecuting()) {
                 pathExecutor.stop ();
             }
@@ -76,11 +76,11 @@ public class Camp extends PrimaryState {
             }
 
             act.act(new SetCrouch ().setCrouch(true));
-            crouched = true;
+            context.crouched = true;
         }
 
-        if (enemy != null) {
-            move.turnTo(enemy);
+        if (snapshot.isEnemyVisible ()) {
+            move.turnTo(snapshot.getEnemy ());
         }
     }
 
@@ -1,9 +1,12 @@
 package behaviour.primaryStates;
 
 import behaviour.secondaryStates.SecondaryState;
-import bot.Bot;
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.WorldSnapshot;
+import knowledge.ItemValuation;
+import knowledge.SpawnedItems;
 import utilities.Arithmetic;
+import utilities.NavigationDistances;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -12,7 +15,6 @@ import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
 import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
 import cz.cuni.amis.pogamut.unreal.agent.navigation.IUnrealPathExecutor;
-import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Raycasting;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
@@ -22,13 +24,9 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.AdvancedLocomotion;
 import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.bot.command.ImprovedShooting;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType.Category;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
-
-import java.util.Map;
 
 
 /**
@@ -46,6 +44,17 @@ public class Greedy extends PrimaryState {
 
     /** Priority of execution (usefull to know when to interrupt the execution) */
     private int executionPriority = 0;
+    /** How bad we need every item */
+    private ItemValuation itemValuation;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Every item category (values () builds a new array on every call) */
+    private static final ItemType.Category CATEGORIES [] = ItemType.Category.values ();
 
 
     // *************************************************************************
@@ -68,55 +77,67 @@ public class Greedy extends PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     public Greedy (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                      final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                      final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                      final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                     final ImprovedShooting shoot) {
+                     final ImprovedShooting shoot, final BotContext context) {
+
+        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
 
-        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        itemValuation = ItemValuation.greedy ();
     }
 
     //__________________________________________________________________________
 
     /**
      * Keeps the bot walking to the closests path nodes until he finds items. He
-     * will start picking up items based on how bad he needs them.
-     * @param enemy Enemy.
+     * will start picking up items based on how bad he needs them, and he heads
+     * for the items worth timing that respawn about when he would get there.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location that we want to make the bot face.
-     * @param enemyInfo Guess/Known information about the enemy.
      */
-    public void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot) {
 
-        if (crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            crouched = false;
+            context.crouched = false;
         }
 
-        Map <UnrealId, Item> visibleItems = items.getVisibleItems ();
+        Location newDestination = null;
+        int maximumPriority = -1;
+        int itemPriority = 0;
 
-        // If we can see items, lets see which one is the one that suit us the best
-        if (!visibleItems.isEmpty ()) {
-            Location newDestination = null;
+        double maximumPriorityDistance = Arithmetic.INFINITY;
+        double itemPriorityDistance = 0;
 
-            int maximumPriority = -1;
-            int itemPriority = 0;
+        itemValuation.update (weaponry);
 
-            double maximumPriorityDistance = Arithmetic.INFINITY;
-            double itemPriorityDistance = 0;
+        // If we can see items, lets see which one is the one that suit us the best.
+        // The items on sight are spawned, so we look for them in the index of
+        // spawned items instead of building a view of the visible items every
+        // tick (the items dropped by dead players aren't in the index)
+        SpawnedItems spawnedItems = context.spawnedItems;
+        for (ItemType.Category category : CATEGORIES) {
+            int count = spawnedItems.getCount (category);
+            for (int i = 0; i < count; ++i) {
+                Item item = spawnedItems.getItem (category, i);
+                if (!item.isVisible ()) {
+                    continue;
+                }
 
-            for (Item item : visibleItems.values()) {
-                itemPriority = estimateItemPriority (item, info, weaponry);
+                itemPriority = estimateItemPriority (item, snapshot.getHealth ());
                 Location itemLocation = item.getLocation();
 
                 if (itemPriority > maximumPriority) {
-                    maximumPriorityDistance = info.getDistance (itemLocation);
+                    maximumPriorityDistance = snapshot.getDistance (itemLocation);
                     maximumPriority = itemPriority;
                     newDestination = itemLocation;
                 }
                 else if (itemPriority == maximumPriority) {
-                    itemPriorityDistance = info.getDistance (itemLocation);
+                    itemPriorityDistance = snapshot.getDistance (itemLocation);
                     if (itemPriorityDistance < maximumPriorityDistance) {
                         maximumPriorityDistance = itemPriorityDistance;
                         maximumPriority = itemPriority;
@@ -124,44 +145,68 @@ public class Greedy extends PrimaryState {
                     }
                 }
             }
+        }
 
-            // If we can see an item that is more important than the one we are
-            // going for, recalculate path
-            if (maximumPriority > executionPriority && newDestination != null) {
-                executionPriority = maximumPriority;
+        // An item worth timing that respawns about when we would get there
+        // beats the visible ones it is more important than
+        NavigationDistances distances = context.navigationDistances;
+        int botNode = -1;
+        for (ItemType type : SpawnedItems.TIMED_ITEMS) {
+            Item item = spawnedItems.getNextRespawn (type);
 
-                IPathFuture <ILocated> pathHandle = pathPlanner.computePath (info.getLocation(), newDestination);
+            if (item != null) {
+                itemPriority = estimateItemPriority (item, snapshot.getHealth ());
 
-                if (pathExecutor.isExecuting ()) {
-                    pathExecutor.stop ();
+                if (itemPriority > maximumPriority) {
+                    if (botNode == -1) {
+                        botNode = distances.getNode (snapshot.getLocation ());
+                    }
+                    double travelTime = distances.getDistance (botNode, snapshot.getLocation (), item) / SpawnedItems.RUN_SPEED;
+
+                    if (spawnedItems.getSlack (item, snapshot.getTime (), travelTime) <= SpawnedItems.TIMING_WINDOW) {
+                        maximumPriority = itemPriority;
+                        newDestination = item.getLocation ();
+                    }
                 }
+            }
+        }
+
+        // If we have found an item that is more important than the one we are
+        // going for, recalculate path
+        if (maximumPriority > executionPriority && newDestination != null) {
+            executionPriority = maximumPriority;
+
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath (snapshot.getLocation(), newDestination);
 
-                pathExecutor.followPath (pathHandle);
+            if (pathExecutor.isExecuting ()) {
+                pathExecutor.stop ();
             }
+
+            pathExecutor.followPath (pathHandle);
         }
         // If we can't see any items and the pathExecutor is not executing, then,
         // move to the closest spot we haven't recently visited
         if (!pathExecutor.isExecuting ()) {
-            Location newDestination = null;
+            newDestination = null;
             double minimumDistance = Arithmetic.INFINITY;
             double currentDistance = 0;
 
-            for (int i = 0; i < Bot.pathNodes.length; ++i) {
-                currentDistance = info.getDistance (Bot.pathNodes [i].getLocation ());
+            for (int i = 0; i < context.pathNodes.length; ++i) {
+                currentDistance = snapshot.getDistance (context.pathNodes [i].getLocation ());
 
-                if (currentDistance < minimumDistance && !visitedSpots.contains (Bot.pathNodes [i].getLocation ())) {
-                    newDestination = Bot.pathNodes [i].getLocation ();
+                if (currentDistance < minimumDistance && !context.visitedSpots.contains (context.pathNodes [i].getLocation ())) {
+                    newDestination = context.pathNodes [i].getLocation ();
                 }
             }
 
-            if (visitedSpots.size () == 5) {
-                visitedSpots.remove (0);
+            if (context.visitedSpots.size () == 5) {
+                context.visitedSpots.remove (0);
             }
 
-            visitedSpots.add (newDestination);
+            context.visitedSpots.add (newDestination);
             executionPriority = 1;
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath (info.getLocation (), newDestination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath (snapshot.getLocation (), newDestination);
             pathExecutor.followPath (pathHandle);
         }
     }
@@ -194,371 +239,15 @@ public class Greedy extends PrimaryState {
     //__________________________________________________________________________
 
     /**
-     * Estimate the priority of an item based on our status.
+     * Estimate the priority of an item based on our status (the item valuation
+     * must be up to date with our weaponry).
      * @param item Item we want to evaluate.
-     * @param info Agent information.
-     * @param weaponry Weaponry that we are carrying.
+     * @param health Our health.
      * @return -1 if the item isn't in the list of items considered or else, a value between
      * 0 and 100 indicating how good the item is.
      */
-    protected int estimateItemPriority (final Item item, final AgentInfo info, final Weaponry weaponry) {
-        ItemType type = item.getType();
-        int health = info.getHealth();
-        int priority = 0;
-
-        if (type.equals(ItemType.MINI_HEALTH_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 90;
-            }
-            else if (health < 100) {
-                priority = 65;
-            }
-            else if (health < 150) {
-                priority = 75;
-            }
-            else {
-                priority = 65;
-            }
-        }
-        else if (type.equals(ItemType.HEALTH_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 95;
-            }
-            else if (health < 100) {
-                priority = 75;
-            }
-            else {
-                priority = 0;
-            }
-        }
-        else if (type.equals(ItemType.SUPER_SHIELD_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 99;
-            }
-            else if (health < 100) {
-                priority = 99;
-            }
-            else if (health < 150) {
-                priority = 99;
-            }
-            else {
-                priority = 99;
-            }
-        }
-        else if (type.equals(ItemType.SHIELD_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 85;
-            }
-            else if (health < 100) {
-                priority = 98;
-            }
-            else if (health < 150) {
-                priority = 98;
-            }
-            else {
-                priority = 98;
-            }
-        }
-        else if (type.equals (ItemType.U_DAMAGE_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 100;
-            }
-            else if (health < 100) {
-                priority = 100;
-            }
-            else if (health < 150) {
-                priority = 100;
-            }
-            else {
-                priority = 100;
-            }
-        }
-        else if (type.equals (ItemType.ADRENALINE_PACK)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 40;
-            }
-            else if (health < 100) {
-                priority = 40;
-            }
-            else if (health < 150) {
-                priority = 40;
-            }
-            else {
-                priority = 40;
-            }
-        }
-        else if (type.getCategory().equals(Category.AMMO)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                priority = 20;
-            }
-            else if (health < 100) {
-                priority = 20;
-            }
-            else if (health < 150) {
-                priority = 20;
-            }
-            else {
-                priority = 20;
-            }
-        }
-        else if (type.equals (ItemType.BIO_RIFLE)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 50;
-                }
-                else {
-                    priority = 25;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 55;
-                }
-                else {
-                    priority = 25;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 60;
-                }
-                else {
-                    priority = 35;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 60;
-                }
-                else {
-                    priority = 35;
-                }
-            }
-        }
-        else if (type.equals (ItemType.LINK_GUN)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 55;
-                }
-                else {
-                    priority = 30;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 60;
-                }
-                else {
-                    priority = 35;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 65;
-                }
-                else {
-                    priority = 40;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 70;
-                }
-                else {
-                    priority = 45;
-                }
-            }
-        }
-        else if (type.equals (ItemType.MINIGUN)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 65;
-                }
-                else {
-                    priority = 40;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 80;
-                }
-                else {
-                    priority = 55;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 80;
-                }
-                else {
-                    priority = 55;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 80;
-                }
-                else {
-                    priority = 55;
-                }
-            }
-        }
-        else if (type.equals (ItemType.FLAK_CANNON)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 70;
-                }
-                else {
-                    priority = 45;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 85;
-                }
-                else {
-                    priority = 60;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 85;
-                }
-                else {
-                    priority = 60;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 85;
-                }
-                else {
-                    priority = 60;
-                }
-            }
-        }
-        else if (type.equals (ItemType.ROCKET_LAUNCHER)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 60;
-                }
-                else {
-                    priority = 35;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 70;
-                }
-                else {
-                    priority = 45;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 70;
-                }
-                else {
-                    priority = 45;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 75;
-                }
-                else {
-                    priority = 50;
-                }
-            }
-        }
-        else if (type.equals (ItemType.SHOCK_RIFLE)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 80;
-                }
-                else {
-                    priority = 55;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 95;
-                }
-                else {
-                    priority = 80;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 95;
-                }
-                else {
-                    priority = 80;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 95;
-                }
-                else {
-                    priority = 80;
-                }
-            }
-        }
-        else if (type.equals (ItemType.SNIPER_RIFLE) || type.equals(ItemType.LIGHTNING_GUN)) {
-            // Critical health, just a single shot of sniper can kill us
-            if (health < 70) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 75;
-                }
-                else {
-                    priority = 50;
-                }
-            }
-            else if (health < 100) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 90;
-                }
-                else {
-                    priority = 65;
-                }
-            }
-            else if (health < 150) {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 90;
-                }
-                else {
-                    priority = 65;
-                }
-            }
-            else {
-                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
-                    priority = 90;
-                }
-                else {
-                    priority = 65;
-                }
-            }
-        }
-        else {
-            priority = -1;
-        }
-
-
-        return priority;
+    protected int estimateItemPriority (final Item item, final int health) {
+        return itemValuation.getPriority (item.getType (), health);
     }
 
     //__________________________________________________________________________
@@ -1,7 +1,7 @@
 package behaviour.primaryStates;
 
-import bot.Bot;
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.WorldSnapshot;
 import utilities.Arithmetic;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
@@ -21,9 +21,7 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.bot.command.ImprovedShooting;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
-import java.util.Random;
 
 
 /**
@@ -55,14 +53,15 @@ public class Hunt extends PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     public Hunt (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                   final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                   final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                   final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                  final ImprovedShooting shoot) {
+                  final ImprovedShooting shoot, final BotContext context) {
 
-        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
     }
 
     //__________________________________________________________________________
@@ -74,45 +73,44 @@ public class Hunt extends PrimaryState {
      * triggered where enemyInfo will update the last known position of the enemy; Because
      * this position has changed the hunt state will recalculate the path to this new
      * location.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location that the bot has to face.
-     * @param enemyInfo Guess/Known information about the enemy.
      */
-    public void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot) {
 
-        if (crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            crouched = false;
+            context.crouched = false;
         }
 
-        Location enemyLocation = enemyInfo.getLastKnownLocation ();
+        Location enemyLocation = snapshot.getLastKnownEnemyLocation ();
 
         // If we have intel about the enemy's location and this location is not
         // where we are headed
-        if (enemyLocation != null && !enemyLocation.equals (stateDrivenDestination)) {
-            double lastEncounter = enemyInfo.getLastTimeMet();
-            double elapsedTime = Math.abs (lastEncounter - game.getTime ());
+        if (enemyLocation != null && !enemyLocation.equals (context.stateDrivenDestination)) {
+            double lastEncounter = snapshot.getLastTimeMet();
+            double elapsedTime = Math.abs (lastEncounter - snapshot.getTime ());
 
             // If the intel is fresh
             if (elapsedTime < 10) {
                 // Set the destination to where we think the enemy is
-                stateDrivenDestination = enemyLocation;
+                context.stateDrivenDestination = enemyLocation;
             }
             // If the intel is not fresh
             else if (elapsedTime < 20) {
                 // Set the destination to the closest area to where we think the enemy is
-                stateDrivenDestination = Arithmetic.getClosestZone (enemyLocation);
+                context.stateDrivenDestination = Arithmetic.getClosestZone (enemyLocation, context);
             }
 
             // If the intel is old and it's not a location that we have already visited, recalculate path
-            if (stateDrivenDestination != null && !visitedSpots.contains (stateDrivenDestination)) {
-                if (visitedSpots.size () >= 1){
-                    visitedSpots.remove (0);
+            if (context.stateDrivenDestination != null && !context.visitedSpots.contains (context.stateDrivenDestination)) {
+                if (context.visitedSpots.size () >= 1){
+                    context.visitedSpots.remove (0);
                 }
 
-                visitedSpots.add (stateDrivenDestination);
+                context.visitedSpots.add (context.stateDrivenDestination);
 
-                IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), stateDrivenDestination);
+                IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.stateDrivenDestination);
 
                 if (pathExecutor.isExecuting()) {
                     pathExecutor.stop ();
@@ -127,27 +125,26 @@ public class Hunt extends PrimaryState {
         // If we have reached a destination and we don't know where to go, go to
         // a random area
         if (!pathExecutor.isExecuting()) {
-            Random rand = new Random();
             Location newDestination = null;
             int pos = 0;
 
             boolean success = false;
             while (!success) {
-                pos = rand.nextInt(Bot.areas.length);
-                if (!visitedSpots.contains (Bot.areas [pos].getLocation ())) {
+                pos = context.random.nextInt (context.areas.length);
+                if (!context.visitedSpots.contains (context.areas [pos].getLocation ())) {
                     success = true;
-                    newDestination = Bot.areas [pos].getLocation ();
+                    newDestination = context.areas [pos].getLocation ();
                 }
             }
 
-            if (visitedSpots.size() >= 6) {
-                visitedSpots.remove (0);
+            if (context.visitedSpots.size() >= 6) {
+                context.visitedSpots.remove (0);
             }
 
-            stateDrivenDestination = newDestination;
-            visitedSpots.add (stateDrivenDestination);
+            context.stateDrivenDestination = newDestination;
+            context.visitedSpots.add (context.stateDrivenDestination);
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), stateDrivenDestination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.stateDrivenDestination);
             pathExecutor.followPath(pathHandle);
         }
     }
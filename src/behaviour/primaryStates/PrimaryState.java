@@ -1,7 +1,10 @@
 package behaviour.primaryStates;
 
 import behaviour.secondaryStates.SecondaryState;
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.UnrealClass;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
 import exceptions.SubStatusException;
 import utilities.Arithmetic;
 
@@ -30,10 +33,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.PlayerDamaged;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
 
 /**
  *
@@ -74,6 +73,8 @@ public abstract class PrimaryState {
     protected AutoTraceRay cardinalRayArray [];
     /** Pointer to the shoot field from T800 */
     protected ImprovedShooting shoot;
+    /** Decision context shared by all the states of the bot */
+    protected BotContext context;
 
 
     // *************************************************************************
@@ -81,37 +82,8 @@ public abstract class PrimaryState {
     // *************************************************************************
 
 
-    // FLAGS
-
-    /** Flag that indicates if we have hit with the sniper or the shock */
-    protected static boolean sniperOrShockHit;
-    /** Flag that indicates if we have to shoot a combo */
-    protected static boolean blowCombo;
-    /** Flag that indicates if we have to switch to the shock rifle */
-    protected static boolean useShockRifle;
-    /** Flag that indicates if we are going to throw a spam */
-    protected static boolean spam;
-    /** Flag that indicates if the bot is crouched */
-    public static boolean crouched;
-
-    // FIELDS
-
-    /** Location where we want to make the bot go */
-    protected static Location destination;
-    /** Location that the state is using to make the bot move */
-    protected static Location stateDrivenDestination;
-    /** Contains a list of the last places visited recently */
-    protected static List <Location> visitedSpots;
-    /** Current spot that the bot is facing */
-    protected static Location currentFacingSpot;
-    /** Game time when the bot made a rotation (as a result of a non cognitive action) */
-    protected static double rotationTime;
-    /** Collision sensors for each cardinal ray (true if any of them is hitting something) */
-    protected static boolean collisionSensorArray [];
-    /** True if there's a hit in ANY cardinal ray */
-    protected static boolean raycastingHit;
-    /** True if the bot is moving (just used for reactive movement) */
-    protected static boolean moving;
+    /** Weapon knowledge base (how good every weapon is and how to fire it) */
+    protected static WeaponKnowledge weaponKnowledge;
 
     // CONSTANTS
 
@@ -147,19 +119,7 @@ public abstract class PrimaryState {
 
     /** Static constructor */
     static {
-        destination = null;
-        stateDrivenDestination = null;
-        currentFacingSpot = null;
-        rotationTime = -1;
-        sniperOrShockHit = blowCombo = spam = useShockRifle = crouched = false;
-        raycastingHit = moving = false;
-
-        collisionSensorArray = new boolean [8];
-        for (int i = 0; i < collisionSensorArray.length; ++i) {
-            collisionSensorArray [i] = false;
-        }
-
-        visitedSpots = new ArrayList <Location> ();
+        weaponKnowledge = WeaponKnowledge.load ();
     }
 
     //__________________________________________________________________________
@@ -179,12 +139,13 @@ public abstract class PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     protected PrimaryState (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                      final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                      final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                      final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                     final ImprovedShooting shoot) {
+                     final ImprovedShooting shoot, final BotContext context) {
 
         this.body = body;
         this.act = act;
@@ -199,6 +160,7 @@ public abstract class PrimaryState {
         this.raycasting = raycasting;
         this.cardinalRayArray = cardinalRayArray;
         this.shoot = shoot;
+        this.context = context;
     }
 
 
@@ -212,30 +174,35 @@ public abstract class PrimaryState {
      * to that destination regardless of the primary and secondary state.
      * @param subState Secondary state.
      * @param newDestination Destination where we want to make the bot go.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where we want the bot to be facing.
-     * @param enemyInfo Guessed/Known information about the enemy.
      */
-    public void executeMovement (final SecondaryState subState, final Location newDestination, final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void executeMovement (final SecondaryState subState, final Location newDestination, final WorldSnapshot snapshot, final Location facingSpot) {
 
         boolean subStateError = false;
         if (subState != null && newDestination == null) {
             // Try, if it fails, capture exception and execute primary state movement
+            long start = context.decisionEvents.isEnabled () ? System.nanoTime () : 0;
             try {
-                subState.executeMovement(enemy, facingSpot);
+                subState.executeMovement(snapshot, facingSpot);
             }
             catch (SubStatusException e) {
                 subStateError = true;
+
+                if (context.decisionEvents.isEnabled ()) {
+                    context.decisionEvents.subStateFailed (toString (), subState.toString (), e.getMessage (),
+                                                           System.nanoTime () - start, snapshot.getTime ());
+                }
             }
         }
 
         // If there's not a substate or the substate can't be executed, execute
         // primary state movement
         if (subState == null || newDestination != null || subStateError == true) {
-            if (newDestination != null && (!newDestination.equals (destination) || (newDestination.equals (destination) && !pathExecutor.isExecuting()))) {
-                destination = newDestination;
+            if (newDestination != null && (!newDestination.equals (context.destination) || (newDestination.equals (context.destination) && !pathExecutor.isExecuting()))) {
+                context.destination = newDestination;
 
-                IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), destination);
+                IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.destination);
 
                 if (pathExecutor.isExecuting ()) {
                     pathExecutor.stop ();
@@ -244,16 +211,16 @@ public abstract class PrimaryState {
                 pathExecutor.followPath (pathHandle);
             }
             else if (newDestination == null) {
-                stateDrivenMovement (enemy, facingSpot, enemyInfo);
+                stateDrivenMovement (snapshot, facingSpot);
             }
         }
 
         // If the location of the spot we want to face is different from the one
         // we are facing right now and it is not null, change rotation
-        if (facingSpot != null && !facingSpot.equals (currentFacingSpot)) {
+        if (facingSpot != null && !facingSpot.equals (context.currentFacingSpot)) {
             pathExecutor.setFocus (facingSpot);
-            currentFacingSpot = facingSpot;
-            rotationTime = -1; // Por si el bot estaba en proceso de reaccion
+            context.currentFacingSpot = facingSpot;
+            context.rotationTime = -1; // Por si el bot estaba en proceso de reaccion
         }
         // If the spot that we want to face is null, check if we have to disable
         // reactive facing (happens when the bot hears a noise or gets hits; he
@@ -261,17 +228,17 @@ public abstract class PrimaryState {
         // been disabled, disable it
         // Reactive facing gets disabled after 2 seconds
         else if (facingSpot == null) {
-            if (rotationTime != -1) {
-                double elapsedTime = Math.abs (rotationTime - game.getTime());
+            if (context.rotationTime != -1) {
+                double elapsedTime = Math.abs (context.rotationTime - snapshot.getTime());
                 if (elapsedTime >= 2) {
                     pathExecutor.setFocus (null);
-                    rotationTime = -1;
+                    context.rotationTime = -1;
                 }
             }
-            else if (currentFacingSpot != null) {
+            else if (context.currentFacingSpot != null) {
                 pathExecutor.setFocus (null);
-                currentFacingSpot = null;
-                rotationTime = -1;
+                context.currentFacingSpot = null;
+                context.rotationTime = -1;
             }
         }
     }
@@ -280,11 +247,10 @@ public abstract class PrimaryState {
 
     /**
      * PrimaryState driven movement. Each state will define how the bot should move.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where we should be facing.
-     * @param enemyInfo Guessed/Known enemy information.
      */
-    protected abstract void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo);
+    protected abstract void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot);
 
     //__________________________________________________________________________
 
@@ -300,7 +266,7 @@ public abstract class PrimaryState {
         }
         else {
             //destination = null;
-            stateDrivenDestination = null;
+            context.stateDrivenDestination = null;
         }
     }
 
@@ -317,11 +283,11 @@ public abstract class PrimaryState {
             subState.stopExecution ();
         }
 
-        destination = null;
-        currentFacingSpot = null;
-        rotationTime = -1;
-        sniperOrShockHit = blowCombo = spam = useShockRifle = false;
-        visitedSpots.clear ();
+        context.destination = null;
+        context.currentFacingSpot = null;
+        context.rotationTime = -1;
+        context.sniperOrShockHit = context.blowCombo = context.spam = context.useShockRifle = false;
+        context.visitedSpots.clear ();
     }
 
     //__________________________________________________________________________
@@ -339,63 +305,64 @@ public abstract class PrimaryState {
 
     /**
      * Switches to best weapon.
-     * @param enemy Enemy.
-     * @param enemyInfo Guessed/Known information about the enemy.
+     * @param snapshot State of the world in this logic tick.
      */
-    public void switchToBestWeapon (final Player enemy, final EnemyInfo enemyInfo) {
-        Map <ItemType, Weapon> arsenal;
-        int distanceAdvantage = 0, maximum = 0;
-        Weapon selectedWeapon = null;
-
-        // Get all weapons
-        arsenal = weaponry.getWeapons ();
-
+    public void switchToBestWeapon (final WorldSnapshot snapshot) {
         // If we have hit with sniper or shock, switch to shock rifle
-        if (sniperOrShockHit && weaponry.hasPrimaryWeaponAmmo(ItemType.SHOCK_RIFLE)) {
-            weaponry.changeWeapon (ItemType.SHOCK_RIFLE);
-            useShockRifle = true;
+        if (context.sniperOrShockHit && weaponry.hasPrimaryWeaponAmmo(ItemType.SHOCK_RIFLE)) {
+            changeWeapon (ItemType.SHOCK_RIFLE, snapshot);
+            context.useShockRifle = true;
         }
-        else if (blowCombo && weaponry.hasWeapon(ItemType.SHOCK_RIFLE) && weaponry.getAmmo(ItemType.SHOCK_RIFLE) >= 5) {
-            weaponry.changeWeapon (ItemType.SHOCK_RIFLE);
+        else if (context.blowCombo && weaponry.hasWeapon(ItemType.SHOCK_RIFLE) && weaponry.getAmmo(ItemType.SHOCK_RIFLE) >= 5) {
+            changeWeapon (ItemType.SHOCK_RIFLE, snapshot);
         }
         else {
-            for (Weapon currentWeapon : arsenal.values ()) {
-                if (currentWeapon.getAmmo() > 0) {
-                    // Estimate the advantage this weapon has based on the distance to the enemy
-                    distanceAdvantage = estimateWeaponAdvantage (currentWeapon, enemy, enemyInfo);
-
-                    if (distanceAdvantage > maximum) {
-                        maximum = distanceAdvantage;
-                        selectedWeapon = currentWeapon;
-                    }
-                }
-            }
+            int selectedWeapon = estimateBestWeapon (weaponKnowledge, WeaponKnowledge.getLoadedMask (weaponry), context.spam, snapshot);
 
-            if (selectedWeapon != null) {
+            if (selectedWeapon != -1) {
                 Weapon currentWeapon = weaponry.getCurrentWeapon();
-                if (!currentWeapon.equals(selectedWeapon)) {
-                    weaponry.changeWeapon(selectedWeapon);
+                if (currentWeapon == null || !currentWeapon.getType ().equals (WeaponKnowledge.WEAPONS [selectedWeapon])) {
+                    changeWeapon (WeaponKnowledge.WEAPONS [selectedWeapon], snapshot);
                 }
             }
         }
 
-        sniperOrShockHit = false;
+        context.sniperOrShockHit = false;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Switches to a weapon and tells the decision listeners if it is a
+     * different one from the weapon we are holding.
+     * @param weapon Weapon.
+     * @param snapshot State of the world in this logic tick.
+     */
+    protected void changeWeapon (final ItemType weapon, final WorldSnapshot snapshot) {
+        Weapon currentWeapon = weaponry.getCurrentWeapon ();
+        ItemType current = currentWeapon != null ? currentWeapon.getType () : null;
+
+        weaponry.changeWeapon (weapon);
+
+        if (!weapon.equals (current)) {
+            context.decisionEvents.weaponSwitched (current, weapon, snapshot.getTime ());
+        }
     }
 
     //__________________________________________________________________________
 
     /**
      * Shoots an enemy if he is on sight or a target if we specify it.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param bullseye Target, it could be a combo or a spam location.
      */
-    public void engage (final Player enemy, final Location bullseye) {
+    public void engage (final WorldSnapshot snapshot, final Location bullseye) {
         Weapon currentWeapon = weaponry.getCurrentWeapon();
-        ItemType weaponType = currentWeapon.getType();
+        int weapon = WeaponKnowledge.getWeapon (currentWeapon.getType());
 
         if (bullseye != null) {
             // IF THE TARGET IS A COMBO
-            if (blowCombo) {
+            if (context.blowCombo) {
                 //body.getCommunication().sendGlobalTextMessage("engage = intento reventar el combo");
 
                 shoot.shoot(bullseye);
@@ -404,263 +371,54 @@ public abstract class PrimaryState {
             else {
                 //body.getCommunication().sendGlobalTextMessage("engage = DISPARO UN SPAM!!!");
 
-                double bullseyeDistance = info.getDistance(bullseye);
-                int bullseyeHeight = Arithmetic.estimateHeight (info.getLocation(), bullseye);
-
-                // ASSAULT RIFLE SPAM
-
-                if(weaponType.equals(ItemType.ASSAULT_RIFLE)) {
-                    if (bullseyeDistance < CLOSE) {
-                        shoot.shootSecondaryCharged (bullseye, 1);
-                    }
-                    else if (bullseyeDistance < AVERAGE) {
-                        shoot.shootSecondaryCharged (bullseye, 2);
-                    }
-                    else {
-                        shoot.shootSecondaryCharged (bullseye, 3);
-                    }
-                }
-
-                // BIO RIFLE SPAM
-
-                else if(weaponType.equals(ItemType.BIO_RIFLE)) {
-                    if (bullseyeDistance < CLOSE) {
-                        shoot.shootSecondaryCharged (bullseye, 1.5);
-                    }
-                    else {
-                        shoot.shootSecondaryCharged (bullseye, 3);
-                    }
-                }
-
-                // LINK GUN SPAM
+                int range = estimateFireRange (snapshot.getDistance(bullseye));
+                int height = WeaponKnowledge.getHeightBand (Arithmetic.estimateHeight (snapshot.getLocation(), bullseye));
+                int action = weaponKnowledge.getSpamAction (weapon, range, height);
 
-                else if(weaponType.equals(ItemType.LINK_GUN)) {
-                    shoot.shootPrimary(bullseye);
-                }
-
-                // FLAK CANNON SPAM
-
-                else if(weaponType.equals(ItemType.FLAK_CANNON)) {
-                    if (bullseyeDistance < CLOSE) {
-                        shoot.shootPrimary (bullseye);
-                    }
-                    else if (bullseyeDistance < AVERAGE) {
-                        if (bullseyeHeight == 0) {
-                            shoot.shootPrimary (bullseye);
-                        }
-                        else if (bullseyeHeight > 0 || bullseyeHeight < 0) {
-                            shoot.shootSecondary (bullseye);
-                        }
-                    }
-                    else if (bullseyeDistance < FAR) {
-                        if (bullseyeHeight == 0 || bullseyeHeight < 0) {
-                            shoot.shootPrimary (bullseye);
-                        }
-                        else if (bullseyeHeight > 0) {
-                            shoot.shootSecondary (bullseye);
-                        }
-                    }
-                    else {
-                        shoot.shootPrimary (bullseye);
-                    }
-                }
-
-                // ROCKET LAUNCHER SPAM
-
-                else if(weaponType.equals(ItemType.ROCKET_LAUNCHER)) {
+                // Weapons that are not suitable for spamming stop shooting
+                if (action == WeaponKnowledge.PRIMARY) {
                     shoot.shootPrimary (bullseye);
                 }
-
-                // SHOCK RIFLE SPAM
-
-                else if (weaponType.equals(ItemType.SHOCK_RIFLE)) {
+                else if (action == WeaponKnowledge.SECONDARY) {
                     shoot.shootSecondary (bullseye);
                 }
-
-                // FOR ANY OF THE OTHER WEAPONS
-
-                // Stop shooting because they are not suitable for spamming
-                else {
+                else if (action == WeaponKnowledge.SECONDARY_CHARGED) {
+                    shoot.shootSecondaryCharged (bullseye, weaponKnowledge.getSpamCharge (weapon, range, height));
+                }
+                else if (action == WeaponKnowledge.STOP) {
                     shoot.stopShooting();
                 }
             }
         }
-        if(enemy != null) {
-            Location enemyLocation = enemy.getLocation();
-            double enemyDistance = info.getDistance(enemyLocation);
-            int enemyHeight = Arithmetic.estimateHeight (info.getLocation(), enemyLocation);
+        if(snapshot.isEnemyVisible ()) {
+            Player enemy = snapshot.getEnemy ();
+            int range = estimateFireRange (snapshot.getEnemyDistance ());
+            int height = WeaponKnowledge.getHeightBand (Arithmetic.estimateHeight (snapshot.getLocation(), snapshot.getEnemyLocation ()));
+            boolean secondaryAmmo = currentWeapon.getSecondaryAmmo() > 0;
+            int action = weaponKnowledge.getFireAction (weapon, range, height, secondaryAmmo);
 
             // *****************************************************************
             //                     TRADITIONAL SHOOTING
             // *****************************************************************
 
-            // SHIELD GUN
-
-            if (weaponType.equals(ItemType.SHIELD_GUN)) {
+            if (action == WeaponKnowledge.PRIMARY) {
                 shoot.shootPrimary(enemy);
             }
-
-            // ASSAULT RIFLE
-
-            else if (weaponType.equals(ItemType.ASSAULT_RIFLE)) {
-                if (enemyDistance < CLOSE) { // Enemy at a close range distance
-                    if (currentWeapon.getSecondaryAmmo() > 0) {
-                        shoot.shootPrimary(enemy);
-                    }
-                    else {
-                        shoot.shootSecondaryCharged(enemy, 2);
-
-                    }
-                }
-                else { // Enemy at an average range distance
-                    if (currentWeapon.getSecondaryAmmo() > 0) {
-                        shoot.shootPrimary(enemy);
-                    }
-                    else {
-                       shoot.shootSecondaryCharged(enemy, 3);
-                    }
-                }
-            }
-
-            // BIO RIFLE
-
-            else if (weaponType.equals(ItemType.BIO_RIFLE)) {
-                if (enemyDistance < CLOSE) { // Enemy at a close range distance
-                    shoot.shootPrimary(enemy);
-                }
-                else {
-                    shoot.shootSecondaryCharged(enemy, 3);
-                }
-            }
-
-            // LINK GUN
-
-            else if (weaponType.equals(ItemType.LINK_GUN)) {
-                if (enemyDistance < CLOSE) { // Enemy at a close range distance
-                    shoot.shootSecondary(enemy);
-                }
-                else if (enemyDistance < AVERAGE) { // Enemy at an average distance
-                    shoot.shootSecondary(enemy);
-                }
-                else {
-                    shoot.shootPrimary(enemy);
-                }
-            }
-
-            // MINIGUN
-
-            else if (weaponType.equals(ItemType.MINIGUN)) {
-                if (enemyDistance >= FAR) {
-                    shoot.shootSecondary(enemy);
-                }
-                else {
-                    shoot.shootPrimary(enemy);
-                }
-            }
-
-            // FLAK CANNON
-
-            else if (weaponType.equals(ItemType.FLAK_CANNON)) {
-                if (enemyDistance < CLOSE) { // Enemy at a close range distance
-                    shoot.shootPrimary(enemy);
-                }
-                else if (enemyDistance < AVERAGE) { // Enemy at an average range distance
-                    if (enemyHeight == 0) {
-                        if (enemyDistance < AVERAGE/2) {
-                            shoot.shootPrimary(enemy);
-                        }
-                        else {
-                            shoot.shootSecondary(enemy);
-                        }
-                    }
-                    else if (enemyHeight < 0) {
-                        shoot.shootPrimary(enemy);
-                    }
-                    else {
-                        shoot.shootSecondary(enemy);
-                    }
-                }
-                else if (enemyDistance < FAR) { // Enemy at a far range distance
-                    if (enemyHeight == 0 || enemyHeight < 0) { // Enemy at the same height
-                        shoot.shootPrimary(enemy);
-                    }
-                    else { // Enemy on a higher position
-                        shoot.shootSecondary(enemy);
-                    }
-                }
-                else if (enemyDistance >= FAR) { // Enemy at a very far range distance
-                    shoot.shootPrimary(enemy);
-                }
+            else if (action == WeaponKnowledge.SECONDARY) {
+                shoot.shootSecondary(enemy);
             }
-
-            // ROCKET LAUNCHER
-
-            else if (weaponType.equals(ItemType.ROCKET_LAUNCHER)) {
-                shoot.shootPrimary(enemy);
+            else if (action == WeaponKnowledge.SECONDARY_CHARGED) {
+                shoot.shootSecondaryCharged(enemy, weaponKnowledge.getFireCharge (weapon, range, height, secondaryAmmo));
             }
-
-            //SHOCK RIFLE
-
-            else if (weaponType.equals(ItemType.SHOCK_RIFLE)) {
-                shoot.shootPrimary(enemy);
-
-                /*
-                // If we previously hit the enemy with the shock or the sniper
-                // try again with the shock
-                if (useShockRifle) {
-                    shoot.shootPrimary (enemy);
-                }
-                else {
-                    if (enemyDistance < CLOSE) { // Enemy at a close range distance
-                        shoot.shootPrimary(enemy);
-                    }
-                    else if (enemyDistance < AVERAGE) { // Enemy at an average range distance
-                        if (enemyHeight == 0 || enemyHeight < 0) { // Enemy at the same height
-                            // 50 % combo and beam
-                            Random rand = new Random();
-                            int probabilidad = rand.nextInt(100);
-
-                            if (probabilidad < 50) {
-                                shoot.shootPrimary(enemy);
-                            }
-                            else {
-                                shoot.shootSecondary(enemy);
-                            }
-                        }
-                        else { // Enemy on a higher position
-                            shoot.shootSecondary(enemy);
-                        }
-                    }
-                    else if (enemyDistance < FAR) { // Enemy at a far range distance
-                        // 70 % beam, 30 % combo
-                        Random rand = new Random();
-                        int probabilidad = rand.nextInt(100);
-
-                        if (probabilidad < 70) {
-                            shoot.shootPrimary(enemy);
-                        }
-                        else {
-                            shoot.shootSecondary(enemy);
-                        }
-                    }
-                    else if (enemyDistance >= FAR) { // Enemy at a ver far range distance
-                        shoot.shootPrimary(enemy);
-                    }
-                }
-                */
-            }
-
-            // SNIPER RIFLE
-
-            else if (weaponType.equals(ItemType.SNIPER_RIFLE) || weaponType.equals(ItemType.LIGHTNING_GUN)) {
-                shoot.shootPrimary(enemy);
+            else if (action == WeaponKnowledge.STOP) {
+                shoot.stopShooting();
             }
         }
         else {
             shoot.stopShooting();
         }
 
-        blowCombo = spam = useShockRifle = false;
+        context.blowCombo = context.spam = context.useShockRifle = false;
     }
 
     //__________________________________________________________________________
@@ -668,598 +426,134 @@ public abstract class PrimaryState {
     /**
      * Given a weapon, it estimates how profitable it is from 0 to 100.
      * @param weapon Weapon we want estimate how good it is.
-     * @param enemy Enemy.
-     * @param enemyInfo Guess/Known information about the enemy.
+     * @param snapshot State of the world in this logic tick.
      * @return How good this weapon is from 0 to 100.
      */
-    protected int estimateWeaponAdvantage (final Weapon weapon, final Player enemy, final EnemyInfo enemyInfo) {
-        ItemType type = weapon.getType();
-        int profit = 0;
-
-        if (enemy != null) {
-            int height = Arithmetic.estimateHeight (info.getLocation(), enemy.getLocation());
-            double enemyDistance = enemy.getLocation ().getDistance (info.getLocation ());
-
-            // SHIELD GUN
-
-            if(type.equals(ItemType.SHIELD_GUN)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 5;
-                    }
-                    else if (height < 0) {
-                        profit = 1;
-                    }
-                    else {
-                        profit = 1;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 0;
-                    }
-                    else if (height < 0) {
-                        profit = 1;
-                    }
-                    else {
-                        profit = 1;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 0;
-                    }
-                    else if (height < 0) {
-                        profit = 1;
-                    }
-                    else {
-                        profit = 1;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 1;
-                    }
-                    else if (height < 0) {
-                        profit = 1;
-                    }
-                    else {
-                        profit = 1;
-                    }
-                }
-            }
+    protected int estimateWeaponAdvantage (final Weapon weapon, final WorldSnapshot snapshot) {
+        int range = 0, height = 0, enemyHealthArmor = 0;
 
-            // ASSAULT RIFLE
-
-            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 10;
-                    }
-                    else if (height < 0) {
-                        profit = 10;
-                    }
-                    else {
-                        profit = 10;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 10;
-                    }
-                    else if (height < 0) {
-                        profit = 10;
-                    }
-                    else {
-                        profit = 20;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 10;
-                    }
-                    else if (height < 0) {
-                        profit = 20;
-                    }
-                    else {
-                        profit = 30;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 10;
-                    }
-                    else if (height < 0) {
-                        profit = 30;
-                    }
-                    else {
-                        profit = 30;
-                    }
-                }
-            }
+        if (snapshot.isEnemyVisible ()) {
+            range = estimateRange (snapshot.getEnemyDistance ());
+            height = WeaponKnowledge.getHeightBand (Arithmetic.estimateHeight (snapshot.getLocation (), snapshot.getEnemyLocation ()));
+            enemyHealthArmor = snapshot.getEnemyHealthArmor ();
+        }
 
-            // BIO RIFLE
-
-            else if (type.equals(ItemType.BIO_RIFLE)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 20;
-                    }
-                    else if (height < 0) {
-                        profit = 50;
-                    }
-                    else {
-                        profit = 50;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 30;
-                    }
-                    else if (height < 0) {
-                        profit = 40;
-                    }
-                    else {
-                        profit = 30;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 15;
-                    }
-                    else if (height < 0) {
-                        profit = 10;
-                    }
-                    else {
-                        profit = 10;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 0;
-                    }
-                    else if (height < 0) {
-                        profit = 0;
-                    }
-                    else {
-                        profit = 0;
-                    }
-                }
-            }
+        return estimateWeaponAdvantage (weaponKnowledge, WeaponKnowledge.getWeapon (weapon.getType ()), snapshot.isEnemyVisible (),
+                                        context.spam, range, height, enemyHealthArmor);
+    }
 
-            // LINK GUN
-
-            else if (type.equals(ItemType.LINK_GUN)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 80;
-
-                        /*
-                        // If the enemy's health is under 150 and he is trying to run
-                        if (enemyInfo.getHealthArmor() < 150) {
-                            profit = 100;
-                        }
-                        // If he is under 70
-                        else if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }*/
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                    else if (height < 0) {
-                        profit = 40;
-                    }
-                    else {
-                        profit = 40;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 50;
-
-                        /*
-                        // If the enemy's health is under 150 and he is trying to run
-                        if (enemyInfo.getHealthArmor() < 150) {
-                            profit = 90;
-                        }
-                        // If he is under 70
-                        else if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 90;
-                        }*/
-                        if (enemyInfo.getHealthArmor() < 100) {
-                            profit = 90;
-                        }
-                    }
-                    else if (height < 0) {
-                        profit = 20;
-                    }
-                    else {
-                        profit = 50;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 20;
-                    }
-                    else if (height < 0) {
-                        profit = 40;
-                    }
-                    else {
-                        profit = 50;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 20;
-                    }
-                    else if (height < 0) {
-                        profit = 40;
-                    }
-                    else {
-                        profit = 50;
-                    }
-                }
-            }
+    //__________________________________________________________________________
 
-            // MINIGUN
-
-            else if (type.equals(ItemType.MINIGUN)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 40;
-
-                        /*
-                        // If the enemy's health is under 150 and he is trying to run
-                        if (enemyInfo.getHealthArmor() < 150) {
-                            profit = 97;
-                        }
-                        // If he is under 70
-                        else if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 97;
-                        }*/
-                        if (enemyInfo.getHealthArmor() < 100) {
-                            profit = 97;
-                        }
-                    }
-                    else if (height < 0) {
-                        profit = 60;
-                    }
-                    else {
-                        profit = 20;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 70;
-
-                        /*
-                        // If the enemy's health is under 150 and he is trying to run
-                        if (enemyInfo.getHealthArmor() < 150) {
-                            profit = 100;
-                        }
-                        // If he is under 70
-                        else if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }*/
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                    else if (height < 0) {
-                        profit = 60;
-
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                    else {
-                        profit = 60;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 80;
-
-                        /*
-                        // If the enemy's health is under 150 and he is trying to run
-                        if (enemyInfo.getHealthArmor() < 150) {
-                            profit = 100;
-                        }
-                        // If he is under 70
-                        else if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }*/
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                    else if (height < 0) {
-                        profit = 60;
-
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                    else {
-                        profit = 60;
-
-                        if (enemyInfo.getHealthArmor() < 70) {
-                            profit = 100;
-                        }
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 50;
-                    }
-                    else if (height < 0) {
-                        profit = 70;
-                    }
-                    else {
-                        profit = 70;
-                    }
-                }
-            }
+    /**
+     * Chooses the most profitable weapon among the ones that have ammo. It
+     * only depends on its arguments, so the decisions recorded in a decision
+     * trace can be replayed.
+     * @param knowledge Weapon knowledge base.
+     * @param loadedWeapons Weapons with ammo (see WeaponKnowledge.getLoadedMask).
+     * @param spam True if we are going to shoot a spam.
+     * @param snapshot State of the world in this logic tick.
+     * @return Index of the weapon in the weapon knowledge base, -1 if none of them is profitable.
+     */
+    public static int estimateBestWeapon (final WeaponKnowledge knowledge, final int loadedWeapons, final boolean spam,
+                                          final WorldSnapshot snapshot) {
+        // The distance and the height are the same for every weapon
+        boolean enemyOnSight = snapshot.isEnemyVisible ();
+        int range = 0, height = 0, enemyHealthArmor = 0;
+        if (enemyOnSight) {
+            range = estimateRange (snapshot.getEnemyDistance ());
+            height = WeaponKnowledge.getHeightBand (Arithmetic.estimateHeight (snapshot.getLocation (), snapshot.getEnemyLocation ()));
+            enemyHealthArmor = snapshot.getEnemyHealthArmor ();
+        }
 
-            // FLAK CANNON
-
-            else if (type.equals(ItemType.FLAK_CANNON)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 95;
-                    }
-                    else if (height < 0) {
-                        profit = 90;
-                    }
-                    else {
-                        profit = 100;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 80;
-                    }
-                    else if (height < 0) {
-                        profit = 80;
-                    }
-                    else {
-                        profit = 90;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 40;
-                    }
-                    else if (height < 0) {
-                        profit = 50;
-                    }
-                    else {
-                        profit = 70;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 20;
-                    }
-                    else if (height < 0) {
-                        profit = 60;
-                    }
-                    else {
-                        profit = 60;
-                    }
-                }
-            }
+        int selectedWeapon = -1, maximum = 0;
+        for (int weapon = 0; weapon < WeaponKnowledge.WEAPONS.length; ++weapon) {
+            if ((loadedWeapons & (1 << weapon)) != 0) {
+                // Estimate the advantage this weapon has based on the distance to the enemy
+                int distanceAdvantage = estimateWeaponAdvantage (knowledge, weapon, enemyOnSight, spam, range, height, enemyHealthArmor);
 
-            // ROCKET LAUNCHER
-
-            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 95;
-                    }
-                    else if (height < 0) {
-                        profit = 100;
-                    }
-                    else {
-                        profit = 60;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 90;
-                    }
-                    else if (height < 0) {
-                        profit = 90;
-                    }
-                    else {
-                        profit = 40;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 30;
-                    }
-                    else if (height < 0) {
-                        profit = 70;
-                    }
-                    else {
-                        profit = 40;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 10;
-                    }
-                    else if (height < 0) {
-                        profit = 50;
-                    }
-                    else {
-                        profit = 40;
-                    }
+                if (distanceAdvantage > maximum) {
+                    maximum = distanceAdvantage;
+                    selectedWeapon = weapon;
                 }
             }
+        }
 
-            // SHOCK RIFLE
-
-            else if (type.equals(ItemType.SHOCK_RIFLE)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 30;
-                    }
-                    else if (height < 0) {
-                        profit = 80;
-                    }
-                    else {
-                        profit = 90;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 97;
-                    }
-                    else if (height < 0) {
-                        profit = 97;
-                    }
-                    else {
-                        profit = 100;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 80;
-                    }
-                    else if (height < 0) {
-                        profit = 90;
-                    }
-                    else {
-                        profit = 90;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 80;
-                    }
-                    else if (height < 0) {
-                        profit = 80;
-                    }
-                    else {
-                        profit = 80;
-                    }
-                }
-            }
+        return selectedWeapon;
+    }
 
-            // SNIPER RIFLE/LIGHTNING GUN
-
-            else if (type.equals(ItemType.SNIPER_RIFLE) || type.equals(ItemType.LIGHTNING_GUN)) {
-                if (enemyDistance <= CLOSE) {
-                    if (height == 0) {
-                        profit = 15;
-                    }
-                    else if (height < 0) {
-                        profit = 70;
-                    }
-                    else {
-                        profit = 70;
-                    }
-                }
-                else if (enemyDistance <= AVERAGE) {
-                    if (height == 0) {
-                        profit = 40;
-                    }
-                    else if (height < 0) {
-                        profit = 70;
-                    }
-                    else {
-                        profit = 70;
-                    }
-                }
-                else if (enemyDistance <= FAR) {
-                    if (height == 0) {
-                        profit = 90;
-                    }
-                    else if (height < 0) {
-                        profit = 80;
-                    }
-                    else {
-                        profit = 80;
-                    }
-                }
-                else if (enemyDistance > FAR) {
-                    if (height == 0) {
-                        profit = 100;
-                    }
-                    else if (height < 0) {
-                        profit = 100;
-                    }
-                    else {
-                        profit = 100;
-                    }
-                }
-            }
+    //__________________________________________________________________________
+
+    /**
+     * Given a weapon, it estimates how profitable it is from 0 to 100.
+     * @param knowledge Weapon knowledge base.
+     * @param weapon Index of the weapon in the weapon knowledge base.
+     * @param enemyOnSight True if the enemy is on sight.
+     * @param spam True if we are going to shoot a spam.
+     * @param range Distance band where the enemy is (only if he is on sight).
+     * @param height Height band where the enemy is (only if he is on sight).
+     * @param enemyHealthArmor Enemy's health plus armor (only if he is on sight).
+     * @return How good this weapon is from 0 to 100.
+     */
+    private static int estimateWeaponAdvantage (final WeaponKnowledge knowledge, final int weapon, final boolean enemyOnSight,
+                                                final boolean spam, final int range, final int height, final int enemyHealthArmor) {
+        if (enemyOnSight) {
+            return knowledge.getProfit (weapon, range, height, enemyHealthArmor);
         }
+        // If we are going to shoot a spam
         else if (spam) {
-            // If we are going to shoot a spam
-            if (type.equals(ItemType.SHIELD_GUN)) {
-                profit = 1;
-            }
-            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
-                profit = 50;
-            }
-            else if (type.equals(ItemType.BIO_RIFLE)) {
-                profit = 40;
-            }
-            else if (type.equals(ItemType.LINK_GUN)) {
-                profit = 60;
-            }
-            else if (type.equals(ItemType.MINIGUN)) {
-                profit = 5;
-            }
-            else if (type.equals(ItemType.FLAK_CANNON)) {
-                profit = 70;
-            }
-            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
-                profit = 90;
-            }
-            else if (type.equals(ItemType.SHOCK_RIFLE)) {
-                profit = 80;
-            }
-            else if (type.equals(ItemType.SHOCK_RIFLE) || type.equals(ItemType.SNIPER_RIFLE)) {
-                profit = 10;
-            }
+            return knowledge.getSpamProfit (weapon);
         }
         // If the enemy is not on sight
         else {
-            if (type.equals(ItemType.SHIELD_GUN)) {
-                profit = 1;
-            }
-            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
-                profit = 10;
-            }
-            else if (type.equals(ItemType.BIO_RIFLE)) {
-                profit = 20;
-            }
-            else if (type.equals(ItemType.LINK_GUN)) {
-                profit = 50;
-            }
-            else if (type.equals(ItemType.MINIGUN)) {
-                profit = 40;
-            }
-            else if (type.equals(ItemType.FLAK_CANNON)) {
-                profit = 80;
-            }
-            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
-                profit = 70;
-            }
-            else if (type.equals(ItemType.SHOCK_RIFLE)) {
-                profit = 90;
-            }
-            else if (type.equals(ItemType.SHOCK_RIFLE) || type.equals(ItemType.SNIPER_RIFLE)) {
-                profit = 100;
-            }
+            return knowledge.getUnseenProfit (weapon);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Translates a distance into a distance band of the weapon knowledge base
+     * when estimating the advantage of a weapon (every band includes its
+     * upper limit).
+     * @param distance Distance to the enemy.
+     * @return The distance band.
+     */
+    protected static int estimateRange (final double distance) {
+        if (distance <= CLOSE) {
+            return WeaponKnowledge.CLOSE_RANGE;
+        }
+        else if (distance <= AVERAGE) {
+            return WeaponKnowledge.AVERAGE_RANGE;
+        }
+        else if (distance <= FAR) {
+            return WeaponKnowledge.FAR_RANGE;
+        }
+        else {
+            return WeaponKnowledge.VERY_FAR_RANGE;
         }
+    }
+
+    //__________________________________________________________________________
 
-        return profit;
+    /**
+     * Translates a distance into a distance band of the weapon knowledge base
+     * when choosing the fire mode (every band excludes its upper limit).
+     * @param distance Distance to the enemy or the target.
+     * @return The distance band.
+     */
+    protected static int estimateFireRange (final double distance) {
+        if (distance < CLOSE) {
+            return WeaponKnowledge.CLOSE_RANGE;
+        }
+        else if (distance < AVERAGE) {
+            return WeaponKnowledge.AVERAGE_RANGE;
+        }
+        else if (distance < FAR) {
+            return WeaponKnowledge.FAR_RANGE;
+        }
+        else {
+            return WeaponKnowledge.VERY_FAR_RANGE;
+        }
     }
 
     //__________________________________________________________________________
@@ -1267,8 +561,8 @@ public abstract class PrimaryState {
     /**
      * Reset temporary information.
      */
-    public static void resetTempInfo () {
-        crouched = false;
+    public void resetTempInfo () {
+        context.crouched = false;
     }
 
     //__________________________________________________________________________
@@ -1276,8 +570,8 @@ public abstract class PrimaryState {
     /**
      * Notify that there is a feasible combo.
      */
-    public static void feasibleCombo () {
-        blowCombo = true;
+    public void feasibleCombo () {
+        context.blowCombo = true;
     }
 
     //__________________________________________________________________________
@@ -1285,8 +579,8 @@ public abstract class PrimaryState {
     /**
      * Notify that there is a feasible spam.
      */
-    public static void feasibleSpam () {
-        spam = true;
+    public void feasibleSpam () {
+        context.spam = true;
     }
 
     //__________________________________________________________________________
@@ -1297,7 +591,7 @@ public abstract class PrimaryState {
      * Update information (Whenever a player dissappears from our field of vision).
      */
     public void playerDisappeared () {
-        sniperOrShockHit = false;
+        context.sniperOrShockHit = false;
     }
 
     //__________________________________________________________________________
@@ -1307,8 +601,9 @@ public abstract class PrimaryState {
      * Update information (Whenever we hit an enemy).
      */
     public void playerDamaged (final PlayerDamaged event) {
-        if (event.getDamageType ().equals ("XWeapons.DamTypeShockBeam") || event.getDamageType ().equals ("XWeapons.DamTypeSniperShot")) {
-            sniperOrShockHit = true;
+        UnrealClass damageType = UnrealClass.get (event.getDamageType ());
+        if (damageType == UnrealClass.DAM_TYPE_SHOCK_BEAM || damageType == UnrealClass.DAM_TYPE_SNIPER_SHOT) {
+            context.sniperOrShockHit = true;
         }
     }
 
@@ -1332,7 +627,7 @@ public abstract class PrimaryState {
                 move.turnTo (focusSpot);
             }
 
-            rotationTime = clockTime;
+            context.rotationTime = clockTime;
         }
     }
 
@@ -1358,7 +653,7 @@ public abstract class PrimaryState {
                 move.turnTo (focusSpot);
             }
 
-            rotationTime = clockTime;
+            context.rotationTime = clockTime;
         }
     }
 
@@ -1391,7 +686,7 @@ public abstract class PrimaryState {
      */
     protected void goForward () {
         move.moveContinuos();
-        moving = true;
+        context.moving = true;
     }
 
     //__________________________________________________________________________
@@ -1404,21 +699,21 @@ public abstract class PrimaryState {
 
     	// once the rays are up and running, move according to them
 
-        collisionSensorArray [NORTH] = cardinalRayArray [NORTH].isResult();
-        collisionSensorArray [NORTHEAST] = cardinalRayArray [NORTHEAST].isResult();
-        collisionSensorArray [EAST] = cardinalRayArray [EAST].isResult();
-        collisionSensorArray [SOUTHEAST] = cardinalRayArray [SOUTHEAST].isResult();
-        collisionSensorArray [SOUTH] = cardinalRayArray [SOUTH].isResult();
-        collisionSensorArray [SOUTHWEST] = cardinalRayArray [SOUTHWEST].isResult();
-        collisionSensorArray [WEST] = cardinalRayArray [WEST].isResult();
-        collisionSensorArray [NORTHWEST] = cardinalRayArray [NORTHWEST].isResult();
+        context.collisionSensorArray [NORTH] = cardinalRayArray [NORTH].isResult();
+        context.collisionSensorArray [NORTHEAST] = cardinalRayArray [NORTHEAST].isResult();
+        context.collisionSensorArray [EAST] = cardinalRayArray [EAST].isResult();
+        context.collisionSensorArray [SOUTHEAST] = cardinalRayArray [SOUTHEAST].isResult();
+        context.collisionSensorArray [SOUTH] = cardinalRayArray [SOUTH].isResult();
+        context.collisionSensorArray [SOUTHWEST] = cardinalRayArray [SOUTHWEST].isResult();
+        context.collisionSensorArray [WEST] = cardinalRayArray [WEST].isResult();
+        context.collisionSensorArray [NORTHWEST] = cardinalRayArray [NORTHWEST].isResult();
 
         // is any of the sensor signalig?
-        for (int i = 0; i < collisionSensorArray.length && !raycastingHit; ++i) {
-            raycastingHit = collisionSensorArray [i];
+        for (int i = 0; i < context.collisionSensorArray.length && !context.raycastingHit; ++i) {
+            context.raycastingHit = context.collisionSensorArray [i];
         }
 
-        if (!collisionSensorArray[NORTH] && !collisionSensorArray[NORTHEAST] && !collisionSensorArray[NORTHWEST]) {
+        if (!context.collisionSensorArray[NORTH] && !context.collisionSensorArray[NORTHEAST] && !context.collisionSensorArray[NORTHWEST]) {
         	// no sensor are signalizes - just proceed with forward movement
         	goForward ();
         	return;
@@ -1427,17 +722,17 @@ public abstract class PrimaryState {
         // some sensor/s is/are signaling
 
         // if we're moving
-        if (moving) {
+        if (context.moving) {
             // stop it, we have to turn probably
             move.stopMovement();
-            moving = false;
+            context.moving = false;
         }
 
         // according to the signals, take action...
         // 8 cases that might happen follows
-        if (collisionSensorArray [NORTH]) {
-            if (collisionSensorArray [NORTHWEST]) {
-                if (collisionSensorArray [NORTHEAST]) {
+        if (context.collisionSensorArray [NORTH]) {
+            if (context.collisionSensorArray [NORTHWEST]) {
+                if (context.collisionSensorArray [NORTHEAST]) {
                     // LEFT45, RIGHT45, FRONT are signaling
                     move.turnHorizontal(90);
                 } else {
@@ -1445,7 +740,7 @@ public abstract class PrimaryState {
                     move.turnHorizontal(30);
                 }
             } else {
-                if (collisionSensorArray [NORTHEAST]) {
+                if (context.collisionSensorArray [NORTHEAST]) {
                     // RIGHT45, FRONT are signaling
                     move.turnHorizontal(-30);
                 } else {
@@ -1454,8 +749,8 @@ public abstract class PrimaryState {
                 }
             }
         } else {
-            if (collisionSensorArray [NORTHWEST]) {
-                if (collisionSensorArray [NORTHEAST]) {
+            if (context.collisionSensorArray [NORTHWEST]) {
+                if (context.collisionSensorArray [NORTHEAST]) {
                     // LEFT45, RIGHT45 are signaling
                     goForward ();
                 } else {
@@ -1463,7 +758,7 @@ public abstract class PrimaryState {
                     move.turnHorizontal(30);
                 }
             } else {
-                if (collisionSensorArray [NORTHEAST]) {
+                if (context.collisionSensorArray [NORTHEAST]) {
                     // RIGHT45 is signaling
                     move.turnHorizontal(-30);
                 } else {
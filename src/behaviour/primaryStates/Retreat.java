@@ -1,7 +1,7 @@
 package behaviour.primaryStates;
 
-import bot.Bot;
-import knowledge.EnemyInfo;
+import bot.BotContext;
+import knowledge.WorldSnapshot;
 import utilities.Arithmetic;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
@@ -24,7 +24,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
-import java.util.Random;
 
 
 /**
@@ -64,37 +63,37 @@ public class Retreat extends PrimaryState {
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
      * @param shoot shoot field from T800.
+     * @param context Decision context of the bot.
      */
     public Retreat (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                  final Game game, final Items items, final AgentInfo info, final Weaponry weaponry,
                  final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
                  final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [],
-                 final ImprovedShooting shoot) {
+                 final ImprovedShooting shoot, final BotContext context) {
 
-        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        super (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Retreat to the safest area.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location that the bot has to face.
-     * @param enemyInfo Guess/Known information about the enemy.
      */
-    public void stateDrivenMovement (final Player enemy, final Location facingSpot, final EnemyInfo enemyInfo) {
+    public void stateDrivenMovement (final WorldSnapshot snapshot, final Location facingSpot) {
 
-        if (crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            crouched = false;
+            context.crouched = false;
         }
 
         Location enemyLocation = null;
-        if (enemy != null) {
-            enemyLocation = enemy.getLocation ();
+        if (snapshot.isEnemyVisible ()) {
+            enemyLocation = snapshot.getEnemyLocation ();
         }
         else {
-            enemyLocation = enemyInfo.getLastKnownLocation();
+            enemyLocation = snapshot.getLastKnownEnemyLocation();
         }
 
         // If we know the enemy's location because we are seeing him or because
@@ -103,21 +102,21 @@ public class Retreat extends PrimaryState {
         if (enemyLocation != null) {
             // If more than ten second passed since we last saw the enemy, we
             // assume that we no longer know where he is
-            if (Math.abs (enemyInfo.getLastTimeMet() - game.getTime ()) < 10) {
-                Location newDestination = Arithmetic.getBestRunZone (enemyLocation, info);
+            if (Math.abs (snapshot.getLastTimeMet() - snapshot.getTime ()) < 10) {
+                Location newDestination = Arithmetic.getBestRunZone (enemyLocation, info, context);
 
-                if (newDestination != null && newDestination != stateDrivenDestination) {
-                    stateDrivenDestination = newDestination;
+                if (newDestination != null && newDestination != context.stateDrivenDestination) {
+                    context.stateDrivenDestination = newDestination;
 
-                    if (!visitedSpots.contains (newDestination)) {
-                        stateDrivenDestination = newDestination;
-                        visitedSpots.add (stateDrivenDestination);
+                    if (!context.visitedSpots.contains (newDestination)) {
+                        context.stateDrivenDestination = newDestination;
+                        context.visitedSpots.add (context.stateDrivenDestination);
 
-                        if (visitedSpots.size() >= 2) {
-                            visitedSpots.remove (0);
+                        if (context.visitedSpots.size() >= 2) {
+                            context.visitedSpots.remove (0);
                         }
 
-                        IPathFuture <ILocated> pathHandle = pathPlanner.computePath (info.getLocation(), stateDrivenDestination);
+                        IPathFuture <ILocated> pathHandle = pathPlanner.computePath (snapshot.getLocation(), context.stateDrivenDestination);
 
                         if (pathExecutor.isExecuting()) {
                             pathExecutor.stop ();
@@ -135,27 +134,26 @@ public class Retreat extends PrimaryState {
 
         if (!pathExecutor.isExecuting()) {
             // Move to a random area
-            Random rand = new Random();
             Location newDestination = null;
             int pos = 0;
 
             boolean success = false;
             while (!success) {
-                pos = rand.nextInt(Bot.areas.length);
-                if (!visitedSpots.contains (Bot.areas [pos].getLocation ())) {
+                pos = context.random.nextInt (context.areas.length);
+                if (!context.visitedSpots.contains (context.areas [pos].getLocation ())) {
                     success = true;
-                    newDestination = Bot.areas [pos].getLocation ();
+                    newDestination = context.areas [pos].getLocation ();
                 }
             }
 
-            if (visitedSpots.size() >= 2) {
-                visitedSpots.remove (0);
+            if (context.visitedSpots.size() >= 2) {
+                context.visitedSpots.remove (0);
             }
 
-            stateDrivenDestination = newDestination;
-            visitedSpots.add (stateDrivenDestination);
+            context.stateDrivenDestination = newDestination;
+            context.visitedSpots.add (context.stateDrivenDestination);
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), stateDrivenDestination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.stateDrivenDestination);
             if (move.isRunning()) {
                 move.stopMovement();
             }
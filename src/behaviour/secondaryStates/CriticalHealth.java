@@ -1,8 +1,11 @@
 package behaviour.secondaryStates;
 
-import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
 import utilities.Arithmetic;
+import utilities.NavigationDistances;
+import knowledge.SpawnedItems;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -11,7 +14,6 @@ import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
 import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
 import cz.cuni.amis.pogamut.unreal.agent.navigation.IUnrealPathExecutor;
-import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Raycasting;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
@@ -22,8 +24,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
-import java.util.Map;
 
 import java.util.Set;
 
@@ -36,6 +36,9 @@ import java.util.Set;
 
 public class CriticalHealth extends SecondaryState {
 
+    /** Thrown when there are no health items to go for (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_HEALTH_ITEMS = new SubStatusException ("There are no available health items");
+
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -48,13 +51,14 @@ public class CriticalHealth extends SecondaryState {
      * @param pathExecutor pathExecutor field from T800.
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
+     * @param context Decision context of the bot.
      */
     public CriticalHealth (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                          final Items items, final AgentInfo info, final Weaponry weaponry,
                          final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay orientacionRayArray []) {
+                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay orientacionRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, orientacionRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, orientacionRayArray, context);
     }
 
     //__________________________________________________________________________
@@ -62,51 +66,51 @@ public class CriticalHealth extends SecondaryState {
     /**
      * Uses the data base to look for the closest health pack or health vial. If
      * there are no health vials or health packs available it throws an exception.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when there are no health packs or health
      * vials available.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
         // If we haven't looked for health vials or health packs yet
-        if (destination == null) {
-             Map<UnrealId, Item> healthPackMap = items.getAllItems(ItemType.Group.HEALTH);
-             Map<UnrealId, Item> healthVialMap = items.getAllItems(ItemType.Group.MINI_HEALTH);
+        if (context.subStateDestination == null) {
+            NavigationDistances distances = context.navigationDistances;
+            SpawnedItems spawnedItems = context.spawnedItems;
+            Location botLocation = snapshot.getLocation ();
+            int botNode = distances.getNode (botLocation);
 
-            if (info.getHealth () < 100) {
+            if (snapshot.getHealth () < 100) {
                 double minimumDistance = Arithmetic.INFINITY;
                 double currentDistance = 0;
 
                 // Look for health packs
-                for (Item healthPack : healthPackMap.values()) {
-                    if (healthPack != null) {
-                        Location healthPackLocation = healthPack.getLocation ();
-
-                        currentDistance = info.getDistance (healthPackLocation);
-                        if (currentDistance < minimumDistance && items.isPickupSpawned(healthPack)) {
-                            minimumDistance = currentDistance;
-                            destination = healthPackLocation;
-                        }
+                int count = spawnedItems.getCount (ItemType.Group.HEALTH);
+                for (int i = 0; i < count; ++i) {
+                    Item healthPack = spawnedItems.getItem (ItemType.Group.HEALTH, i);
+
+                    currentDistance = distances.getDistance (botNode, botLocation, healthPack);
+                    if (currentDistance < minimumDistance) {
+                        minimumDistance = currentDistance;
+                        context.subStateDestination = healthPack.getLocation ();
                     }
                 }
 
                 // If there weren't any health packs available, check for vials
-                if (destination != null) {
-                    for (Item healthVial : healthVialMap.values()) {
-                        if (healthVial != null) {
-                            Location healthVialLocation = healthVial.getLocation ();
-
-                            currentDistance = info.getDistance (healthVialLocation);
-                            if (currentDistance < minimumDistance && items.isPickupSpawned(healthVial)) {
-                                minimumDistance = currentDistance;
-                                destination = healthVialLocation;
-                            }
+                if (context.subStateDestination != null) {
+                    count = spawnedItems.getCount (ItemType.Group.MINI_HEALTH);
+                    for (int i = 0; i < count; ++i) {
+                        Item healthVial = spawnedItems.getItem (ItemType.Group.MINI_HEALTH, i);
+
+                        currentDistance = distances.getDistance (botNode, botLocation, healthVial);
+                        if (currentDistance < minimumDistance) {
+                            minimumDistance = currentDistance;
+                            context.subStateDestination = healthVial.getLocation ();
                         }
                     }
                 }
@@ -116,24 +120,23 @@ public class CriticalHealth extends SecondaryState {
                 double currentDistance = 0;
 
                 // Look for health vials
-                for (Item healthVial : healthVialMap.values()) {
-                    if (healthVial != null) {
-                        Location healthVialLocation = healthVial.getLocation ();
-
-                        currentDistance = info.getDistance (healthVialLocation);
-                        if (currentDistance < minimumDistance && items.isPickupSpawned(healthVial)) {
-                            minimumDistance = currentDistance;
-                            destination = healthVialLocation;
-                        }
+                int count = spawnedItems.getCount (ItemType.Group.MINI_HEALTH);
+                for (int i = 0; i < count; ++i) {
+                    Item healthVial = spawnedItems.getItem (ItemType.Group.MINI_HEALTH, i);
+
+                    currentDistance = distances.getDistance (botNode, botLocation, healthVial);
+                    if (currentDistance < minimumDistance) {
+                        minimumDistance = currentDistance;
+                        context.subStateDestination = healthVial.getLocation ();
                     }
                 }
             }
 
-            if (destination == null) {
-                throw new SubStatusException ("There are no available health items");
+            if (context.subStateDestination == null) {
+                throw NO_HEALTH_ITEMS;
             }
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath (info.getLocation(), destination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath (snapshot.getLocation(), context.subStateDestination);
 
             if (pathExecutor.isExecuting ()) {
                 pathExecutor.stop ();
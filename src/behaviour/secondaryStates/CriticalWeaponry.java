@@ -1,8 +1,11 @@
 package behaviour.secondaryStates;
 
-import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
 import utilities.Arithmetic;
+import utilities.NavigationDistances;
+import knowledge.SpawnedItems;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -11,7 +14,6 @@ import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
 import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
 import cz.cuni.amis.pogamut.unreal.agent.navigation.IUnrealPathExecutor;
-import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Raycasting;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
@@ -22,8 +24,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
-import java.util.Map;
 
 
 /**
@@ -34,6 +34,9 @@ import java.util.Map;
 
 public class CriticalWeaponry extends SecondaryState {
 
+    /** Thrown when there are no weapons to go for (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_WEAPONS = new SubStatusException ("There are no visible weapons and we don't know the location of any weapon spawned");
+
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -47,54 +50,57 @@ public class CriticalWeaponry extends SecondaryState {
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     public CriticalWeaponry (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                              final Items items, final AgentInfo info, final Weaponry weaponry,
                              final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                             final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                             final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Pick up the closest spawned weapon.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when there are no visible weapons and we
      * don't know the place of any.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
         // If we are not going to a weapon area, figure out which is the closest one
-        if (destination == null) {
+        if (context.subStateDestination == null) {
             double minimumDistance = Arithmetic.INFINITY;
             double currentDistance = 0;
-
-            // Check how far is each weapon area from us.
-            Map<UnrealId, Item> itemList = items.getAllItems(ItemType.Category.WEAPON);
-            for(Item item : itemList.values()) {
-                if (item != null) {
-                    Location itemLocation = item.getLocation ();
-                    currentDistance = info.getDistance (itemLocation);
-                    if (currentDistance < minimumDistance && items.isPickupSpawned(item)) {
-                        minimumDistance = currentDistance;
-                        destination = itemLocation;
-                    }
+            NavigationDistances distances = context.navigationDistances;
+            Location botLocation = snapshot.getLocation ();
+            int botNode = distances.getNode (botLocation);
+
+            // Check how far is each spawned weapon from us.
+            SpawnedItems spawnedItems = context.spawnedItems;
+            int count = spawnedItems.getCount (ItemType.Category.WEAPON);
+            for (int i = 0; i < count; ++i) {
+                Item item = spawnedItems.getItem (ItemType.Category.WEAPON, i);
+                currentDistance = distances.getDistance (botNode, botLocation, item);
+                if (currentDistance < minimumDistance) {
+                    minimumDistance = currentDistance;
+                    context.subStateDestination = item.getLocation ();
                 }
             }
 
-            if (destination == null) {
-                throw new SubStatusException ("There are no visible weapons and we don't know the location of any weapon spawned");
+            if (context.subStateDestination == null) {
+                throw NO_WEAPONS;
             }
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), destination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.subStateDestination);
 
             if (pathExecutor.isExecuting()) {
                 pathExecutor.stop ();
@@ -1,7 +1,9 @@
 package behaviour.secondaryStates;
 
 import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
 import cz.cuni.amis.pogamut.base.communication.command.IAct;
@@ -17,7 +19,6 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.AdvancedLocomotion;
 import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 
 /**
@@ -28,6 +29,9 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 public class DefensiveProfile extends SecondaryState {
 
+    /** Thrown when the enemy isn't on sight (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_VISIBLE_ENEMY = new SubStatusException ("There are no visible enemies");
+
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -41,49 +45,50 @@ public class DefensiveProfile extends SecondaryState {
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     public DefensiveProfile (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                             final Items items, final AgentInfo info, final Weaponry weaponry,
                             final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                            final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                            final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Retreat if the enemy is visible, throw an exception otherwise.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when the enemy is not visible.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
-        if (enemy == null) {
-            throw new SubStatusException ("There are no visible enemies");
+        if (!snapshot.isEnemyVisible ()) {
+            throw NO_VISIBLE_ENEMY;
         }
         else {
             if (pathExecutor.isExecuting()) {
                 pathExecutor.stop ();
             }
 
-            Location enemyLocation = enemy.getLocation();
+            Location enemyLocation = snapshot.getEnemyLocation ();
 
             // Check if there is enough space to run backwards
-            if (info.getDistance(cardinalRayArray [PrimaryState.SOUTH].getHitLocation()) >= 400) {
+            if (snapshot.getDistance(cardinalRayArray [PrimaryState.SOUTH].getHitLocation()) >= 400) {
                 move.strafeTo(cardinalRayArray [PrimaryState.SOUTH].getHitLocation(), enemyLocation);
             }
             else {
-                double southWestDistance = info.getDistance(cardinalRayArray [PrimaryState.SOUTHWEST].getHitLocation());
-                double southEastDistance = info.getDistance(cardinalRayArray [PrimaryState.SOUTHEAST].getHitLocation());
-                double westDistance = info.getDistance(cardinalRayArray [PrimaryState.WEST].getHitLocation());
-                double eastDistance = info.getDistance(cardinalRayArray [PrimaryState.EAST].getHitLocation());
+                double southWestDistance = snapshot.getDistance(cardinalRayArray [PrimaryState.SOUTHWEST].getHitLocation());
+                double southEastDistance = snapshot.getDistance(cardinalRayArray [PrimaryState.SOUTHEAST].getHitLocation());
+                double westDistance = snapshot.getDistance(cardinalRayArray [PrimaryState.WEST].getHitLocation());
+                double eastDistance = snapshot.getDistance(cardinalRayArray [PrimaryState.EAST].getHitLocation());
 
                 if (southWestDistance > 400 || southEastDistance > 400) {
                     if (southWestDistance > southEastDistance) {
@@ -1,7 +1,8 @@
 package behaviour.secondaryStates;
 
-import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -18,7 +19,6 @@ import cz.cuni.amis.pogamut.ut2004.bot.command.AdvancedLocomotion;
 import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 
 /**
@@ -29,6 +29,9 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 public class OfensiveProfile extends SecondaryState {
 
+    /** Thrown when the enemy isn't on sight (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_VISIBLE_ENEMY = new SubStatusException ("No se puede activar perfil ofensivo, enemy no visible");
+
 
     // *************************************************************************
     //                               METHODS
@@ -48,49 +51,50 @@ public class OfensiveProfile extends SecondaryState {
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     public OfensiveProfile (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                            final Items items, final AgentInfo info, final Weaponry weaponry,
                            final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                           final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                           final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Advance to the enemy's location if he is visible, throw an exception otherwise.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when the enemy is not visible.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
-        if (enemy == null) {
+        if (!snapshot.isEnemyVisible ()) {
             move.stopMovement ();
-            throw new SubStatusException ("No se puede activar perfil ofensivo, enemy no visible");
+            throw NO_VISIBLE_ENEMY;
         }
         else {
             //move.moveTo (enemy.getLocation ());
 
-            Location enemyLocation = enemy.getLocation ();
+            Location enemyLocation = snapshot.getEnemyLocation ();
 
-            if (info.getDistance (enemyLocation) < 600) {
+            if (snapshot.getDistance (enemyLocation) < 600) {
                 if (pathExecutor.isExecuting ()) {
                     pathExecutor.stop ();
                 }
 
                 move.moveTo (enemyLocation);
             }
-            else if (destination == null || (destination != null && enemyLocation.getDistance (destination) > 600)) {
-                destination = enemyLocation;
-                IPathFuture <ILocated> pathHandle = pathPlanner.computePath (info.getLocation (), destination);
+            else if (context.subStateDestination == null || (context.subStateDestination != null && enemyLocation.getDistance (context.subStateDestination) > 600)) {
+                context.subStateDestination = enemyLocation;
+                IPathFuture <ILocated> pathHandle = pathPlanner.computePath (snapshot.getLocation (), context.subStateDestination);
 
                 if (pathExecutor.isExecuting ()) {
                     pathExecutor.stop ();
@@ -1,8 +1,9 @@
 package behaviour.secondaryStates;
 
-import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
 import utilities.Arithmetic;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -22,7 +23,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType.Group;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 import java.util.Map;
 
@@ -35,6 +35,9 @@ import java.util.Map;
 
 public class PickupHealth extends SecondaryState{
 
+    /** Thrown when there are no health items on sight (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_VISIBLE_HEALTH = new SubStatusException ("No visible health items");
+
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -48,61 +51,62 @@ public class PickupHealth extends SecondaryState{
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     public PickupHealth (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                          final Items items, final AgentInfo info, final Weaponry weaponry,
                          final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Pickup visible health, if there's not any visible ammo, throw an exception.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when there is no visible health.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
         // If we haven't looked for health
-        if (destination == null) {
+        if (context.subStateDestination == null) {
             Map <UnrealId, Item> healthVialMap = items.getVisibleItems(Group.MINI_HEALTH);
             Map <UnrealId, Item> healthPackMap = items.getVisibleItems(Group.HEALTH);
 
-            if (info.getHealth() < 100) {
+            if (snapshot.getHealth() < 100) {
                 if (healthPackMap.isEmpty()) {
                     if (healthVialMap.isEmpty()) {
-                        throw new SubStatusException ("No visible health items");
+                        throw NO_VISIBLE_HEALTH;
                     }
                     else {
                         // Pickup the closests vials
-                        destination = Arithmetic.getClosestItemLocation (info, healthVialMap);
+                        context.subStateDestination = Arithmetic.getClosestItemLocation (info, healthVialMap);
                     }
                 }
                 else {
                     // Pickup the closests packs
-                    destination = Arithmetic.getClosestItemLocation (info, healthPackMap);
+                    context.subStateDestination = Arithmetic.getClosestItemLocation (info, healthPackMap);
                 }
             }
             else {
                 if (healthVialMap.isEmpty()) {
-                    throw new SubStatusException ("No visible health items");
+                    throw NO_VISIBLE_HEALTH;
                 }
                 else {
                     // Pickup the closests vials
-                    destination = Arithmetic.getClosestItemLocation (info, healthVialMap);
+                    context.subStateDestination = Arithmetic.getClosestItemLocation (info, healthVialMap);
                 }
             }
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), destination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.subStateDestination);
 
             if (pathExecutor.isExecuting()) {
                 pathExecutor.stop ();
@@ -1,8 +1,9 @@
 package behaviour.secondaryStates;
 
-import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
 import exceptions.SubStatusException;
 import utilities.Arithmetic;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
@@ -22,7 +23,6 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType.Category;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.SetCrouch;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 import java.util.Map;
 
@@ -35,6 +35,9 @@ import java.util.Map;
 
 public class PickupWeapon extends SecondaryState {
 
+    /** Thrown when there are no weapons on sight (preallocated, see SubStatusException) */
+    private static final SubStatusException NO_VISIBLE_WEAPONS = new SubStatusException ("No se puede recoger municion, no hay objetos visibles");
+
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -48,41 +51,42 @@ public class PickupWeapon extends SecondaryState {
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     public PickupWeapon (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                          final Items items, final AgentInfo info, final Weaponry weaponry,
                          final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                         final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
-        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        super (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
 
     /**
      * Pickup visible weapons, if there's not any visible ammo, throw an exception.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where want to make the bot face.
      * @throws SubStatusException Thrown when there are no visible weapons.
      */
-    public void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException {
+    public void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException {
 
-        if (PrimaryState.crouched) {
+        if (context.crouched) {
             act.act(new SetCrouch ().setCrouch (false));
-            PrimaryState.crouched = false;
+            context.crouched = false;
         }
 
         // If we haven't looked for weapons
-        if (destination == null) {
+        if (context.subStateDestination == null) {
             Map <UnrealId, Item> weaponsMap = items.getVisibleItems(Category.WEAPON);
 
             if (weaponsMap.isEmpty()) {
-                throw new SubStatusException ("No se puede recoger municion, no hay objetos visibles");
+                throw NO_VISIBLE_WEAPONS;
             }
 
-            destination = Arithmetic.getClosestItemLocation (info, weaponsMap);
+            context.subStateDestination = Arithmetic.getClosestItemLocation (info, weaponsMap);
 
-            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(info.getLocation(), destination);
+            IPathFuture <ILocated> pathHandle = pathPlanner.computePath(snapshot.getLocation(), context.subStateDestination);
 
             if (pathExecutor.isExecuting()) {
                 pathExecutor.stop ();
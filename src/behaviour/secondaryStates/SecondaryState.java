@@ -1,6 +1,8 @@
 package behaviour.secondaryStates;
 
+import bot.BotContext;
 import exceptions.SubStatusException;
+import knowledge.WorldSnapshot;
 
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
 import cz.cuni.amis.pogamut.base.communication.command.IAct;
@@ -15,7 +17,6 @@ import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Items;
 import cz.cuni.amis.pogamut.ut2004.bot.command.AdvancedLocomotion;
 import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.AutoTraceRay;
-import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
 
 
 /**
@@ -53,15 +54,8 @@ public abstract class SecondaryState {
     protected Raycasting raycasting;
     /** Pointer to the cardinalRayArray field from T800 */
     protected AutoTraceRay cardinalRayArray [];
-
-
-    // *************************************************************************
-    //                           STATIC FIELDS
-    // *************************************************************************
-
-
-    /** Location were the bot is headed */
-    protected static Location destination;
+    /** Decision context shared by all the states of the bot */
+    protected BotContext context;
 
 
     // *************************************************************************
@@ -69,13 +63,6 @@ public abstract class SecondaryState {
     // *************************************************************************
 
 
-    /** static constructor */
-    static {
-        destination = null;
-    }
-
-    //__________________________________________________________________________
-
     /**
      * Argument based constructor.
      * @param body body field from T800.
@@ -89,11 +76,12 @@ public abstract class SecondaryState {
      * @param move move field from T800.
      * @param raycasting raycasting field from T800.
      * @param cardinalRayArray cardinalRayArray field from T800.
+     * @param context Decision context of the bot.
      */
     protected SecondaryState (final CompleteBotCommandsWrapper body, final IAct act, final IVisionWorldView world,
                         final Items items, final AgentInfo info, final Weaponry weaponry,
                         final IPathPlanner <ILocated> pathPlanner, final IUnrealPathExecutor <ILocated> pathExecutor,
-                        final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray []) {
+                        final AdvancedLocomotion move, final Raycasting raycasting, final AutoTraceRay cardinalRayArray [], final BotContext context) {
 
         this.body = body;
         this.act = act;
@@ -106,17 +94,18 @@ public abstract class SecondaryState {
         this.move = move;
         this.raycasting = raycasting;
         this.cardinalRayArray = cardinalRayArray;
+        this.context = context;
     }
 
     //__________________________________________________________________________
 
     /**
      * Each sub state tells how the bot should move.
-     * @param enemy Enemy.
+     * @param snapshot State of the world in this logic tick.
      * @param facingSpot Location where we want to make the bot face.
      * @throws SubStatusException Thrown when the sub state can't be executed.
      */
-    public abstract void executeMovement (final Player enemy, final Location facingSpot) throws SubStatusException;
+    public abstract void executeMovement (final WorldSnapshot snapshot, final Location facingSpot) throws SubStatusException;
 
     //__________________________________________________________________________
 
@@ -124,7 +113,7 @@ public abstract class SecondaryState {
      * We have reached the desired destination.
      */
     public void destinationReached () {
-        destination = null;
+        context.subStateDestination = null;
     }
 
     //__________________________________________________________________________
@@ -133,7 +122,7 @@ public abstract class SecondaryState {
      * Stops execution.
      */
     public void stopExecution () {
-        destination = null;
+        context.subStateDestination = null;
     }
 
     //__________________________________________________________________________
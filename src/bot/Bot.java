@@ -2,8 +2,10 @@ package bot;
 
 import behaviour.primaryStates.*;
 import behaviour.secondaryStates.*;
+import brain.ArsenalTable;
 import brain.Brain;
 import cz.cuni.amis.pogamut.base.agent.navigation.IPathExecutorState;
+import cz.cuni.amis.pogamut.base.agent.navigation.PathExecutorState;
 import cz.cuni.amis.pogamut.base.communication.worldview.listener.annotation.EventListener;
 import cz.cuni.amis.pogamut.base.communication.worldview.listener.annotation.ObjectClassEventListener;
 import cz.cuni.amis.pogamut.base.communication.worldview.object.event.WorldObjectUpdatedEvent;
@@ -11,23 +13,33 @@ import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
 import cz.cuni.amis.pogamut.base3d.worldview.object.event.WorldObjectAppearedEvent;
 import cz.cuni.amis.pogamut.base3d.worldview.object.event.WorldObjectDisappearedEvent;
 import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weapon;
 import cz.cuni.amis.pogamut.ut2004.agent.navigation.stuckdetector.UT2004PositionHistoryStuckDetector;
 import cz.cuni.amis.pogamut.ut2004.bot.impl.UT2004Bot;
 import cz.cuni.amis.pogamut.ut2004.bot.impl.UT2004BotModuleController;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.Combo;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.Configuration;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.Initialize;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbcommands.RemoveRay;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.*;
-import cz.cuni.amis.pogamut.ut2004.utils.UT2004BotRunner;
 import cz.cuni.amis.pogamut.ut2004.utils.UnrealUtils;
 import cz.cuni.amis.utils.exception.PogamutException;
 import cz.cuni.amis.utils.flag.FlagListener;
+import java.io.File;
 import java.util.logging.Level;
 import javax.vecmath.Vector3d;
 import knowledge.EnemyInfo;
+import knowledge.EnemyRegistry;
+import knowledge.SpawnedItems;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
+import knowledge.WorldSnapshotPool;
 import utilities.Arithmetic;
-import utilities.Initialization;
+import utilities.CachedPathPlanner;
+import utilities.MapKnowledge;
+import utilities.PhaseProfile;
+import utilities.TickStatistics;
 
 
 /**
@@ -52,14 +64,38 @@ public class Bot extends UT2004BotModuleController {
     private EnemyInfo enemyInfo;
     /** It is the brains of the bot, it decides when to switch from one state to another */
     private Brain brain;
-    /** Vector containing all the path nodes from the current map */
-    public static NavPoint pathNodes [];
-    /** Vector containing all the important areas of the current map */
-    public static NavPoint areas [];
+    /** Path planner used by the states, it reuses the paths computed before */
+    private CachedPathPlanner pathCache;
+    /** Decision context shared by the states, the brain and the enemy information */
+    private BotContext context;
+    /** Scheduler that decides when the logic ticks of the bots of this JVM run */
+    private TickScheduler scheduler;
+    /** CPU accounting and quota of the logic ticks of this bot */
+    private TickAccount tickAccount;
+    /** Time (nanoseconds) a logic tick may wait for the scheduler before it is skipped */
+    private long tickDeadline;
+    /** Events received by the listeners, waiting for the logic thread to handle them */
+    private EventInbox <Object> inbox;
+    /** Handles the events of the inbox in the logic thread */
+    private EventInbox.Handler <Object> eventHandler;
+    /** Last ticks of the bot, written to disk when it dies (null if it is disabled) */
+    private DecisionTrace trace = null;
+    /** Match events of the bot, stored in the telemetry database (null if it is disabled) */
+    private Telemetry telemetry = null;
+    /** Takes the state of the world at the start of every logic tick (see think) */
+    private WorldSnapshotPool snapshots = new WorldSnapshotPool ();
+    /** Duration of every logic tick of this bot, it is null unless somebody (e.g. a load test) sets it */
+    private volatile TickStatistics tickStatistics = null;
+    /** Duration of every phase of the logic ticks, it is null unless somebody (e.g. a load test) sets it */
+    public static PhaseProfile phaseProfile = null;
     /** Location of a feasible spam or combo */
     private Location bullseye = null;
     /** Enemy's information (it is null when we are not seeing the enemy) */
     private Player enemy = null;
+    /** Id of the opponent described by enemyInfo (null if we haven't chosen any yet) */
+    private UnrealId enemyId = null;
+    /** Slots of the opponents ranked by how dangerous they are (filled when choosing the enemy) */
+    private int threatRanking [] = new int [EnemyRegistry.CAPACITY];
     /** Used to tell the bot where he should be facing (useful when using pathExecutor) */
     private Location facingSpot = null;
     /** It represents the destination where we want to make the bot go (no matter what) */
@@ -126,6 +162,8 @@ public class Bot extends UT2004BotModuleController {
     public static final int GREEDY = 3;
     /** Identifies the Camp state in the primary states vector */
     public static final int CAMP = 4;
+    /** Name of every primary state, in the order of the primary states vector */
+    public static final String PRIMARY_STATE_NAMES [] = {"Attack", "Retreat", "Hunt", "Greedy", "Camp"};
 
     // CONSTANTS FOR SUBSTATES
 
@@ -145,6 +183,9 @@ public class Bot extends UT2004BotModuleController {
     public static final int CRITICALHEALTH = 6;
     /** Identifies the Critical Weaponry sub state in the secondary states vector */
     public static final int CRITICALWEAPONRY = 7;
+    /** Name of every secondary state, in the order of the secondary states vector */
+    public static final String SECONDARY_STATE_NAMES [] = {"Disabled", "DefensiveProfile", "OfensiveProfile", "PickupWeapon",
+                                                           "PickupAmmo", "PickupHealth", "CriticalHealth", "CriticalWeaponry"};
 
 
     // *************************************************************************
@@ -156,25 +197,52 @@ public class Bot extends UT2004BotModuleController {
     public void prepareBot (UT2004Bot bot) {
         // TODO used for initialization, initialize agent modules here
 
-        enemyInfo = new EnemyInfo (body);
-        brain = new Brain (body);
+        scheduler = TickScheduler.getShared ();
+        tickAccount = scheduler.register (bot.getName (), TickScheduler.getDefaultQuota ());
+        tickDeadline = TickScheduler.getDefaultDeadline ();
+        inbox = new EventInbox <Object> (EventInbox.getDefaultCapacity ());
+        eventHandler = new EventInbox.Handler <Object> () {
+            public void handle (Object event, double time) {
+                handleEvent (event, time);
+            }
+        };
+        context = new BotContext ();
+        context.seedRandom (bot.getName ());
+        enemyInfo = new EnemyInfo (body, context);
+        brain = new Brain (body, context);
+        pathCache = new CachedPathPlanner (pathPlanner, CachedPathPlanner.DEFAULT_CAPACITY);
+        // Decisions are written to the decision log when its logger is enabled
+        context.decisionEvents.add (new DecisionLog (bot.getName ()));
+        pathCache.setListener (context.decisionEvents);
+        // Keep the last ticks so we can see what happened when the bot dies
+        int traceTicks = DecisionTrace.getDefaultTicks ();
+        if (traceTicks > 0) {
+            trace = new DecisionTrace (traceTicks);
+            context.decisionEvents.add (trace);
+        }
+        // Match events are stored in the telemetry database if it is enabled
+        TelemetryWriter telemetryWriter = TelemetryWriter.getShared ();
+        if (telemetryWriter != null) {
+            telemetry = new Telemetry (bot.getName (), telemetryWriter);
+            context.decisionEvents.add (telemetry);
+        }
 
         primaryStateArray = new PrimaryState [5];
-        primaryStateArray [ATTACK] = new Attack (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
-        primaryStateArray [RETREAT] = new Retreat (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
-        primaryStateArray [HUNT] = new Hunt (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
-        primaryStateArray [GREEDY] = new Greedy (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
-        primaryStateArray [CAMP] = new Camp (body, act, world, game, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray, shoot);
+        primaryStateArray [ATTACK] = new Attack (body, act, world, game, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
+        primaryStateArray [RETREAT] = new Retreat (body, act, world, game, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
+        primaryStateArray [HUNT] = new Hunt (body, act, world, game, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
+        primaryStateArray [GREEDY] = new Greedy (body, act, world, game, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
+        primaryStateArray [CAMP] = new Camp (body, act, world, game, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, shoot, context);
 
         secondaryStateArray = new SecondaryState [8];
         secondaryStateArray [DISABLED] = null;
-        secondaryStateArray [DEFENSIVEPROFILE] = new DefensiveProfile (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [OFENSIVEPROFILE] = new OfensiveProfile (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [PICKUPWEAPON] = new PickupWeapon (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [PICKUPAMMO] = new PickupAmmo (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [PICKUPHEALTH] = new PickupHealth (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [CRITICALHEALTH] = new CriticalHealth (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
-        secondaryStateArray [CRITICALWEAPONRY] = new CriticalWeaponry (body, act, world, items, info, weaponry, pathPlanner, pathExecutor, move, raycasting, cardinalRayArray);
+        secondaryStateArray [DEFENSIVEPROFILE] = new DefensiveProfile (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [OFENSIVEPROFILE] = new OfensiveProfile (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [PICKUPWEAPON] = new PickupWeapon (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [PICKUPAMMO] = new PickupAmmo (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [PICKUPHEALTH] = new PickupHealth (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [CRITICALHEALTH] = new CriticalHealth (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
+        secondaryStateArray [CRITICALWEAPONRY] = new CriticalWeaponry (body, act, world, items, info, weaponry, pathCache, pathExecutor, move, raycasting, cardinalRayArray, context);
     }
 
     //__________________________________________________________________________
@@ -183,8 +251,10 @@ public class Bot extends UT2004BotModuleController {
     public Initialize getInitializeCommand () {
         // TODO init bot's params there
 
-        // Initialize the bot's name
-        return new Initialize ().setName ("Paquito-V001");
+        // Join with the name the launcher gave us, so every bot of the JVM has
+        // its own name in the game (the same one the trace, the telemetry and
+        // the scheduler use)
+        return new Initialize ().setName (bot.getName ());
     }
 
     //__________________________________________________________________________
@@ -203,10 +273,19 @@ public class Bot extends UT2004BotModuleController {
         initializePathListeners ();
         // Initialize raycasting
         initializeRayCasting ();
-        // Get all the path nodes in the current map
-        pathNodes = Initialization.initializePathNodes (world);
-        // Get all the important areas in the current map
-        areas = Initialization.initializeAreas (items);
+        // Get the path nodes, the important areas and how far every item spot
+        // is from every NavPoint (built once for all the bots of this JVM in
+        // the map, or read from the map cache if it was computed before)
+        context.mapKnowledge = MapKnowledge.acquire (gameInfo.getLevel (), world, items);
+        NavPoint navPoints [] = context.mapKnowledge.getNavPoints (world);
+        context.pathNodes = context.mapKnowledge.getPathNodes (navPoints);
+        context.pathNodeIndex = context.mapKnowledge.getPathNodeIndex ();
+        context.areas = context.mapKnowledge.getAreas (navPoints);
+        context.navigationDistances = context.mapKnowledge.getNavigationDistances ();
+        // Which items are spawned, kept up to date by the item events
+        context.spawnedItems = new SpawnedItems (items);
+        // Paths computed in another map are useless
+        pathCache.reset (context.mapKnowledge.getNavPointIndex ());
     }
 
     //__________________________________________________________________________
@@ -215,19 +294,21 @@ public class Bot extends UT2004BotModuleController {
     public void botSpawned (GameInfo gameInfo, ConfigChange config, InitedMessage init, Self self) {
         // bot is spawned for the first time in the environment
         // examine 'self' to examine current bot's location and other stuff
-        // receive logs from the path executor so you can get a grasp on how it is working
-        pathExecutor.getLog ().setLevel (Level.ALL);
+        // only the problems of the path executor are logged, the decision trace
+        // tells what the bot was doing (see DecisionTrace)
+        pathExecutor.getLog ().setLevel (Level.WARNING);
     }
 
     //__________________________________________________________________________
 
-    private int previousPrimaryState = HUNT;
-    private int previousSecondaryState = DISABLED;
-
     /** Bot's primary state */
     private int primaryState = HUNT;
     /** Bot's secondary state */
     private int secondaryState = DISABLED;
+    /** Game time when the bot entered its primary state */
+    private double primaryStateTime = 0;
+    /** Game time when the bot entered its secondary state */
+    private double secondaryStateTime = 0;
 
 
     // *************************************************************************
@@ -238,37 +319,106 @@ public class Bot extends UT2004BotModuleController {
 
     @Override
     public void logic () throws PogamutException {
-        // Which are the next states?
-        primaryState = brain.estimatePrimaryState(info, weaponry, enemy, enemyInfo, game);
-        secondaryState = brain.estimateSecondaryState(primaryState, info, weaponry, enemy, enemyInfo);
-
-        /*if (primaryState != previousPrimaryState || secondaryState != previousSecondaryState) {
-            previousPrimaryState = primaryState;
-            previousSecondaryState = secondaryState;
-
-            body.getCommunication().sendGlobalTextMessage("primary = " + primaryStateArray [primaryState].toString ());
+        // Bring the knowledge up to date with what the listeners received
+        // since the last tick (even if this tick is skipped, so the inbox
+        // doesn't fill up)
+        inbox.drain (eventHandler);
+        // The items whose respawn time has passed are back
+        context.spawnedItems.update (game.getTime ());
+
+        // Wait for our turn, if it doesn't come in time the tick is skipped
+        if (!scheduler.begin (tickAccount, System.nanoTime () + tickDeadline)) {
+            return;
+        }
 
-            if (secondaryState != DISABLED) {
-                body.getCommunication().sendGlobalTextMessage("secondary = " + secondaryStateArray [secondaryState].toString ());
+        try {
+            TickStatistics statistics = tickStatistics;
+            if (statistics == null) {
+                think ();
             }
             else {
-                body.getCommunication().sendGlobalTextMessage("secondary = DISABLED");
+                boolean failed = true;
+                long start = System.nanoTime ();
+
+                try {
+                    think ();
+                    failed = false;
+                }
+                finally {
+                    statistics.record (start, System.nanoTime (), failed);
+                }
             }
-        }*/
+        }
+        finally {
+            scheduler.end (tickAccount);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * One decision cycle: estimate the states, the destination and the target,
+     * then move and shoot.
+     */
+    private void think () {
+        // Only measure the phases if somebody asked for it
+        PhaseProfile profile = phaseProfile;
+        long time = profile != null ? System.nanoTime () : 0;
+
+        // Every decision of this tick sees the world as it is now (the
+        // snapshot is reused by the next tick, it mustn't leave this method)
+        WorldSnapshot snapshot = snapshots.take (info, weaponry, game, enemy, enemyInfo);
+
+        // Which are the next states?
+        int previousPrimaryState = primaryState;
+        int previousSecondaryState = secondaryState;
+        primaryState = brain.estimatePrimaryState (snapshot);
+        if (profile != null) time = profile.record (PhaseProfile.PRIMARY_STATE, primaryState, time);
+        secondaryState = brain.estimateSecondaryState (primaryState, snapshot);
+        if (profile != null) time = profile.record (PhaseProfile.SECONDARY_STATE, primaryState, time);
+
+        // Tell the decision listeners about the transitions
+        if (primaryState != previousPrimaryState) {
+            context.decisionEvents.primaryStateChanged (previousPrimaryState, primaryState, snapshot.getTime () - primaryStateTime, snapshot.getTime ());
+            primaryStateTime = snapshot.getTime ();
+        }
+        if (secondaryState != previousSecondaryState) {
+            context.decisionEvents.secondaryStateChanged (previousSecondaryState, secondaryState, snapshot.getTime () - secondaryStateTime, snapshot.getTime ());
+            secondaryStateTime = snapshot.getTime ();
+        }
 
         // Must we go somwhere?
-        destination = brain.estimateDestination (info, enemy, weaponry, items);
+        Location previousDestination = destination;
+        destination = brain.estimateDestination (snapshot, weaponry);
+        if (profile != null) time = profile.record (PhaseProfile.DESTINATION, primaryState, time);
+
+        if (destination != null ? !destination.equals (previousDestination) : previousDestination != null) {
+            context.decisionEvents.destinationChanged (previousDestination, destination, snapshot.getTime ());
+        }
 
         // Should we be facing anything?
-        facingSpot = enemy != null? enemy.getLocation () : null;
+        facingSpot = snapshot.getEnemyLocation ();
 
         // Should we blow a combo or shoot a spam?
         bullseye = brain.estimateTarget ();
+        if (profile != null) time = profile.record (PhaseProfile.TARGET, primaryState, time);
 
         // Switch to best weapon, move and shoot (if necessary)
-        primaryStateArray [primaryState].switchToBestWeapon (enemy, enemyInfo);
-        primaryStateArray [primaryState].executeMovement (secondaryStateArray [secondaryState], destination, enemy, facingSpot, enemyInfo);
-        primaryStateArray [primaryState].engage (enemy, bullseye);
+        primaryStateArray [primaryState].switchToBestWeapon (snapshot);
+        if (profile != null) time = profile.record (PhaseProfile.WEAPON, primaryState, time);
+        primaryStateArray [primaryState].executeMovement (secondaryStateArray [secondaryState], destination, snapshot, facingSpot);
+        if (profile != null) time = profile.record (PhaseProfile.MOVEMENT, primaryState, time);
+
+        // Engage resets the combo and spam flags, so they are recorded before
+        if (trace != null) {
+            Weapon weapon = weaponry.getCurrentWeapon ();
+            int flags = (context.blowCombo ? DecisionTrace.COMBO : 0) | (context.spam ? DecisionTrace.SPAM : 0);
+            trace.record (snapshot, primaryState, secondaryState, destination, weapon != null ? weapon.getType () : null,
+                          WeaponKnowledge.getLoadedMask (weaponry), bullseye, flags);
+        }
+
+        primaryStateArray [primaryState].engage (snapshot, bullseye);
+        if (profile != null) profile.record (PhaseProfile.ENGAGE, primaryState, time);
 
         // Reset temporary information
         brain.resetTempInfo ();
@@ -280,15 +430,29 @@ public class Bot extends UT2004BotModuleController {
     // *************************************************************************
 
 
+    /**
+     * Whenever an item appears on sight, it gets triggered.
+     * @param event WorldObjectAppearedEvent event.
+     */
     @ObjectClassEventListener (eventClass = WorldObjectAppearedEvent.class, objectClass = Item.class)
     protected void objectAppeared (WorldObjectAppearedEvent <Item> event) {
-        /* Nothing to do yet, although some of the primary states and secondary
-           states check the visible items through a pogamut module (which is
-           less efficient). In the future this listener could be used to trigger
-           actions.
-        */
+        inbox.offer (event, game.getTime ());
+    }
 
-        //Item item = event.getObject ();
+    //__________________________________________________________________________
+
+    /**
+     * Whenever a NavPoint is updated, it gets triggered. Only the item spots
+     * on sight are handled, they tell whether their item is spawned.
+     * @param event WorldObjectUpdatedEvent event.
+     */
+    @ObjectClassEventListener (eventClass = WorldObjectUpdatedEvent.class, objectClass = NavPoint.class)
+    protected void navPointUpdated (WorldObjectUpdatedEvent <NavPoint> event) {
+        NavPoint navPoint = event.getObject ();
+
+        if (navPoint.isVisible () && navPoint.getItem () != null) {
+            inbox.offer (event, game.getTime ());
+        }
     }
 
     //__________________________________________________________________________
@@ -317,10 +481,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @ObjectClassEventListener (eventClass = WorldObjectAppearedEvent.class, objectClass = Player.class)
     protected void playerAppeared (WorldObjectAppearedEvent<Player> event) {
-        // Update enemy information
-        enemy = event.getObject ();
-        // Update the last known location of the enemy
-        enemyInfo.updateEnemyLocation(enemy.getLocation (), game.getTime ());
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -332,24 +493,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @ObjectClassEventListener (eventClass = WorldObjectUpdatedEvent.class, objectClass = Player.class)
     protected void playerUpdated (WorldObjectUpdatedEvent<Player> event) {
-        // Update enemy information
-        // Note that it is null during the handshake, hence, if we are going to use
-        // getLocation we should check if it is null first.
-        enemy = event.getObject ();
-        Location enemyLocation = enemy.getLocation ();
-
-        if (enemyLocation == null) {
-            enemyInfo.updateEnemyLocation (null, -1);
-        }
-        else {
-            enemyInfo.updateEnemyLocation (enemyLocation, game.getTime ());
-        }
-
-        enemyInfo.updateWeapon (enemy.getWeapon ());
-        if (enemyKilled){
-            enemyInfo.reset();
-            enemyKilled = false;
-        }
+        inbox.offer (event, game.getTime ());
     }
 
 
@@ -362,9 +506,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @ObjectClassEventListener (eventClass = WorldObjectDisappearedEvent.class, objectClass = Player.class)
     protected void playerDisappeared (WorldObjectDisappearedEvent<Player> event) {
-        enemy = null;
-        // Update relevant information in the states
-        primaryStateArray [primaryState].playerDisappeared ();
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -376,10 +518,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @ObjectClassEventListener (eventClass = WorldObjectUpdatedEvent.class, objectClass = IncomingProjectile.class)
     protected void incomingProjectile (WorldObjectUpdatedEvent<IncomingProjectile> event) {
-        // Get the object of type IncomingProjectile
-        IncomingProjectile projectile = event.getObject ();
-        // Classifie the projectile
-        brain.incomingProjectile (projectile, enemy);
+        inbox.offer (event, game.getTime ());
 
         /*if (projectile.getType().equals("XWeapons.RocketProj")) {
             body.getCommunication().sendGlobalTextMessage("Viene un pepino");
@@ -401,8 +540,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = BotDamaged.class)
     protected void botDamaged (BotDamaged event) {
-        // Trigger the non cognitive behaviour of the bot in response to the hit
-        primaryStateArray [primaryState].botDamaged (event, game.getTime (), enemy);
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -414,8 +552,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = HearNoise.class)
     protected void hearNoise (HearNoise event) {
-        // Trigger the non cognitive behaviour of the bot in response to the noise
-        primaryStateArray [primaryState].hearNoise (event, game.getTime (), enemy);
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -427,10 +564,18 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = HearPickup.class)
     protected void hearPickup (HearPickup event) {
-        // Update enemy's information
-        enemyInfo.hearPickup (event, info, game, items);
-        // Trigger the non cognitive behaviour of the bot in response to the noise
-        primaryStateArray [primaryState].hearPickup (event, game.getTime (), enemy);
+        inbox.offer (event, game.getTime ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whenever the bot picks up an item, it gets triggered.
+     * @param event ItemPickedUp event.
+     */
+    @EventListener (eventClass = ItemPickedUp.class)
+    protected void itemPickedUp (ItemPickedUp event) {
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -441,18 +586,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = PlayerKilled.class)
     protected void playerKilled (PlayerKilled event) {
-        // If we have killed him, let's say a charming comment :P
-        UnrealId killerId = event.getKiller ();
-        if (killerId != null && info.getId ().equals (killerId)) {
-            if (Math.random () < 0.5) {
-                int randomQuote = Arithmetic.doRandomNumber (0, memorableQuotes.length - 1);
-                body.getCommunication ().sendGlobalTextMessage (memorableQuotes [randomQuote]);
-            }
-        }
-
-        // Reset enemy's information
-        enemyInfo.reset ();
-        enemyKilled = true;
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -463,7 +597,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = PlayerJoinsGame.class)
     protected void playerJoinedGame (PlayerJoinsGame event) {
-        enemyInfo.setName (event.getName ());
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -474,8 +608,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = PlayerLeft.class)
     protected void playerLeft (PlayerLeft event) {
-        enemyInfo.eraseName ();
-        enemyInfo.reset ();
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -486,9 +619,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = MapFinished.class)
     protected void mapFinished (MapFinished event) {
-        if (pathExecutor.isExecuting ()) {
-            pathExecutor.stop ();
-        }
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -499,10 +630,7 @@ public class Bot extends UT2004BotModuleController {
      */
     @EventListener (eventClass = PlayerDamaged.class)
     protected void playerDamaged (PlayerDamaged event) {
-        // Depending on what hit the player, we may have to consider certain strategies
-        primaryStateArray [primaryState].playerDamaged (event);
-        // Update the amount of damage we assume the enemy just lost
-        enemyInfo.hit (event.getDamage ());
+        inbox.offer (event, game.getTime ());
     }
 
     //__________________________________________________________________________
@@ -518,15 +646,367 @@ public class Bot extends UT2004BotModuleController {
 
     //__________________________________________________________________________
 
+    /**
+     * The bot is shutting down (it has been disconnected or killed).
+     */
+    @Override
+    public void botShutdown () {
+        releaseMapKnowledge ();
+
+        if (scheduler != null) {
+            scheduler.unregister (tickAccount);
+        }
+    }
+
+    //__________________________________________________________________________
+
     /**
      * Whenever the bot dies it gets trigered.
      * @param event BotKilled event.
      */
     @Override
     public void botKilled (BotKilled event) {
+        inbox.offer (event, game.getTime ());
+    }
+
+
+    // *************************************************************************
+    //                   EVENTS HANDLED BY THE LOGIC THREAD
+    // *************************************************************************
+
+
+    /**
+     * Handles an event received by a listener. The listeners only put the
+     * events in the inbox, so the enemy, the enemy information and the states
+     * are only changed by the logic thread (see logic).
+     * @param event Event.
+     * @param time Game time when the event arrived.
+     */
+    @SuppressWarnings ("unchecked")
+    private void handleEvent (final Object event, final double time) {
+        if (event instanceof WorldObjectUpdatedEvent) {
+            Object object = ((WorldObjectUpdatedEvent) event).getObject ();
+
+            if (object instanceof Player) {
+                handlePlayerUpdated ((Player) object, time);
+            }
+            else if (object instanceof IncomingProjectile) {
+                // Classifie the projectile
+                brain.incomingProjectile ((IncomingProjectile) object, enemy);
+            }
+            else if (object instanceof NavPoint) {
+                // Its item may have been picked up or respawned
+                context.spawnedItems.navPointSeen ((NavPoint) object, time);
+            }
+        }
+        else if (event instanceof WorldObjectAppearedEvent) {
+            Object object = ((WorldObjectAppearedEvent) event).getObject ();
+
+            if (object instanceof Player) {
+                context.enemies.playerSeen ((Player) object, time);
+
+                if (chooseEnemy ((Player) object, time)) {
+                    // Update enemy information
+                    enemy = (Player) object;
+                    // Update the last known location of the enemy
+                    enemyInfo.updateEnemyLocation (enemy.getLocation (), time);
+                }
+            }
+            else if (object instanceof Item) {
+                // If we are seeing it, it is spawned
+                context.spawnedItems.itemSeen ((Item) object);
+            }
+        }
+        else if (event instanceof WorldObjectDisappearedEvent) {
+            UnrealId id = ((Player) ((WorldObjectDisappearedEvent) event).getObject ()).getId ();
+            context.enemies.playerLost (id);
+
+            // Other opponents may come and go while we fight the enemy
+            if (enemy != null && enemy.getId ().equals (id)) {
+                enemy = null;
+                // Update relevant information in the states
+                primaryStateArray [primaryState].playerDisappeared ();
+            }
+        }
+        else if (event instanceof PlayerDamaged) {
+            // Depending on what hit the player, we may have to consider certain strategies
+            primaryStateArray [primaryState].playerDamaged ((PlayerDamaged) event);
+            // Update the amount of damage we assume the enemy just lost
+            context.enemies.hit (((PlayerDamaged) event).getId (), ((PlayerDamaged) event).getDamage ());
+            if (enemyId == null || enemyId.equals (((PlayerDamaged) event).getId ())) {
+                enemyInfo.hit (((PlayerDamaged) event).getDamage ());
+            }
+
+            if (telemetry != null) {
+                PlayerDamaged damaged = (PlayerDamaged) event;
+                telemetry.damageDealt (damaged.getWeaponName (), damaged.getDamageType (), damaged.getDamage (), time);
+            }
+        }
+        else if (event instanceof HearPickup) {
+            // Update enemy's information
+            enemyInfo.hearPickup ((HearPickup) event, info, game, items);
+            // Start the respawn timer of the item we have heard (the source is
+            // the item, not the player who picked it up)
+            context.spawnedItems.heardPickup (((HearPickup) event).getSource (),
+                                              ItemType.getItemType (((HearPickup) event).getType ()),
+                                              enemy != null ? enemy.getLocation () : enemyInfo.getLastKnownLocation (), time);
+            // Trigger the non cognitive behaviour of the bot in response to the noise
+            primaryStateArray [primaryState].hearPickup ((HearPickup) event, time, enemy);
+
+            if (telemetry != null) {
+                telemetry.heardPickup (((HearPickup) event).getType (), time);
+            }
+        }
+        else if (event instanceof HearNoise) {
+            // Trigger the non cognitive behaviour of the bot in response to the noise
+            primaryStateArray [primaryState].hearNoise ((HearNoise) event, time, enemy);
+        }
+        else if (event instanceof BotDamaged) {
+            // Trigger the non cognitive behaviour of the bot in response to the hit
+            primaryStateArray [primaryState].botDamaged ((BotDamaged) event, time, enemy);
+
+            if (telemetry != null) {
+                BotDamaged damaged = (BotDamaged) event;
+                telemetry.damageTaken (damaged.getWeaponName (), damaged.getDamageType (), damaged.getDamage (), time);
+            }
+        }
+        else if (event instanceof ItemPickedUp) {
+            context.spawnedItems.pickedUp (((ItemPickedUp) event).getId (), time);
+
+            if (telemetry != null) {
+                telemetry.pickup (((ItemPickedUp) event).getType (), ((ItemPickedUp) event).getAmount (), time);
+            }
+        }
+        else if (event instanceof PlayerKilled) {
+            handlePlayerKilled ((PlayerKilled) event, time);
+        }
+        else if (event instanceof BotKilled) {
+            handleBotKilled ((BotKilled) event, time);
+        }
+        else if (event instanceof PathExecutorState) {
+            handlePathState ((PathExecutorState) event);
+        }
+        else if (event instanceof MapFinished) {
+            if (pathExecutor.isExecuting ()) {
+                pathExecutor.stop ();
+            }
+
+            // Paths and knowledge of this map are useless in the next one
+            pathCache.reset (null);
+            releaseMapKnowledge ();
+        }
+        else if (event instanceof PlayerJoinsGame) {
+            PlayerJoinsGame joined = (PlayerJoinsGame) event;
+            if (!info.getId ().equals (joined.getId ())) {
+                context.enemies.add (joined.getId (), joined.getName ());
+            }
+            if (enemyId == null) {
+                enemyInfo.setName (joined.getName ());
+            }
+        }
+        else if (event instanceof PlayerLeft) {
+            UnrealId id = ((PlayerLeft) event).getId ();
+            context.enemies.remove (id);
+
+            if (enemyId == null || enemyId.equals (id)) {
+                enemyInfo.eraseName ();
+                enemyInfo.reset ();
+                enemyId = null;
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stops what the bot was doing when it dies.
+     * @param event BotKilled event.
+     * @param time Game time when the bot died.
+     */
+    private void handleBotKilled (final BotKilled event, final double time) {
+        // Keep the last seconds of the bot
+        dumpTrace ();
+
+        if (telemetry != null) {
+            telemetry.death (event.getKiller (), event.getWeaponName (), time);
+        }
+
         primaryStateArray [primaryState].stopExecution (secondaryStateArray [secondaryState]);
         // Reset temporary information
-        PrimaryState.resetTempInfo ();
+        primaryStateArray [primaryState].resetTempInfo ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reacts to a change of the state of the path executor, it is called from
+     * the logic thread.
+     * @param state New state of the path executor.
+     */
+    private void handlePathState (final PathExecutorState state) {
+        switch (state) {
+            // If the computation fails
+            case PATH_COMPUTATION_FAILED:
+                body.getCommunication().sendGlobalTextMessage("PATH_COMPUTATION_FAILED!!!!!");
+
+                //break;
+            // If we reach the destination
+            case TARGET_REACHED:
+                //body.getCommunication ().sendGlobalTextMessage ("TARGET_REACHED");
+
+                // If the spot where we are is the one that skynet wants us to go
+                // we set it to null
+                if (destination != null && info.getDistance (destination) < 50) {
+                    destination = null;
+                }
+
+                // Notify the primary state that we have reached the destination
+                primaryStateArray [primaryState].destinationReached (secondaryStateArray [secondaryState]);
+
+                break;
+            // If we are stuck
+            case STUCK:
+                //body.getCommunication().sendGlobalTextMessage ("STUCK");
+
+                // Set destination to null
+                destination = null;
+
+                // Notify the primary state that we are stucked
+                primaryStateArray [primaryState].botStuck (secondaryStateArray[secondaryState]);
+
+                break;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Updates the enemy information when the enemy is updated.
+     * @param player Enemy.
+     * @param time Game time when the update arrived.
+     */
+    private void handlePlayerUpdated (final Player player, final double time) {
+        context.enemies.playerSeen (player, time);
+        if (!chooseEnemy (player, time)) {
+            return;
+        }
+
+        // Update enemy information
+        // Note that it is null during the handshake, hence, if we are going to use
+        // getLocation we should check if it is null first.
+        enemy = player;
+        Location enemyLocation = enemy.getLocation ();
+
+        if (enemyLocation == null) {
+            enemyInfo.updateEnemyLocation (null, -1);
+        }
+        else {
+            enemyInfo.updateEnemyLocation (enemyLocation, time);
+        }
+
+        enemyInfo.updateWeapon (enemy.getWeapon ());
+        if (enemyKilled){
+            enemyInfo.reset();
+            enemyKilled = false;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Resets the enemy information when a player dies.
+     * @param event PlayerKilled event.
+     * @param time Game time when the event arrived.
+     */
+    private void handlePlayerKilled (final PlayerKilled event, final double time) {
+        // If we have killed him, let's say a charming comment :P
+        UnrealId killerId = event.getKiller ();
+        if (killerId != null && info.getId ().equals (killerId)) {
+            if (telemetry != null) {
+                telemetry.kill (event.getId (), event.getWeaponName (), time);
+            }
+
+            if (context.random.nextDouble () < 0.5) {
+                int randomQuote = Arithmetic.doRandomNumber (context.random, 0, memorableQuotes.length - 1);
+                body.getCommunication ().sendGlobalTextMessage (memorableQuotes [randomQuote]);
+            }
+        }
+
+        context.enemies.killed (event.getId ());
+
+        // Reset enemy's information (other opponents dying don't matter)
+        if (enemyId == null || enemyId.equals (event.getId ()) || info.getId ().equals (event.getId ())) {
+            enemyInfo.reset ();
+            enemyKilled = true;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Decides whether an opponent we are seeing is the enemy we fight. If we
+     * are already fighting someone else who is on sight, we only switch to
+     * the opponent if it is the most dangerous of the opponents on sight (see
+     * EnemyRegistry.rankThreats). When the enemy changes, what we know about
+     * the new one is loaded into enemyInfo.
+     * @param player Opponent.
+     * @param time Game time.
+     * @return True if the opponent is the enemy.
+     */
+    private boolean chooseEnemy (final Player player, final double time) {
+        UnrealId id = player.getId ();
+        EnemyRegistry enemies = context.enemies;
+
+        if (enemy != null && !enemy.getId ().equals (id)) {
+            int current = enemies.getSlot (enemy.getId ()), candidate = enemies.getSlot (id);
+
+            if (current != -1 && enemies.isVisible (current)) {
+                Location location = info.getLocation ();
+                if (candidate == -1 || location == null) {
+                    return false;
+                }
+
+                // The enemy stays unless the opponent is the biggest threat on
+                // sight (and a bigger one than the enemy, ties keep the enemy)
+                int ownMask = ArsenalTable.getMask (weaponry);
+                int ranked = enemies.rankThreats (ownMask, location, time, threatRanking);
+                int mostDangerous = -1;
+                for (int i = 0; i < ranked && mostDangerous == -1; ++i) {
+                    if (enemies.isVisible (threatRanking [i])) {
+                        mostDangerous = threatRanking [i];
+                    }
+                }
+
+                if (mostDangerous != candidate || enemies.getThreat (candidate, ownMask, location, time)
+                                                  <= enemies.getThreat (current, ownMask, location, time)) {
+                    return false;
+                }
+            }
+        }
+
+        if (!id.equals (enemyId)) {
+            // Keep what we learnt about the outgoing enemy (the pickups we
+            // heard, for example), the registry doesn't know it
+            if (enemyId != null) {
+                enemies.update (enemyId, enemyInfo.getHealth (), enemyInfo.getArmor (), enemyInfo.getArsenal ());
+            }
+
+            int slot = enemies.getSlot (id);
+
+            enemyInfo.reset ();
+            if (slot != -1) {
+                enemyInfo.setName (enemies.getName (slot));
+                enemyInfo.setHealth (enemies.getHealth (slot));
+                enemyInfo.setArmor (enemies.getArmor (slot));
+                for (int i = 0; i < enemyInfo.getArsenal ().length; ++i) {
+                    enemyInfo.setWeapon (i, enemies.hasWeapon (slot, i));
+                }
+            }
+
+            enemyId = id;
+        }
+
+        return true;
     }
 
 
@@ -535,6 +1015,64 @@ public class Bot extends UT2004BotModuleController {
     // *************************************************************************
 
 
+    /**
+     * CPU accounting of the logic ticks of the bot (the quota can be changed
+     * through it).
+     * @return The account of the bot in the tick scheduler.
+     */
+    public TickAccount getTickAccount () {
+        return tickAccount;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Measures the duration of every logic tick of this bot from now on.
+     * @param tickStatistics Where the ticks are recorded (null stops measuring).
+     */
+    public void setTickStatistics (final TickStatistics tickStatistics) {
+        this.tickStatistics = tickStatistics;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Events received by the listeners and not handled yet, with the counters
+     * of their arrivals.
+     * @return The inbox of the bot.
+     */
+    public EventInbox <Object> getInbox () {
+        return inbox;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the last ticks of the bot to the traces directory (see
+     * DecisionTrace).
+     * @return The trace file, null if the trace is disabled or it couldn't be
+     * written.
+     */
+    public File dumpTrace () {
+        return trace != null ? trace.dump (bot.getName ()) : null;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stops using the knowledge of the current map, so it can be forgotten
+     * when no other bot is using it. Both the logic thread (when the map
+     * ends) and the shutdown may release it.
+     */
+    private synchronized void releaseMapKnowledge () {
+        if (context != null && context.mapKnowledge != null) {
+            context.mapKnowledge.release ();
+            context.mapKnowledge = null;
+        }
+    }
+
+    //__________________________________________________________________________
+
     /**
      * Initialize pathListener. Depending on what happens during execution of a plan
      * the pathListener will raise certain flags. For example, if we reach our destination
@@ -555,37 +1093,12 @@ public class Bot extends UT2004BotModuleController {
         pathExecutor.getState ().addStrongListener (new FlagListener<IPathExecutorState> () {
             @Override
             public void flagChanged (IPathExecutorState changedValue) {
-                switch (changedValue.getState ()) {
-                    // If the computation fails
-                    case PATH_COMPUTATION_FAILED:
-                        body.getCommunication().sendGlobalTextMessage("PATH_COMPUTATION_FAILED!!!!!");
-
-                        //break;
-                    // If we reach the destination
-                    case TARGET_REACHED:
-                        //body.getCommunication ().sendGlobalTextMessage ("TARGET_REACHED");
-
-                        // If the spot where we are is the one that skynet wants us to go
-                        // we set it to null
-                        if (destination != null && info.getDistance (destination) < 50) {
-                            destination = null;
-                        }
-
-                        // Notify the primary state that we have reached the destination
-                        primaryStateArray [primaryState].destinationReached (secondaryStateArray [secondaryState]);
-
-                        break;
-                    // If we are stuck
-                    case STUCK:
-                        //body.getCommunication().sendGlobalTextMessage ("STUCK");
-
-                        // Set destination to null
-                        destination = null;
-
-                        // Notify the primary state that we are stucked
-                        primaryStateArray [primaryState].botStuck (secondaryStateArray[secondaryState]);
+                PathExecutorState state = changedValue.getState ();
 
-                        break;
+                // The bot reacts to them in the logic thread (see handlePathState)
+                if (state == PathExecutorState.PATH_COMPUTATION_FAILED || state == PathExecutorState.TARGET_REACHED
+                    || state == PathExecutorState.STUCK) {
+                    inbox.offer (state, game.getTime ());
                 }
             }
         });
@@ -667,13 +1180,11 @@ public class Bot extends UT2004BotModuleController {
 
     /**
      * This method is called when the bot is started either from IDE or from command line.
-     * It connects the bot to the game server.
-     * @param args
+     * It connects the bots to the game server and keeps them connected (see
+     * BotLauncher for the configuration).
+     * @param args [number of bots] [server address] [server port]
      */
     public static void main (String args[]) throws PogamutException, Exception {
-        // Launch a local bot
-        new UT2004BotRunner (Bot.class, "T800").setMain (true).startAgent ();
-        // Launch a remote bot
-        //new UT2004BotRunner (T800.class, "T800", "<server ip>", 3000).setMain(true).startAgent();
+        BotLauncher.main (args);
     }
 }
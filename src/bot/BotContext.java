@@ -0,0 +1,125 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import knowledge.EnemyRegistry;
+import knowledge.SpawnedItems;
+import utilities.MapKnowledge;
+import utilities.NavPointIndex;
+import utilities.NavigationDistances;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class BotContext {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    // MAP
+
+    /** Knowledge of the current map shared with the rest of bots in the JVM */
+    public MapKnowledge mapKnowledge;
+    /** Vector containing all the path nodes from the current map */
+    public NavPoint pathNodes [];
+    /** Spatial index over pathNodes to find the closest path nodes to a location */
+    public NavPointIndex pathNodeIndex;
+    /** Vector containing all the important areas of the current map */
+    public NavPoint areas [];
+    /** Travel distances from every NavPoint to every item spot of the current map */
+    public NavigationDistances navigationDistances;
+    /** Items of the current map that are spawned (as far as we know) */
+    public SpawnedItems spawnedItems;
+
+    // OPPONENTS
+
+    /** What we know (or have guessed) about every opponent of the match */
+    public EnemyRegistry enemies = new EnemyRegistry ();
+
+    // EVENTS
+
+    /** Receives the decisions taken by the brain and the states */
+    public DecisionEvents decisionEvents = new DecisionEvents ();
+
+    // RANDOM NUMBERS
+
+    /** Random numbers of this bot, nobody else draws from them (see seedRandom) */
+    public Random random = new Random ();
+
+    // PRIMARY STATES FLAGS
+
+    /** Flag that indicates if we have hit with the sniper or the shock */
+    public boolean sniperOrShockHit = false;
+    /** Flag that indicates if we have to shoot a combo */
+    public boolean blowCombo = false;
+    /** Flag that indicates if we have to switch to the shock rifle */
+    public boolean useShockRifle = false;
+    /** Flag that indicates if we are going to throw a spam */
+    public boolean spam = false;
+    /** Flag that indicates if the bot is crouched */
+    public boolean crouched = false;
+
+    // PRIMARY STATES FIELDS
+
+    /** Location where we want to make the bot go */
+    public Location destination = null;
+    /** Location that the state is using to make the bot move */
+    public Location stateDrivenDestination = null;
+    /** Contains a list of the last places visited recently */
+    public List <Location> visitedSpots = new ArrayList <Location> ();
+    /** Current spot that the bot is facing */
+    public Location currentFacingSpot = null;
+    /** Game time when the bot made a rotation (as a result of a non cognitive action) */
+    public double rotationTime = -1;
+    /** Collision sensors for each cardinal ray (true if any of them is hitting something) */
+    public boolean collisionSensorArray [] = new boolean [8];
+    /** True if there's a hit in ANY cardinal ray */
+    public boolean raycastingHit = false;
+    /** True if the bot is moving (just used for reactive movement) */
+    public boolean moving = false;
+
+    // SECONDARY STATES FIELDS
+
+    /** Location were the bot is headed when a sub state drives the movement */
+    public Location subStateDestination = null;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the seed of the random numbers (a different one every run if it isn't set) */
+    public static final String SEED_PROPERTY = "expertagent.seed";
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Seeds the random numbers of the bot. If the SEED_PROPERTY system property
+     * is set every bot gets the seed plus the hash of its name (the launcher
+     * numbers them: T800-1, T800-2...), so a bot draws the same numbers in
+     * every run no matter how many bots share the JVM.
+     * @param botName Name of the bot.
+     */
+    public void seedRandom (final String botName) {
+        Long seed = Long.getLong (SEED_PROPERTY);
+
+        if (seed != null) {
+            random.setSeed (seed + botName.hashCode ());
+        }
+    }
+}
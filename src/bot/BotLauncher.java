@@ -0,0 +1,150 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base.agent.state.level1.IAgentStateDown;
+import cz.cuni.amis.pogamut.ut2004.agent.params.UT2004AgentParameters;
+import cz.cuni.amis.pogamut.ut2004.bot.impl.UT2004Bot;
+import cz.cuni.amis.pogamut.ut2004.utils.UT2004BotRunner;
+import cz.cuni.amis.utils.exception.PogamutException;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class BotLauncher implements Runnable {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the bot this launcher keeps connected */
+    private String name;
+    /** Address of the GameBots2004 server */
+    private String host;
+    /** Port of the GameBots2004 server */
+    private int port;
+    /** Milliseconds we wait before connecting again */
+    private long reconnectDelay;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the number of bots hosted in this JVM */
+    public final static String BOTS_PROPERTY = "expertagent.bots";
+    /** System property with the address of the GameBots2004 server */
+    public final static String HOST_PROPERTY = "expertagent.host";
+    /** System property with the port of the GameBots2004 server */
+    public final static String PORT_PROPERTY = "expertagent.port";
+    /** System property with the milliseconds we wait before connecting again */
+    public final static String RECONNECT_PROPERTY = "expertagent.reconnect";
+
+    /** Number of bots if the BOTS_PROPERTY system property isn't set */
+    private final static int DEFAULT_BOTS = 1;
+    /** Server address if the HOST_PROPERTY system property isn't set */
+    private final static String DEFAULT_HOST = "localhost";
+    /** Server port if the PORT_PROPERTY system property isn't set */
+    private final static int DEFAULT_PORT = 3000;
+    /** Reconnection delay if the RECONNECT_PROPERTY system property isn't set */
+    private final static long DEFAULT_RECONNECT = 5000;
+    /** Milliseconds between two checks of whether a bot is still connected */
+    private final static long POLL_PERIOD = 500;
+
+
+    // *************************************************************************
+    //                                 MAIN
+    // *************************************************************************
+
+
+    /**
+     * Hosts several bots in this JVM. Each bot is kept connected by its own
+     * thread: when it disconnects or the map ends it connects again, and if
+     * the server is down it keeps trying. The JVM never exits on its own.
+     * The configuration is read from the system properties (BOTS_PROPERTY,
+     * HOST_PROPERTY, PORT_PROPERTY and RECONNECT_PROPERTY) and the arguments,
+     * which take precedence.
+     * @param args [number of bots] [server address] [server port]
+     */
+    public static void main (String args[]) {
+        int bots = args.length > 0 ? Integer.parseInt (args [0]) : Integer.getInteger (BOTS_PROPERTY, DEFAULT_BOTS);
+        String host = args.length > 1 ? args [1] : System.getProperty (HOST_PROPERTY, DEFAULT_HOST);
+        int port = args.length > 2 ? Integer.parseInt (args [2]) : Integer.getInteger (PORT_PROPERTY, DEFAULT_PORT);
+        long reconnectDelay = Long.getLong (RECONNECT_PROPERTY, DEFAULT_RECONNECT);
+
+        for (int i = 1; i <= bots; ++i) {
+            String name = bots > 1 ? "T800-" + i : "T800";
+            new Thread (new BotLauncher (name, host, port, reconnectDelay), name + " launcher").start ();
+        }
+    }
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param name Name of the bot.
+     * @param host Address of the GameBots2004 server.
+     * @param port Port of the GameBots2004 server.
+     * @param reconnectDelay Milliseconds we wait before connecting again.
+     */
+    public BotLauncher (final String name, final String host, final int port, final long reconnectDelay) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Connects the bot and waits until it is down, over and over again.
+     */
+    public void run () {
+        while (!Thread.currentThread ().isInterrupted ()) {
+            try {
+                UT2004BotRunner <UT2004Bot <?, ?, ?>, UT2004AgentParameters> runner =
+                    new UT2004BotRunner <UT2004Bot <?, ?, ?>, UT2004AgentParameters> (Bot.class, name, host, port);
+                UT2004Bot <?, ?, ?> bot = runner.setMain (false).startAgent ();
+                waitUntilDown (bot);
+                System.err.println (name + " disconnected, connecting again in " + reconnectDelay + " ms");
+            }
+            catch (PogamutException e) {
+                System.err.println (name + " couldn't connect to " + host + ":" + port + " (" + e.getMessage ()
+                                    + "), trying again in " + reconnectDelay + " ms");
+            }
+
+            try {
+                Thread.sleep (reconnectDelay);
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Blocks until a bot is down (disconnected, killed or failed).
+     * @param bot Bot.
+     */
+    private void waitUntilDown (final UT2004Bot <?, ?, ?> bot) {
+        try {
+            while (!(bot.getState ().getFlag () instanceof IAgentStateDown)) {
+                Thread.sleep (POLL_PERIOD);
+            }
+        }
+        catch (InterruptedException e) {
+            bot.kill ();
+            Thread.currentThread ().interrupt ();
+        }
+    }
+}
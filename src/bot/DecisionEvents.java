@@ -0,0 +1,100 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class DecisionEvents implements DecisionListener {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Listeners that receive the events */
+    private List <DecisionListener> listeners = new ArrayList <DecisionListener> ();
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Adds a listener. It has to be done before the bot starts playing, the
+     * events are sent from the logic thread without locks.
+     * @param listener Listener.
+     */
+    public void add (final DecisionListener listener) {
+        listeners.add (listener);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether somebody is listening (so the events that need some work to be
+     * built can be skipped).
+     * @return True if there is at least a listener.
+     */
+    public boolean isEnabled () {
+        return !listeners.isEmpty ();
+    }
+
+    //__________________________________________________________________________
+
+    public void primaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).primaryStateChanged (from, to, elapsed, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void secondaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).secondaryStateChanged (from, to, elapsed, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void weaponSwitched (final ItemType from, final ItemType to, final double time) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).weaponSwitched (from, to, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void pathComputed (final Location from, final Location to, final boolean cached, final long duration) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).pathComputed (from, to, cached, duration);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void destinationChanged (final Location from, final Location to, final double time) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).destinationChanged (from, to, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void subStateFailed (final String primaryState, final String secondaryState, final String reason,
+                                final long duration, final double time) {
+        for (int i = 0; i < listeners.size (); ++i) {
+            listeners.get (i).subStateFailed (primaryState, secondaryState, reason, duration, time);
+        }
+    }
+}
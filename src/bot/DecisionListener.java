@@ -0,0 +1,68 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public interface DecisionListener {
+
+    /**
+     * The brain has chosen a different primary state.
+     * @param from Previous primary state (see Bot.ATTACK and the rest).
+     * @param to New primary state.
+     * @param elapsed Game time (seconds) spent in the previous primary state.
+     * @param time Game time of the transition.
+     */
+    void primaryStateChanged (int from, int to, double elapsed, double time);
+
+    /**
+     * The brain has chosen a different secondary state.
+     * @param from Previous secondary state (see Bot.DISABLED and the rest).
+     * @param to New secondary state.
+     * @param elapsed Game time (seconds) spent in the previous secondary state.
+     * @param time Game time of the transition.
+     */
+    void secondaryStateChanged (int from, int to, double elapsed, double time);
+
+    /**
+     * A primary state has switched the weapon.
+     * @param from Weapon we were holding (null if we weren't holding any).
+     * @param to Weapon we switched to.
+     * @param time Game time of the switch.
+     */
+    void weaponSwitched (ItemType from, ItemType to, double time);
+
+    /**
+     * A path has been asked to the path planner.
+     * @param from Start of the path (null if it was unknown).
+     * @param to Goal of the path (null if it was unknown).
+     * @param cached True if the path came from the path cache.
+     * @param duration Time (nanoseconds) the request took.
+     */
+    void pathComputed (Location from, Location to, boolean cached, long duration);
+
+    /**
+     * The brain has chosen a different destination.
+     * @param from Previous destination (null if there wasn't any).
+     * @param to New destination (null if the states drive the movement again).
+     * @param time Game time of the change.
+     */
+    void destinationChanged (Location from, Location to, double time);
+
+    /**
+     * A secondary state couldn't be executed and the primary state has taken
+     * over the movement.
+     * @param primaryState Name of the primary state.
+     * @param secondaryState Name of the secondary state.
+     * @param reason Message of the SubStatusException.
+     * @param duration Time (nanoseconds) the secondary state ran before it failed.
+     * @param time Game time of the failure.
+     */
+    void subStateFailed (String primaryState, String secondaryState, String reason, long duration, double time);
+}
@@ -0,0 +1,143 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class DecisionLog implements DecisionListener {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the bot */
+    private String botName;
+
+
+    // *************************************************************************
+    //                           STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Logger that receives the events */
+    private final static Logger logger = Logger.getLogger (DecisionLog.LOGGER_NAME);
+    /** Source of the CPU time of the threads */
+    private final static ThreadMXBean threads = ManagementFactory.getThreadMXBean ();
+    /** Garbage collectors of the JVM */
+    private final static List <GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans ();
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Name of the logger that receives the events */
+    public final static String LOGGER_NAME = "expertagent.decisions";
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. The events are written to the LOGGER_NAME
+     * logger with level FINE, so they cost a level check unless that logger
+     * is enabled.
+     * @param botName Name of the bot.
+     */
+    public DecisionLog (final String botName) {
+        this.botName = botName;
+    }
+
+    //__________________________________________________________________________
+
+    public void primaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("primaryState", time, "from=" + Bot.PRIMARY_STATE_NAMES [from] + " to=" + Bot.PRIMARY_STATE_NAMES [to]
+                 + " elapsed=" + elapsed + "s");
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void secondaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("secondaryState", time, "from=" + Bot.SECONDARY_STATE_NAMES [from] + " to=" + Bot.SECONDARY_STATE_NAMES [to]
+                 + " elapsed=" + elapsed + "s");
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void weaponSwitched (final ItemType from, final ItemType to, final double time) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("weaponSwitch", time, "from=" + (from != null ? from.getName () : null) + " to=" + to.getName ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void pathComputed (final Location from, final Location to, final boolean cached, final long duration) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("path", -1, "from=" + from + " to=" + to + " cached=" + cached + " duration=" + duration / 1000 + "us");
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void destinationChanged (final Location from, final Location to, final double time) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("destination", time, "from=" + from + " to=" + to);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    public void subStateFailed (final String primaryState, final String secondaryState, final String reason,
+                                final long duration, final double time) {
+        if (logger.isLoggable (Level.FINE)) {
+            log ("subStateFailed", time, "primary=" + primaryState + " secondary=" + secondaryState + " reason=\"" + reason
+                 + "\" duration=" + duration / 1000 + "us");
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes an event with what is needed to place it next to the CPU and GC
+     * activity of the JVM: the wall clock, the thread and its CPU time, and
+     * the number of collections and the time spent collecting so far.
+     * @param event Name of the event.
+     * @param time Game time of the event (-1 if it is unknown).
+     * @param fields Fields of the event.
+     */
+    private void log (final String event, final double time, final String fields) {
+        long collections = 0, collecting = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            collections += Math.max (collector.getCollectionCount (), 0);
+            collecting += Math.max (collector.getCollectionTime (), 0);
+        }
+
+        long cpuTime = threads.isCurrentThreadCpuTimeSupported () ? threads.getCurrentThreadCpuTime () / 1000 : -1;
+
+        logger.fine ("event=" + event + " bot=" + botName + " " + fields + " gameTime=" + time
+                     + " nanoTime=" + System.nanoTime () + " thread=" + Thread.currentThread ().getName ()
+                     + " threadCpu=" + cpuTime + "us gcCount=" + collections + " gcTime=" + collecting + "ms");
+    }
+}
@@ -0,0 +1,380 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class DecisionTrace implements DecisionListener {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Last ticks recorded, used as a ring of RECORD_SIZE bytes records */
+    private ByteBuffer records;
+    /** Number of ticks that fit in records */
+    private int capacity;
+    /** Number of ticks recorded so far */
+    private long recorded = 0;
+    /** Weapon the current tick has switched to (-1 if it hasn't switched) */
+    private int switchedWeapon = -1;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the number of ticks kept (0 disables the trace) */
+    public final static String TICKS_PROPERTY = "expertagent.traceTicks";
+    /** System property with the directory where the traces are written */
+    public final static String DIRECTORY_PROPERTY = "expertagent.traces";
+
+    /** Number of ticks kept if the TICKS_PROPERTY system property isn't set (about a minute) */
+    private final static int DEFAULT_TICKS = 256;
+    /** Directory used if the DIRECTORY_PROPERTY system property isn't set */
+    private final static String DEFAULT_DIRECTORY = "traces";
+    /** Extension of the trace files */
+    public final static String EXTENSION = ".trace";
+
+    /** Identifies the trace files ("EATR") */
+    public final static int MAGIC = 0x45415452;
+    /** Version of the format of the trace files */
+    public final static int VERSION = 2;
+    /** Size of the header: magic, version, record size and number of records */
+    public final static int HEADER_SIZE = 16;
+
+    // LAYOUT OF A RECORD (offsets in bytes, locations are three doubles, NaN if there isn't any)
+
+    /** System.nanoTime at the end of the tick (long) */
+    public final static int NANO_TIME = 0;
+    /** Game time (double) */
+    public final static int TIME = 8;
+    /** Our location */
+    public final static int LOCATION = 16;
+    /** Our health (int) */
+    public final static int HEALTH = 40;
+    /** Mask of our loaded weapons (int, see ArsenalTable.getMask) */
+    public final static int LOADED_WEAPONS = 44;
+    /** Location of the enemy on sight (NaN if we aren't seeing him) */
+    public final static int ENEMY_LOCATION = 48;
+    /** Health that we suppose the enemy has (int) */
+    public final static int ENEMY_HEALTH = 72;
+    /** Health plus armor that we suppose the enemy has (int) */
+    public final static int ENEMY_HEALTH_ARMOR = 76;
+    /** Mask of the weapons we suppose the enemy has (int, see ArsenalTable.getMask) */
+    public final static int ENEMY_ARSENAL = 80;
+    /** Game time when we saw the enemy for the last time (double) */
+    public final static int LAST_TIME_MET = 84;
+    /** Location where we saw the enemy for the last time */
+    public final static int LAST_KNOWN_ENEMY_LOCATION = 92;
+    /** Primary state chosen (int) */
+    public final static int PRIMARY_STATE = 116;
+    /** Secondary state chosen (int) */
+    public final static int SECONDARY_STATE = 120;
+    /** Weapon we were holding (int, index in WeaponKnowledge.WEAPONS or -1) */
+    public final static int WEAPON = 124;
+    /** Weapon the tick switched to (int, index in WeaponKnowledge.WEAPONS or -1 if it didn't switch) */
+    public final static int SWITCHED_WEAPON = 128;
+    /** Destination chosen by the brain */
+    public final static int DESTINATION = 132;
+    /** Target of a combo or a spam */
+    public final static int TARGET = 156;
+    /** Flags of the tick (int, see COMBO, SPAM and ENEMY_VISIBLE) */
+    public final static int FLAGS = 180;
+    /** Weapons with ammo (int, see WeaponKnowledge.getLoadedMask) */
+    public final static int ARSENAL = 184;
+    /** Size of a record */
+    public final static int RECORD_SIZE = 188;
+
+    /** Flag set when the tick tried to blow a combo */
+    public final static int COMBO = 1;
+    /** Flag set when the tick tried to shoot a spam */
+    public final static int SPAM = 2;
+    /** Flag set when we were seeing the enemy (set by record) */
+    public final static int ENEMY_VISIBLE = 4;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Default number of ticks kept (see TICKS_PROPERTY).
+     * @return The number of ticks.
+     */
+    public static int getDefaultTicks () {
+        return Integer.getInteger (TICKS_PROPERTY, DEFAULT_TICKS);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Directory where the traces are written (see DIRECTORY_PROPERTY).
+     * @return The directory.
+     */
+    public static File getDirectory () {
+        String path = System.getProperty (DIRECTORY_PROPERTY);
+
+        return new File (path != null ? path : DEFAULT_DIRECTORY);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. All the memory is allocated here, recording
+     * a tick doesn't allocate.
+     * @param capacity Number of ticks kept.
+     */
+    public DecisionTrace (final int capacity) {
+        this.capacity = Math.max (capacity, 1);
+        records = ByteBuffer.allocate (this.capacity * RECORD_SIZE);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Records a tick, overwriting the oldest one when the trace is full. The
+     * values of the snapshot are copied, it isn't kept (the bot reuses it,
+     * see WorldSnapshotPool).
+     * @param snapshot State of the world in the tick.
+     * @param primaryState Primary state chosen.
+     * @param secondaryState Secondary state chosen.
+     * @param destination Destination chosen by the brain (null if there isn't any).
+     * @param weapon Weapon we were holding (null if we weren't holding any).
+     * @param arsenal Weapons with ammo (see WeaponKnowledge.getLoadedMask).
+     * @param target Target of a combo or a spam (null if there isn't any).
+     * @param flags COMBO and SPAM flags of the tick.
+     */
+    public synchronized void record (final WorldSnapshot snapshot, final int primaryState, final int secondaryState,
+                                     final Location destination, final ItemType weapon, final int arsenal,
+                                     final Location target, final int flags) {
+        int base = (int) (recorded % capacity) * RECORD_SIZE;
+
+        records.putLong (base + NANO_TIME, System.nanoTime ());
+        records.putDouble (base + TIME, snapshot.getTime ());
+        putLocation (base + LOCATION, snapshot.getLocation ());
+        records.putInt (base + HEALTH, snapshot.getHealth ());
+        records.putInt (base + LOADED_WEAPONS, snapshot.getLoadedWeapons ());
+        putLocation (base + ENEMY_LOCATION, snapshot.getEnemyLocation ());
+        records.putInt (base + ENEMY_HEALTH, snapshot.getEnemyHealth ());
+        records.putInt (base + ENEMY_HEALTH_ARMOR, snapshot.getEnemyHealthArmor ());
+        records.putInt (base + ENEMY_ARSENAL, snapshot.getEnemyArsenal ());
+        records.putDouble (base + LAST_TIME_MET, snapshot.getLastTimeMet ());
+        putLocation (base + LAST_KNOWN_ENEMY_LOCATION, snapshot.getLastKnownEnemyLocation ());
+        records.putInt (base + PRIMARY_STATE, primaryState);
+        records.putInt (base + SECONDARY_STATE, secondaryState);
+        records.putInt (base + WEAPON, weapon != null ? WeaponKnowledge.getWeapon (weapon) : -1);
+        records.putInt (base + SWITCHED_WEAPON, switchedWeapon);
+        putLocation (base + DESTINATION, destination);
+        putLocation (base + TARGET, target);
+        records.putInt (base + FLAGS, flags | (snapshot.isEnemyVisible () ? ENEMY_VISIBLE : 0));
+        records.putInt (base + ARSENAL, arsenal);
+
+        switchedWeapon = -1;
+        ++recorded;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of ticks kept right now.
+     * @return The number of ticks.
+     */
+    public synchronized int size () {
+        return (int) Math.min (recorded, capacity);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the ticks kept to a file, the oldest one first. The trace is
+     * copied while it is locked and written afterwards, so the logic thread
+     * only waits for the copy.
+     * @param file File.
+     * @throws IOException If the file can't be written.
+     */
+    public void dump (final File file) throws IOException {
+        ByteBuffer buffer;
+
+        synchronized (this) {
+            int count = size ();
+            int oldest = (int) ((recorded - count) % capacity);
+
+            buffer = ByteBuffer.allocate (HEADER_SIZE + count * RECORD_SIZE);
+            buffer.putInt (MAGIC);
+            buffer.putInt (VERSION);
+            buffer.putInt (RECORD_SIZE);
+            buffer.putInt (count);
+
+            // From the oldest record to the end of the ring, then from the start
+            int first = Math.min (count, capacity - oldest);
+            buffer.put (records.array (), oldest * RECORD_SIZE, first * RECORD_SIZE);
+            buffer.put (records.array (), 0, (count - first) * RECORD_SIZE);
+        }
+
+        File directory = file.getAbsoluteFile ().getParentFile ();
+        if (!directory.isDirectory () && !directory.mkdirs ()) {
+            throw new IOException ("Can't create " + directory);
+        }
+
+        FileOutputStream stream = new FileOutputStream (file);
+        try {
+            stream.write (buffer.array ());
+        }
+        finally {
+            stream.close ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the ticks kept to a new file of the traces directory.
+     * @param botName Name of the bot (the file is named after it).
+     * @return The file, null if it couldn't be written.
+     */
+    public File dump (final String botName) {
+        File file = new File (getDirectory (), (botName != null ? botName : "bot").replaceAll ("[^A-Za-z0-9_.-]", "_")
+                              + "-" + System.currentTimeMillis () + EXTENSION);
+
+        try {
+            dump (file);
+            return file;
+        }
+        catch (IOException e) {
+            // We can't save it (e.g. read only directory), the bot keeps playing
+            return null;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads a trace written by dump.
+     * @param file File.
+     * @return The records, the oldest one first (record i starts at i * RECORD_SIZE).
+     * @throws IOException If the file can't be read or it isn't a trace of this version.
+     */
+    public static ByteBuffer read (final File file) throws IOException {
+        DataInputStream stream = new DataInputStream (new FileInputStream (file));
+        try {
+            if (stream.readInt () != MAGIC) {
+                throw new IOException (file + " isn't a decision trace");
+            }
+            int version = stream.readInt ();
+            int recordSize = stream.readInt ();
+            if (version != VERSION || recordSize != RECORD_SIZE) {
+                throw new IOException (file + " is a decision trace of version " + version + " (expected " + VERSION + ")");
+            }
+
+            byte records [] = new byte [stream.readInt () * RECORD_SIZE];
+            stream.readFully (records);
+
+            return ByteBuffer.wrap (records);
+        }
+        finally {
+            stream.close ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Rebuilds the state of the world of a recorded tick.
+     * @param records Records (see read).
+     * @param index Index of the record.
+     * @return The snapshot.
+     */
+    public static WorldSnapshot getSnapshot (final ByteBuffer records, final int index) {
+        int base = index * RECORD_SIZE;
+
+        return new WorldSnapshot (records.getDouble (base + TIME), getLocation (records, base + LOCATION),
+                                  records.getInt (base + HEALTH), records.getInt (base + LOADED_WEAPONS),
+                                  (records.getInt (base + FLAGS) & ENEMY_VISIBLE) != 0,
+                                  getLocation (records, base + ENEMY_LOCATION), records.getInt (base + ENEMY_HEALTH),
+                                  records.getInt (base + ENEMY_HEALTH_ARMOR), records.getInt (base + ENEMY_ARSENAL),
+                                  records.getDouble (base + LAST_TIME_MET), getLocation (records, base + LAST_KNOWN_ENEMY_LOCATION));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads a location of a record.
+     * @param records Records.
+     * @param offset Position of the location in records.
+     * @return The location (null if it was stored as NaN).
+     */
+    private static Location getLocation (final ByteBuffer records, final int offset) {
+        double x = records.getDouble (offset);
+
+        return Double.isNaN (x) ? null : new Location (x, records.getDouble (offset + 8), records.getDouble (offset + 16));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores a location in the current record.
+     * @param offset Position of the location in records.
+     * @param location Location (null is stored as NaN).
+     */
+    private void putLocation (final int offset, final Location location) {
+        records.putDouble (offset, location != null ? location.x : Double.NaN);
+        records.putDouble (offset + 8, location != null ? location.y : Double.NaN);
+        records.putDouble (offset + 16, location != null ? location.z : Double.NaN);
+    }
+
+    //__________________________________________________________________________
+
+    public void weaponSwitched (final ItemType from, final ItemType to, final double time) {
+        switchedWeapon = WeaponKnowledge.getWeapon (to);
+    }
+
+    //__________________________________________________________________________
+
+    public void primaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        // The states are in every record
+    }
+
+    //__________________________________________________________________________
+
+    public void secondaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        // The states are in every record
+    }
+
+    //__________________________________________________________________________
+
+    public void pathComputed (final Location from, final Location to, final boolean cached, final long duration) {
+        // Not recorded
+    }
+
+    //__________________________________________________________________________
+
+    public void destinationChanged (final Location from, final Location to, final double time) {
+        // The destination is in every record
+    }
+
+    //__________________________________________________________________________
+
+    public void subStateFailed (final String primaryState, final String secondaryState, final String reason,
+                                final long duration, final double time) {
+        // Not recorded
+    }
+}
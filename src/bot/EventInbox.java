@@ -0,0 +1,233 @@
+package bot;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class EventInbox <T> {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Events waiting to be handled, used as a ring */
+    private final Object events [];
+    /** Game time when every event arrived, in the positions of events */
+    private final double times [];
+    /** Mask that turns a sequence number into a position of the ring */
+    private final int mask;
+    /** Sequence number of the next event to be handled (written by the consumer only) */
+    private volatile long head = 0;
+    /** Sequence number of the next event to be offered (written by the producer only) */
+    private volatile long tail = 0;
+    /** Last value of head seen by the producer (so it doesn't read head on every offer) */
+    private long knownHead = 0;
+    /** Events that didn't fit in the ring (written by the producer only) */
+    private volatile long dropped = 0;
+    /** Number of times the inbox has been drained (written by the consumer only) */
+    private volatile long drains = 0;
+    /** Largest number of events handled in a single drain (written by the consumer only) */
+    private volatile int largestBatch = 0;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the number of events that may wait in the inbox of a bot */
+    public final static String CAPACITY_PROPERTY = "expertagent.inboxCapacity";
+
+    /** Capacity if the CAPACITY_PROPERTY system property isn't set */
+    private final static int DEFAULT_CAPACITY = 1024;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Default capacity of the inboxes (see CAPACITY_PROPERTY).
+     * @return The number of events.
+     */
+    public static int getDefaultCapacity () {
+        return Integer.getInteger (CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. Only one thread may offer events and only
+     * one thread may drain them, then no locks are needed.
+     * @param capacity Number of events that may wait (rounded up to a power of two).
+     */
+    public EventInbox (final int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        events = new Object [size];
+        times = new double [size];
+        mask = size - 1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Appends an event. It never blocks, if the inbox is full the event is
+     * dropped and counted. Only the producer thread may call it.
+     * @param event Event.
+     * @param time Game time when the event arrived.
+     * @return True if the event was appended.
+     */
+    public boolean offer (final T event, final double time) {
+        long sequence = tail;
+
+        if (sequence - knownHead > mask) {
+            knownHead = head;
+
+            if (sequence - knownHead > mask) {
+                ++dropped;
+                return false;
+            }
+        }
+
+        int position = (int) sequence & mask;
+        events [position] = event;
+        times [position] = time;
+        // Publishes the event (volatile write)
+        tail = sequence + 1;
+
+        return true;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Handles all the events that arrived before the call, in arrival order.
+     * Only the consumer thread may call it.
+     * @param handler What has to be done with every event.
+     * @return The number of events handled.
+     */
+    @SuppressWarnings ("unchecked")
+    public int drain (final Handler <T> handler) {
+        long sequence = head;
+        long last = tail;
+
+        int handled = (int) (last - sequence);
+        for (; sequence < last; ++sequence) {
+            int position = (int) sequence & mask;
+            T event = (T) events [position];
+            double time = times [position];
+            events [position] = null;
+            // Gives the position back to the producer before handling the
+            // event, so an exception doesn't make us handle it twice
+            head = sequence + 1;
+
+            handler.handle (event, time);
+        }
+
+        ++drains;
+        if (handled > largestBatch) {
+            largestBatch = handled;
+        }
+
+        return handled;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events waiting.
+     * @return The number of events.
+     */
+    public int size () {
+        return (int) (tail - head);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events that may wait.
+     * @return The capacity.
+     */
+    public int getCapacity () {
+        return events.length;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events offered (dropped ones included).
+     * @return The number of events.
+     */
+    public long getArrivals () {
+        return tail + dropped;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events dropped because the inbox was full.
+     * @return The number of events.
+     */
+    public long getDropped () {
+        return dropped;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of times the inbox has been drained.
+     * @return The number of drains.
+     */
+    public long getDrains () {
+        return drains;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Largest number of events handled in a single drain.
+     * @return The number of events.
+     */
+    public int getLargestBatch () {
+        return largestBatch;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Summary of the inbox.
+     * @return Its counters.
+     */
+    @Override
+    public String toString () {
+        return "arrivals=" + getArrivals () + " dropped=" + dropped + " drains=" + drains
+               + " largestBatch=" + largestBatch + " waiting=" + size ();
+    }
+
+
+    // *************************************************************************
+    //                               INTERFACES
+    // *************************************************************************
+
+
+    /**
+     * What the consumer does with the events.
+     */
+    public interface Handler <T> {
+        /**
+         * Handles an event.
+         * @param event Event.
+         * @param time Game time when the event arrived.
+         */
+        void handle (T event, double time);
+    }
+}
@@ -0,0 +1,152 @@
+package bot;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class Telemetry implements DecisionListener {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the bot */
+    private String botName;
+    /** Writer that stores the events in the database */
+    private TelemetryWriter writer;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. The events are queued in the writer, so
+     * they can be sent from any thread and they never wait for the database.
+     * @param botName Name of the bot.
+     * @param writer Writer that stores the events.
+     */
+    public Telemetry (final String botName, final TelemetryWriter writer) {
+        this.botName = botName;
+        this.writer = writer;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have killed a player.
+     * @param victim Player killed.
+     * @param weaponName Weapon used.
+     * @param time Game time of the kill.
+     */
+    public void kill (final UnrealId victim, final String weaponName, final double time) {
+        writer.offer (botName, "kill", time, weaponName, victim != null ? victim.getStringId () : null, 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have been killed.
+     * @param killer Player that killed us (null if we killed ourselves).
+     * @param weaponName Weapon used.
+     * @param time Game time of the death.
+     */
+    public void death (final UnrealId killer, final String weaponName, final double time) {
+        writer.offer (botName, "death", time, weaponName, killer != null ? killer.getStringId () : null, 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have damaged a player.
+     * @param weaponName Weapon used.
+     * @param damageType Type of the damage.
+     * @param damage Damage caused.
+     * @param time Game time of the hit.
+     */
+    public void damageDealt (final String weaponName, final String damageType, final int damage, final double time) {
+        writer.offer (botName, "damageDealt", time, weaponName, damageType, damage);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have been damaged.
+     * @param weaponName Weapon used.
+     * @param damageType Type of the damage.
+     * @param damage Damage received.
+     * @param time Game time of the hit.
+     */
+    public void damageTaken (final String weaponName, final String damageType, final int damage, final double time) {
+        writer.offer (botName, "damageTaken", time, weaponName, damageType, damage);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have picked up an item.
+     * @param type Type of the item.
+     * @param amount Amount picked up (ammo, health, armor...).
+     * @param time Game time of the pickup.
+     */
+    public void pickup (final ItemType type, final int amount, final double time) {
+        writer.offer (botName, "pickup", time, type != null ? type.getName () : null, null, amount);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have heard an item being picked up (by the enemy or by ourselves).
+     * @param type Type of the item.
+     * @param time Game time of the pickup.
+     */
+    public void heardPickup (final String type, final double time) {
+        writer.offer (botName, "heardPickup", time, type, null, 0);
+    }
+
+    //__________________________________________________________________________
+
+    public void primaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        writer.offer (botName, "primaryState", time, Bot.PRIMARY_STATE_NAMES [from], Bot.PRIMARY_STATE_NAMES [to], elapsed);
+    }
+
+    //__________________________________________________________________________
+
+    public void secondaryStateChanged (final int from, final int to, final double elapsed, final double time) {
+        writer.offer (botName, "secondaryState", time, Bot.SECONDARY_STATE_NAMES [from], Bot.SECONDARY_STATE_NAMES [to], elapsed);
+    }
+
+    //__________________________________________________________________________
+
+    public void weaponSwitched (final ItemType from, final ItemType to, final double time) {
+        writer.offer (botName, "weaponSwitch", time, from != null ? from.getName () : null, to.getName (), 0);
+    }
+
+    //__________________________________________________________________________
+
+    public void pathComputed (final Location from, final Location to, final boolean cached, final long duration) {
+        // Too many of them, the phase profile and the decision log cover the paths
+    }
+
+    //__________________________________________________________________________
+
+    public void destinationChanged (final Location from, final Location to, final double time) {
+        // Not a match event
+    }
+
+    //__________________________________________________________________________
+
+    public void subStateFailed (final String primaryState, final String secondaryState, final String reason,
+                                final long duration, final double time) {
+        writer.offer (botName, "subStateFailed", time, primaryState, secondaryState, duration / 1000);
+    }
+}
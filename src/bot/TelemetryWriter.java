@@ -0,0 +1,388 @@
+package bot;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TelemetryWriter implements Runnable {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Events waiting to be written */
+    private ArrayBlockingQueue <Event> queue;
+    /** Connection to the database (only used by the writer thread once it is created) */
+    private Connection connection;
+    /** Statement that inserts an event */
+    private PreparedStatement insert;
+    /** Thread that writes the events */
+    private Thread writer;
+    /** False once the writer has been closed */
+    private volatile boolean running = true;
+    /** Identifies this run of the JVM in the database */
+    private long session = System.currentTimeMillis ();
+    /** Number of events discarded because the queue was full */
+    private AtomicLong dropped = new AtomicLong ();
+    /** Number of events written */
+    private volatile long written = 0;
+    /** Number of events lost because the database failed */
+    private volatile long failed = 0;
+    /** Number of transactions committed */
+    private volatile long batches = 0;
+
+
+    // *************************************************************************
+    //                           STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Writer shared by all the bots of the JVM (created when first needed) */
+    private static TelemetryWriter shared = null;
+    /** True if the shared writer couldn't be created (so it isn't tried again) */
+    private static boolean unavailable = false;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the database file (the telemetry is disabled if it isn't set) */
+    public final static String FILE_PROPERTY = "expertagent.telemetry";
+    /** System property with the number of events that may be waiting to be written */
+    public final static String QUEUE_PROPERTY = "expertagent.telemetryQueue";
+
+    /** Number of events that may be waiting if the QUEUE_PROPERTY system property isn't set */
+    private final static int DEFAULT_QUEUE = 4096;
+    /** Maximum number of events written in a transaction */
+    private final static int BATCH_SIZE = 256;
+    /** Time (milliseconds) the writer waits for events before it checks whether it has been closed */
+    private final static long POLL_PERIOD = 250;
+    /** Time (milliseconds) we wait for the pending events when the writer is closed */
+    private final static long CLOSE_TIMEOUT = 5000;
+    /** JDBC driver of the bundled sqlitejdbc library */
+    private final static String DRIVER = "org.sqlite.JDBC";
+
+    /**
+     * Table of the events. Besides the session, the bot and the times, every
+     * event has a subject, an object and a value whose meaning depends on the
+     * event (see Telemetry).
+     */
+    private final static String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS events (session INTEGER, bot TEXT, "
+                                               + "event TEXT, gameTime REAL, wallTime INTEGER, subject TEXT, "
+                                               + "object TEXT, value REAL)";
+    /** Inserts an event */
+    private final static String INSERT = "INSERT INTO events VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * It retrieves the writer shared by all the bots of the JVM, so there is a
+     * single connection and a single thread writing to the database.
+     * @return The writer, null if the telemetry is disabled (see FILE_PROPERTY)
+     * or the database can't be opened.
+     */
+    public static synchronized TelemetryWriter getShared () {
+        String path = System.getProperty (FILE_PROPERTY);
+
+        if (shared == null && path != null && !unavailable) {
+            try {
+                shared = new TelemetryWriter (new File (path), Integer.getInteger (QUEUE_PROPERTY, DEFAULT_QUEUE));
+            }
+            catch (Exception e) {
+                // The driver is missing or the database can't be opened, the
+                // bots play without telemetry
+                unavailable = true;
+            }
+        }
+
+        return shared;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. It opens the database, creates the events
+     * table if it doesn't exist and starts the writer thread. The pending
+     * events are written when the JVM shuts down.
+     * @param file Database file.
+     * @param capacity Number of events that may be waiting to be written.
+     * @throws ClassNotFoundException If the sqlitejdbc library isn't in the classpath.
+     * @throws SQLException If the database can't be opened.
+     */
+    public TelemetryWriter (final File file, final int capacity) throws ClassNotFoundException, SQLException {
+        Class.forName (DRIVER);
+
+        queue = new ArrayBlockingQueue <Event> (Math.max (capacity, 1));
+        connection = DriverManager.getConnection ("jdbc:sqlite:" + file.getPath ());
+
+        Statement statement = connection.createStatement ();
+        try {
+            // Losing the last events if the machine crashes is fine, waiting
+            // for the disk in every transaction isn't
+            statement.executeUpdate ("PRAGMA synchronous = OFF");
+            statement.executeUpdate (CREATE_TABLE);
+        }
+        finally {
+            statement.close ();
+        }
+
+        connection.setAutoCommit (false);
+        insert = connection.prepareStatement (INSERT);
+
+        writer = new Thread (this, "telemetry-writer");
+        writer.setDaemon (true);
+        writer.start ();
+
+        Runtime.getRuntime ().addShutdownHook (new Thread () {
+            @Override
+            public void run () {
+                close ();
+            }
+        });
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Queues an event. It never blocks, if the queue is full the event is
+     * discarded and counted (see getDropped).
+     * @param bot Name of the bot.
+     * @param event Name of the event.
+     * @param gameTime Game time of the event.
+     * @param subject Subject of the event (it may be null).
+     * @param object Object of the event (it may be null).
+     * @param value Value of the event.
+     * @return True if the event has been queued.
+     */
+    public boolean offer (final String bot, final String event, final double gameTime, final String subject,
+                          final String object, final double value) {
+        if (running && queue.offer (new Event (bot, event, gameTime, subject, object, value))) {
+            return true;
+        }
+
+        dropped.incrementAndGet ();
+        return false;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the events until the writer is closed. The events that arrive
+     * while a transaction is being committed are written together in the
+     * next one, so the busier the bots are the bigger the batches are.
+     */
+    public void run () {
+        List <Event> batch = new ArrayList <Event> (BATCH_SIZE);
+
+        while (running || !queue.isEmpty ()) {
+            Event event;
+            try {
+                event = queue.poll (POLL_PERIOD, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                // Check whether it has been closed
+                continue;
+            }
+
+            if (event != null) {
+                batch.add (event);
+                queue.drainTo (batch, BATCH_SIZE - 1);
+
+                write (batch);
+                batch.clear ();
+            }
+        }
+
+        try {
+            insert.close ();
+            connection.close ();
+        }
+        catch (SQLException e) {
+            // Everything has been committed already
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes a batch of events in a transaction.
+     * @param batch Events.
+     */
+    private void write (final List <Event> batch) {
+        try {
+            for (int i = 0; i < batch.size (); ++i) {
+                Event event = batch.get (i);
+
+                insert.setLong (1, session);
+                insert.setString (2, event.bot);
+                insert.setString (3, event.event);
+                insert.setDouble (4, event.gameTime);
+                insert.setLong (5, event.wallTime);
+                insert.setString (6, event.subject);
+                insert.setString (7, event.object);
+                insert.setDouble (8, event.value);
+                insert.addBatch ();
+            }
+
+            insert.executeBatch ();
+            connection.commit ();
+
+            written += batch.size ();
+            ++batches;
+        }
+        catch (SQLException e) {
+            // The batch is lost (e.g. the disk is full), the next one may work
+            failed += batch.size ();
+
+            try {
+                insert.clearBatch ();
+                connection.rollback ();
+            }
+            catch (SQLException ignored) {
+                // Nothing else we can do
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stops accepting events and waits (a few seconds at most) until the
+     * pending ones have been written.
+     */
+    public void close () {
+        running = false;
+
+        try {
+            writer.join (CLOSE_TIMEOUT);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events waiting to be written.
+     * @return The number of events.
+     */
+    public int getPending () {
+        return queue.size ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events written.
+     * @return The number of events.
+     */
+    public long getWritten () {
+        return written;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events discarded because the queue was full.
+     * @return The number of events.
+     */
+    public long getDropped () {
+        return dropped.get ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of events lost because the database failed.
+     * @return The number of events.
+     */
+    public long getFailed () {
+        return failed;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of transactions committed.
+     * @return The number of transactions.
+     */
+    public long getBatches () {
+        return batches;
+    }
+
+    //__________________________________________________________________________
+
+    @Override
+    public String toString () {
+        return "written=" + written + " batches=" + batches + " pending=" + queue.size ()
+               + " dropped=" + dropped.get () + " failed=" + failed;
+    }
+
+
+    // *************************************************************************
+    //                              NESTED CLASSES
+    // *************************************************************************
+
+
+    /**
+     * An event waiting to be written.
+     */
+    private static class Event {
+        /** Name of the bot */
+        private String bot;
+        /** Name of the event */
+        private String event;
+        /** Game time of the event */
+        private double gameTime;
+        /** Wall clock time (milliseconds) when the event was queued */
+        private long wallTime = System.currentTimeMillis ();
+        /** Subject of the event */
+        private String subject;
+        /** Object of the event */
+        private String object;
+        /** Value of the event */
+        private double value;
+
+        /**
+         * Argument based constructor.
+         * @param bot Name of the bot.
+         * @param event Name of the event.
+         * @param gameTime Game time of the event.
+         * @param subject Subject of the event.
+         * @param object Object of the event.
+         * @param value Value of the event.
+         */
+        private Event (final String bot, final String event, final double gameTime, final String subject,
+                       final String object, final double value) {
+            this.bot = bot;
+            this.event = event;
+            this.gameTime = gameTime;
+            this.subject = subject;
+            this.object = object;
+            this.value = value;
+        }
+    }
+}
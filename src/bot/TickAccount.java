@@ -0,0 +1,190 @@
+package bot;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TickAccount {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the bot */
+    private String name;
+    /** CPU time (nanoseconds) a tick may use before it counts as an overrun */
+    private long quota;
+    /** CPU time used by the bot plus the time it had when it was registered (used to order the bots) */
+    private long virtualTime;
+    /** CPU time used by all the ticks of the bot (nanoseconds) */
+    private long cpuTime = 0;
+    /** Time spent waiting for a worker (nanoseconds) */
+    private long waitTime = 0;
+    /** Number of ticks run */
+    private long ticks = 0;
+    /** Number of ticks that used more CPU time than the quota */
+    private long overruns = 0;
+    /** Number of ticks skipped because they couldn't start before their deadline */
+    private long skipped = 0;
+    /** Thread CPU time (nanoseconds) when the current tick started */
+    long tickStart;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param name Name of the bot.
+     * @param quota CPU time (nanoseconds) a tick may use.
+     * @param virtualTime Initial position of the bot in the order of the scheduler.
+     */
+    TickAccount (final String name, final long quota, final long virtualTime) {
+        this.name = name;
+        this.quota = quota;
+        this.virtualTime = virtualTime;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Name of the bot.
+     * @return The name.
+     */
+    public String getName () {
+        return name;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * CPU time a tick may use before it counts as an overrun.
+     * @return The quota in nanoseconds.
+     */
+    public synchronized long getQuota () {
+        return quota;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets the CPU time a tick may use before it counts as an overrun.
+     * @param quota The quota in nanoseconds.
+     */
+    public synchronized void setQuota (final long quota) {
+        this.quota = quota;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * CPU time used by all the ticks of the bot.
+     * @return The CPU time in nanoseconds.
+     */
+    public synchronized long getCpuTime () {
+        return cpuTime;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Time the bot has spent waiting for a worker.
+     * @return The time in nanoseconds.
+     */
+    public synchronized long getWaitTime () {
+        return waitTime;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of ticks run.
+     * @return The number of ticks.
+     */
+    public synchronized long getTicks () {
+        return ticks;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of ticks that used more CPU time than the quota.
+     * @return The number of overruns.
+     */
+    public synchronized long getOverruns () {
+        return overruns;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of ticks skipped because they couldn't start before their deadline.
+     * @return The number of skipped ticks.
+     */
+    public synchronized long getSkipped () {
+        return skipped;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Position of the bot in the order of the scheduler (the lower the sooner).
+     * @return The virtual time in nanoseconds.
+     */
+    synchronized long getVirtualTime () {
+        return virtualTime;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores the time a tick waited for a worker.
+     * @param waited The time in nanoseconds.
+     */
+    synchronized void recordWait (final long waited) {
+        waitTime += waited;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores a tick that was run.
+     * @param used CPU time used by the tick (nanoseconds).
+     */
+    synchronized void recordTick (final long used) {
+        ++ticks;
+        cpuTime += used;
+        virtualTime += used;
+
+        if (used > quota) {
+            ++overruns;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores a tick that was skipped.
+     */
+    synchronized void recordSkipped () {
+        ++skipped;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Summary of the account.
+     * @return The name of the bot and its counters.
+     */
+    @Override
+    public synchronized String toString () {
+        return name + " ticks=" + ticks + " cpu=" + cpuTime / 1000000 + "ms wait=" + waitTime / 1000000
+               + "ms quota=" + quota / 1000 + "us overruns=" + overruns + " skipped=" + skipped;
+    }
+}
@@ -0,0 +1,259 @@
+package bot;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TickScheduler {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Number of ticks that may run at the same time */
+    private int workers;
+    /** Number of ticks running */
+    private int running = 0;
+    /** Every bot registered */
+    private List <TickAccount> accounts = new ArrayList <TickAccount> ();
+    /** Bots waiting for a worker, in arrival order */
+    private List <TickAccount> waiting = new ArrayList <TickAccount> ();
+    /** Source of the CPU time of the threads (null if the JVM can't measure it) */
+    private ThreadMXBean threads;
+
+
+    // *************************************************************************
+    //                           STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Scheduler shared by all the bots of the JVM (created when first needed) */
+    private static TickScheduler shared = null;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the number of ticks that may run at the same time */
+    public final static String WORKERS_PROPERTY = "expertagent.workers";
+    /** System property with the CPU time (microseconds) a tick may use before it counts as an overrun */
+    public final static String QUOTA_PROPERTY = "expertagent.tickQuota";
+    /** System property with the time (milliseconds) a tick may wait for a worker before it is skipped */
+    public final static String DEADLINE_PROPERTY = "expertagent.tickDeadline";
+
+    /** Quota if the QUOTA_PROPERTY system property isn't set */
+    private final static long DEFAULT_QUOTA = 25000;
+    /** Deadline if the DEADLINE_PROPERTY system property isn't set (a tick of the default logic frequency) */
+    private final static long DEFAULT_DEADLINE = 250;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * It retrieves the scheduler shared by all the bots of the JVM. By default
+     * there are as many workers as cores (see WORKERS_PROPERTY).
+     * @return The scheduler.
+     */
+    public static synchronized TickScheduler getShared () {
+        if (shared == null) {
+            shared = new TickScheduler (Integer.getInteger (WORKERS_PROPERTY, Runtime.getRuntime ().availableProcessors ()));
+        }
+
+        return shared;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Default quota of the bots (see QUOTA_PROPERTY).
+     * @return The quota in nanoseconds.
+     */
+    public static long getDefaultQuota () {
+        return Long.getLong (QUOTA_PROPERTY, DEFAULT_QUOTA) * 1000;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Default deadline of the ticks (see DEADLINE_PROPERTY).
+     * @return The deadline in nanoseconds, counted from the moment a tick asks
+     * for a worker.
+     */
+    public static long getDefaultDeadline () {
+        return Long.getLong (DEADLINE_PROPERTY, DEFAULT_DEADLINE) * 1000000;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor.
+     * @param workers Number of ticks that may run at the same time.
+     */
+    public TickScheduler (final int workers) {
+        this.workers = Math.max (1, workers);
+
+        threads = ManagementFactory.getThreadMXBean ();
+        if (!threads.isCurrentThreadCpuTimeSupported ()) {
+            threads = null;
+        }
+        else if (!threads.isThreadCpuTimeEnabled ()) {
+            threads.setThreadCpuTimeEnabled (true);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Registers a bot. It starts with the virtual time of the bot that has
+     * used less CPU, so it doesn't take over the workers to catch up.
+     * @param name Name of the bot.
+     * @param quota CPU time (nanoseconds) a tick of the bot may use.
+     * @return The account of the bot.
+     */
+    public synchronized TickAccount register (final String name, final long quota) {
+        long virtualTime = Long.MAX_VALUE;
+        for (TickAccount account : accounts) {
+            virtualTime = Math.min (virtualTime, account.getVirtualTime ());
+        }
+
+        TickAccount account = new TickAccount (name, quota, accounts.isEmpty () ? 0 : virtualTime);
+        accounts.add (account);
+
+        return account;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Unregisters a bot.
+     * @param account Account of the bot.
+     */
+    public synchronized void unregister (final TickAccount account) {
+        accounts.remove (account);
+        waiting.remove (account);
+        notifyAll ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Accounts of all the bots registered.
+     * @return A copy of the list of accounts.
+     */
+    public synchronized List <TickAccount> getAccounts () {
+        return new ArrayList <TickAccount> (accounts);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Waits until the bot may run a tick. When there are more bots waiting
+     * than free workers, the one that has used less CPU goes first. If the
+     * deadline passes before the bot gets a worker the tick is skipped (the
+     * next one is about to come anyway).
+     * @param account Account of the bot.
+     * @param deadline Moment (System.nanoTime) the tick has to start before.
+     * @return True if the bot got a worker, then it has to call end when the
+     * tick finishes. False if the tick has to be skipped.
+     */
+    public synchronized boolean begin (final TickAccount account, final long deadline) {
+        long requested = System.nanoTime ();
+        waiting.add (account);
+
+        try {
+            while (running >= workers || getNext () != account) {
+                long remaining = deadline - System.nanoTime ();
+                if (remaining <= 0) {
+                    waiting.remove (account);
+                    account.recordWait (System.nanoTime () - requested);
+                    account.recordSkipped ();
+                    // Somebody else may be the next one now
+                    notifyAll ();
+
+                    return false;
+                }
+
+                wait (remaining / 1000000, (int) (remaining % 1000000));
+            }
+        }
+        catch (InterruptedException e) {
+            waiting.remove (account);
+            notifyAll ();
+            Thread.currentThread ().interrupt ();
+
+            return false;
+        }
+
+        waiting.remove (account);
+        account.recordWait (System.nanoTime () - requested);
+        ++running;
+        // Bots that woke up before us went back to sleep because we were the
+        // next one, there may be a free worker for them now
+        notifyAll ();
+        account.tickStart = getCpuTime ();
+
+        return true;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The tick of a bot has finished, its worker is given to the next bot.
+     * It has to be called from the thread that called begin.
+     * @param account Account of the bot.
+     */
+    public void end (final TickAccount account) {
+        long used = getCpuTime () - account.tickStart;
+
+        synchronized (this) {
+            account.recordTick (used);
+            --running;
+            notifyAll ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The waiting bot that should run next: the one with the lowest virtual
+     * time, the first one to arrive in case of a tie.
+     * @return The next bot.
+     */
+    private TickAccount getNext () {
+        TickAccount next = null;
+
+        for (int i = 0; i < waiting.size (); ++i) {
+            TickAccount account = waiting.get (i);
+            if (next == null || account.getVirtualTime () < next.getVirtualTime ()) {
+                next = account;
+            }
+        }
+
+        return next;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * CPU time used by the current thread (wall time if the JVM can't
+     * measure it).
+     * @return The time in nanoseconds.
+     */
+    private long getCpuTime () {
+        return threads != null ? threads.getCurrentThreadCpuTime () : System.nanoTime ();
+    }
+}
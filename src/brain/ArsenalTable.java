@@ -0,0 +1,520 @@
+package brain;
+
+import knowledge.EnemyInfo;
+
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class ArsenalTable {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Constant that identifies the close range */
+    public final static int CLOSE = 0;
+    /** Constant that identifies the average range */
+    public final static int AVERAGE = 1;
+    /** Constant that identifies the far range */
+    public final static int FAR = 2;
+
+    /** First slot of the arsenal vector that matters when comparing arsenals (link gun to lightning gun) */
+    private final static int FIRST_SLOT = EnemyInfo.LINK_GUN;
+    /** Number of slots that matter when comparing arsenals */
+    private final static int SLOTS = EnemyInfo.LIGHTNING_GUN - FIRST_SLOT + 1;
+    /** Number of different masks */
+    private final static int MASKS = 1 << SLOTS;
+
+    /** Bits used by every field of a packed comparison */
+    private final static int FIELD_BITS = 4;
+    /** Position of the best score in a packed comparison (the 3 range scores go first) */
+    private final static int BEST_SCORE = 3;
+    /** Position of the best offensive range in a packed comparison */
+    private final static int BEST_OFENSIVE_RANGE = 4;
+    /** Position of the best defensive range in a packed comparison */
+    private final static int BEST_DEFENSIVE_RANGE = 5;
+
+    /** Packed comparison of every pair of masks, indexed by (own mask * MASKS + enemy mask) */
+    private final static int TABLE [] = new int [MASKS * MASKS];
+
+    static {
+        boolean ownArsenal [] = new boolean [FIRST_SLOT + SLOTS];
+        boolean enemyArsenal [] = new boolean [FIRST_SLOT + SLOTS];
+
+        for (int own = 0; own < MASKS; ++own) {
+            toArsenal (own, ownArsenal);
+            for (int enemy = 0; enemy < MASKS; ++enemy) {
+                toArsenal (enemy, enemyArsenal);
+                TABLE [own * MASKS + enemy] = pack (evaluate (ownArsenal, enemyArsenal));
+            }
+        }
+    }
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Encodes the weapons we have loaded as a mask.
+     * @param weaponry Weaponry that we are carrying.
+     * @return Mask of our arsenal.
+     */
+    public static int getMask (final Weaponry weaponry) {
+        int mask = 0;
+
+        if (weaponry.hasLoadedWeapon (ItemType.LINK_GUN)) {
+            mask |= bit (EnemyInfo.LINK_GUN);
+        }
+        if (weaponry.hasLoadedWeapon (ItemType.MINIGUN)) {
+            mask |= bit (EnemyInfo.MINIGUN);
+        }
+        if (weaponry.hasLoadedWeapon (ItemType.FLAK_CANNON)) {
+            mask |= bit (EnemyInfo.FLAK_CANNON);
+        }
+        if (weaponry.hasLoadedWeapon (ItemType.ROCKET_LAUNCHER)) {
+            mask |= bit (EnemyInfo.ROCKET_LAUNCHER);
+        }
+        if (weaponry.hasLoadedWeapon (ItemType.SHOCK_RIFLE)) {
+            mask |= bit (EnemyInfo.SHOCK_RIFLE);
+        }
+        if (weaponry.hasLoadedWeapon (ItemType.LIGHTNING_GUN) || weaponry.hasLoadedWeapon (ItemType.SNIPER_RIFLE)) {
+            mask |= bit (EnemyInfo.LIGHTNING_GUN);
+        }
+
+        return mask;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Encodes an arsenal vector (indexed as in EnemyInfo) as a mask.
+     * @param arsenal List of weapons we suppose the enemy has.
+     * @return Mask of the arsenal.
+     */
+    public static int getMask (final boolean arsenal []) {
+        int mask = 0;
+
+        for (int i = 0; i < SLOTS; ++i) {
+            if (arsenal [FIRST_SLOT + i]) {
+                mask |= 1 << i;
+            }
+        }
+
+        return mask;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Encodes an arsenal given as a bit per slot of the arsenal vector
+     * (indexed as in EnemyInfo) as a mask.
+     * @param arsenal Weapons we suppose the enemy has.
+     * @return Mask of the arsenal.
+     */
+    public static int getMask (final int arsenal) {
+        return (arsenal >> FIRST_SLOT) & (MASKS - 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Looks up how good our arsenal is when compared to the enemy's.
+     * @param ownMask Mask of our arsenal (see getMask).
+     * @param enemyMask Mask of the enemy's arsenal (see getMask).
+     * @return The packed comparison, use getScore, getBestScore, getBestOfensiveRange
+     * and getBestDefensiveRange to read it.
+     */
+    public static int compare (final int ownMask, final int enemyMask) {
+        return TABLE [ownMask * MASKS + enemyMask];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Score of our arsenal in a given range.
+     * @param comparison Packed comparison.
+     * @param range CLOSE, AVERAGE or FAR.
+     * @return A value from 1 (our arsenal is far worst) to 5 (our arsenal is far better).
+     */
+    public static int getScore (final int comparison, final int range) {
+        return field (comparison, range);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Best score our arsenal gets in any range.
+     * @param comparison Packed comparison.
+     * @return A value from 1 (our arsenal is far worst) to 5 (our arsenal is far better).
+     */
+    public static int getBestScore (final int comparison) {
+        return field (comparison, BEST_SCORE);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Closest range where our arsenal gets its best score.
+     * @param comparison Packed comparison.
+     * @return CLOSE, AVERAGE or FAR.
+     */
+    public static int getBestOfensiveRange (final int comparison) {
+        return field (comparison, BEST_OFENSIVE_RANGE);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Furthest range where our arsenal gets its best score.
+     * @param comparison Packed comparison.
+     * @return CLOSE, AVERAGE or FAR.
+     */
+    public static int getBestDefensiveRange (final int comparison) {
+        return field (comparison, BEST_DEFENSIVE_RANGE);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Bit of a slot of the arsenal vector inside a mask.
+     * @param slot Slot of the arsenal vector (as in EnemyInfo).
+     * @return The bit.
+     */
+    private static int bit (final int slot) {
+        return 1 << (slot - FIRST_SLOT);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads a field from a packed comparison.
+     * @param comparison Packed comparison.
+     * @param position Position of the field.
+     * @return The value of the field.
+     */
+    private static int field (final int comparison, final int position) {
+        return (comparison >> (position * FIELD_BITS)) & ((1 << FIELD_BITS) - 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Decodes a mask into an arsenal vector.
+     * @param mask Mask of the arsenal.
+     * @param arsenal Arsenal vector (indexed as in EnemyInfo) where the mask is written.
+     */
+    private static void toArsenal (final int mask, final boolean arsenal []) {
+        for (int i = 0; i < SLOTS; ++i) {
+            arsenal [FIRST_SLOT + i] = (mask & (1 << i)) != 0;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Packs the scores of every range along with the best score and the best
+     * offensive and defensive ranges.
+     * @param arsenalProfit Scores of the close, average and far ranges.
+     * @return The packed comparison.
+     */
+    private static int pack (final int arsenalProfit []) {
+        // arsenalScore is going to hold the best score our arsenal gets in any range
+        // bestDefensiveRange is going to contain the furthest range where our arsenal is the best
+        // bestOfensiveRange is going to contain the closest range where our arsenal is the best
+        int arsenalScore = arsenalProfit [CLOSE];
+        int bestDefensiveRange = CLOSE;
+        int bestOfensiveRange = CLOSE;
+        for (int i = 1; i < arsenalProfit.length; ++i) {
+            if (arsenalProfit [i] >= arsenalScore) {
+                if (arsenalProfit [i] == arsenalScore) {
+                    bestDefensiveRange = i;
+                }
+                else {
+                    bestOfensiveRange = i;
+                    bestDefensiveRange = i;
+                }
+
+                arsenalScore = arsenalProfit [i];
+            }
+        }
+
+        int comparison = 0;
+        for (int i = 0; i < arsenalProfit.length; ++i) {
+            comparison |= arsenalProfit [i] << (i * FIELD_BITS);
+        }
+        comparison |= arsenalScore << (BEST_SCORE * FIELD_BITS);
+        comparison |= bestOfensiveRange << (BEST_OFENSIVE_RANGE * FIELD_BITS);
+        comparison |= bestDefensiveRange << (BEST_DEFENSIVE_RANGE * FIELD_BITS);
+
+        return comparison;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Estimate how good our arsenal is when compared to the enemy's. It is only
+     * used to fill the table.
+     * @param ownArsenal List of weapons we have loaded (indexed as in EnemyInfo).
+     * @param enemyArsenal List of weapons we suppose the enemy has.
+     * @return A vector divided in 3 slots. Each one indicates close, average and
+     * far distance (in that order). Each slot has a value that varies from 1 to 5, meaning:
+     * 1 our arsenal is far worst, 2 our arsenal is worst, 3 our arsenals are more or less
+     * the same, 4 our arsenal is better, 5 our arsenal is far better.
+     */
+    private static int [] evaluate (final boolean ownArsenal [], final boolean enemyArsenal []) {
+        int arsenalProfit [] = new int [3];
+        int enemyTotalProfit [] = new int [3];
+        int ownTotalProfit [] = new int [3];
+        int ownProfit = 0;
+        int enemyProfit = 0;
+
+        // *********************************************************************
+        //                       PROFIT FROM A FAR DISTANCE
+        // *********************************************************************
+
+
+        // CHECK OUR ARSENAL
+
+
+        if (ownArsenal [EnemyInfo.LIGHTNING_GUN] && ownArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            ownProfit = 100;
+        }
+        else if (ownArsenal [EnemyInfo.LIGHTNING_GUN]) {
+            ownProfit = 90;
+        }
+        else if (ownArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            ownProfit = 80;
+        }
+        else if (ownArsenal [EnemyInfo.MINIGUN]) {
+            ownProfit = 40;
+        }
+
+
+        // CHECK ENEMY'S ARSENAL
+
+
+        if (enemyArsenal [EnemyInfo.LIGHTNING_GUN] && enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            enemyProfit = 100;
+        }
+        else if (enemyArsenal [EnemyInfo.LIGHTNING_GUN]) {
+            enemyProfit = 90;
+        }
+        else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            enemyProfit = 80;
+        }
+        else if (ownArsenal [EnemyInfo.MINIGUN]) {
+            // It has always looked at our minigun, the table keeps it that way
+            enemyProfit = 40;
+        }
+
+
+        // ESTIMATE PROFIT
+
+        ownTotalProfit [FAR] = ownProfit;
+        enemyTotalProfit [FAR] = enemyProfit;
+
+        ownProfit = enemyProfit = 0;
+
+
+        // *********************************************************************
+        //                   PROFIT FROM AN AVERAGE DISTANCE
+        // *********************************************************************
+
+
+        // CHECK OUR ARSENAL
+
+
+        if (ownArsenal [EnemyInfo.FLAK_CANNON] || ownArsenal [EnemyInfo.ROCKET_LAUNCHER]) {
+            if (ownArsenal [EnemyInfo.SHOCK_RIFLE] && ownArsenal [EnemyInfo.MINIGUN]) {
+                ownProfit = 100;
+            }
+            else if (ownArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                ownProfit = 95;
+            }
+            else if (ownArsenal [EnemyInfo.MINIGUN]) {
+                ownProfit = 90;
+            }
+            else if (ownArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                ownProfit = 85;
+            }
+            else {
+                ownProfit = 80;
+            }
+        }
+        else {
+            if (ownArsenal [EnemyInfo.SHOCK_RIFLE] && ownArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                if (ownArsenal [EnemyInfo.MINIGUN]) {
+                    ownProfit = 80;
+                }
+                else {
+                    ownProfit = 75;
+                }
+            }
+            else if (ownArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                if (ownArsenal [EnemyInfo.MINIGUN]) {
+                    ownProfit = 60;
+                }
+                else {
+                    ownProfit = 50;
+                }
+            }
+            else if (ownArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                if (ownArsenal [EnemyInfo.MINIGUN]) {
+                    ownProfit = 40; // Lower than if he is holding shock and mini
+                }
+                else {
+                    ownProfit = 10;
+                }
+            }
+            else if (ownArsenal [EnemyInfo.MINIGUN]) {
+                ownProfit = 30; // Lower than if he is holding shock/sniper and mini
+            }
+        }
+
+
+        // CHECK ENEMY'S ARSENAL
+
+
+        if (enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal [EnemyInfo.ROCKET_LAUNCHER]) {
+            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 100;
+            }
+            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                enemyProfit = 90;
+            }
+            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 80;
+            }
+            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                enemyProfit = 70;
+            }
+            else {
+                enemyProfit = 60;
+            }
+        }
+        else {
+            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 90;
+                }
+                else {
+                    enemyProfit = 60;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 55;
+                }
+                else {
+                    enemyProfit = 50;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 40; // Lower than if he has shock and mini
+                }
+                else {
+                    enemyProfit = 10;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 30; // Lower than if he has shock/sniper and mini
+            }
+        }
+
+
+        // ESTIMATE PROFIT
+
+
+        ownTotalProfit [AVERAGE] = ownProfit;
+        enemyTotalProfit [AVERAGE] = enemyProfit;
+
+        ownProfit = enemyProfit = 0;
+
+
+        // *********************************************************************
+        //                    PROFIT FROM A CLOSE DISTANCE
+        // *********************************************************************
+
+
+        // CHECK OUR ARSENAL
+
+
+        if (ownArsenal [EnemyInfo.FLAK_CANNON] || ownArsenal [EnemyInfo.ROCKET_LAUNCHER]) {
+            if (ownArsenal [EnemyInfo.LINK_GUN] || ownArsenal [EnemyInfo.MINIGUN]) {
+                ownProfit = 100;
+            }
+            else {
+                ownProfit = 90;
+            }
+        }
+        else if (ownArsenal [EnemyInfo.LINK_GUN] || ownArsenal [EnemyInfo.MINIGUN]) {
+            ownProfit = 50;
+        }
+
+
+        // CHECK ENEMY'S ARSENAL
+
+
+        if (enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal [EnemyInfo.ROCKET_LAUNCHER]) {
+            if (enemyArsenal [EnemyInfo.LINK_GUN] || enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 100;
+            }
+            else {
+                enemyProfit = 90;
+            }
+        }
+        else if (enemyArsenal [EnemyInfo.LINK_GUN] || enemyArsenal [EnemyInfo.MINIGUN]) {
+            enemyProfit = 50;
+        }
+
+
+        // ESTIMATE PROFIT
+
+
+        ownTotalProfit [CLOSE] = ownProfit;
+        enemyTotalProfit [CLOSE] = enemyProfit;
+
+
+        // *********************************************************************
+        //    ESTIMATE HOW GOOD OUR ARSENAL IS WHEN COMPARED TO THE ENEMY'S
+        // *********************************************************************
+
+        // 1 -> Our arsenal is far worst
+        // 2 -> Our arsenal is worst
+        // 3 -> Our arsenals are mor or less the same
+        // 4 -> Our arsenal is better
+        // 5 -> Our arsenal is far better
+
+        for (int i = 0; i < 3; ++i) {
+            int dif = ownTotalProfit [i] - enemyTotalProfit [i];
+            if (dif >= -10 && dif <= 10) {
+                arsenalProfit [i] = 3;
+            }
+            else if (dif > 10 && dif <= 30) {
+                arsenalProfit [i] = 4;
+            }
+            else if (dif > 30) {
+                arsenalProfit [i] = 5;
+            }
+            else if (dif >= -30) {
+                arsenalProfit [i] = 2;
+            }
+            else {
+                arsenalProfit [i] = 1;
+            }
+        }
+
+        return arsenalProfit;
+    }
+}
@@ -1,22 +1,22 @@
 package brain;
 
 import bot.Bot;
+import bot.BotContext;
 import behaviour.primaryStates.PrimaryState;
-import knowledge.EnemyInfo;
+import knowledge.ItemValuation;
+import knowledge.SpawnedItems;
+import knowledge.UnrealClass;
+import knowledge.WorldSnapshot;
 import utilities.Arithmetic;
+import utilities.NavigationDistances;
 
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
-import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
 import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
-import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
-import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
-import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Items;
 import cz.cuni.amis.pogamut.ut2004.bot.command.CompleteBotCommandsWrapper;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.IncomingProjectile;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
-import java.util.Map;
 
 
 /**
@@ -34,10 +34,14 @@ public class Brain {
 
     /** Pointer to body from T800 */
     protected CompleteBotCommandsWrapper body;
+    /** Decision context of the bot */
+    private BotContext context;
     /** Location of a combo (null if it doesn't exist) */
     private Location comboLocation;
     /** Location of a spam (null if it doesn't exists) */
     private Location spamLocation;
+    /** How bad we need the items worth timing */
+    private ItemValuation itemValuation;
 
 
     // *************************************************************************
@@ -48,12 +52,15 @@ public class Brain {
     /**
      * Argument based constructor.
      * @param body Pointer to body from T800.
+     * @param context Decision context of the bot.
      */
-    public Brain (final CompleteBotCommandsWrapper body) {
+    public Brain (final CompleteBotCommandsWrapper body, final BotContext context) {
         this.body = body;
+        this.context = context;
 
         comboLocation = null;
         spamLocation = null;
+        itemValuation = ItemValuation.destination ();
     }
 
     //__________________________________________________________________________
@@ -69,43 +76,14 @@ public class Brain {
     //__________________________________________________________________________
 
     /**
-     * It estimates how bad we need an item based on the items that we already have.
+     * It estimates how bad we need an item based on the items that we already have
+     * (the item valuation must be up to date with our weaponry).
      * @param item Item that we are evaluating.
-     * @param weaponry Weaponry that we are carrying.
+     * @param health Our health.
      * @return The priority of the given item.
      */
-    protected int estimateItemPriority (final Item item, final Weaponry weaponry) {
-        int priority = -1;
-        ItemType type = item.getType ();
-
-        if (type.equals (ItemType.SUPER_SHIELD_PACK)) {
-            priority = 100;
-        }
-        else if (type.equals (ItemType.SHIELD_PACK)) {
-            priority = 90;
-        }
-        else if (type.equals (ItemType.SNIPER_RIFLE) || type.equals (ItemType.LIGHTNING_GUN)) {
-            if (!weaponry.hasLoadedWeapon (type)) {
-                priority = 90;
-            }
-        }
-        else if (type.equals (ItemType.SHOCK_RIFLE)) {
-            if (!weaponry.hasLoadedWeapon (type)) {
-                priority = 90;
-            }
-        }
-        else if (type.equals (ItemType.FLAK_CANNON) || type.equals (ItemType.ROCKET_LAUNCHER)) {
-            if (!weaponry.hasWeapon(ItemType.FLAK_CANNON) && !weaponry.hasWeapon(ItemType.ROCKET_LAUNCHER)) {
-                priority = 85;
-            }
-        }
-        else if (type.equals (ItemType.MINIGUN)) {
-            if (!weaponry.hasWeapon (type)) {
-                priority = 80;
-            }
-        }
-
-        return priority;
+    protected int estimateItemPriority (final Item item, final int health) {
+        return itemValuation.getPriority (item.getType (), health);
     }
 
     //__________________________________________________________________________
@@ -113,71 +91,91 @@ public class Brain {
     /**
      * It dictates where the bot should go (if any place). If we are seeing the enemy
      * it will return a destination ONLY if the super shield is spawned. If we aren't
-     * seeing the enemy, it will return the best destination where we could be headed.
-     * @param info Agent information.
-     * @param enemy Enemy.
+     * seeing the enemy, it will return the best destination where we could be headed
+     * (an item that is about to respawn if nothing worth it is spawned).
+     * @param snapshot State of the world in this logic tick.
      * @param weaponry Weaponry we are carrying.
-     * @param items Items from the current map.
      * @return Location where the bot must go. If it musn't go to a certain location,
      * it returns null.
      */
-    public Location estimateDestination (final AgentInfo info, final Player enemy, final Weaponry weaponry, final Items items) {
+    public Location estimateDestination (final WorldSnapshot snapshot, final Weaponry weaponry) {
         // Set it to null in case there is nowhere new to go
         Location newDestination = null;
         int currentPriority;
         int maximumPriority = 0;
 
+        itemValuation.update (weaponry);
+
         // Check if there is important items spawned, and if so, set the new
         // destination to the highest priority item to be taken care of.
 
         // First, let's check if there is any armor item spawned.
-        Map<UnrealId, Item> itemList = items.getAllItems(ItemType.Category.ARMOR);
-        for(Item item : itemList.values()) {
-            if (item != null) {
-                if (items.isPickupSpawned (item)) {
-                    currentPriority = estimateItemPriority (item, weaponry);
-
-                    if (currentPriority > maximumPriority) {
-                        maximumPriority = currentPriority;
-
-                        if (enemy != null) {
-                            // If we are seeing the enemy, set the destination
-                            // only if the super shield pack has spawned
-                            if (maximumPriority == 100) {
-                                newDestination = item.getLocation ();
-                            }
-                        }
-                        else {
-                            newDestination = item.getLocation ();
-                        }
+        SpawnedItems spawnedItems = context.spawnedItems;
+        int count = spawnedItems.getCount (ItemType.Category.ARMOR);
+        for (int i = 0; i < count; ++i) {
+            Item item = spawnedItems.getItem (ItemType.Category.ARMOR, i);
+            currentPriority = estimateItemPriority (item, snapshot.getHealth ());
+
+            if (currentPriority > maximumPriority) {
+                maximumPriority = currentPriority;
+
+                if (snapshot.isEnemyVisible ()) {
+                    // If we are seeing the enemy, set the destination
+                    // only if the super shield pack has spawned
+                    if (maximumPriority == 100) {
+                        newDestination = item.getLocation ();
                     }
                 }
+                else {
+                    newDestination = item.getLocation ();
+                }
             }
         }
 
         // If there aren't any shields spawned and we are not facing the enemy,
         // see if there is any weapon that's worth timing.
-        if (enemy == null && newDestination == null) {
-            itemList = items.getAllItems(ItemType.Category.WEAPON);
-
+        if (!snapshot.isEnemyVisible () && newDestination == null) {
             double currentDistance;
             double targetDistance = Arithmetic.INFINITY;
-            for(Item item : itemList.values()) {
-                if (item != null) {
-                    if (items.isPickupSpawned (item)) {
-                        currentPriority = estimateItemPriority (item, weaponry);
+            NavigationDistances distances = context.navigationDistances;
+            Location botLocation = snapshot.getLocation ();
+            int botNode = distances.getNode (botLocation);
+            count = spawnedItems.getCount (ItemType.Category.WEAPON);
+            for (int i = 0; i < count; ++i) {
+                Item item = spawnedItems.getItem (ItemType.Category.WEAPON, i);
+                currentPriority = estimateItemPriority (item, snapshot.getHealth ());
+
+                if (currentPriority > maximumPriority) {
+                    maximumPriority = currentPriority;
+                    targetDistance = distances.getDistance (botNode, botLocation, item);
+                    newDestination = item.getLocation ();
+                }
+                // If we have two items with the same priority, we'll
+                // stick with the closest one
+                else if (currentPriority == maximumPriority) {
+                    currentDistance = distances.getDistance (botNode, botLocation, item);
+                    if (currentDistance < targetDistance) {
+                        targetDistance = currentDistance;
+                        newDestination = item.getLocation ();
+                    }
+                }
+            }
+
+            // If nothing worth it is spawned, go wait for the next respawn
+            // of the items worth timing, as long as it is about to happen
+            // when we get there.
+            if (newDestination == null) {
+                for (ItemType type : SpawnedItems.TIMED_ITEMS) {
+                    Item item = spawnedItems.getNextRespawn (type);
+
+                    if (item != null) {
+                        currentPriority = estimateItemPriority (item, snapshot.getHealth ());
 
                         if (currentPriority > maximumPriority) {
-                            maximumPriority = currentPriority;
-                            targetDistance = info.getDistance (item.getLocation ());
-                            newDestination = item.getLocation ();
-                        }
-                        // If we have two items with the same priority, we'll
-                        // stick with the closest one
-                        else if (currentPriority == maximumPriority) {
-                            currentDistance = info.getDistance (item.getLocation ());
-                            if (currentDistance < targetDistance) {
-                                targetDistance = currentDistance;
+                            double travelTime = distances.getDistance (botNode, botLocation, item) / SpawnedItems.RUN_SPEED;
+
+                            if (spawnedItems.getSlack (item, snapshot.getTime (), travelTime) <= SpawnedItems.TIMING_WINDOW) {
+                                maximumPriority = currentPriority;
                                 newDestination = item.getLocation ();
                             }
                         }
@@ -201,255 +199,28 @@ public class Brain {
      * the same, 4 our arsenal is better, 5 our arsenal is far better.
      */
     public int [] compareArsenals (final Weaponry weaponry, final boolean enemyArsenal []) {
+        int comparison = compareArsenals (ArsenalTable.getMask (weaponry), ArsenalTable.getMask (enemyArsenal));
         int arsenalProfit [] = new int [3];
-        int enemyTotalProfit [] = new int [3];
-        int ownTotalProfit [] = new int [3];
-        int ownProfit = 0;
-        int enemyProfit = 0;
-
-        // *********************************************************************
-        //                       PROFIT FROM A FAR DISTANCE
-        // *********************************************************************
-
 
-        // CHECK OUR ARSENAL
-
-
-        if ((weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN) || weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE)) && weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
-            ownProfit = 100;
-        }
-        else if (weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN) || weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE)) {
-            ownProfit = 90;
-        }
-        else if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
-            ownProfit = 80;
-        }
-        else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-            ownProfit = 40;
+        for (int i = 0; i < arsenalProfit.length; ++i) {
+            arsenalProfit [i] = ArsenalTable.getScore (comparison, i);
         }
 
+        return arsenalProfit;
+    }
 
-        // CHECK ENEMY'S ARSENAL
-
-
-        if (enemyArsenal [EnemyInfo.LIGHTNING_GUN] && enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
-            enemyProfit = 100;
-        }
-        else if (enemyArsenal [EnemyInfo.LIGHTNING_GUN]) {
-            enemyProfit = 90;
-        }
-        else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
-            enemyProfit = 80;
-        }
-        else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-            enemyProfit = 40;
-        }
-
-
-        // ESTIMATE PROFIT
-
-        ownTotalProfit [2] = ownProfit;
-        enemyTotalProfit [2] = enemyProfit;
-
-        ownProfit = enemyProfit = 0;
-
-
-
-        // *********************************************************************
-        //                   PROFIT FROM AN AVERAGE DISTANCE
-        // *********************************************************************
-
-
-        // CHECK OUR ARSENAL
-
-
-        if ((weaponry.hasLoadedWeapon(ItemType.FLAK_CANNON) || weaponry.hasLoadedWeapon(ItemType.ROCKET_LAUNCHER))) {
-            if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE) && weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-                ownProfit = 100;
-            }
-            else if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
-                ownProfit = 95;
-            }
-            else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-                ownProfit = 90;
-            }
-            else if (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN)) {
-                ownProfit = 85;
-            }
-            else {
-                ownProfit = 80;
-            }
-        }
-        else {
-            if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE) && (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN))) {
-                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-                    ownProfit = 80;
-                }
-                else {
-                    ownProfit = 75;
-                }
-            }
-            else if (weaponry.hasLoadedWeapon (ItemType.SHOCK_RIFLE)) {
-                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-                    ownProfit = 60;
-                }
-                else {
-                    ownProfit = 50;
-                }
-            }
-            else if (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN)) {
-                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-                    ownProfit = 40; // Lower than if he is holding shock and mini
-                }
-                else {
-                    ownProfit = 10;
-                }
-            }
-            else if (weaponry.hasLoadedWeapon (ItemType.MINIGUN)) {
-                ownProfit = 30; // Lower than if he is holding shock/sniper and mini
-            }
-        }
-
-
-        // CHECK ENEMY'S ARSENAL
-
-
-        if ((enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal [EnemyInfo.ROCKET_LAUNCHER])) {
-            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && enemyArsenal [EnemyInfo.MINIGUN]) {
-                enemyProfit = 100;
-            }
-            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
-                enemyProfit = 90;
-            }
-            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
-                enemyProfit = 80;
-            }
-            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
-                enemyProfit = 70;
-            }
-            else {
-                enemyProfit = 60;
-            }
-        }
-        else {
-            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && (enemyArsenal [EnemyInfo.SNIPER_RIFLE])) {
-                if (enemyArsenal [EnemyInfo.MINIGUN]) {
-                    enemyProfit = 90;
-                }
-                else {
-                    enemyProfit = 60;
-                }
-            }
-            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
-                if (enemyArsenal [EnemyInfo.MINIGUN]) {
-                    enemyProfit = 55;
-                }
-                else {
-                    enemyProfit = 50;
-                }
-            }
-            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
-                if (enemyArsenal [EnemyInfo.MINIGUN]) {
-                    enemyProfit = 40; // Lower than if he has shock and mini
-                }
-                else {
-                    enemyProfit = 10;
-                }
-            }
-            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
-                enemyProfit = 30; // Lower than if he has shock/sniper and mini
-            }
-        }
-
-
-        // ESTIMATE PROFIT
-
-
-        ownTotalProfit [1] = ownProfit;
-        enemyTotalProfit [1] = enemyProfit;
-
-        ownProfit = enemyProfit = 0;
-
-
-        // *********************************************************************
-        //                    PROFIT FROM A CLOSE DISTANCE
-        // *********************************************************************
-
-
-        // CHECK OUR ARSENAL
-
-
-        if (weaponry.hasLoadedWeapon(ItemType.FLAK_CANNON) || weaponry.hasLoadedWeapon(ItemType.ROCKET_LAUNCHER)) {
-            if (weaponry.hasLoadedWeapon(ItemType.LINK_GUN) || weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-               ownProfit = 100;
-            }
-            else {
-                ownProfit = 90;
-            }
-        }
-        else if (weaponry.hasLoadedWeapon(ItemType.LINK_GUN) || weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
-            ownProfit = 50;
-        }
-
-
-        // CHECK ENEMY'S ARSENAL
-
-
-        if (enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal[EnemyInfo.ROCKET_LAUNCHER]) {
-            if (enemyArsenal[EnemyInfo.LINK_GUN] || enemyArsenal[EnemyInfo.MINIGUN]) {
-               enemyProfit = 100;
-            }
-            else {
-                enemyProfit = 90;
-            }
-        }
-        else if (enemyArsenal[EnemyInfo.LINK_GUN] || enemyArsenal[EnemyInfo.MINIGUN]) {
-            enemyProfit = 50;
-        }
-
-
-        // ESTIMATE PROFIT
-
-
-        ownTotalProfit [0] = ownProfit;
-        enemyTotalProfit [0] = enemyProfit;
-
-
-        // *********************************************************************
-        //    ESTIMATE HOW GOOD OUR ARSENAL IS WHEN COMPARED TO THE ENEMY'S
-        // *********************************************************************
-
-        // 1 -> Our arsenal is far worst
-        // 2 -> Our arsenal is worst
-        // 3 -> Our arsenals are mor or less the same
-        // 4 -> Our arsenal is better
-        // 5 -> Our arsenal is far better
-
-
-        // --------------------------> RESULTS  <-------------------------------
-
-        for (int i = 0; i < 3; ++i) {
-            int dif = ownTotalProfit [i] - enemyTotalProfit [i];
-            if (dif >= -10 && dif <= 10 ) {
-                arsenalProfit [i] = 3;
-            }
-            else if(dif >= 0) {
-                if (dif > 10 && dif <= 30) {
-                    arsenalProfit [i] = 4;
-                }
-                else
-                    arsenalProfit [i] = 5;
-            }
-            else {
-                if (dif < -10 && dif >= -30) {
-                    arsenalProfit [i] = 2;
-                }
-                else
-                    arsenalProfit [i] = 1;
-            }
-        }
+    //__________________________________________________________________________
 
-        return arsenalProfit;
+    /**
+     * Estimate how good our arsenal is when compared to the enemy's, without
+     * allocating anything (the comparison of every pair of arsenals is
+     * precomputed by ArsenalTable).
+     * @param ownMask Mask of the weapons we have loaded (ArsenalTable.getMask).
+     * @param enemyMask Mask of the weapons we suppose the enemy has (ArsenalTable.getMask).
+     * @return The packed comparison, read it with the getters from ArsenalTable.
+     */
+    public int compareArsenals (final int ownMask, final int enemyMask) {
+        return ArsenalTable.compare (ownMask, enemyMask);
     }
 
     //__________________________________________________________________________
@@ -500,35 +271,25 @@ public class Brain {
 
     /**
      * Estimate a primary state for the FSM.
-     * @param info Information about the agent.
-     * @param weaponry Weaponry information.
-     * @param enemy Enemy information.
-     * @param enemyInfo Guessed information about the enemy.
-     * @param game Game information.
+     * @param snapshot State of the world in this logic tick.
      * @return An integer that represents a primary state.
      */
-    public int estimatePrimaryState (AgentInfo info, Weaponry weaponry, Player enemy, EnemyInfo enemyInfo, Game game) {
-        int arsenalScore;
-        int arsenalStatus [] = compareArsenals (weaponry, enemyInfo.getArsenal ());
-
+    public int estimatePrimaryState (final WorldSnapshot snapshot) {
         // ESTIMATE HOW GOOD OUR ARSENAL IS WHEN COMPARED TO THE ENEMY'S
 
-        arsenalScore = arsenalStatus [0];
-        for (int i = 1; i < arsenalStatus.length; ++i) {
-            if (arsenalStatus [i] >= arsenalScore) {
-                arsenalScore = arsenalStatus [i];
-            }
-        }
+        int arsenalStatus = compareArsenals (snapshot.getLoadedWeapons (), snapshot.getEnemyArsenal ());
+        int arsenalScore = ArsenalTable.getBestScore (arsenalStatus);
 
-        int health = info.getHealth ();
-        int enemyHealth = enemyInfo.getHealth ();
+        int health = snapshot.getHealth ();
+        int enemyHealth = snapshot.getEnemyHealth ();
+        boolean enemyOnSight = snapshot.isEnemyVisible ();
 
-        double elapsedTime = Math.abs (enemyInfo.getLastTimeMet () - game.getTime ());
+        double elapsedTime = Math.abs (snapshot.getLastTimeMet () - snapshot.getTime ());
 
         if (health < 50) {
             if (enemyHealth < 100) {
                 if (arsenalScore >= 3) {
-                    if (enemy != null) {
+                    if (enemyOnSight) {
                         return Bot.ATTACK;
                     }
                     else {
@@ -540,7 +301,7 @@ public class Brain {
                 }
             }
             else {
-                if (enemy != null) {
+                if (enemyOnSight) {
                     return Bot.RETREAT;
                 }
                 else {
@@ -556,7 +317,7 @@ public class Brain {
         else {
             if (enemyHealth < 120) {
                 if (arsenalScore >= 2) {
-                    if (enemy != null) {
+                    if (enemyOnSight) {
                         return Bot.ATTACK;
                     }
                     else {
@@ -569,7 +330,7 @@ public class Brain {
                     }
                 }
                 else {
-                    if (enemy != null) {
+                    if (enemyOnSight) {
                         return Bot.RETREAT;
                     }
                     else {
@@ -584,7 +345,7 @@ public class Brain {
             }
             else {
                 if (arsenalScore >= 3) {
-                    if (enemy != null) {
+                    if (enemyOnSight) {
                         return Bot.ATTACK;
                     }
                     else {
@@ -597,7 +358,7 @@ public class Brain {
                     }
                 }
                 else {
-                    if (enemy != null) {
+                    if (enemyOnSight) {
                         return Bot.RETREAT;
                     }
                     else {
@@ -618,46 +379,22 @@ public class Brain {
     /**
      * Estimate the secondary state, based on the bot needs.
      * @param primaryState Primary state that has been chosen.
-     * @param info Information about the agent.
-     * @param weaponry Weaponry information.
-     * @param enemy Enemy information.
-     * @param enemyInfo Guessed information about the enemy.
+     * @param snapshot State of the world in this logic tick.
      * @return An integer that represents a secondary state to be chosen.
      */
-    public int estimateSecondaryState (int primaryState, AgentInfo info, Weaponry weaponry, Player enemy, EnemyInfo enemyInfo) {
-        int arsenalScore, bestDefensiveRange, bestOfensiveRange;
-        int arsenalStatus [] = compareArsenals (weaponry, enemyInfo.getArsenal ());
-
+    public int estimateSecondaryState (final int primaryState, final WorldSnapshot snapshot) {
         // ESTIMATE HOW GOOD OUR ARSENAL IS WHEN COMPARED TO THE ENEMY'S
 
         // arsenalScore is going to hold the best score our arsenal gets in any range
-        // bestDefensiveRange is going to contain the furthest range where our arsenal is the best
         // bestOfensiveRange is going to contain the closest range where our arsenal is the best
-        // Note that bestDefensiveRange != bestOfensiveRange only when the best score
-        // is repeated.
-
-        arsenalScore = arsenalStatus [0];
-        bestDefensiveRange = bestOfensiveRange = 0;
-        for (int i = 1; i < arsenalStatus.length; ++i) {
-            if (arsenalStatus [i] >= arsenalScore) {
-                if (arsenalStatus [i] == arsenalScore) {
-                    bestDefensiveRange = i;
-                }
-                else {
-                    bestOfensiveRange = i;
-                    bestDefensiveRange = i;
-                }
 
-                arsenalScore = arsenalStatus [i];
-            }
-        }
+        int arsenalStatus = compareArsenals (snapshot.getLoadedWeapons (), snapshot.getEnemyArsenal ());
+        int arsenalScore = ArsenalTable.getBestScore (arsenalStatus);
+        int bestOfensiveRange = ArsenalTable.getBestOfensiveRange (arsenalStatus);
 
-        int health = info.getHealth ();
-
-        double enemyDistance = 0;
-        if (enemy != null) {
-            enemyDistance = info.getDistance (enemy.getLocation ());
-        }
+        int health = snapshot.getHealth ();
+        boolean enemyOnSight = snapshot.isEnemyVisible ();
+        double enemyDistance = snapshot.getEnemyDistance ();
 
         if (health < 30) {
             return Bot.CRITICALHEALTH;
@@ -668,7 +405,7 @@ public class Brain {
                    return Bot.PICKUPHEALTH;
                }
                else {
-                   if (enemy != null) {
+                   if (enemyOnSight) {
                        return estimateProfile (enemyDistance, arsenalScore, 0, bestOfensiveRange);
                    }
                    else {
@@ -727,7 +464,7 @@ public class Brain {
      */
     public Location estimateTarget () {
         if (comboLocation != null) {
-            PrimaryState.feasibleCombo ();
+            context.blowCombo = true;
 
             return comboLocation;
         }
@@ -749,7 +486,7 @@ public class Brain {
     public void incomingProjectile (final IncomingProjectile projectile, final Player enemy) {
         // If the projectile is a feasible combo, we update the combo Location.
         // spamLocation indicates if the spot where we want to blow the combo is a spam.
-        if (projectile.getType().equals ("XWeapons.ShockProjectile")) {
+        if (UnrealClass.get (projectile.getType ()) == UnrealClass.SHOCK_PROJECTILE) {
             if (enemy != null || spamLocation != null) {
                 Location targetPosition = null;
                 if (enemy != null) {
@@ -2,7 +2,7 @@ package exceptions;
 
 
 /**
- * 
+ *
  * @author Francisco Aisa García
  */
 
@@ -14,4 +14,16 @@ public class SubStatusException extends Exception {
      * @param msg It indicates what the problem is.
      */
     public SubStatusException (String msg) { super (msg); }
+
+    /**
+     * The sub states throw it to tell the primary state that they can't work
+     * (the message says why), so it doesn't need a stack trace. The sub states
+     * throw shared static instances that are created once, when their class is
+     * loaded, so the trace would point to that moment instead of to the throw.
+     * @return This exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace () {
+        return this;
+    }
 }
@@ -1,5 +1,6 @@
 package knowledge;
 
+import bot.BotContext;
 import utilities.Arithmetic;
 
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
@@ -27,6 +28,8 @@ public class EnemyInfo {
 
     /** Pointer to the field body from T800 (used for debugging) */
     protected CompleteBotCommandsWrapper body;
+    /** Decision context of the bot (map knowledge) */
+    private BotContext context;
     /** Enemy's name */
     private String name;
     /** Health that we suppose the enemy has */
@@ -83,9 +86,11 @@ public class EnemyInfo {
     /**
      * Argument based constructor.
      * @param body Pointer to the field body in T800.
+     * @param context Decision context of the bot.
      */
-    public EnemyInfo (final CompleteBotCommandsWrapper body) {
+    public EnemyInfo (final CompleteBotCommandsWrapper body, final BotContext context) {
         this.body = body;
+        this.context = context;
         health = 100;
         armor = 0;
         navPointPosition = null;
@@ -195,7 +200,7 @@ public class EnemyInfo {
      */
     public NavPoint getLastKnownNavPoint () {
         if (navPointPosition == null && currentPosition != null) {
-            return Arithmetic.getClosestPathNodeToLocation (currentPosition);
+            return Arithmetic.getClosestPathNodeToLocation (currentPosition, context);
         }
 
         // Si navPoint Posicion no era null, se devuelve ese valor, si es null
@@ -384,32 +389,26 @@ public class EnemyInfo {
      * @param weaponName Name of the weapon we are assuming the enemy has.
      */
     public void updateWeapon (String weaponName) {
-        if (weaponName == null) {
-            return;
-        }
-        if(weaponName.equals("XWeapons.BioRifle")) {
-            weaponry [BIO_RIFLE] = true;
-        }
-        else if (weaponName.equals("XWeapons.LinkGun")) {
-            weaponry [LINK_GUN] = true;
-        }
-        else if (weaponName.equals("XWeapons.Minigun")) {
-            weaponry [MINIGUN] = true;
-        }
-        else if (weaponName.equals("XWeapons.FlakCannon")) {
-            weaponry [FLAK_CANNON] = true;
-        }
-        else if (weaponName.equals("XWeapons.RocketLauncher")) {
-            weaponry [ROCKET_LAUNCHER] = true;
-        }
-        else if (weaponName.equals("XWeapons.ShockRifle")) {
-            weaponry [SHOCK_RIFLE] = true;
-        }
-        else if (weaponName.equals("XWeapons.SniperRifle")) {
-            weaponry [LIGHTNING_GUN] = true;
+        int weapon = getArsenalSlot (weaponName);
+
+        if (weapon != -1) {
+            weaponry [weapon] = true;
         }
     }
 
+    //__________________________________________________________________________
+
+    /**
+     * Slot of the arsenal vector of a weapon that the enemy may be holding.
+     * The shield gun and the assault rifle aren't considered (everybody has
+     * them).
+     * @param weaponName Name of the weapon.
+     * @return The slot, -1 if it isn't considered.
+     */
+    public static int getArsenalSlot (final String weaponName) {
+        return UnrealClass.get (weaponName).getArsenalSlot ();
+    }
+
 
     //__________________________________________________________________________
 
@@ -429,47 +428,33 @@ public class EnemyInfo {
 
         if (item != null && info.getDistance(item.getLocation ()) > 200) {
 
-            // SOUNDS RELATED TO HEALTH ITEMS OR ARMOR ITEMS
-
-            // If we heared the small shield
-            if (noise.getType().equals("XPickups.ShieldPack")) {
-                increaseArmor(50);
-            }
-            // If we heared the super shield
-            else if(noise.getType().equals("XPickups.SuperShieldPack")) {
-                increaseArmor(100);
-            }
-            // If we heared a health pack
-            else if(noise.getType().equals("XPickups.HealthPack")) {
-                increaseHealth(HEALTH_PACK);
-            }
-            // If we heared a health vial
-            else if(noise.getType().equals("XPickups.MiniHealthPack")) {
-                increaseHealth(HEALTH_VIAL);
-            }
-
-            // SOUNDS RELATED TO WEAPONS
-
-            else if(noise.getType().equals("XWeapons.BioRiflePickup")) {
-                weaponry [BIO_RIFLE] = true;
-            }
-            else if (noise.getType().equals("XWeapons.LinkGunPickup")) {
-                weaponry [LINK_GUN] = true;
-            }
-            else if (noise.getType().equals("XWeapons.MinigunPickup")) {
-                weaponry [MINIGUN] = true;
-            }
-            else if (noise.getType().equals("XWeapons.FlakCannonPickup")) {
-                weaponry [FLAK_CANNON] = true;
-            }
-            else if (noise.getType().equals("XWeapons.RocketLauncherPickup")) {
-                weaponry [ROCKET_LAUNCHER] = true;
-            }
-            else if (noise.getType().equals("XWeapons.ShockRiflePickup")) {
-                weaponry [SHOCK_RIFLE] = true;
-            }
-            else if (noise.getType().equals("XWeapons.SniperRiflePickup")) {
-                weaponry [LIGHTNING_GUN] = true;
+            UnrealClass pickup = UnrealClass.get (noise.getType ());
+            switch (pickup) {
+                // SOUNDS RELATED TO HEALTH ITEMS OR ARMOR ITEMS
+
+                // If we heared the small shield
+                case SHIELD_PACK:
+                    increaseArmor(50);
+                    break;
+                // If we heared the super shield
+                case SUPER_SHIELD_PACK:
+                    increaseArmor(100);
+                    break;
+                // If we heared a health pack
+                case HEALTH_PACK:
+                    increaseHealth(HEALTH_PACK);
+                    break;
+                // If we heared a health vial
+                case MINI_HEALTH_PACK:
+                    increaseHealth(HEALTH_VIAL);
+                    break;
+
+                // SOUNDS RELATED TO WEAPONS (the pickups know their slot)
+
+                default:
+                    if (pickup.getArsenalSlot () != -1) {
+                        weaponry [pickup.getArsenalSlot ()] = true;
+                    }
             }
 
             // ENEMY LOCATION
@@ -0,0 +1,517 @@
+package knowledge;
+
+import brain.ArsenalTable;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class EnemyRegistry {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Slot of every opponent we know */
+    private Map <UnrealId, Integer> slots = new HashMap <UnrealId, Integer> ();
+    /** Id of the opponent of every slot (null if the slot is free) */
+    private UnrealId ids [] = new UnrealId [CAPACITY];
+    /** Name of the opponent of every slot */
+    private String names [] = new String [CAPACITY];
+    /** Health that we suppose the opponent of every slot has */
+    private int healths [] = new int [CAPACITY];
+    /** Armor that we suppose the opponent of every slot has */
+    private int armors [] = new int [CAPACITY];
+    /** Weapons that we suppose the opponent of every slot has (a bit per slot of the arsenal vector of EnemyInfo) */
+    private int arsenals [] = new int [CAPACITY];
+    /** Game time when we saw the opponent of every slot for the last time (-1 if we haven't) */
+    private double lastSeen [] = new double [CAPACITY];
+    /** True if the opponent of every slot is on sight */
+    private boolean visible [] = new boolean [CAPACITY];
+
+    /** Last locations of every opponent (x, y and z of HISTORY locations per slot, oldest overwritten first) */
+    private float history [] = new float [CAPACITY * HISTORY * 3];
+    /** Game time of every location of history */
+    private double historyTimes [] = new double [CAPACITY * HISTORY];
+    /** Position in the history of every slot where the next location goes */
+    private int historyHeads [] = new int [CAPACITY];
+    /** Number of locations in the history of every slot */
+    private int historySizes [] = new int [CAPACITY];
+
+    /** Slots in use, in no particular order */
+    private int active [] = new int [CAPACITY];
+    /** Number of slots in use */
+    private int activeCount = 0;
+    /** Position of every slot in use in active */
+    private int activePositions [] = new int [CAPACITY];
+    /** Free slots */
+    private int free [] = new int [CAPACITY];
+    /** Number of free slots */
+    private int freeCount = 0;
+
+    /** Threat of every slot, used while ranking them */
+    private double threats [] = new double [CAPACITY];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Maximum number of opponents tracked (the rest are ignored) */
+    public final static int CAPACITY = 64;
+    /** Number of locations kept per opponent */
+    public final static int HISTORY = 8;
+
+    /** Health of a player that has just spawned */
+    private final static int SPAWN_HEALTH = 100;
+    /** Weapons of a player that has just spawned (shield gun and assault rifle) */
+    private final static int SPAWN_ARSENAL = (1 << EnemyInfo.SHIELD_GUN) | (1 << EnemyInfo.ASSAULT_RIFLE);
+    /** Time (seconds) after which an opponent we haven't seen isn't considered a threat */
+    private final static double FORGET_TIME = 30;
+    /** Distance at which the threat of an opponent is halved */
+    private final static double THREAT_RANGE = 1200;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Default constructor.
+     */
+    public EnemyRegistry () {
+        for (int slot = CAPACITY - 1; slot >= 0; --slot) {
+            free [freeCount++] = slot;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Slot of an opponent. O(1).
+     * @param id Id of the opponent.
+     * @return The slot, -1 if we don't know the opponent.
+     */
+    public int getSlot (final UnrealId id) {
+        Integer slot = id != null ? slots.get (id) : null;
+
+        return slot != null ? slot : -1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds an opponent (if we don't know it already).
+     * @param id Id of the opponent.
+     * @param name Name of the opponent (it may be null).
+     * @return The slot of the opponent, -1 if the registry is full.
+     */
+    public int add (final UnrealId id, final String name) {
+        int slot = getSlot (id);
+
+        if (slot == -1 && id != null && freeCount > 0) {
+            slot = free [--freeCount];
+            slots.put (id, slot);
+            ids [slot] = id;
+            names [slot] = "";
+            lastSeen [slot] = -1;
+            visible [slot] = false;
+            reset (slot);
+
+            activePositions [slot] = activeCount;
+            active [activeCount++] = slot;
+        }
+
+        if (slot != -1 && name != null) {
+            names [slot] = name;
+        }
+
+        return slot;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Forgets an opponent (it has left the match).
+     * @param id Id of the opponent.
+     */
+    public void remove (final UnrealId id) {
+        int slot = getSlot (id);
+
+        if (slot != -1) {
+            slots.remove (id);
+            ids [slot] = null;
+            names [slot] = null;
+
+            int last = active [--activeCount];
+            active [activePositions [slot]] = last;
+            activePositions [last] = activePositions [slot];
+            free [freeCount++] = slot;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * An opponent is on sight (or it has been updated).
+     * @param player Opponent.
+     * @param time Game time.
+     * @return The slot of the opponent, -1 if the registry is full.
+     */
+    public int playerSeen (final Player player, final double time) {
+        int slot = add (player.getId (), player.getName ());
+
+        if (slot != -1) {
+            // The location is null during the handshake
+            Location location = player.getLocation ();
+            if (location != null) {
+                int head = historyHeads [slot];
+                int base = (slot * HISTORY + head) * 3;
+                history [base] = (float) location.x;
+                history [base + 1] = (float) location.y;
+                history [base + 2] = (float) location.z;
+                historyTimes [slot * HISTORY + head] = time;
+
+                historyHeads [slot] = (head + 1) % HISTORY;
+                if (historySizes [slot] < HISTORY) {
+                    ++historySizes [slot];
+                }
+
+                lastSeen [slot] = time;
+                visible [slot] = true;
+            }
+
+            int weapon = EnemyInfo.getArsenalSlot (player.getWeapon ());
+            if (weapon != -1) {
+                arsenals [slot] |= 1 << weapon;
+            }
+        }
+
+        return slot;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * An opponent is out of sight.
+     * @param id Id of the opponent.
+     */
+    public void playerLost (final UnrealId id) {
+        int slot = getSlot (id);
+
+        if (slot != -1) {
+            visible [slot] = false;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have damaged an opponent (see EnemyInfo.hit).
+     * @param id Id of the opponent.
+     * @param damage Damage caused.
+     */
+    public void hit (final UnrealId id, final int damage) {
+        int slot = getSlot (id);
+
+        if (slot != -1) {
+            int absorbed = Math.min (armors [slot], damage);
+            armors [slot] -= absorbed;
+            healths [slot] = Math.max (healths [slot] - (damage - absorbed), 0);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * An opponent has died, it will spawn with the default health and weapons.
+     * @param id Id of the opponent.
+     */
+    public void killed (final UnrealId id) {
+        int slot = getSlot (id);
+
+        if (slot != -1) {
+            visible [slot] = false;
+            reset (slot);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores what we suppose about an opponent that was learnt somewhere else
+     * (the pickups that EnemyInfo heard while it was our enemy, for example).
+     * @param id Id of the opponent.
+     * @param health Health that we suppose it has.
+     * @param armor Armor that we suppose it has.
+     * @param arsenal Weapons that we suppose it has (the arsenal vector of EnemyInfo).
+     */
+    public void update (final UnrealId id, final int health, final int armor, final boolean arsenal []) {
+        int slot = getSlot (id);
+
+        if (slot != -1) {
+            healths [slot] = health;
+            armors [slot] = armor;
+
+            int weapons = 0;
+            for (int i = 0; i < arsenal.length; ++i) {
+                if (arsenal [i]) {
+                    weapons |= 1 << i;
+                }
+            }
+            arsenals [slot] = weapons;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of opponents we know.
+     * @return The number of opponents.
+     */
+    public int getCount () {
+        return activeCount;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Slot of an opponent we know. The order changes when opponents are added
+     * or removed.
+     * @param index Index of the opponent, from 0 to getCount () - 1.
+     * @return The slot.
+     */
+    public int getActiveSlot (final int index) {
+        return active [index];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Id of the opponent of a slot.
+     * @param slot Slot.
+     * @return The id.
+     */
+    public UnrealId getId (final int slot) {
+        return ids [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Name of the opponent of a slot.
+     * @param slot Slot.
+     * @return The name (empty if we don't know it).
+     */
+    public String getName (final int slot) {
+        return names [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Health that we suppose the opponent of a slot has.
+     * @param slot Slot.
+     * @return The health.
+     */
+    public int getHealth (final int slot) {
+        return healths [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Armor that we suppose the opponent of a slot has.
+     * @param slot Slot.
+     * @return The armor.
+     */
+    public int getArmor (final int slot) {
+        return armors [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether we suppose the opponent of a slot has a weapon.
+     * @param slot Slot.
+     * @param weapon Slot of the weapon in the arsenal vector (see EnemyInfo).
+     * @return True if we suppose it has it.
+     */
+    public boolean hasWeapon (final int slot, final int weapon) {
+        return (arsenals [slot] & (1 << weapon)) != 0;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weapons that we suppose the opponent of a slot has.
+     * @param slot Slot.
+     * @return A bit per slot of the arsenal vector of EnemyInfo.
+     */
+    public int getArsenal (final int slot) {
+        return arsenals [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game time when we saw the opponent of a slot for the last time.
+     * @param slot Slot.
+     * @return The game time, -1 if we haven't seen it.
+     */
+    public double getLastSeen (final int slot) {
+        return lastSeen [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether the opponent of a slot is on sight.
+     * @param slot Slot.
+     * @return True if it is on sight.
+     */
+    public boolean isVisible (final int slot) {
+        return visible [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of locations of the opponent of a slot that we remember.
+     * @param slot Slot.
+     * @return The number of locations (HISTORY at most).
+     */
+    public int getHistorySize (final int slot) {
+        return historySizes [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A location where we saw the opponent of a slot.
+     * @param slot Slot.
+     * @param age 0 for the last location, 1 for the previous one... up to
+     * getHistorySize (slot) - 1.
+     * @return The location.
+     */
+    public Location getHistoryLocation (final int slot, final int age) {
+        int base = (slot * HISTORY + historyIndex (slot, age)) * 3;
+
+        return new Location (history [base], history [base + 1], history [base + 2]);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game time of a location where we saw the opponent of a slot.
+     * @param slot Slot.
+     * @param age Age of the location (see getHistoryLocation).
+     * @return The game time.
+     */
+    public double getHistoryTime (final int slot, final int age) {
+        return historyTimes [slot * HISTORY + historyIndex (slot, age)];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How dangerous the opponent of a slot is. The worse our arsenal is
+     * compared to its arsenal, the healthier and the closer it is, the bigger
+     * the threat. Opponents we haven't seen for a while aren't a threat.
+     * @param slot Slot.
+     * @param ownMask Our arsenal (see ArsenalTable.getMask).
+     * @param location Where we are.
+     * @param time Game time.
+     * @return The threat (0 if it isn't a threat).
+     */
+    public double getThreat (final int slot, final int ownMask, final Location location, final double time) {
+        if (historySizes [slot] == 0 || time - lastSeen [slot] > FORGET_TIME) {
+            return 0;
+        }
+
+        int base = (slot * HISTORY + historyIndex (slot, 0)) * 3;
+        double dx = history [base] - location.x, dy = history [base + 1] - location.y, dz = history [base + 2] - location.z;
+        double distance = Math.sqrt (dx * dx + dy * dy + dz * dz);
+
+        int comparison = ArsenalTable.compare (ownMask, ArsenalTable.getMask (arsenals [slot]));
+        // Scores go from 1 (our arsenal is far worse) to 5 (it is far better)
+        double arsenalThreat = 6 - ArsenalTable.getBestScore (comparison);
+
+        return arsenalThreat * (healths [slot] + armors [slot]) / (1 + distance / THREAT_RANGE);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Ranks the opponents by how dangerous they are (see getThreat). It
+     * doesn't allocate anything, the caller provides the array.
+     * @param ownMask Our arsenal (see ArsenalTable.getMask).
+     * @param location Where we are.
+     * @param time Game time.
+     * @param ranking Array (of CAPACITY slots at least) where the slots of the
+     * opponents that are a threat are written, the most dangerous first.
+     * @return Number of opponents written in ranking.
+     */
+    public int rankThreats (final int ownMask, final Location location, final double time, final int ranking []) {
+        int count = 0;
+
+        for (int i = 0; i < activeCount; ++i) {
+            int slot = active [i];
+            double threat = getThreat (slot, ownMask, location, time);
+
+            if (threat > 0) {
+                // Insertion sort, there are only a few tens of opponents
+                int position = count++;
+                while (position > 0 && threats [ranking [position - 1]] < threat) {
+                    ranking [position] = ranking [position - 1];
+                    --position;
+                }
+
+                ranking [position] = slot;
+                threats [slot] = threat;
+            }
+        }
+
+        return count;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Position in the history of a slot of a location.
+     * @param slot Slot.
+     * @param age Age of the location (see getHistoryLocation).
+     * @return The position.
+     */
+    private int historyIndex (final int slot, final int age) {
+        return (historyHeads [slot] - 1 - age + 2 * HISTORY) % HISTORY;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets what we suppose of an opponent to the values of a player that has
+     * just spawned and forgets where it was.
+     * @param slot Slot.
+     */
+    private void reset (final int slot) {
+        healths [slot] = SPAWN_HEALTH;
+        armors [slot] = 0;
+        arsenals [slot] = SPAWN_ARSENAL;
+        historyHeads [slot] = 0;
+        historySizes [slot] = 0;
+    }
+}
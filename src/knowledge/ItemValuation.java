@@ -0,0 +1,293 @@
+package knowledge;
+
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class ItemValuation {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Priority of every item indexed by item, health band and weapon state */
+    private int values [][][];
+    /** Items whose weapon state is shared (the best state of the group is used), indexed by item */
+    private int group [];
+    /** Weapon state of every item in the weaponry given to the last update */
+    private int state [];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Items that have a value, the position of each one is its index */
+    private final static ItemType ITEMS [] = {
+        ItemType.SUPER_SHIELD_PACK, ItemType.SHIELD_PACK, ItemType.MINI_HEALTH_PACK, ItemType.HEALTH_PACK,
+        ItemType.U_DAMAGE_PACK, ItemType.ADRENALINE_PACK, ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN,
+        ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER, ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE, ItemType.LIGHTNING_GUN
+    };
+    /** Index of every item */
+    private final static Map <ItemType, Integer> INDEX = new HashMap <ItemType, Integer> ();
+
+    // Index of every item in ITEMS
+
+    private final static int SUPER_SHIELD_PACK = 0;
+    private final static int SHIELD_PACK = 1;
+    private final static int MINI_HEALTH_PACK = 2;
+    private final static int HEALTH_PACK = 3;
+    private final static int U_DAMAGE_PACK = 4;
+    private final static int ADRENALINE_PACK = 5;
+    private final static int BIO_RIFLE = 6;
+    private final static int LINK_GUN = 7;
+    private final static int MINIGUN = 8;
+    private final static int FLAK_CANNON = 9;
+    private final static int ROCKET_LAUNCHER = 10;
+    private final static int SHOCK_RIFLE = 11;
+    private final static int SNIPER_RIFLE = 12;
+    private final static int LIGHTNING_GUN = 13;
+    /** Index shared by every kind of ammo */
+    private final static int AMMO = 14;
+    /** First item that is a weapon */
+    private final static int FIRST_WEAPON = BIO_RIFLE;
+
+    /** Health bands (upper limits, the last band has none) */
+    private final static int HEALTH_BANDS [] = {70, 100, 150};
+
+    /** Constant that means we don't have the weapon */
+    public final static int MISSING = 0;
+    /** Constant that means we have the weapon but without ammo */
+    public final static int EMPTY = 1;
+    /** Constant that means we have the weapon loaded */
+    public final static int LOADED = 2;
+
+    /** Priority of an item that isn't considered */
+    public final static int IGNORED = -1;
+
+    static {
+        for (int i = 0; i < ITEMS.length; ++i) {
+            INDEX.put (ITEMS [i], i);
+        }
+    }
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Builds the valuation used by Greedy: how bad we need an item depending on
+     * our health and whether we already carry it loaded.
+     * @return The item valuation.
+     */
+    public static ItemValuation greedy () {
+        ItemValuation valuation = new ItemValuation ();
+
+        // Health bands:                      < 70   < 100  < 150  more
+        // (under 70 a single shot of sniper can kill us)
+
+        valuation.set (MINI_HEALTH_PACK,    new int [] {90,    65,    75,    65});
+        valuation.set (HEALTH_PACK,         new int [] {95,    75,    0,     0});
+        valuation.set (SUPER_SHIELD_PACK,   new int [] {99,    99,    99,    99});
+        valuation.set (SHIELD_PACK,         new int [] {85,    98,    98,    98});
+        valuation.set (U_DAMAGE_PACK,       new int [] {100,   100,   100,   100});
+        valuation.set (ADRENALINE_PACK,     new int [] {40,    40,    40,    40});
+        valuation.set (AMMO,                new int [] {20,    20,    20,    20});
+
+        // Weapons are worth less if we already carry them loaded
+        valuation.set (BIO_RIFLE,           new int [] {50,    55,    60,    60},    new int [] {25,    25,    35,    35});
+        valuation.set (LINK_GUN,            new int [] {55,    60,    65,    70},    new int [] {30,    35,    40,    45});
+        valuation.set (MINIGUN,             new int [] {65,    80,    80,    80},    new int [] {40,    55,    55,    55});
+        valuation.set (FLAK_CANNON,         new int [] {70,    85,    85,    85},    new int [] {45,    60,    60,    60});
+        valuation.set (ROCKET_LAUNCHER,     new int [] {60,    70,    70,    75},    new int [] {35,    45,    45,    50});
+        valuation.set (SHOCK_RIFLE,         new int [] {80,    95,    95,    95},    new int [] {55,    80,    80,    80});
+        valuation.set (SNIPER_RIFLE,        new int [] {75,    90,    90,    90},    new int [] {50,    65,    65,    65});
+        valuation.set (LIGHTNING_GUN,       new int [] {75,    90,    90,    90},    new int [] {50,    65,    65,    65});
+
+        return valuation;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the valuation used by Brain to time the most important pickups:
+     * shields and the weapons we don't have yet (our health doesn't matter).
+     * @return The item valuation.
+     */
+    public static ItemValuation destination () {
+        ItemValuation valuation = new ItemValuation ();
+
+        valuation.set (SUPER_SHIELD_PACK, band (100));
+        valuation.set (SHIELD_PACK, band (90));
+
+        // Sniper, lightning and shock are timed unless we have them loaded
+        valuation.set (SNIPER_RIFLE, band (90), band (IGNORED));
+        valuation.set (LIGHTNING_GUN, band (90), band (IGNORED));
+        valuation.set (SHOCK_RIFLE, band (90), band (IGNORED));
+
+        // Flak and rocket launcher (any of them is enough) and minigun are
+        // only timed if we don't have them at all
+        valuation.set (FLAK_CANNON, band (85), band (IGNORED), band (IGNORED));
+        valuation.set (ROCKET_LAUNCHER, band (85), band (IGNORED), band (IGNORED));
+        valuation.set (MINIGUN, band (80), band (IGNORED), band (IGNORED));
+        valuation.group [ROCKET_LAUNCHER] = FLAK_CANNON;
+
+        return valuation;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Default constructor, every item is ignored until a value is set.
+     */
+    private ItemValuation () {
+        values = new int [AMMO + 1][HEALTH_BANDS.length + 1][LOADED + 1];
+        group = new int [AMMO + 1];
+        state = new int [AMMO + 1];
+
+        for (int i = 0; i < values.length; ++i) {
+            set (i, band (IGNORED));
+            group [i] = i;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads the state of every weapon we can value from the weaponry. It has to
+     * be called before evaluating items whenever the weaponry may have changed.
+     * @param weaponry Weaponry that we are carrying.
+     */
+    public void update (final Weaponry weaponry) {
+        for (int i = FIRST_WEAPON; i < ITEMS.length; ++i) {
+            if (!weaponry.hasWeapon (ITEMS [i])) {
+                state [i] = MISSING;
+            }
+            else if (!weaponry.isLoaded (ITEMS [i])) {
+                state [i] = EMPTY;
+            }
+            else {
+                state [i] = LOADED;
+            }
+        }
+
+        // Items in a group take the best state of the group
+        for (int i = FIRST_WEAPON; i < ITEMS.length; ++i) {
+            state [group [i]] = Math.max (state [group [i]], state [i]);
+        }
+        for (int i = FIRST_WEAPON; i < ITEMS.length; ++i) {
+            state [i] = state [group [i]];
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Estimate how bad we need an item.
+     * @param type Type of the item.
+     * @param health Our health.
+     * @return IGNORED if the item isn't considered or else, a value between 0
+     * and 100 indicating how good the item is.
+     */
+    public int getPriority (final ItemType type, final int health) {
+        int item = getItem (type);
+        if (item < 0) {
+            return IGNORED;
+        }
+
+        int band = 0;
+        while (band < HEALTH_BANDS.length && health >= HEALTH_BANDS [band]) {
+            ++band;
+        }
+
+        return values [item][band][state [item]];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Index of an item.
+     * @param type Type of the item.
+     * @return Its index or -1 if the item has no value.
+     */
+    private static int getItem (final ItemType type) {
+        Integer item = INDEX.get (type);
+        if (item != null) {
+            return item;
+        }
+        else if (type != null && type.getCategory () == ItemType.Category.AMMO) {
+            return AMMO;
+        }
+
+        return -1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Same value for every health band.
+     * @param value Value.
+     * @return Vector with a value per health band.
+     */
+    private static int [] band (final int value) {
+        int values [] = new int [HEALTH_BANDS.length + 1];
+        for (int i = 0; i < values.length; ++i) {
+            values [i] = value;
+        }
+
+        return values;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets the value of an item regardless of the weapon state.
+     * @param item Index of the item.
+     * @param value Value per health band.
+     */
+    private void set (final int item, final int value []) {
+        set (item, value, value, value);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets the value of a weapon depending on whether we have it loaded.
+     * @param item Index of the item.
+     * @param unloaded Value per health band if it is missing or empty.
+     * @param loaded Value per health band if it is loaded.
+     */
+    private void set (final int item, final int unloaded [], final int loaded []) {
+        set (item, unloaded, unloaded, loaded);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets the value of a weapon for every weapon state.
+     * @param item Index of the item.
+     * @param missing Value per health band if we don't have it.
+     * @param empty Value per health band if we have it without ammo.
+     * @param loaded Value per health band if it is loaded.
+     */
+    private void set (final int item, final int missing [], final int empty [], final int loaded []) {
+        for (int band = 0; band < values [item].length; ++band) {
+            values [item][band][MISSING] = missing [band];
+            values [item][band][EMPTY] = empty [band];
+            values [item][band][LOADED] = loaded [band];
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package knowledge;
+
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Items;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import utilities.TimerHeap;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class SpawnedItems {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Every item spot of the map, indexed by slot */
+    private Item spots [];
+    /** Slot of every item spot */
+    private Map <UnrealId, Integer> slots;
+    /** Time (seconds) every item takes to respawn */
+    private double respawnTimes [];
+    /** True if the item of the slot is spawned (or we have no reason to think it isn't) */
+    private boolean spawned [];
+    /** Index of the type of every slot in typeQueues */
+    private int typeIndexes [];
+    /** Index in typeQueues of every item type of the map */
+    private Map <ItemType, Integer> types;
+
+    /** Spawned slots of every category (indexed by the ordinal of the category) */
+    private int categoryMembers [][];
+    /** Number of spawned slots of every category */
+    private int categoryCounts [];
+    /** Spawned slots of every group (indexed by the ordinal of the group) */
+    private int groupMembers [][];
+    /** Number of spawned slots of every group */
+    private int groupCounts [];
+    /** Position of every spawned slot in the list of its category */
+    private int categoryPositions [];
+    /** Position of every spawned slot in the list of its group */
+    private int groupPositions [];
+
+    /** Slots that aren't spawned, keyed by the game time when they should be back */
+    private TimerHeap respawnQueue;
+    /** Slots of every item type that aren't spawned, keyed like respawnQueue */
+    private TimerHeap typeQueues [];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Items whose respawn is worth timing when nothing better is spawned */
+    public static final ItemType TIMED_ITEMS [] = {
+        ItemType.SUPER_SHIELD_PACK, ItemType.U_DAMAGE_PACK, ItemType.SHIELD_PACK, ItemType.LIGHTNING_GUN, ItemType.SNIPER_RIFLE
+    };
+    /** Running speed of the bot (UT units per second), used to estimate travel times */
+    public static final double RUN_SPEED = 440;
+    /** A timed item is worth heading for if we would have to wait for it at most this long (seconds) */
+    public static final double TIMING_WINDOW = 5;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. Every item spot starts spawned, as the
+     * items module assumes until it knows otherwise.
+     * @param items Items of the current map.
+     */
+    public SpawnedItems (final Items items) {
+        spots = items.getAllItems ().values ().toArray (new Item [0]);
+        slots = new HashMap <UnrealId, Integer> (spots.length * 2);
+        respawnTimes = new double [spots.length];
+        spawned = new boolean [spots.length];
+        typeIndexes = new int [spots.length];
+        types = new HashMap <ItemType, Integer> ();
+        categoryPositions = new int [spots.length];
+        groupPositions = new int [spots.length];
+        respawnQueue = new TimerHeap (spots.length);
+
+        // Size the lists so that every spot fits in its category and its group
+        int categories = ItemType.Category.values ().length, groups = ItemType.Group.values ().length;
+        int categorySizes [] = new int [categories], groupSizes [] = new int [groups];
+        for (int slot = 0; slot < spots.length; ++slot) {
+            ItemType type = spots [slot].getType ();
+            ++categorySizes [type.getCategory ().ordinal ()];
+            ++groupSizes [type.getGroup ().ordinal ()];
+
+            Integer index = types.get (type);
+            if (index == null) {
+                index = types.size ();
+                types.put (type, index);
+            }
+            typeIndexes [slot] = index;
+        }
+
+        categoryMembers = new int [categories][];
+        categoryCounts = new int [categories];
+        for (int i = 0; i < categories; ++i) {
+            categoryMembers [i] = new int [categorySizes [i]];
+        }
+        groupMembers = new int [groups][];
+        groupCounts = new int [groups];
+        for (int i = 0; i < groups; ++i) {
+            groupMembers [i] = new int [groupSizes [i]];
+        }
+        typeQueues = new TimerHeap [types.size ()];
+        for (int i = 0; i < typeQueues.length; ++i) {
+            typeQueues [i] = new TimerHeap (spots.length);
+        }
+
+        for (int slot = 0; slot < spots.length; ++slot) {
+            slots.put (spots [slot].getId (), slot);
+            respawnTimes [slot] = items.getItemRespawnTime (spots [slot]);
+            spawn (slot);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * An item is on sight, so it is spawned.
+     * @param item Item.
+     */
+    public void itemSeen (final Item item) {
+        Integer slot = slots.get (item.getId ());
+
+        if (slot != null && !spawned [slot]) {
+            spawn (slot);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A NavPoint is on sight, if it is an item spot we know whether its item
+     * is spawned.
+     * @param navPoint NavPoint.
+     * @param time Game time.
+     */
+    public void navPointSeen (final NavPoint navPoint, final double time) {
+        Integer slot = navPoint.getItem () != null ? slots.get (navPoint.getItem ()) : null;
+
+        if (slot != null) {
+            if (navPoint.isItemSpawned ()) {
+                if (!spawned [slot]) {
+                    spawn (slot);
+                }
+            }
+            // We don't know when it was picked up, now is the best guess
+            else if (spawned [slot]) {
+                take (slot, time);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have picked up an item.
+     * @param id Id of the item.
+     * @param time Game time of the pickup.
+     */
+    public void pickedUp (final UnrealId id, final double time) {
+        Integer slot = slots.get (id);
+
+        if (slot != null && spawned [slot]) {
+            take (slot, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * We have heard someone else picking up an item. The source of the noise
+     * is usually the item itself. If it isn't an item spot we know, we assume
+     * it is the spawned item of that type closest to where the player was
+     * last seen, and if we don't know where the player is, we only trust it
+     * if there is a single spawned item of that type.
+     * @param source Source of the pickup noise.
+     * @param type Type of the item.
+     * @param near Where the player that picked it up was last seen (it may be null).
+     * @param time Game time of the pickup.
+     */
+    public void heardPickup (final UnrealId source, final ItemType type, final Location near, final double time) {
+        Integer slot = source != null ? slots.get (source) : null;
+        if (slot != null) {
+            if (spawned [slot]) {
+                take (slot, time);
+            }
+            return;
+        }
+
+        Integer index = types.get (type);
+        if (index == null) {
+            return;
+        }
+
+        int group = type.getGroup ().ordinal (), closest = -1, candidates = 0;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < groupCounts [group]; ++i) {
+            int member = groupMembers [group][i];
+
+            if (typeIndexes [member] == index) {
+                ++candidates;
+
+                double distance = near != null ? near.getDistance (spots [member].getLocation ()) : 0;
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = member;
+                }
+            }
+        }
+
+        if (closest != -1 && (near != null || candidates == 1)) {
+            take (closest, time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Brings back the items whose respawn time has passed. It only looks at
+     * the items that are due, O(log n) each.
+     * @param time Game time.
+     */
+    public void update (final double time) {
+        while (respawnQueue.peekTime () <= time) {
+            spawn (respawnQueue.peek ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Next item that should respawn. O(1).
+     * @return The item, null if every item is spawned.
+     */
+    public Item getNextRespawn () {
+        int slot = respawnQueue.peek ();
+
+        return slot != -1 ? spots [slot] : null;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Next item of a type that should respawn. O(1).
+     * @param type Item type.
+     * @return The item, null if every item of that type is spawned (or there
+     * are none in the map).
+     */
+    public Item getNextRespawn (final ItemType type) {
+        Integer index = types.get (type);
+        int slot = index != null ? typeQueues [index].peek () : -1;
+
+        return slot != -1 ? spots [slot] : null;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game time when an item should respawn.
+     * @param item Item.
+     * @return The game time, 0 if it is spawned (or it isn't an item spot).
+     */
+    public double getRespawnTime (final Item item) {
+        Integer slot = slots.get (item.getId ());
+
+        return slot != null && !spawned [slot] ? respawnQueue.getTime (slot) : 0;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How long we would have to wait for an item if we went for it now. A
+     * negative slack means that it would have been there for that long when
+     * we arrived (anyone else could have taken it by then).
+     * @param item Item.
+     * @param time Game time.
+     * @param travelTime Time (seconds) we need to get there.
+     * @return The slack (seconds).
+     */
+    public double getSlack (final Item item, final double time, final double travelTime) {
+        return getRespawnTime (item) - (time + travelTime);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether an item is spawned.
+     * @param item Item.
+     * @return True if it is spawned (or we have no reason to think it isn't).
+     */
+    public boolean isSpawned (final Item item) {
+        Integer slot = slots.get (item.getId ());
+
+        return slot != null && spawned [slot];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of spawned items of a category.
+     * @param category Category.
+     * @return The number of items.
+     */
+    public int getCount (final ItemType.Category category) {
+        return categoryCounts [category.ordinal ()];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A spawned item of a category. The order changes when items are picked
+     * up or respawn, so the items shouldn't be iterated while the index is
+     * being updated.
+     * @param category Category.
+     * @param index Index of the item, from 0 to getCount (category) - 1.
+     * @return The item.
+     */
+    public Item getItem (final ItemType.Category category, final int index) {
+        return spots [categoryMembers [category.ordinal ()][index]];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of spawned items of a group.
+     * @param group Group.
+     * @return The number of items.
+     */
+    public int getCount (final ItemType.Group group) {
+        return groupCounts [group.ordinal ()];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A spawned item of a group (see getItem (Category, int)).
+     * @param group Group.
+     * @param index Index of the item, from 0 to getCount (group) - 1.
+     * @return The item.
+     */
+    public Item getItem (final ItemType.Group group, final int index) {
+        return spots [groupMembers [group.ordinal ()][index]];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Marks a slot that isn't spawned as spawned, adding it to the lists of
+     * its category and its group and removing it from the respawn queues.
+     * @param slot Slot.
+     */
+    private void spawn (final int slot) {
+        ItemType type = spots [slot].getType ();
+
+        int category = type.getCategory ().ordinal ();
+        categoryPositions [slot] = categoryCounts [category];
+        categoryMembers [category][categoryCounts [category]++] = slot;
+
+        int group = type.getGroup ().ordinal ();
+        groupPositions [slot] = groupCounts [group];
+        groupMembers [group][groupCounts [group]++] = slot;
+
+        respawnQueue.remove (slot);
+        typeQueues [typeIndexes [slot]].remove (slot);
+
+        spawned [slot] = true;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Marks a spawned slot as taken, removing it from the lists of its
+     * category and its group (the last slot of each list takes its place).
+     * @param slot Slot.
+     * @param time Game time when it was taken.
+     */
+    private void take (final int slot, final double time) {
+        ItemType type = spots [slot].getType ();
+
+        int category = type.getCategory ().ordinal ();
+        int last = categoryMembers [category][--categoryCounts [category]];
+        categoryMembers [category][categoryPositions [slot]] = last;
+        categoryPositions [last] = categoryPositions [slot];
+
+        int group = type.getGroup ().ordinal ();
+        last = groupMembers [group][--groupCounts [group]];
+        groupMembers [group][groupPositions [slot]] = last;
+        groupPositions [last] = groupPositions [slot];
+
+        spawned [slot] = false;
+        respawnQueue.add (slot, time + respawnTimes [slot]);
+        typeQueues [typeIndexes [slot]].add (slot, time + respawnTimes [slot]);
+    }
+}
@@ -0,0 +1,157 @@
+package knowledge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public enum UnrealClass {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    // PICKUPS
+
+    /** Small shield */
+    SHIELD_PACK ("XPickups.ShieldPack", -1),
+    /** Super shield */
+    SUPER_SHIELD_PACK ("XPickups.SuperShieldPack", -1),
+    /** Health pack */
+    HEALTH_PACK ("XPickups.HealthPack", -1),
+    /** Health vial */
+    MINI_HEALTH_PACK ("XPickups.MiniHealthPack", -1),
+
+    // WEAPON PICKUPS
+
+    /** Bio rifle lying on the map */
+    BIO_RIFLE_PICKUP ("XWeapons.BioRiflePickup", EnemyInfo.BIO_RIFLE),
+    /** Link gun lying on the map */
+    LINK_GUN_PICKUP ("XWeapons.LinkGunPickup", EnemyInfo.LINK_GUN),
+    /** Minigun lying on the map */
+    MINIGUN_PICKUP ("XWeapons.MinigunPickup", EnemyInfo.MINIGUN),
+    /** Flak cannon lying on the map */
+    FLAK_CANNON_PICKUP ("XWeapons.FlakCannonPickup", EnemyInfo.FLAK_CANNON),
+    /** Rocket launcher lying on the map */
+    ROCKET_LAUNCHER_PICKUP ("XWeapons.RocketLauncherPickup", EnemyInfo.ROCKET_LAUNCHER),
+    /** Shock rifle lying on the map */
+    SHOCK_RIFLE_PICKUP ("XWeapons.ShockRiflePickup", EnemyInfo.SHOCK_RIFLE),
+    /** Sniper rifle lying on the map */
+    SNIPER_RIFLE_PICKUP ("XWeapons.SniperRiflePickup", EnemyInfo.LIGHTNING_GUN),
+
+    // WEAPONS
+
+    /** Bio rifle held by a player */
+    BIO_RIFLE ("XWeapons.BioRifle", EnemyInfo.BIO_RIFLE),
+    /** Link gun held by a player */
+    LINK_GUN ("XWeapons.LinkGun", EnemyInfo.LINK_GUN),
+    /** Minigun held by a player */
+    MINIGUN ("XWeapons.Minigun", EnemyInfo.MINIGUN),
+    /** Flak cannon held by a player */
+    FLAK_CANNON ("XWeapons.FlakCannon", EnemyInfo.FLAK_CANNON),
+    /** Rocket launcher held by a player */
+    ROCKET_LAUNCHER ("XWeapons.RocketLauncher", EnemyInfo.ROCKET_LAUNCHER),
+    /** Shock rifle held by a player */
+    SHOCK_RIFLE ("XWeapons.ShockRifle", EnemyInfo.SHOCK_RIFLE),
+    /** Sniper rifle held by a player */
+    SNIPER_RIFLE ("XWeapons.SniperRifle", EnemyInfo.LIGHTNING_GUN),
+
+    // PROJECTILES
+
+    /** Shock rifle ball (it can be blown into a combo) */
+    SHOCK_PROJECTILE ("XWeapons.ShockProjectile", -1),
+
+    // DAMAGE TYPES
+
+    /** Shock rifle beam */
+    DAM_TYPE_SHOCK_BEAM ("XWeapons.DamTypeShockBeam", -1),
+    /** Sniper rifle shot */
+    DAM_TYPE_SNIPER_SHOT ("XWeapons.DamTypeSniperShot", -1),
+
+    /** Any class the bot doesn't care about */
+    UNKNOWN (null, -1);
+
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the class in UT */
+    private final String className;
+    /** Slot of the arsenal vector of EnemyInfo (-1 if it isn't a weapon we keep track of) */
+    private final int arsenalSlot;
+
+
+    // *************************************************************************
+    //                           STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Every constant indexed by the name of its class (built once, read only afterwards) */
+    private static final Map <String, UnrealClass> CLASSES = new HashMap <String, UnrealClass> ();
+
+    static {
+        for (UnrealClass unrealClass : values ()) {
+            if (unrealClass.className != null) {
+                CLASSES.put (unrealClass.className, unrealClass);
+            }
+        }
+    }
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param className Name of the class in UT.
+     * @param arsenalSlot Slot of the arsenal vector of EnemyInfo (-1 if none).
+     */
+    private UnrealClass (final String className, final int arsenalSlot) {
+        this.className = className;
+        this.arsenalSlot = arsenalSlot;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Looks up the constant of a UT class name (a single hash lookup, so the
+     * event handlers can switch on the result instead of comparing strings).
+     * @param className Name of the class (it may be null).
+     * @return The constant, UNKNOWN if the bot doesn't care about the class.
+     */
+    public static UnrealClass get (final String className) {
+        UnrealClass unrealClass = className != null ? CLASSES.get (className) : null;
+
+        return unrealClass != null ? unrealClass : UNKNOWN;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Name of the class in UT.
+     * @return The name, null for UNKNOWN.
+     */
+    public String getClassName () {
+        return className;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Slot of the arsenal vector of EnemyInfo of a weapon (or weapon pickup).
+     * @return The slot, -1 if it isn't a weapon we keep track of.
+     */
+    public int getArsenalSlot () {
+        return arsenalSlot;
+    }
+}
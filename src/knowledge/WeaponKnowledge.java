@@ -0,0 +1,520 @@
+package knowledge;
+
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weapon;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class WeaponKnowledge {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Profit of every weapon indexed by weapon, distance and height */
+    private int profit [][][];
+    /** Enemy's health plus armor under which boostedProfit is used instead of profit (0 if there isn't any) */
+    private int healthThreshold [][][];
+    /** Profit of every weapon when the enemy's health plus armor is under the threshold */
+    private int boostedProfit [][][];
+    /** Profit of every weapon when we are about to shoot a spam */
+    private int spamProfit [];
+    /** Profit of every weapon when the enemy is not on sight */
+    private int unseenProfit [];
+    /** How to shoot the enemy, indexed by weapon, distance, height and WITH_SECONDARY_AMMO/WITHOUT_SECONDARY_AMMO */
+    private int fireAction [][][][];
+    /** Seconds the secondary fire is charged (only for SECONDARY_CHARGED) */
+    private double fireCharge [][][][];
+    /** How to shoot a spam, indexed by weapon, distance and height */
+    private int spamAction [][][];
+    /** Seconds the secondary fire is charged (only for SECONDARY_CHARGED) */
+    private double spamCharge [][][];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Weapons in the knowledge base, the position of each one is its index */
+    public final static ItemType WEAPONS [] = {
+        ItemType.SHIELD_GUN, ItemType.ASSAULT_RIFLE, ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN,
+        ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER, ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE, ItemType.LIGHTNING_GUN
+    };
+    /** Names used in the data file for each weapon (in the same order as WEAPONS) */
+    private final static String WEAPON_NAMES [] = {
+        "shield_gun", "assault_rifle", "bio_rifle", "link_gun", "minigun",
+        "flak_cannon", "rocket_launcher", "shock_rifle", "sniper_rifle", "lightning_gun"
+    };
+
+    /** Constant that identifies the close distance band */
+    public final static int CLOSE_RANGE = 0;
+    /** Constant that identifies the average distance band */
+    public final static int AVERAGE_RANGE = 1;
+    /** Constant that identifies the far distance band */
+    public final static int FAR_RANGE = 2;
+    /** Constant that identifies the very far distance band */
+    public final static int VERY_FAR_RANGE = 3;
+    /** Names used in the data file for each distance band */
+    private final static String RANGE_NAMES [] = {"close", "average", "far", "very_far"};
+
+    /** Constant that identifies an enemy at our same height */
+    public final static int LEVEL = 0;
+    /** Constant that identifies an enemy lower than us */
+    public final static int BELOW = 1;
+    /** Constant that identifies an enemy higher than us */
+    public final static int ABOVE = 2;
+    /** Number of height bands */
+    private final static int HEIGHTS = 3;
+
+    /** Constant that means keep doing whatever we were doing */
+    public final static int NONE = 0;
+    /** Constant that means stop shooting */
+    public final static int STOP = 1;
+    /** Constant that means shoot the primary fire */
+    public final static int PRIMARY = 2;
+    /** Constant that means shoot the secondary fire */
+    public final static int SECONDARY = 3;
+    /** Constant that means shoot the secondary fire charged */
+    public final static int SECONDARY_CHARGED = 4;
+
+    /** Index of the fire action used when the weapon has secondary ammo */
+    private final static int WITH_SECONDARY_AMMO = 0;
+    /** Index of the fire action used when the weapon hasn't secondary ammo */
+    private final static int WITHOUT_SECONDARY_AMMO = 1;
+
+    /** System property with the path of an alternative data file */
+    public final static String FILE_PROPERTY = "expertagent.weapons";
+    /** Resource holding the default data file */
+    private final static String DEFAULT_FILE = "weapons.txt";
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Loads the data file given by the FILE_PROPERTY system property or, if it
+     * isn't set, the one bundled with the bot.
+     * @return The knowledge base.
+     */
+    public static WeaponKnowledge load () {
+        String path = System.getProperty (FILE_PROPERTY);
+
+        try {
+            InputStream stream = path != null ? new FileInputStream (path) : WeaponKnowledge.class.getResourceAsStream (DEFAULT_FILE);
+            if (stream == null) {
+                throw new IOException ("Can't find " + DEFAULT_FILE);
+            }
+
+            try {
+                return new WeaponKnowledge (new BufferedReader (new InputStreamReader (stream, "UTF-8")));
+            }
+            finally {
+                stream.close ();
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException ("Can't load the weapon knowledge base: " + e.getMessage (), e);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor.
+     * @param reader Data file.
+     * @throws IOException If the file can't be read or it is malformed.
+     */
+    public WeaponKnowledge (final BufferedReader reader) throws IOException {
+        int weapons = WEAPONS.length, ranges = RANGE_NAMES.length;
+
+        profit = new int [weapons][ranges][HEIGHTS];
+        healthThreshold = new int [weapons][ranges][HEIGHTS];
+        boostedProfit = new int [weapons][ranges][HEIGHTS];
+        spamProfit = new int [weapons];
+        unseenProfit = new int [weapons];
+        fireAction = new int [weapons][ranges][HEIGHTS][2];
+        fireCharge = new double [weapons][ranges][HEIGHTS][2];
+        spamAction = new int [weapons][ranges][HEIGHTS];
+        spamCharge = new double [weapons][ranges][HEIGHTS];
+
+        // Weapons without a fire line don't shoot spams
+        for (int w = 0; w < weapons; ++w) {
+            for (int r = 0; r < ranges; ++r) {
+                for (int h = 0; h < HEIGHTS; ++h) {
+                    spamAction [w][r][h] = STOP;
+                }
+            }
+        }
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine ()) != null) {
+            ++lineNumber;
+            line = line.trim ();
+            if (line.length () == 0 || line.startsWith ("#")) {
+                continue;
+            }
+
+            try {
+                parseLine (line.split ("\\s+"));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException ("line " + lineNumber + ": " + e.getMessage ());
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Index of a weapon in the knowledge base.
+     * @param type Weapon type.
+     * @return Its index or -1 if the weapon is unknown.
+     */
+    public static int getWeapon (final ItemType type) {
+        for (int i = 0; i < WEAPONS.length; ++i) {
+            if (WEAPONS [i].equals (type)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weapons of the knowledge base we are carrying with ammo.
+     * @param weaponry Weaponry we are carrying.
+     * @return Mask with a bit (1 shifted by the index of the weapon) for every
+     * weapon that has ammo.
+     */
+    public static int getLoadedMask (final Weaponry weaponry) {
+        int mask = 0;
+
+        // Weaponry.getWeapons wraps the map in a new view every time, asking
+        // for every weapon of the knowledge base doesn't allocate anything
+        for (int i = 0; i < WEAPONS.length; ++i) {
+            Weapon weapon = weaponry.getWeapon (WEAPONS [i]);
+
+            if (weapon != null && weapon.getAmmo () > 0) {
+                mask |= 1 << i;
+            }
+        }
+
+        return mask;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Translates the result of Arithmetic.estimateHeight into a height band.
+     * @param height 0 if the enemy is at our height, negative if lower and positive if higher.
+     * @return LEVEL, BELOW or ABOVE.
+     */
+    public static int getHeightBand (final int height) {
+        if (height == 0) {
+            return LEVEL;
+        }
+        else if (height < 0) {
+            return BELOW;
+        }
+        else {
+            return ABOVE;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How profitable a weapon is against an enemy on sight.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @param range Distance band.
+     * @param height Height band.
+     * @param enemyHealthArmor Enemy's health plus armor.
+     * @return Profit from 0 to 100.
+     */
+    public int getProfit (final int weapon, final int range, final int height, final int enemyHealthArmor) {
+        if (weapon < 0) {
+            return 0;
+        }
+
+        if (enemyHealthArmor < healthThreshold [weapon][range][height]) {
+            return boostedProfit [weapon][range][height];
+        }
+
+        return profit [weapon][range][height];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How profitable a weapon is to shoot a spam.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @return Profit from 0 to 100.
+     */
+    public int getSpamProfit (final int weapon) {
+        return weapon < 0 ? 0 : spamProfit [weapon];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How profitable a weapon is when the enemy is not on sight.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @return Profit from 0 to 100.
+     */
+    public int getUnseenProfit (final int weapon) {
+        return weapon < 0 ? 0 : unseenProfit [weapon];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How to shoot an enemy on sight.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @param range Distance band.
+     * @param height Height band.
+     * @param secondaryAmmo True if the weapon has secondary ammo.
+     * @return NONE, STOP, PRIMARY, SECONDARY or SECONDARY_CHARGED.
+     */
+    public int getFireAction (final int weapon, final int range, final int height, final boolean secondaryAmmo) {
+        return weapon < 0 ? NONE : fireAction [weapon][range][height][secondaryAmmo ? WITH_SECONDARY_AMMO : WITHOUT_SECONDARY_AMMO];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Seconds the secondary fire has to be charged to shoot an enemy on sight.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @param range Distance band.
+     * @param height Height band.
+     * @param secondaryAmmo True if the weapon has secondary ammo.
+     * @return Seconds (only meaningful for SECONDARY_CHARGED).
+     */
+    public double getFireCharge (final int weapon, final int range, final int height, final boolean secondaryAmmo) {
+        return weapon < 0 ? 0 : fireCharge [weapon][range][height][secondaryAmmo ? WITH_SECONDARY_AMMO : WITHOUT_SECONDARY_AMMO];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * How to shoot a spam.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @param range Distance band.
+     * @param height Height band.
+     * @return NONE, STOP, PRIMARY, SECONDARY or SECONDARY_CHARGED.
+     */
+    public int getSpamAction (final int weapon, final int range, final int height) {
+        return weapon < 0 ? STOP : spamAction [weapon][range][height];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Seconds the secondary fire has to be charged to shoot a spam.
+     * @param weapon Index of the weapon (-1 for unknown weapons).
+     * @param range Distance band.
+     * @param height Height band.
+     * @return Seconds (only meaningful for SECONDARY_CHARGED).
+     */
+    public double getSpamCharge (final int weapon, final int range, final int height) {
+        return weapon < 0 ? 0 : spamCharge [weapon][range][height];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores the values of a line from the data file.
+     * @param tokens Line split in words.
+     */
+    private void parseLine (final String tokens []) {
+        String kind = tokens [0];
+
+        if (kind.equals ("spam") || kind.equals ("unseen")) {
+            expectTokens (tokens, 3);
+            int weapon = parseWeapon (tokens [1]);
+            int value = parseProfit (tokens [2]);
+
+            if (kind.equals ("spam")) {
+                spamProfit [weapon] = value;
+            }
+            else {
+                unseenProfit [weapon] = value;
+            }
+        }
+        else if (kind.equals ("advantage") || kind.equals ("fire") || kind.equals ("spamfire")) {
+            expectTokens (tokens, 3 + HEIGHTS);
+            int weapon = parseWeapon (tokens [1]);
+            int firstRange = 0, lastRange = RANGE_NAMES.length - 1;
+            if (!tokens [2].equals ("*")) {
+                firstRange = lastRange = parseRange (tokens [2]);
+            }
+
+            for (int r = firstRange; r <= lastRange; ++r) {
+                for (int h = 0; h < HEIGHTS; ++h) {
+                    String cell = tokens [3 + h];
+
+                    if (kind.equals ("advantage")) {
+                        parseAdvantage (cell, weapon, r, h);
+                    }
+                    else if (kind.equals ("fire")) {
+                        String actions [] = cell.split ("\\|");
+                        if (actions.length > 2) {
+                            throw new IllegalArgumentException ("too many actions in " + cell);
+                        }
+
+                        parseAction (actions [0], fireAction [weapon][r][h], fireCharge [weapon][r][h], WITH_SECONDARY_AMMO);
+                        parseAction (actions [actions.length - 1], fireAction [weapon][r][h], fireCharge [weapon][r][h], WITHOUT_SECONDARY_AMMO);
+                    }
+                    else {
+                        parseAction (cell, spamAction [weapon][r], spamCharge [weapon][r], h);
+                    }
+                }
+            }
+        }
+        else {
+            throw new IllegalArgumentException ("unknown entry " + kind);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses an advantage cell ("profit" or "profit/threshold:profit").
+     * @param cell Text of the cell.
+     * @param weapon Index of the weapon.
+     * @param range Distance band.
+     * @param height Height band.
+     */
+    private void parseAdvantage (final String cell, final int weapon, final int range, final int height) {
+        int slash = cell.indexOf ('/');
+
+        if (slash < 0) {
+            profit [weapon][range][height] = parseProfit (cell);
+            healthThreshold [weapon][range][height] = 0;
+        }
+        else {
+            String boost [] = cell.substring (slash + 1).split (":");
+            if (boost.length != 2) {
+                throw new IllegalArgumentException ("malformed advantage " + cell);
+            }
+
+            profit [weapon][range][height] = parseProfit (cell.substring (0, slash));
+            healthThreshold [weapon][range][height] = Integer.parseInt (boost [0]);
+            boostedProfit [weapon][range][height] = parseProfit (boost [1]);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses a fire action (primary, secondary, charged:seconds, stop or none).
+     * @param text Text of the action.
+     * @param actions Vector where the action is stored.
+     * @param charges Vector where the charge is stored.
+     * @param index Position in both vectors.
+     */
+    private static void parseAction (final String text, final int actions [], final double charges [], final int index) {
+        charges [index] = 0;
+
+        if (text.equals ("primary")) {
+            actions [index] = PRIMARY;
+        }
+        else if (text.equals ("secondary")) {
+            actions [index] = SECONDARY;
+        }
+        else if (text.startsWith ("charged:")) {
+            actions [index] = SECONDARY_CHARGED;
+            charges [index] = Double.parseDouble (text.substring ("charged:".length ()));
+        }
+        else if (text.equals ("stop")) {
+            actions [index] = STOP;
+        }
+        else if (text.equals ("none")) {
+            actions [index] = NONE;
+        }
+        else {
+            throw new IllegalArgumentException ("unknown action " + text);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses a weapon name.
+     * @param name Name of the weapon.
+     * @return Its index.
+     */
+    private static int parseWeapon (final String name) {
+        for (int i = 0; i < WEAPON_NAMES.length; ++i) {
+            if (WEAPON_NAMES [i].equals (name)) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException ("unknown weapon " + name);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses a distance band name.
+     * @param name Name of the distance band.
+     * @return Its index.
+     */
+    private static int parseRange (final String name) {
+        for (int i = 0; i < RANGE_NAMES.length; ++i) {
+            if (RANGE_NAMES [i].equals (name)) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException ("unknown distance " + name);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses a profit.
+     * @param text Text of the profit.
+     * @return A value from 0 to 100.
+     */
+    private static int parseProfit (final String text) {
+        int value = Integer.parseInt (text);
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException ("profit out of range " + text);
+        }
+
+        return value;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Checks the number of words of a line.
+     * @param tokens Line split in words.
+     * @param expected Number of words expected.
+     */
+    private static void expectTokens (final String tokens [], final int expected) {
+        if (tokens.length != expected) {
+            throw new IllegalArgumentException (tokens [0] + " needs " + (expected - 1) + " values");
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package knowledge;
+
+import brain.ArsenalTable;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class WorldSnapshot {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Game time when the snapshot was taken */
+    private double time;
+    /** Our location */
+    private Location location;
+    /** X coordinate of our location */
+    private double x;
+    /** Y coordinate of our location */
+    private double y;
+    /** Z coordinate of our location */
+    private double z;
+    /** Our health */
+    private int health;
+    /** Mask of the weapons we have loaded (see ArsenalTable.getMask) */
+    private int loadedWeapons;
+    /** True if we are seeing the enemy */
+    private boolean enemyVisible;
+    /** Enemy on sight (null if we aren't seeing him or the snapshot has been replayed) */
+    private Player enemy;
+    /** Location of the enemy on sight (null if we aren't seeing him) */
+    private Location enemyLocation;
+    /** Distance to the enemy on sight (0 if we aren't seeing him) */
+    private double enemyDistance;
+    /** Health that we suppose the enemy has */
+    private int enemyHealth;
+    /** Health plus armor that we suppose the enemy has */
+    private int enemyHealthArmor;
+    /** Mask of the weapons we suppose the enemy has (see ArsenalTable.getMask) */
+    private int enemyArsenal;
+    /** Game time when we saw the enemy for the last time */
+    private double lastTimeMet;
+    /** Location where we saw the enemy for the last time (null if we haven't seen him) */
+    private Location lastKnownEnemyLocation;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Default constructor. The snapshot is empty until it is taken by a
+     * WorldSnapshotPool, which reuses it every tick.
+     */
+    WorldSnapshot () {
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. It reads everything the decisions of a
+     * logic tick need, so all of them see the same world even if the
+     * listeners change it in the middle of the tick.
+     * @param info Agent information.
+     * @param weaponry Weaponry we are carrying.
+     * @param game Game information.
+     * @param enemy Enemy on sight (null if we aren't seeing him).
+     * @param enemyInfo Guessed information about the enemy.
+     */
+    public WorldSnapshot (final AgentInfo info, final Weaponry weaponry, final Game game, final Player enemy, final EnemyInfo enemyInfo) {
+        update (info, weaponry, game, enemy, enemyInfo);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Takes the snapshot again (see the argument based constructor). Only the
+     * WorldSnapshotPool that owns the snapshot may call it, for everybody else
+     * the snapshot doesn't change.
+     * @param info Agent information.
+     * @param weaponry Weaponry we are carrying.
+     * @param game Game information.
+     * @param enemy Enemy on sight (null if we aren't seeing him).
+     * @param enemyInfo Guessed information about the enemy.
+     */
+    final void update (final AgentInfo info, final Weaponry weaponry, final Game game, final Player enemy, final EnemyInfo enemyInfo) {
+        time = game.getTime ();
+        location = info.getLocation ();
+        x = location != null ? location.x : 0;
+        y = location != null ? location.y : 0;
+        z = location != null ? location.z : 0;
+        health = info.getHealth ();
+        loadedWeapons = ArsenalTable.getMask (weaponry);
+
+        enemyVisible = enemy != null;
+        this.enemy = enemy;
+        enemyLocation = enemy != null ? enemy.getLocation () : null;
+        enemyDistance = enemyLocation != null ? getDistance (enemyLocation) : 0;
+        enemyHealth = enemyInfo.getHealth ();
+        enemyHealthArmor = enemyInfo.getHealthArmor ();
+        enemyArsenal = ArsenalTable.getMask (enemyInfo.getArsenal ());
+        lastTimeMet = enemyInfo.getLastTimeMet ();
+        lastKnownEnemyLocation = enemyInfo.getLastKnownLocation ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. It rebuilds a snapshot from the values
+     * recorded in a decision trace, so the decisions can be replayed without
+     * a game (there is no enemy Player, see getEnemy).
+     * @param time Game time when the snapshot was taken.
+     * @param location Our location.
+     * @param health Our health.
+     * @param loadedWeapons Mask of the weapons we have loaded (see ArsenalTable.getMask).
+     * @param enemyVisible True if we were seeing the enemy.
+     * @param enemyLocation Location of the enemy on sight (null if it was unknown).
+     * @param enemyHealth Health that we supposed the enemy had.
+     * @param enemyHealthArmor Health plus armor that we supposed the enemy had.
+     * @param enemyArsenal Mask of the weapons we supposed the enemy had (see ArsenalTable.getMask).
+     * @param lastTimeMet Game time when we saw the enemy for the last time.
+     * @param lastKnownEnemyLocation Location where we saw the enemy for the last time (null if we hadn't seen him).
+     */
+    public WorldSnapshot (final double time, final Location location, final int health, final int loadedWeapons,
+                          final boolean enemyVisible, final Location enemyLocation, final int enemyHealth,
+                          final int enemyHealthArmor, final int enemyArsenal, final double lastTimeMet,
+                          final Location lastKnownEnemyLocation) {
+        this.time = time;
+        this.location = location;
+        x = location != null ? location.x : 0;
+        y = location != null ? location.y : 0;
+        z = location != null ? location.z : 0;
+        this.health = health;
+        this.loadedWeapons = loadedWeapons;
+
+        this.enemyVisible = enemyVisible;
+        enemy = null;
+        this.enemyLocation = enemyLocation;
+        enemyDistance = enemyLocation != null ? getDistance (enemyLocation) : 0;
+        this.enemyHealth = enemyHealth;
+        this.enemyHealthArmor = enemyHealthArmor;
+        this.enemyArsenal = enemyArsenal;
+        this.lastTimeMet = lastTimeMet;
+        this.lastKnownEnemyLocation = lastKnownEnemyLocation;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game time when the snapshot was taken.
+     * @return The game time.
+     */
+    public double getTime () {
+        return time;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Our location.
+     * @return The location.
+     */
+    public Location getLocation () {
+        return location;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Distance from our location to a spot.
+     * @param spot Location.
+     * @return The distance.
+     */
+    public double getDistance (final Location spot) {
+        double dx = spot.x - x;
+        double dy = spot.y - y;
+        double dz = spot.z - z;
+
+        return Math.sqrt (dx * dx + dy * dy + dz * dz);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Our health.
+     * @return The health.
+     */
+    public int getHealth () {
+        return health;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weapons we have loaded.
+     * @return The mask of the weapons (see ArsenalTable.getMask).
+     */
+    public int getLoadedWeapons () {
+        return loadedWeapons;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether we are seeing the enemy.
+     * @return True if the enemy is on sight.
+     */
+    public boolean isEnemyVisible () {
+        return enemyVisible;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Enemy on sight.
+     * @return The enemy, null if we aren't seeing him (or the snapshot has been replayed).
+     */
+    public Player getEnemy () {
+        return enemy;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Location of the enemy on sight.
+     * @return The location, null if we aren't seeing him.
+     */
+    public Location getEnemyLocation () {
+        return enemyLocation;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Distance to the enemy on sight.
+     * @return The distance, 0 if we aren't seeing him.
+     */
+    public double getEnemyDistance () {
+        return enemyDistance;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Health that we suppose the enemy has.
+     * @return The health.
+     */
+    public int getEnemyHealth () {
+        return enemyHealth;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Health plus armor that we suppose the enemy has.
+     * @return The health plus the armor.
+     */
+    public int getEnemyHealthArmor () {
+        return enemyHealthArmor;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weapons we suppose the enemy has.
+     * @return The mask of the weapons (see ArsenalTable.getMask).
+     */
+    public int getEnemyArsenal () {
+        return enemyArsenal;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game time when we saw the enemy for the last time.
+     * @return The game time.
+     */
+    public double getLastTimeMet () {
+        return lastTimeMet;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Location where we saw the enemy for the last time.
+     * @return The location, null if we haven't seen him.
+     */
+    public Location getLastKnownEnemyLocation () {
+        return lastKnownEnemyLocation;
+    }
+}
@@ -0,0 +1,50 @@
+package knowledge;
+
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class WorldSnapshotPool {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Snapshot handed out every tick */
+    private WorldSnapshot snapshot = new WorldSnapshot ();
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Takes the snapshot of a logic tick without allocating a new one (see
+     * the argument based constructor of WorldSnapshot). The snapshot is the
+     * same object every tick, so whoever takes it must only pass it down the
+     * calls of the tick: it mustn't be stored anywhere, the values that have
+     * to outlive the tick are copied (see DecisionTrace.record).
+     * @param info Agent information.
+     * @param weaponry Weaponry we are carrying.
+     * @param game Game information.
+     * @param enemy Enemy on sight (null if we aren't seeing him).
+     * @param enemyInfo Guessed information about the enemy.
+     * @return The snapshot, valid until the next call.
+     */
+    public WorldSnapshot take (final AgentInfo info, final Weaponry weaponry, final Game game, final Player enemy,
+                               final EnemyInfo enemyInfo) {
+        snapshot.update (info, weaponry, game, enemy, enemyInfo);
+
+        return snapshot;
+    }
+}
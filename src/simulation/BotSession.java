@@ -0,0 +1,788 @@
+package simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class BotSession {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Map the bot lives in */
+    private SimulatedMap map;
+    /** Bot's connection */
+    private Socket socket;
+    /** Writer attached to the socket, every message goes through it */
+    private PrintWriter out;
+    /** Milliseconds between two synchronous batches */
+    private int batchPeriod;
+    /** Fixed seed so that every run plays the same script */
+    private Random random;
+
+    /** Unreal id of the bot */
+    private String botId;
+    /** Unreal id of the scripted enemy */
+    private String enemyId;
+
+    /** Simulation time in seconds */
+    private double time = 0;
+    /** True once INIT has been received */
+    private boolean inited = false;
+    /** True if the bot is alive */
+    private boolean alive = false;
+    /** Batches left until the bot is respawned */
+    private int respawnCountdown = 0;
+
+    /** Bot's position */
+    private double botX, botY;
+    /** Spot the bot is running to (null if it is standing still) */
+    private double moveTarget [];
+    /** Bot's health and armor */
+    private int botHealth, botArmor;
+    /** True while the bot is shooting */
+    private boolean shooting = false;
+    /** Inventory id of the weapon the bot is holding */
+    private String currentWeapon;
+    /** Inventory ids of the weapons the bot holds */
+    private List <String> inventory = new ArrayList <String> ();
+    /** Ids of the rays the bot has registered */
+    private List <String> rays = new ArrayList <String> ();
+    /** Direction (x, y) and length of every ray */
+    private List <double []> rayShapes = new ArrayList <double []> ();
+
+    /** Enemy's position */
+    private double enemyX, enemyY;
+    /** NavPoint the enemy is walking to */
+    private int enemyGoal;
+    /** Enemy's health */
+    private int enemyHealth;
+    /** Batches left until the enemy is respawned (0 if it is alive) */
+    private int enemyRespawnCountdown = 0;
+
+    /** Batches left until each item respawns */
+    private int itemRespawnCountdown [];
+
+    /** Counters */
+    private long deaths = 0, kills = 0, damageEvents = 0, batches = 0;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Running speed (unreal units per second) */
+    private static final double SPEED = 440;
+    /** Maximum distance at which the bot and the enemy can see each other */
+    private static final double SIGHT = 2500;
+    /** Maximum distance at which items are visible */
+    private static final double ITEM_SIGHT = 1500;
+    /** Distance at which an item is picked up */
+    private static final double PICKUP_RADIUS = 60;
+    /** Hits per second the bot lands while it is shooting */
+    private static final double BOT_HIT_RATE = 2;
+    /** Hits per second the enemy lands while it sees the bot */
+    private static final double ENEMY_HIT_RATE = 3;
+    /** Projectiles per second the enemy shoots at the bot */
+    private static final double PROJECTILE_RATE = 0.5;
+    /** Noises per second the bot hears when the enemy is close */
+    private static final double NOISE_RATE = 0.5;
+    /** Batches an item takes to respawn */
+    private static final int ITEM_RESPAWN = 40;
+    /** Batches a dead player waits before respawning */
+    private static final int PLAYER_RESPAWN = 8;
+
+    /** Weapons every bot carries when it spawns (inventory class, pickup class) */
+    private static final String DEFAULT_WEAPONS [][] = {
+        {"XWeapons.ShieldGun", "XWeapons.ShieldGunPickup"},
+        {"XWeapons.AssaultRifle", "XWeapons.AssaultRiflePickup"}
+    };
+
+    /** Weapons the scripted enemy uses (weapon class, damage type) */
+    private static final String ENEMY_WEAPONS [][] = {
+        {"XWeapons.FlakCannon", "XWeapons.DamTypeFlakChunk"},
+        {"XWeapons.RocketLauncher", "XWeapons.DamTypeRocket"},
+        {"XWeapons.ShockRifle", "XWeapons.DamTypeShockBeam"},
+        {"XWeapons.SniperRifle", "XWeapons.DamTypeSniperShot"},
+        {"XWeapons.Minigun", "XWeapons.DamTypeMinigunBullet"}
+    };
+
+    /** Projectiles the enemy may shoot at the bot */
+    private static final String PROJECTILES [] = {
+        "XWeapons.RocketProj", "XWeapons.ShockProjectile", "XWeapons.FlakShell"
+    };
+
+    /** Pickup classes the enemy can be heard picking up */
+    private static final String HEARD_PICKUPS [] = {
+        "XWeapons.FlakCannonPickup", "XWeapons.RocketLauncherPickup", "XWeapons.ShockRiflePickup",
+        "XWeapons.SniperRiflePickup", "XWeapons.MinigunPickup", "XPickups.HealthPack",
+        "XPickups.MiniHealthPack", "XPickups.ShieldPack", "XPickups.SuperShieldPack"
+    };
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param map Map the bot lives in.
+     * @param socket Bot's connection.
+     * @param batchPeriod Milliseconds between two synchronous batches.
+     * @param number Number of the bot, used to build unique ids and seeds.
+     */
+    public BotSession (final SimulatedMap map, final Socket socket, final int batchPeriod, final int number) {
+        this.map = map;
+        this.socket = socket;
+        this.batchPeriod = batchPeriod;
+
+        random = new Random (number);
+        botId = "DM-Sim.xBot" + number;
+        enemyId = "DM-Sim.xPawn" + number;
+        itemRespawnCountdown = new int [map.getItemCount ()];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Starts two threads: one that reads the commands sent by the bot and
+     * other that plays the script and sends the synchronous batches.
+     */
+    public void start () {
+        Thread reader = new Thread (new Runnable () {
+            public void run () {
+                readCommands ();
+            }
+        }, "BotSession-reader-" + botId);
+
+        Thread writer = new Thread (new Runnable () {
+            public void run () {
+                writeBatches ();
+            }
+        }, "BotSession-writer-" + botId);
+
+        reader.setDaemon (true);
+        writer.setDaemon (true);
+
+        try {
+            out = new PrintWriter (new OutputStreamWriter (socket.getOutputStream (), "UTF-8"));
+        }
+        catch (IOException e) {
+            close ();
+            return;
+        }
+
+        synchronized (out) {
+            out.print ("HELLO_BOT {ServerFull False}\r\n");
+            out.flush ();
+        }
+
+        reader.start ();
+        writer.start ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Closes the connection.
+     */
+    public void close () {
+        try {
+            socket.close ();
+        }
+        catch (IOException e) {
+            // Nothing to do, we are leaving anyway
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads and executes every command sent by the bot. Commands the
+     * simulation doesn't need are ignored.
+     */
+    private void readCommands () {
+        try {
+            BufferedReader in = new BufferedReader (new InputStreamReader (socket.getInputStream (), "UTF-8"));
+            String line;
+
+            while ((line = in.readLine ()) != null) {
+                String command = line.trim ();
+                int space = command.indexOf (' ');
+                String name = space == -1 ? command : command.substring (0, space);
+
+                if (name.equals ("READY")) {
+                    synchronized (out) {
+                        map.writeHandshake (out);
+                        out.flush ();
+                    }
+                }
+                else if (name.equals ("INIT")) {
+                    init ();
+                }
+                else if (name.equals ("GETPATH")) {
+                    getPath (getAttribute (command, "Id"), parseLocation (getAttribute (command, "Location")));
+                }
+                else if (name.equals ("MOVE") || name.equals ("CMOVE")) {
+                    double target [] = parseLocation (getAttribute (command, "FirstLocation"));
+                    synchronized (this) {
+                        moveTarget = target;
+                    }
+                }
+                else if (name.equals ("STOP")) {
+                    synchronized (this) {
+                        moveTarget = null;
+                    }
+                }
+                else if (name.equals ("SHOOT")) {
+                    synchronized (this) {
+                        shooting = true;
+                    }
+                }
+                else if (name.equals ("STOPSHOOT")) {
+                    synchronized (this) {
+                        shooting = false;
+                    }
+                }
+                else if (name.equals ("CHANGEWEAPON")) {
+                    String weapon = getAttribute (command, "Id");
+                    synchronized (this) {
+                        if (inventory.contains (weapon)) {
+                            currentWeapon = weapon;
+                        }
+                    }
+                }
+                else if (name.equals ("ADDRAY")) {
+                    String ray = getAttribute (command, "Id");
+                    double direction [] = parseLocation (getAttribute (command, "Direction"));
+                    double length = parseLocation (getAttribute (command, "Length")) [0];
+                    double norm = Math.hypot (direction [0], direction [1]);
+
+                    synchronized (this) {
+                        rays.add (ray);
+                        rayShapes.add (new double [] {norm == 0 ? 1 : direction [0] / norm, norm == 0 ? 0 : direction [1] / norm, length});
+                    }
+                }
+                else if (name.equals ("REMOVERAY")) {
+                    synchronized (this) {
+                        rays.clear ();
+                        rayShapes.clear ();
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            // The bot has disconnected
+        }
+
+        close ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Answers the INIT command, the bot will be spawned in the next batch.
+     * Pogamut adjusts the logic frequency to the VisionTime, so it is set to
+     * the batch period.
+     */
+    private void init () {
+        synchronized (out) {
+            out.print ("CONFCH {Id " + botId + "_CONFCH} {BotId " + botId + "} {ManualSpawn False} {AutoTrace True} "
+                       + "{Name T800} {SpeedMultiplier 1.0} {RotationRate 0,24000,0} {Invulnerable False} {VisionTime " + batchPeriod / 1000.0 + "} "
+                       + "{ShowDebug False} {ShowFocalPoint False} {DrawTraceLines False} {SynchronousOff False} {AutoPickupOff False}\r\n");
+            out.print ("INITED {BotId " + botId + "} {HealthStart 100} {HealthFull 100} {HealthMax 199} {AdrenalineStart 0} "
+                       + "{AdrenalineMax 100} {ShieldStrengthStart 0} {ShieldStrengthMax 150} {MaxMultiJump 1} {DamageScaling 1.0} "
+                       + "{GroundSpeed 440} {WaterSpeed 220} {AirSpeed 440} {LadderSpeed 200} {AccelRate 2048} {JumpZ 340} "
+                       + "{MultiJumpBoost 25} {MaxFallSpeed 1200} {DodgeSpeedFactor 1.5} {DodgeSpeedZ 210} {AirControl 0.35}\r\n");
+            out.flush ();
+        }
+
+        synchronized (this) {
+            inited = true;
+            respawnCountdown = 1;
+            respawnEnemy ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Answers a GETPATH command with a route over the grid.
+     * @param messageId Id of the request.
+     * @param goal Location the bot wants to go to.
+     */
+    private void getPath (String messageId, double goal []) {
+        double fromX, fromY;
+        synchronized (this) {
+            fromX = botX;
+            fromY = botY;
+        }
+
+        List <Integer> route = map.computeRoute (fromX, fromY, goal [0], goal [1]);
+        StringBuilder reply = new StringBuilder ("SPTH {MessageId ").append (messageId).append ("}\r\n");
+
+        for (int i = 0; i < route.size (); ++i) {
+            int navPoint = route.get (i);
+            reply.append ("IPTH {RouteId ").append (map.getNavPointId (navPoint)).append ("} {Location ")
+                 .append (SimulatedMap.location (map.getX (navPoint), map.getY (navPoint))).append ("}\r\n");
+        }
+        reply.append ("EPTH\r\n");
+
+        synchronized (out) {
+            out.print (reply.toString ());
+            out.flush ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Plays the script: every batch period it moves the players, resolves
+     * the fight and sends the batch to the bot.
+     */
+    private void writeBatches () {
+        long next = System.currentTimeMillis ();
+
+        while (!socket.isClosed ()) {
+            next += batchPeriod;
+            long wait = next - System.currentTimeMillis ();
+
+            if (wait > 0) {
+                try {
+                    Thread.sleep (wait);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            String batch;
+            synchronized (this) {
+                if (!inited) {
+                    continue;
+                }
+                batch = step ();
+            }
+
+            synchronized (out) {
+                out.print (batch);
+                out.flush ();
+                if (out.checkError ()) {
+                    close ();
+                }
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Advances the simulation one batch.
+     * @return Every message of the batch, events included.
+     */
+    private String step () {
+        StringBuilder batch = new StringBuilder ();
+        double delta = batchPeriod / 1000.0;
+        time += delta;
+        ++batches;
+
+        // RESPAWNS
+
+        if (!alive && --respawnCountdown <= 0) {
+            spawnBot (batch);
+        }
+
+        if (enemyRespawnCountdown > 0 && --enemyRespawnCountdown == 0) {
+            respawnEnemy ();
+        }
+
+        for (int i = 0; i < itemRespawnCountdown.length; ++i) {
+            if (itemRespawnCountdown [i] > 0 && --itemRespawnCountdown [i] == 0) {
+                map.setItemSpawned (i, true);
+            }
+        }
+
+        // MOVEMENT
+
+        if (alive && moveTarget != null) {
+            double step [] = walk (botX, botY, moveTarget [0], moveTarget [1], SPEED * delta);
+            botX = step [0];
+            botY = step [1];
+            pickupItems (batch);
+        }
+
+        boolean enemyAlive = enemyRespawnCountdown == 0;
+        if (enemyAlive) {
+            double step [] = walk (enemyX, enemyY, map.getX (enemyGoal), map.getY (enemyGoal), SPEED * delta * 0.8);
+            enemyX = step [0];
+            enemyY = step [1];
+
+            // The enemy alternates between roaming and hunting the bot, so
+            // that both of them meet often enough to fight
+            if (enemyX == map.getX (enemyGoal) && enemyY == map.getY (enemyGoal)) {
+                if (alive && random.nextBoolean ()) {
+                    enemyGoal = map.getClosestNavPoint (botX, botY);
+                }
+                else {
+                    enemyGoal = random.nextInt (map.getNavPointCount ());
+                }
+            }
+        }
+
+        double distance = Math.hypot (enemyX - botX, enemyY - botY);
+        boolean enemyVisible = alive && enemyAlive && distance < SIGHT;
+
+        // FIGHT
+
+        if (enemyVisible) {
+            String weapon [] = ENEMY_WEAPONS [enemyGoal % ENEMY_WEAPONS.length];
+
+            if (shooting && happens (BOT_HIT_RATE, delta)) {
+                int damage = 10 + random.nextInt (30);
+                enemyHealth -= damage;
+                ++damageEvents;
+                batch.append ("HIT {Id ").append (enemyId).append ("} {Damage ").append (damage)
+                     .append ("} {DamageType XWeapons.DamTypeAssaultBullet} {WeaponName AssaultRifle} {Flaming False} ")
+                     .append ("{DirectDamage True} {BulletHit True} {VehicleHit False}\r\n");
+
+                if (enemyHealth <= 0) {
+                    ++kills;
+                    enemyRespawnCountdown = PLAYER_RESPAWN;
+                    enemyVisible = false;
+                    batch.append ("KIL {Id ").append (enemyId).append ("} {Killer ").append (botId)
+                         .append ("} {KilledPawn ").append (enemyId).append ("} {DamageType XWeapons.DamTypeAssaultBullet} ")
+                         .append ("{WeaponName AssaultRifle} {Flaming False} {CausedByWorld False} {DirectDamage True} ")
+                         .append ("{BulletHit True} {VehicleHit False}\r\n");
+                }
+            }
+
+            if (enemyVisible && happens (ENEMY_HIT_RATE, delta)) {
+                int damage = 5 + random.nextInt (25);
+                int absorbed = Math.min (botArmor, damage / 2);
+                botArmor -= absorbed;
+                botHealth -= damage - absorbed;
+                ++damageEvents;
+                batch.append ("DAM {Damage ").append (damage).append ("} {DamageType ").append (weapon [1])
+                     .append ("} {WeaponName ").append (weapon [0]).append ("} {Flaming False} {CausedByWorld False} ")
+                     .append ("{DirectDamage True} {BulletHit True} {VehicleHit False} {Instigator ").append (enemyId).append ("}\r\n");
+
+                if (botHealth <= 0) {
+                    killBot (batch, weapon);
+                }
+            }
+
+            if (alive && happens (PROJECTILE_RATE, delta)) {
+                String projectile = PROJECTILES [random.nextInt (PROJECTILES.length)];
+                batch.append ("PRJ {Id DM-Sim.Projectile").append (batches).append ("} {ImpactTime 0.5} {Direction ")
+                     .append (SimulatedMap.location (botX - enemyX, botY - enemyY)).append ("} {Location ")
+                     .append (SimulatedMap.location (enemyX, enemyY)).append ("} {Velocity 0.0,0.0,0.0} {Speed 1150} ")
+                     .append ("{DamageRadius 220} {Type ").append (projectile).append ("}\r\n");
+            }
+        }
+        else if (alive && enemyAlive && distance < SIGHT * 2) {
+            if (happens (NOISE_RATE, delta)) {
+                batch.append ("HRP {Source ").append (enemyId).append ("} {Type ")
+                     .append (HEARD_PICKUPS [random.nextInt (HEARD_PICKUPS.length)]).append ("} {Rotation 0,0,0}\r\n");
+            }
+            else if (happens (NOISE_RATE, delta)) {
+                batch.append ("HRN {Source ").append (enemyId).append ("} {Type XGame.xPawn} {Rotation 0,0,0}\r\n");
+            }
+        }
+
+        // SYNCHRONOUS BATCH
+
+        batch.append ("BEG {Time ").append (time).append ("}\r\n");
+
+        if (alive) {
+            batch.append ("SLF {Id ").append (botId).append ("} {BotId ").append (botId).append ("} {Name T800} {Vehicle False} ")
+                 .append ("{Location ").append (SimulatedMap.location (botX, botY)).append ("} {Velocity 0.0,0.0,0.0} ")
+                 .append ("{Rotation 0,0,0} {Team 255} {Weapon ").append (currentWeapon).append ("} {Shooting ")
+                 .append (shooting ? "True" : "False").append ("} {Health ").append (botHealth)
+                 .append ("} {PrimaryAmmo 100} {SecondaryAmmo 4} {Adrenaline 0} {Armor ").append (botArmor)
+                 .append ("} {SmallArmor 0} {AltFiring False} {Crouched False} {Walking False} {FloorLocation ")
+                 .append (SimulatedMap.location (botX, botY)).append ("} {FloorNormal 0.0,0.0,1.0} {UDamageTime 0}\r\n");
+
+            for (int i = 0; i < rays.size (); ++i) {
+                trace (batch, rays.get (i), rayShapes.get (i));
+            }
+
+            for (int i = 0; i < map.getItemCount (); ++i) {
+                int navPoint = map.getItemNavPoint (i);
+                if (Math.hypot (map.getX (navPoint) - botX, map.getY (navPoint) - botY) < ITEM_SIGHT) {
+                    batch.append (map.navPoint (navPoint, true)).append (map.item (i, true));
+                }
+            }
+        }
+
+        batch.append ("PLR {Id ").append (enemyId).append ("} {Name Enemy} {Visible ").append (enemyVisible ? "True" : "False")
+             .append ("} {Rotation 0,0,0} {Location ").append (SimulatedMap.location (enemyX, enemyY))
+             .append ("} {Velocity 0.0,0.0,0.0} {Team 255} {Reachable ").append (enemyVisible ? "True" : "False")
+             .append ("} {Weapon ").append (ENEMY_WEAPONS [enemyGoal % ENEMY_WEAPONS.length][0]).append ("}\r\n");
+
+        batch.append ("END {Time ").append (time).append ("}\r\n");
+
+        return batch.toString ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Spawns the bot in a random NavPoint with the default weapons.
+     * @param batch Batch where the messages are written.
+     */
+    private void spawnBot (StringBuilder batch) {
+        int navPoint = random.nextInt (map.getNavPointCount ());
+        botX = map.getX (navPoint);
+        botY = map.getY (navPoint);
+        botHealth = 100;
+        botArmor = 0;
+        shooting = false;
+        moveTarget = null;
+        alive = true;
+        inventory.clear ();
+
+        batch.append ("SPW\r\n");
+
+        for (int i = 0; i < DEFAULT_WEAPONS.length; ++i) {
+            addInventory (batch, DEFAULT_WEAPONS [i][0], DEFAULT_WEAPONS [i][1]);
+        }
+        currentWeapon = inventory.get (inventory.size () - 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Kills the bot.
+     * @param batch Batch where the messages are written.
+     * @param weapon Weapon used by the enemy (weapon class, damage type).
+     */
+    private void killBot (StringBuilder batch, String weapon []) {
+        ++deaths;
+        alive = false;
+        shooting = false;
+        moveTarget = null;
+        respawnCountdown = PLAYER_RESPAWN;
+
+        batch.append ("DIE {Killer ").append (enemyId).append ("} {DamageType ").append (weapon [1])
+             .append ("} {WeaponName ").append (weapon [0]).append ("} {Flaming False} {CausedByWorld False} ")
+             .append ("{DirectDamage True} {BulletHit True} {VehicleHit False}\r\n");
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Respawns the enemy in a random NavPoint.
+     */
+    private void respawnEnemy () {
+        int navPoint = random.nextInt (map.getNavPointCount ());
+        enemyX = map.getX (navPoint);
+        enemyY = map.getY (navPoint);
+        enemyGoal = random.nextInt (map.getNavPointCount ());
+        enemyHealth = 100;
+        enemyRespawnCountdown = 0;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Picks up every spawned item the bot is standing on.
+     * @param batch Batch where the messages are written.
+     */
+    private void pickupItems (StringBuilder batch) {
+        for (int i = 0; i < map.getItemCount (); ++i) {
+            int navPoint = map.getItemNavPoint (i);
+
+            if (map.isItemSpawned (i) && Math.hypot (map.getX (navPoint) - botX, map.getY (navPoint) - botY) < PICKUP_RADIUS) {
+                String type = map.getItemType (i);
+                map.setItemSpawned (i, false);
+                itemRespawnCountdown [i] = ITEM_RESPAWN;
+
+                if (type.endsWith ("HealthPack")) {
+                    botHealth = Math.min (botHealth + (type.startsWith ("XPickups.Mini") ? 5 : 25), 199);
+                }
+                else if (type.endsWith ("ShieldPack")) {
+                    botArmor = Math.min (botArmor + (type.startsWith ("XPickups.Super") ? 100 : 50), 150);
+                }
+                else if (type.startsWith ("XWeapons.") && !type.endsWith ("AmmoPickup")) {
+                    String weaponClass = type.substring (0, type.length () - "Pickup".length ());
+                    if (!inventory.contains (botId + "." + weaponClass)) {
+                        addInventory (batch, weaponClass, type);
+                    }
+                }
+
+                batch.append ("IPK {Id ").append (map.getItemId (i)).append ("} {InventoryId ").append (botId).append (".")
+                     .append (type).append ("} {Location ").append (SimulatedMap.location (botX, botY)).append ("} {Amount 25} ")
+                     .append ("{AmountSec 0} {Type ").append (type).append ("} {Dropped False}\r\n");
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds a weapon to the bot's inventory.
+     * @param batch Batch where the messages are written.
+     * @param weaponClass Inventory class of the weapon.
+     * @param pickupClass Pickup class of the weapon.
+     */
+    private void addInventory (StringBuilder batch, String weaponClass, String pickupClass) {
+        String id = botId + "." + weaponClass;
+        inventory.add (id);
+
+        batch.append ("AIN {Id ").append (id).append ("} {Type ").append (weaponClass).append ("} {PickupType ")
+             .append (pickupClass).append ("} {Sniping False} {Melee False} {PrimaryInitialAmmo 100} {MaxPrimaryAmmo 200} ")
+             .append ("{SecondaryInitialAmmo 4} {MaxSecondaryAmmo 8}\r\n");
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Traces a ray against the walls that enclose the map. The bot always
+     * faces the X axis, so ray directions are used as they are.
+     * @param batch Batch where the ATR message is written.
+     * @param ray Id of the ray.
+     * @param shape Direction (x, y) and length of the ray.
+     */
+    private void trace (StringBuilder batch, String ray, double shape []) {
+        double min = map.getMinCoordinate ();
+        double max = map.getMaxCoordinate ();
+        double length = shape [2];
+
+        // Shorten the ray up to the first wall it crosses
+        if (shape [0] > 0) length = Math.min (length, (max - botX) / shape [0]);
+        if (shape [0] < 0) length = Math.min (length, (min - botX) / shape [0]);
+        if (shape [1] > 0) length = Math.min (length, (max - botY) / shape [1]);
+        if (shape [1] < 0) length = Math.min (length, (min - botY) / shape [1]);
+
+        String from = SimulatedMap.location (botX, botY);
+        String hit = SimulatedMap.location (botX + shape [0] * length, botY + shape [1] * length);
+
+        batch.append ("ATR {Id ").append (ray).append ("} {From ").append (from).append ("} {To ")
+             .append (SimulatedMap.location (botX + shape [0] * shape [2], botY + shape [1] * shape [2]))
+             .append ("} {FastTrace False} {FloorCorrection True} {Result ").append (length < shape [2] ? "True" : "False")
+             .append ("} {HitNormal 0.0,0.0,1.0} {HitLocation ").append (hit).append ("} {TraceActors False}\r\n");
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Decides if a scripted event happens in this batch.
+     * @param rate Times per second the event happens on average.
+     * @param delta Seconds simulated in this batch.
+     * @return True if the event happens.
+     */
+    private boolean happens (double rate, double delta) {
+        return random.nextDouble () < rate * delta;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Moves a point towards a goal.
+     * @param x X coordinate of the point.
+     * @param y Y coordinate of the point.
+     * @param goalX X coordinate of the goal.
+     * @param goalY Y coordinate of the goal.
+     * @param length Maximum distance walked.
+     * @return New coordinates of the point.
+     */
+    private static double [] walk (double x, double y, double goalX, double goalY, double length) {
+        double distance = Math.hypot (goalX - x, goalY - y);
+
+        if (distance <= length) {
+            return new double [] {goalX, goalY};
+        }
+
+        return new double [] {x + (goalX - x) * length / distance, y + (goalY - y) * length / distance};
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Retrieves the value of an attribute from a GameBots message.
+     * @param message Whole message.
+     * @param attribute Attribute name.
+     * @return The value or null if the attribute isn't present.
+     */
+    private static String getAttribute (String message, String attribute) {
+        int start = message.indexOf ("{" + attribute + " ");
+        if (start == -1) {
+            return null;
+        }
+
+        start += attribute.length () + 2;
+        int end = message.indexOf ('}', start);
+
+        return end == -1 ? message.substring (start) : message.substring (start, end);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Parses a GameBots location.
+     * @param location Location as x,y,z.
+     * @return The coordinates (0,0,0 if the location can't be parsed).
+     */
+    private static double [] parseLocation (String location) {
+        double result [] = new double [3];
+
+        if (location != null) {
+            String components [] = location.split (",");
+            for (int i = 0; i < components.length && i < 3; ++i) {
+                try {
+                    result [i] = Double.parseDouble (components [i].trim ());
+                }
+                catch (NumberFormatException e) {
+                    result [i] = 0;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of times the bot has died */
+    public synchronized long getDeaths () {
+        return deaths;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of times the bot has killed the enemy */
+    public synchronized long getKills () {
+        return kills;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of damage events sent */
+    public synchronized long getDamageEvents () {
+        return damageEvents;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of batches sent */
+    public synchronized long getBatches () {
+        return batches;
+    }
+}
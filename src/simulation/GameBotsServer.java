@@ -0,0 +1,138 @@
+package simulation;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class GameBotsServer implements Runnable {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Map shared by every connected bot */
+    private SimulatedMap map;
+    /** Socket where bots connect */
+    private ServerSocket serverSocket;
+    /** Milliseconds between two synchronous batches (GameBots default is 250) */
+    private int batchPeriod;
+    /** Sessions currently open */
+    private List <BotSession> sessions = new ArrayList <BotSession> ();
+    /** Thread accepting connections */
+    private Thread acceptor;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param map Map that will be served to the bots.
+     * @param port Port to listen at (0 picks a free one).
+     * @param batchPeriod Milliseconds between two synchronous batches.
+     * @throws IOException If the port can't be bound.
+     */
+    public GameBotsServer (final SimulatedMap map, final int port, final int batchPeriod) throws IOException {
+        this.map = map;
+        this.batchPeriod = batchPeriod;
+        serverSocket = new ServerSocket (port);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Starts accepting bots in a daemon thread.
+     */
+    public void start () {
+        acceptor = new Thread (this, "GameBotsServer");
+        acceptor.setDaemon (true);
+        acceptor.start ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Accepts bots until the server is shut down, each one of them is served
+     * by its own session.
+     */
+    public void run () {
+        int botCount = 0;
+
+        while (!serverSocket.isClosed ()) {
+            try {
+                Socket socket = serverSocket.accept ();
+                BotSession session = new BotSession (map, socket, batchPeriod, ++botCount);
+
+                synchronized (sessions) {
+                    sessions.add (session);
+                }
+
+                session.start ();
+            }
+            catch (IOException e) {
+                // The server socket has been closed
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Closes the server socket and every open session.
+     */
+    public void shutdown () {
+        try {
+            serverSocket.close ();
+        }
+        catch (IOException e) {
+            // Nothing to do, we are leaving anyway
+        }
+
+        synchronized (sessions) {
+            for (BotSession session : sessions) {
+                session.close ();
+            }
+            sessions.clear ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the port the server is listening at */
+    public int getPort () {
+        return serverSocket.getLocalPort ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds up the counters of every session.
+     * @return Deaths, kills, damage events and batches sent to all the bots.
+     */
+    public long [] getCounters () {
+        long counters [] = new long [4];
+
+        synchronized (sessions) {
+            for (BotSession session : sessions) {
+                counters [0] += session.getDeaths ();
+                counters [1] += session.getKills ();
+                counters [2] += session.getDamageEvents ();
+                counters [3] += session.getBatches ();
+            }
+        }
+
+        return counters;
+    }
+}
@@ -0,0 +1,78 @@
+package simulation;
+
+import bot.Bot;
+import bot.TickAccount;
+import bot.TelemetryWriter;
+import bot.TickScheduler;
+import cz.cuni.amis.pogamut.ut2004.bot.impl.UT2004Bot;
+import cz.cuni.amis.pogamut.ut2004.agent.params.UT2004AgentParameters;
+import cz.cuni.amis.pogamut.ut2004.utils.UT2004BotRunner;
+import java.util.logging.Level;
+import utilities.PhaseProfile;
+import utilities.TickStatistics;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class LoadTest {
+
+    // *************************************************************************
+    //                                 MAIN
+    // *************************************************************************
+
+
+    /**
+     * Starts the simulated GameBots server, connects a bot to it and prints
+     * the logic throughput and latency. Pogamut derives the logic frequency
+     * from the VisionTime reported by the server, which is the batch period.
+     * @param args [duration in seconds] [batch period in ms] [grid side] [warm up in seconds]
+     */
+    public static void main (String args[]) throws Exception {
+        int duration = args.length > 0 ? Integer.parseInt (args [0]) : 60;
+        int batchPeriod = args.length > 1 ? Integer.parseInt (args [1]) : 50;
+        int side = args.length > 2 ? Integer.parseInt (args [2]) : 16;
+        int warmUp = args.length > 3 ? Integer.parseInt (args [3]) : 5;
+
+        GameBotsServer server = new GameBotsServer (new SimulatedMap ("DM-Sim", side), 0, batchPeriod);
+        server.start ();
+
+        PhaseProfile profile = new PhaseProfile (Bot.PRIMARY_STATE_NAMES);
+        Bot.phaseProfile = profile;
+
+        UT2004BotRunner <UT2004Bot <?, ?, ?>, UT2004AgentParameters> runner =
+            new UT2004BotRunner <UT2004Bot <?, ?, ?>, UT2004AgentParameters> (Bot.class, "T800", "127.0.0.1", server.getPort ());
+        runner.setLogLevel (Level.WARNING);
+        UT2004Bot <?, ?, ?> bot = runner.startAgent ();
+
+        // Room for twice the expected ticks, the warm up is discarded
+        TickStatistics statistics = new TickStatistics (2 * duration * 1000 / batchPeriod);
+        ((Bot) bot.getController ()).setTickStatistics (statistics);
+
+        Thread.sleep (warmUp * 1000L);
+        statistics.reset ();
+        profile.reset ();
+        long counters [] = server.getCounters ();
+
+        Thread.sleep (duration * 1000L);
+
+        long current [] = server.getCounters ();
+        System.out.println (statistics.summary ());
+        System.out.println ("batches=" + (current [3] - counters [3]) + " deaths=" + (current [0] - counters [0])
+                            + " kills=" + (current [1] - counters [1]) + " damageEvents=" + (current [2] - counters [2]));
+        for (TickAccount account : TickScheduler.getShared ().getAccounts ()) {
+            System.out.println (account);
+        }
+        System.out.println ("inbox " + ((Bot) bot.getController ()).getInbox ());
+        System.out.print (profile.summary ());
+        if (TelemetryWriter.getShared () != null) {
+            System.out.println ("telemetry " + TelemetryWriter.getShared ());
+        }
+
+        server.shutdown ();
+        System.exit (statistics.getTicks () > 0 ? 0 : 1);
+    }
+}
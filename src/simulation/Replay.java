@@ -0,0 +1,240 @@
+package simulation;
+
+import behaviour.primaryStates.PrimaryState;
+import bot.BotContext;
+import bot.DecisionTrace;
+import brain.Brain;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class Replay implements Callable <Replay> {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Decision trace replayed */
+    private File file;
+    /** Weapon knowledge base (read only, shared by every replay) */
+    private WeaponKnowledge knowledge;
+    /** Number of times the decisions are replayed */
+    private int passes;
+    /** Number of ticks of the trace */
+    private int ticks = 0;
+    /** Number of primary states that differ from the recorded ones */
+    private int primaryDiverged = 0;
+    /** Number of secondary states that differ from the recorded ones */
+    private int secondaryDiverged = 0;
+    /** Number of weapon choices replayed (the ones of the ticks that tried a combo aren't) */
+    private int weaponChoices = 0;
+    /** Number of weapon choices that differ from the recorded ones */
+    private int weaponDiverged = 0;
+    /** Number of decisions taken in every pass */
+    private long decisions = 0;
+    /** Time (nanoseconds) spent deciding in every pass */
+    private long duration = 0;
+    /** Why the trace couldn't be replayed (null if it could) */
+    private String error = null;
+
+
+    // *************************************************************************
+    //                                 MAIN
+    // *************************************************************************
+
+
+    /**
+     * Replays the decisions recorded in decision traces (see DecisionTrace)
+     * with the current brain, as fast as the CPU allows, and prints how many
+     * of them differ from the recorded ones and how long they take. Every
+     * trace is read and replayed by one of the threads.
+     * @param args [trace file or directory] [threads] [passes]
+     */
+    public static void main (String args[]) throws Exception {
+        File source = args.length > 0 ? new File (args [0]) : DecisionTrace.getDirectory ();
+        int threads = args.length > 1 ? Integer.parseInt (args [1]) : Runtime.getRuntime ().availableProcessors ();
+        int passes = args.length > 2 ? Integer.parseInt (args [2]) : 100;
+
+        File files [] = source.isDirectory () ? source.listFiles () : new File [] {source};
+        if (files == null) {
+            files = new File [0];
+        }
+        Arrays.sort (files);
+
+        WeaponKnowledge knowledge = WeaponKnowledge.load ();
+        ExecutorService executor = Executors.newFixedThreadPool (threads);
+        List <Future <Replay>> replays = new ArrayList <Future <Replay>> ();
+
+        long start = System.nanoTime ();
+        for (File file : files) {
+            if (file.isFile () && (file == source || file.getName ().endsWith (DecisionTrace.EXTENSION))) {
+                replays.add (executor.submit (new Replay (file, knowledge, passes)));
+            }
+        }
+
+        int sessions = 0, ticks = 0, primaryDiverged = 0, secondaryDiverged = 0, weaponChoices = 0, weaponDiverged = 0;
+        long decisions = 0, duration = 0;
+        for (Future <Replay> future : replays) {
+            Replay replay = future.get ();
+            System.out.println (replay);
+
+            if (replay.error == null) {
+                ++sessions;
+                ticks += replay.ticks;
+                primaryDiverged += replay.primaryDiverged;
+                secondaryDiverged += replay.secondaryDiverged;
+                weaponChoices += replay.weaponChoices;
+                weaponDiverged += replay.weaponDiverged;
+                decisions += replay.decisions * passes;
+                duration += replay.duration;
+            }
+        }
+        long wallTime = System.nanoTime () - start;
+        executor.shutdown ();
+
+        System.out.println (String.format ("total sessions=%d ticks=%d primaryDiverged=%d (%s) secondaryDiverged=%d (%s) "
+                                           + "weaponDiverged=%d (%s) ns/decision=%.1f decisions/s=%.0f threads=%d",
+                                           sessions, ticks, primaryDiverged, percentage (primaryDiverged, ticks),
+                                           secondaryDiverged, percentage (secondaryDiverged, ticks), weaponDiverged,
+                                           percentage (weaponDiverged, weaponChoices), (double) duration / Math.max (decisions, 1),
+                                           decisions * 1e9 / Math.max (wallTime, 1), threads));
+
+        System.exit (sessions > 0 ? 0 : 1);
+    }
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param file Decision trace.
+     * @param knowledge Weapon knowledge base.
+     * @param passes Number of times the decisions are replayed.
+     */
+    public Replay (final File file, final WeaponKnowledge knowledge, final int passes) {
+        this.file = file;
+        this.knowledge = knowledge;
+        this.passes = Math.max (passes, 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Replays the trace. The snapshots are rebuilt before the decisions are
+     * measured, and only the decisions of the last pass are compared with
+     * the recorded ones (the brain doesn't keep anything between ticks).
+     * @return This replay, with its results.
+     */
+    public Replay call () {
+        ByteBuffer records;
+        try {
+            records = DecisionTrace.read (file);
+        }
+        catch (IOException e) {
+            error = e.getMessage ();
+            return this;
+        }
+
+        ticks = records.capacity () / DecisionTrace.RECORD_SIZE;
+
+        WorldSnapshot snapshots [] = new WorldSnapshot [ticks];
+        int arsenals [] = new int [ticks];
+        boolean spams [] = new boolean [ticks];
+        for (int i = 0; i < ticks; ++i) {
+            int base = i * DecisionTrace.RECORD_SIZE;
+
+            snapshots [i] = DecisionTrace.getSnapshot (records, i);
+            arsenals [i] = records.getInt (base + DecisionTrace.ARSENAL);
+            spams [i] = (records.getInt (base + DecisionTrace.FLAGS) & DecisionTrace.SPAM) != 0;
+        }
+
+        Brain brain = new Brain (null, new BotContext ());
+        int primaryStates [] = new int [ticks];
+        int secondaryStates [] = new int [ticks];
+        int weapons [] = new int [ticks];
+
+        long start = System.nanoTime ();
+        for (int pass = 0; pass < passes; ++pass) {
+            for (int i = 0; i < ticks; ++i) {
+                primaryStates [i] = brain.estimatePrimaryState (snapshots [i]);
+                secondaryStates [i] = brain.estimateSecondaryState (primaryStates [i], snapshots [i]);
+                weapons [i] = PrimaryState.estimateBestWeapon (knowledge, arsenals [i], spams [i], snapshots [i]);
+            }
+        }
+        duration = System.nanoTime () - start;
+        decisions = 3L * ticks;
+
+        for (int i = 0; i < ticks; ++i) {
+            int base = i * DecisionTrace.RECORD_SIZE;
+
+            if (primaryStates [i] != records.getInt (base + DecisionTrace.PRIMARY_STATE)) {
+                ++primaryDiverged;
+            }
+            if (secondaryStates [i] != records.getInt (base + DecisionTrace.SECONDARY_STATE)) {
+                ++secondaryDiverged;
+            }
+
+            // A combo forces the shock rifle, the choice only depends on its ammo
+            if ((records.getInt (base + DecisionTrace.FLAGS) & DecisionTrace.COMBO) == 0) {
+                // If the tick didn't switch it kept the weapon it was holding
+                int held = records.getInt (base + DecisionTrace.WEAPON);
+                int switched = records.getInt (base + DecisionTrace.SWITCHED_WEAPON);
+                int recorded = switched != -1 ? switched : held;
+                int replayed = weapons [i] != -1 ? weapons [i] : held;
+
+                ++weaponChoices;
+                if (replayed != recorded) {
+                    ++weaponDiverged;
+                }
+            }
+        }
+
+        return this;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Formats a part of a total as a percentage.
+     * @param part Part.
+     * @param total Total.
+     * @return The percentage.
+     */
+    private static String percentage (final int part, final int total) {
+        return String.format ("%.1f%%", total > 0 ? 100.0 * part / total : 0.0);
+    }
+
+    //__________________________________________________________________________
+
+    @Override
+    public String toString () {
+        if (error != null) {
+            return file.getName () + " error=\"" + error + "\"";
+        }
+
+        return String.format ("%s ticks=%d primaryDiverged=%d (%s) secondaryDiverged=%d (%s) weaponDiverged=%d (%s) ns/decision=%.1f",
+                              file.getName (), ticks, primaryDiverged, percentage (primaryDiverged, ticks),
+                              secondaryDiverged, percentage (secondaryDiverged, ticks), weaponDiverged,
+                              percentage (weaponDiverged, weaponChoices), (double) duration / Math.max (decisions * passes, 1));
+    }
+}
@@ -0,0 +1,394 @@
+package simulation;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class SimulatedMap {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the level (sent in the NFO message) */
+    private String levelName;
+    /** Number of path nodes in each side of the grid */
+    private int side;
+    /** X coordinate of every NavPoint */
+    private double navX [];
+    /** Y coordinate of every NavPoint */
+    private double navY [];
+    /** Index of the item spawned in each NavPoint (-1 if it is a plain path node) */
+    private int navItem [];
+    /** Pickup class of every item */
+    private String itemType [];
+    /** NavPoint where every item is spawned */
+    private int itemNav [];
+    /** True if the item is spawned right now */
+    private boolean itemSpawned [];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Distance between two adjacent path nodes */
+    public static final double SPACING = 400;
+
+    /** Pickups placed in the map, they will be distributed evenly over the grid */
+    private static final String PICKUPS [] = {
+        "XWeapons.FlakCannonPickup", "XWeapons.ShockRiflePickup", "XWeapons.SniperRiflePickup",
+        "XWeapons.MinigunPickup", "XWeapons.RocketLauncherPickup", "XWeapons.LinkGunPickup",
+        "XWeapons.BioRiflePickup", "XPickups.SuperShieldPack", "XPickups.ShieldPack",
+        "XPickups.UDamagePack", "XPickups.HealthPack", "XPickups.HealthPack",
+        "XPickups.MiniHealthPack", "XPickups.MiniHealthPack", "XPickups.AdrenalinePickup",
+        "XWeapons.FlakAmmoPickup", "XWeapons.ShockAmmoPickup", "XWeapons.MinigunAmmoPickup"
+    };
+
+    /** Item categories (InventoryType, PickupType, ItemCategory, AmmoType) */
+    private static final String CATEGORIES [][] = {
+        {"XWeapons.ShieldGun", "XWeapons.ShieldGunPickup", "Weapon", "XWeapons.ShieldAmmo"},
+        {"XWeapons.AssaultRifle", "XWeapons.AssaultRiflePickup", "Weapon", "XWeapons.AssaultAmmo"},
+        {"XWeapons.BioRifle", "XWeapons.BioRiflePickup", "Weapon", "XWeapons.BioAmmo"},
+        {"XWeapons.LinkGun", "XWeapons.LinkGunPickup", "Weapon", "XWeapons.LinkAmmo"},
+        {"XWeapons.Minigun", "XWeapons.MinigunPickup", "Weapon", "XWeapons.MinigunAmmo"},
+        {"XWeapons.FlakCannon", "XWeapons.FlakCannonPickup", "Weapon", "XWeapons.FlakAmmo"},
+        {"XWeapons.RocketLauncher", "XWeapons.RocketLauncherPickup", "Weapon", "XWeapons.RocketAmmo"},
+        {"XWeapons.ShockRifle", "XWeapons.ShockRiflePickup", "Weapon", "XWeapons.ShockAmmo"},
+        {"XWeapons.SniperRifle", "XWeapons.SniperRiflePickup", "Weapon", "XWeapons.SniperAmmo"},
+        {"XWeapons.ShieldAmmo", "XWeapons.ShieldAmmoPickup", "Ammo", null},
+        {"XWeapons.AssaultAmmo", "XWeapons.AssaultAmmoPickup", "Ammo", null},
+        {"XWeapons.GrenadeAmmo", "XWeapons.GrenadeAmmoPickup", "Ammo", null},
+        {"XWeapons.BioAmmo", "XWeapons.BioAmmoPickup", "Ammo", null},
+        {"XWeapons.LinkAmmo", "XWeapons.LinkAmmoPickup", "Ammo", null},
+        {"XWeapons.MinigunAmmo", "XWeapons.MinigunAmmoPickup", "Ammo", null},
+        {"XWeapons.FlakAmmo", "XWeapons.FlakAmmoPickup", "Ammo", null},
+        {"XWeapons.RocketAmmo", "XWeapons.RocketAmmoPickup", "Ammo", null},
+        {"XWeapons.ShockAmmo", "XWeapons.ShockAmmoPickup", "Ammo", null},
+        {"XWeapons.SniperAmmo", "XWeapons.SniperAmmoPickup", "Ammo", null},
+        {"XPickups.HealthPack", "XPickups.HealthPack", "Health", null},
+        {"XPickups.MiniHealthPack", "XPickups.MiniHealthPack", "Health", null},
+        {"XPickups.ShieldPack", "XPickups.ShieldPack", "Armor", null},
+        {"XPickups.SuperShieldPack", "XPickups.SuperShieldPack", "Armor", null},
+        {"XPickups.UDamagePack", "XPickups.UDamagePack", "Other", null},
+        {"XPickups.AdrenalinePickup", "XPickups.AdrenalinePickup", "Adrenaline", null}
+    };
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. It builds a square grid of path nodes and
+     * spreads the pickups over it.
+     * @param levelName Name of the level.
+     * @param side Number of path nodes in each side of the grid (at least 5).
+     */
+    public SimulatedMap (final String levelName, final int side) {
+        this.levelName = levelName;
+        this.side = Math.max (side, 5);
+
+        int navCount = this.side * this.side;
+        navX = new double [navCount];
+        navY = new double [navCount];
+        navItem = new int [navCount];
+
+        for (int i = 0; i < navCount; ++i) {
+            navX [i] = (i % this.side) * SPACING;
+            navY [i] = (i / this.side) * SPACING;
+            navItem [i] = -1;
+        }
+
+        itemType = new String [PICKUPS.length];
+        itemNav = new int [PICKUPS.length];
+        itemSpawned = new boolean [PICKUPS.length];
+
+        int step = Math.max (navCount / PICKUPS.length, 1);
+        for (int i = 0; i < PICKUPS.length; ++i) {
+            itemType [i] = PICKUPS [i];
+            itemNav [i] = (i * step + step / 2) % navCount;
+            itemSpawned [i] = true;
+            navItem [itemNav [i]] = i;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the whole handshake (game info, item categories, navigation graph,
+     * items and players) in the order Pogamut expects it.
+     * @param out Writer attached to the bot's socket.
+     */
+    public void writeHandshake (final PrintWriter out) {
+        out.print ("SHS\r\n");
+        out.print ("NFO {Gametype BotDeathMatch} {Level " + levelName + "} {WeaponStay False} {TimeLimit 0} "
+                   + "{FragLimit 0} {GoalTeamScore 0} {MaxTeams 0} {MaxTeamSize 0} {GamePaused False} {BotsPaused False}\r\n");
+
+        // ITEM CATEGORIES
+
+        out.print ("SITC\r\n");
+        for (int i = 0; i < CATEGORIES.length; ++i) {
+            StringBuilder line = new StringBuilder ("ITC {InventoryType ").append (CATEGORIES [i][0])
+                .append ("} {PickupType ").append (CATEGORIES [i][1])
+                .append ("} {ItemCategory ").append (CATEGORIES [i][2]).append ("}");
+
+            if (CATEGORIES [i][3] != null) {
+                line.append (" {Melee False} {Sniping False} {UsesAltAmmo False}")
+                    .append (" {PriAmmoType ").append (CATEGORIES [i][3]).append ("} {PriInitialAmount 50} {PriMaxAmount 100}")
+                    .append (" {SecAmmoType ").append (CATEGORIES [i][3]).append ("} {SecInitialAmount 50} {SecMaxAmount 100}");
+            }
+            else if (!CATEGORIES [i][2].equals ("Ammo")) {
+                line.append (" {Amount 25}");
+            }
+            else {
+                line.append (" {Amount 10}");
+            }
+
+            out.print (line.append ("\r\n").toString ());
+        }
+        out.print ("EITC\r\n");
+
+        out.print ("SMUT\r\nEMUT\r\n");
+        out.print ("SMOV\r\nEMOV\r\n");
+
+        // NAVIGATION GRAPH
+
+        out.print ("SNAV\r\n");
+        for (int i = 0; i < navX.length; ++i) {
+            out.print (navPoint (i, false));
+
+            out.print ("SNGP\r\n");
+            int column = i % side;
+            int row = i / side;
+            if (column > 0) out.print (neighbour (i - 1));
+            if (column < side - 1) out.print (neighbour (i + 1));
+            if (row > 0) out.print (neighbour (i - side));
+            if (row < side - 1) out.print (neighbour (i + side));
+            out.print ("ENGP\r\n");
+        }
+        out.print ("ENAV\r\n");
+
+        // ITEMS
+
+        out.print ("SINV\r\n");
+        for (int i = 0; i < itemType.length; ++i) {
+            out.print (item (i, false));
+        }
+        out.print ("EINV\r\n");
+
+        out.print ("SPLR\r\nEPLR\r\n");
+        out.print ("EHS\r\n");
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It computes a route over the grid between the path nodes closest to two
+     * spots. Rows are walked first, then columns.
+     * @param fromX X coordinate of the start.
+     * @param fromY Y coordinate of the start.
+     * @param toX X coordinate of the goal.
+     * @param toY Y coordinate of the goal.
+     * @return Indexes of the NavPoints that make the route (start and goal included).
+     */
+    public List <Integer> computeRoute (double fromX, double fromY, double toX, double toY) {
+        int from = getClosestNavPoint (fromX, fromY);
+        int to = getClosestNavPoint (toX, toY);
+        List <Integer> route = new ArrayList <Integer> ();
+
+        int column = from % side;
+        int row = from / side;
+        route.add (from);
+
+        while (column != to % side) {
+            column += column < to % side ? 1 : -1;
+            route.add (row * side + column);
+        }
+        while (row != to / side) {
+            row += row < to / side ? 1 : -1;
+            route.add (row * side + column);
+        }
+
+        return route;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the NavPoint closest to the given coordinates.
+     * @param x X coordinate.
+     * @param y Y coordinate.
+     * @return Index of the closest NavPoint.
+     */
+    public int getClosestNavPoint (double x, double y) {
+        int column = (int) Math.round (x / SPACING);
+        int row = (int) Math.round (y / SPACING);
+
+        column = Math.min (Math.max (column, 0), side - 1);
+        row = Math.min (Math.max (row, 0), side - 1);
+
+        return row * side + column;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the coordinate of the walls at the bottom and left of the map */
+    public double getMinCoordinate () {
+        return -SPACING / 2;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the coordinate of the walls at the top and right of the map */
+    public double getMaxCoordinate () {
+        return (side - 1) * SPACING + SPACING / 2;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of NavPoints */
+    public int getNavPointCount () {
+        return navX.length;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of items */
+    public int getItemCount () {
+        return itemType.length;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the X coordinate of a NavPoint */
+    public double getX (int navPoint) {
+        return navX [navPoint];
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the Y coordinate of a NavPoint */
+    public double getY (int navPoint) {
+        return navY [navPoint];
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the pickup class of an item */
+    public String getItemType (int item) {
+        return itemType [item];
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the NavPoint where an item spawns */
+    public int getItemNavPoint (int item) {
+        return itemNav [item];
+    }
+
+    //__________________________________________________________________________
+
+    /** Returns true if the item is spawned right now */
+    public boolean isItemSpawned (int item) {
+        return itemSpawned [item];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Marks an item as spawned or picked up.
+     * @param item Item.
+     * @param spawned True if the item is available.
+     */
+    public void setItemSpawned (int item, boolean spawned) {
+        itemSpawned [item] = spawned;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the NAV message of a NavPoint. GameBots always sends every
+     * attribute, so the message is also used to update the NavPoint.
+     * @param navPoint Index of the NavPoint.
+     * @param visible True if the bot can see the NavPoint.
+     * @return NAV line.
+     */
+    public String navPoint (int navPoint, boolean visible) {
+        String flags = visible ? "True" : "False";
+        StringBuilder line = new StringBuilder ("NAV {Id ").append (getNavPointId (navPoint))
+            .append ("} {Location ").append (location (navX [navPoint], navY [navPoint]))
+            .append ("} {Visible ").append (flags).append ("} {Reachable ").append (flags).append ("}");
+
+        if (navItem [navPoint] != -1) {
+            int item = navItem [navPoint];
+            line.append (" {Item ").append (getItemId (item)).append ("} {ItemClass ").append (itemType [item])
+                .append ("} {ItemSpawned ").append (itemSpawned [item] ? "True" : "False").append ("} {InvSpot True}");
+        }
+
+        return line.append ("\r\n").toString ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the INV message of an item.
+     * @param item Index of the item.
+     * @param visible True if the bot can see the item.
+     * @return INV line.
+     */
+    public String item (int item, boolean visible) {
+        String flags = visible ? "True" : "False";
+
+        return "INV {Id " + getItemId (item) + "} {NavPointId " + getNavPointId (itemNav [item]) + "} {Location "
+               + location (navX [itemNav [item]], navY [itemNav [item]]) + "} {Visible " + flags + "} {Reachable "
+               + flags + "} {Type " + itemType [item] + "} {Dropped False}\r\n";
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the unreal id of a NavPoint */
+    public String getNavPointId (int navPoint) {
+        return levelName + ".PathNode" + navPoint;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the unreal id of an item */
+    public String getItemId (int item) {
+        return levelName + "." + itemType [item].substring (itemType [item].indexOf ('.') + 1) + item;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Formats a location the way GameBots does.
+     * @param x X coordinate.
+     * @param y Y coordinate.
+     * @return The location as a string.
+     */
+    public static String location (double x, double y) {
+        return x + "," + y + ",0.0";
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a neighbour link message.
+     * @param navPoint Index of the neighbour.
+     * @return INGP line.
+     */
+    private String neighbour (int navPoint) {
+        return "INGP {Id " + getNavPointId (navPoint) + "} {Flags 1} {CollisionR 40} {CollisionH 80}\r\n";
+    }
+}
@@ -1,6 +1,6 @@
 package utilities;
 
-import bot.Bot;
+import bot.BotContext;
 
 import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
 import cz.cuni.amis.pogamut.base3d.worldview.object.Rotation;
@@ -10,6 +10,7 @@ import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
 import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
 
 import java.util.Map;
+import java.util.Random;
 
 /**
  *
@@ -25,6 +26,10 @@ public class Arithmetic {
 
     /** Constant that represents infinity */
     public static final double INFINITY = 999999999;
+    /** Distance (UT units) from the bot to the spot returned by rotationToLocation */
+    private static final double FOCUS_DISTANCE = 500;
+    /** Rotation units (UT) in half a turn */
+    private static final double HALF_TURN = 32767;
 
 
     // *************************************************************************
@@ -41,41 +46,53 @@ public class Arithmetic {
      * as rotation indicates.
      */
     public static Location rotationToLocation (final AgentInfo info, final Rotation rotation) {
-        // First we'll get the direction vector
-        Location directionVector = rotation.toLocation().getNormalized();
+        // First we'll get the direction vector. It is the one Rotation.toLocation
+        // computes (pitch and yaw, then roll around the x axis), worked out here
+        // so that only the focus point is allocated. It is already normalized.
+        double pitch = rotation.pitch / HALF_TURN * Math.PI;
+        double yaw = rotation.yaw / HALF_TURN * Math.PI;
+        double roll = rotation.roll / HALF_TURN * Math.PI;
+
+        double x = Math.cos (pitch) * Math.cos (yaw);
+        double y = Math.cos (pitch) * Math.sin (yaw);
+        double z = Math.sin (pitch);
+        double rolledY = y * Math.cos (roll) - z * Math.sin (roll);
+        double rolledZ = y * Math.sin (roll) + z * Math.cos (roll);
 
         // We will need also bot location beacause we need to compute absolute focus point location
         Location botLocation = info.getLocation();
 
-        // Now we have everything needed for the computation. We normalized
-        // our direction vector which is a good idea, because generally you
-        // don't know how "big" it is, so we will scale it, so the distance
-        // between botlocation and focus point location is big enough
-        // (in example below it will be 500 ut units = ~500 cm)
-        Location newAbsoluteFocusLocation = botLocation.add (directionVector.scale(500));
-
-        return newAbsoluteFocusLocation;
+        // Scale the direction vector so the distance between botlocation and
+        // focus point location is big enough (500 ut units = ~500 cm)
+        return new Location (botLocation.x + x * FOCUS_DISTANCE, botLocation.y + rolledY * FOCUS_DISTANCE,
+                             botLocation.z + rolledZ * FOCUS_DISTANCE);
     }
 
     //__________________________________________________________________________
 
     /**
      * It calculates the furthest area to the enemy that is closest to the bot.
+     * Distances are travel distances over the navigation graph.
      * @param enemyLocation Position of the enemy.
      * @param info Agent information.
+     * @param context Decision context of the bot.
      * @return Best run spot to stay away from the enemy.
      */
-    public static Location getBestRunZone (final Location enemyLocation, final AgentInfo info) {
+    public static Location getBestRunZone (final Location enemyLocation, final AgentInfo info, final BotContext context) {
         Location targetSpot = null;
 
+        NavigationDistances distances = context.navigationDistances;
+        Location botLocation = info.getLocation ();
+        int botNode = distances.getNode (botLocation);
+        int enemyNode = distances.getNode (enemyLocation);
+
         double maxDistToEnemy = 0;
-        for (int i = 0; i < Bot.areas.length; ++i) {
-            Location currentSpot = Bot.areas [i].getLocation();
-            double distToEnemy = enemyLocation.getDistance (currentSpot);
+        for (int i = 0; i < context.areas.length; ++i) {
+            double distToEnemy = distances.getDistance (enemyNode, enemyLocation, context.areas [i]);
 
-            if (distToEnemy > maxDistToEnemy && info.getDistance (currentSpot) < distToEnemy) {
+            if (distToEnemy > maxDistToEnemy && distances.getDistance (botNode, botLocation, context.areas [i]) < distToEnemy) {
                 maxDistToEnemy = distToEnemy;
-                targetSpot = Bot.areas [i].getLocation ();
+                targetSpot = context.areas [i].getLocation ();
             }
         }
 
@@ -89,20 +106,21 @@ public class Arithmetic {
      * It calculates the closest area (meaning weapon spot, shield spot ...) to
      * a given Location.
      * @param spot "Location" from which we want to know where the closest area is.
+     * @param context Decision context of the bot.
      * @return The closest area to the spot given.
      */
-    public static Location getClosestZone (final Location spot) {
+    public static Location getClosestZone (final Location spot, final BotContext context) {
         double minimumDistance = INFINITY;
         double currentDistance = 0;
         Location spotLocation = spot;
         Location newDestination = null;
 
-        for (int i = 0; i < Bot.areas.length; ++i) {
-            currentDistance = spotLocation.getDistance (Bot.areas [i].getLocation());
+        for (int i = 0; i < context.areas.length; ++i) {
+            currentDistance = spotLocation.getDistance (context.areas [i].getLocation());
 
             if (currentDistance < minimumDistance) {
                 minimumDistance = currentDistance;
-                newDestination = Bot.areas [i].getLocation ();
+                newDestination = context.areas [i].getLocation ();
             }
         }
 
@@ -142,19 +160,25 @@ public class Arithmetic {
      * It retrieves the closest NavPoint to a given spot. The spot has to be the
      * location of an item.
      * @param spot Location of an item.
+     * @param context Decision context of the bot.
      * @return The closest NavPoint to the Location given.
      */
-    public static NavPoint getClosestPathNodeToLocation (final Location spot) {
+    public static NavPoint getClosestPathNodeToLocation (final Location spot, final BotContext context) {
+        if (context.pathNodeIndex != null) {
+            int nearest = context.pathNodeIndex.getNearestIndex (spot);
+            return nearest >= 0 ? context.pathNodes [nearest] : null;
+        }
+
         double minimumDistance = INFINITY;
         double currentDistance = 0;
         NavPoint newDestination = null;
 
-        for (int i = 0; i < Bot.pathNodes.length; ++i) {
-            currentDistance = spot.getDistance(Bot.pathNodes [i].getLocation());
+        for (int i = 0; i < context.pathNodes.length; ++i) {
+            currentDistance = spot.getDistance(context.pathNodes [i].getLocation());
 
             if (currentDistance < minimumDistance) {
                 minimumDistance = currentDistance;
-                newDestination = Bot.pathNodes [i];
+                newDestination = context.pathNodes [i];
             }
         }
 
@@ -195,11 +219,12 @@ public class Arithmetic {
 
     /**
      * Calculate a random number between lowerBound and upperBound (both included).
+     * @param random Random numbers of the bot (see BotContext.random).
      * @param lowerBound Lower bound.
      * @param upperBound Upper bound.
      * @return A random integer between lowerBound and upperBound.
      */
-    public static int doRandomNumber (int lowerBound, int upperBound) {
-        return (int) (Math.random () * (upperBound - lowerBound + 1) ) + lowerBound;
+    public static int doRandomNumber (final Random random, int lowerBound, int upperBound) {
+        return random.nextInt (upperBound - lowerBound + 1) + lowerBound;
     }
 }
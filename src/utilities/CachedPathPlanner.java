@@ -0,0 +1,278 @@
+package utilities;
+
+import bot.DecisionListener;
+
+import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
+import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
+import cz.cuni.amis.pogamut.base.agent.navigation.impl.PrecomputedPathFuture;
+import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
+import cz.cuni.amis.utils.future.FutureStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class CachedPathPlanner implements IPathPlanner <ILocated> {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Path planner that computes the paths that aren't in the cache */
+    private IPathPlanner <ILocated> pathPlanner;
+    /** Spatial index over the NavPoints of the current map (null until reset is called) */
+    private NavPointIndex navPointIndex;
+    /**
+     * Paths computed so far, indexed by the NavPoints closest to the start and
+     * the goal. The least recently used one is evicted when it is full. It is
+     * only touched by the logic thread (the thread that asks for the paths).
+     */
+    private Map <Long, IPathFuture <ILocated>> paths;
+    /**
+     * Map the cache has to switch to, set by reset from any thread and picked
+     * up by the logic thread with the next path request (null if there is no
+     * pending reset).
+     */
+    private AtomicReference <Object> pendingReset = new AtomicReference <Object> ();
+    /** Number of paths served from the cache */
+    private long hits = 0;
+    /** Number of paths asked to the path planner */
+    private long misses = 0;
+    /** Receives every path request (null if nobody is listening) */
+    private DecisionListener listener = null;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Default maximum number of paths kept */
+    public final static int DEFAULT_CAPACITY = 256;
+    /** Pending reset to a state without map (an AtomicReference can't tell null from nothing) */
+    private final static Object NO_MAP = new Object ();
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param pathPlanner Path planner that computes the paths.
+     * @param capacity Maximum number of paths kept.
+     */
+    public CachedPathPlanner (final IPathPlanner <ILocated> pathPlanner, final int capacity) {
+        this.pathPlanner = pathPlanner;
+
+        paths = new LinkedHashMap <Long, IPathFuture <ILocated>> (capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (final Map.Entry <Long, IPathFuture <ILocated>> eldest) {
+                return size () > capacity;
+            }
+        };
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the path between two spots. If we already have the path
+     * between the NavPoints closest to them it is reused (or if it is being
+     * computed for the same spots), otherwise it is asked to the path planner.
+     * It must be called from the logic thread.
+     * @param from Start of the path.
+     * @param to Goal of the path.
+     * @return The path.
+     */
+    public IPathFuture <ILocated> computePath (final ILocated from, final ILocated to) {
+        if (listener == null) {
+            return getPath (from, to);
+        }
+
+        long start = System.nanoTime ();
+        long previousHits = hits;
+        IPathFuture <ILocated> path = getPath (from, to);
+
+        listener.pathComputed (from != null ? from.getLocation () : null, to != null ? to.getLocation () : null,
+                               hits != previousHits, System.nanoTime () - start);
+
+        return path;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Sets who receives the path requests.
+     * @param listener Listener (null if nobody is listening).
+     */
+    public void setListener (final DecisionListener listener) {
+        this.listener = listener;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the path between two spots, from the cache if possible. A
+     * cached route was computed for other spots close to the same NavPoints,
+     * so its endpoints are replaced by the ones we were asked for.
+     * @param from Start of the path.
+     * @param to Goal of the path.
+     * @return The path.
+     */
+    private IPathFuture <ILocated> getPath (final ILocated from, final ILocated to) {
+        applyReset ();
+
+        if (navPointIndex == null || from == null || to == null || from.getLocation () == null || to.getLocation () == null) {
+            ++misses;
+            return pathPlanner.computePath (from, to);
+        }
+
+        Long key = getKey (navPointIndex.getNearestIndex (from.getLocation ()), navPointIndex.getNearestIndex (to.getLocation ()));
+        IPathFuture <ILocated> path = paths.get (key);
+
+        if (path != null) {
+            FutureStatus status = path.getStatus ();
+
+            if (status == FutureStatus.FUTURE_IS_READY) {
+                List <ILocated> route = path.get ();
+                if (route != null) {
+                    ++hits;
+                    return new PrecomputedPathFuture <ILocated> (from, to, moveEndpoints (route, path, from, to));
+                }
+            }
+            else if (status == FutureStatus.FUTURE_IS_BEING_COMPUTED) {
+                // Somebody asked for the same spots already, wait for the same
+                // answer (we can't move the endpoints of a route we don't have)
+                if (isSameSpot (path.getPathFrom (), from) && isSameSpot (path.getPathTo (), to)) {
+                    ++hits;
+                    return path;
+                }
+            }
+
+            // The planner couldn't compute it (or it is computing other spots),
+            // ask again, the new path replaces it
+        }
+
+        ++misses;
+        path = pathPlanner.computePath (from, to);
+        paths.put (key, path);
+
+        return path;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Copies a cached route replacing its endpoints, if the path planner put
+     * them in it, with the spots we were asked for. The NavPoints in between
+     * are the same because both spots are closest to the same NavPoints.
+     * @param route Cached route.
+     * @param path Path the route was computed for.
+     * @param from Start of the path we were asked for.
+     * @param to Goal of the path we were asked for.
+     * @return The route between from and to.
+     */
+    private static List <ILocated> moveEndpoints (final List <ILocated> route, final IPathFuture <ILocated> path,
+                                                  final ILocated from, final ILocated to) {
+        List <ILocated> moved = new ArrayList <ILocated> (route);
+
+        if (!moved.isEmpty () && isSameSpot (moved.get (0), path.getPathFrom ())) {
+            moved.set (0, from);
+        }
+        if (!moved.isEmpty () && isSameSpot (moved.get (moved.size () - 1), path.getPathTo ())) {
+            moved.set (moved.size () - 1, to);
+        }
+
+        return moved;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Tells if two spots are at the same location.
+     * @param a Spot.
+     * @param b Spot.
+     * @return True if both have the same location.
+     */
+    private static boolean isSameSpot (final ILocated a, final ILocated b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a.getLocation () == null) {
+            return false;
+        }
+
+        return a.getLocation ().equals (b.getLocation ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Forgets every path and starts working with the NavPoints of a new map.
+     * It can be called from any thread, the paths are forgotten by the logic
+     * thread before it asks for the next one.
+     * @param navPointIndex Spatial index over all the NavPoints of the current
+     * map (null if we don't have a map, then every path is asked to the path
+     * planner).
+     */
+    public void reset (final NavPointIndex navPointIndex) {
+        pendingReset.set (navPointIndex != null ? navPointIndex : NO_MAP);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Forgets every path if the map changed since the last path request.
+     */
+    private void applyReset () {
+        Object reset = pendingReset.getAndSet (null);
+
+        if (reset != null) {
+            paths.clear ();
+            navPointIndex = reset != NO_MAP ? (NavPointIndex) reset : null;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of paths served from the cache.
+     * @return The number of hits.
+     */
+    public long getHits () {
+        return hits;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of paths asked to the path planner.
+     * @return The number of misses.
+     */
+    public long getMisses () {
+        return misses;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Key of a path in the cache.
+     * @param from Position of the NavPoint closest to the start.
+     * @param to Position of the NavPoint closest to the goal.
+     * @return The key.
+     */
+    private static Long getKey (final int from, final int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+}
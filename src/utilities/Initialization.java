@@ -34,11 +34,7 @@ public class Initialization {
 
         for (NavPoint spot : stageNavPoints.values()) {
             // If it is a path node, we add it to the list of path nodes
-            if (!spot.isAIMarker() && !spot.isDoor() && !spot.isDoorOpened() && !spot.isInvSpot()
-                && !spot.isItemSpawned() && !spot.isJumpDest() && !spot.isJumpSpot() && !spot.isLiftCenter()
-                && !spot.isLiftExit() && !spot.isLiftJumpExit() && !spot.isNoDoubleJump() && !spot.isPlayerStart()
-                && !spot.isReachable() && !spot.isRoamingSpot() && !spot.isSnipingSpot() && !spot.isTeleporter()) {
-
+            if (isPathNode (spot)) {
                 navPointsList.add(spot);
             }
         }
@@ -58,6 +54,21 @@ public class Initialization {
 
     //__________________________________________________________________________
 
+    /**
+     * It checks if a NavPoint is a path node (a plain NavPoint with no special
+     * meaning).
+     * @param spot NavPoint.
+     * @return True if it is a path node.
+     */
+    public static boolean isPathNode (final NavPoint spot) {
+        return !spot.isAIMarker() && !spot.isDoor() && !spot.isDoorOpened() && !spot.isInvSpot()
+               && !spot.isItemSpawned() && !spot.isJumpDest() && !spot.isJumpSpot() && !spot.isLiftCenter()
+               && !spot.isLiftExit() && !spot.isLiftJumpExit() && !spot.isNoDoubleJump() && !spot.isPlayerStart()
+               && !spot.isReachable() && !spot.isRoamingSpot() && !spot.isSnipingSpot() && !spot.isTeleporter();
+    }
+
+    //__________________________________________________________________________
+
     /**
      * It retrieves all the important areas from the current map (shields, weapons and UDamage).
      * @param items The items from the current map.
@@ -91,4 +102,24 @@ public class Initialization {
 
         return areas;
     }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the NavPoints where the items of the current map spawn.
+     * @param items The items from the current map.
+     * @return The NavPoints of all the item spots (each one only once).
+     */
+    public static NavPoint [] initializeItemSpots (final Items items) {
+        List <NavPoint> itemSpotsList = new ArrayList <NavPoint> ();
+
+        for (Item item : items.getAllItems ().values ()) {
+            NavPoint spot = item.getNavPoint ();
+            if (spot != null && !itemSpotsList.contains (spot)) {
+                itemSpotsList.add (spot);
+            }
+        }
+
+        return itemSpotsList.toArray (new NavPoint [itemSpotsList.size ()]);
+    }
 }
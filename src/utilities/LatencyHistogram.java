@@ -0,0 +1,203 @@
+package utilities;
+
+import java.util.Arrays;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class LatencyHistogram {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Number of samples that fell in every bucket */
+    private int counts [] = new int [BUCKETS];
+    /** Number of samples recorded */
+    private long count = 0;
+    /** Largest sample recorded (nanoseconds) */
+    private long max = 0;
+    /** Sum of all the samples (nanoseconds) */
+    private long total = 0;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Number of buckets every power of two is split in (the relative error is below 1 / SUB_BUCKETS) */
+    private final static int SUB_BUCKETS = 32;
+    /** log2 (SUB_BUCKETS) */
+    private final static int SUB_BUCKET_BITS = 5;
+    /** Samples below this value get a bucket of their own */
+    private final static int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    /** Largest power of two that is told apart, larger samples share the last bucket (about 68 seconds) */
+    private final static int MAX_MAGNITUDE = 36;
+    /** Total number of buckets */
+    private final static int BUCKETS = LINEAR_LIMIT + (MAX_MAGNITUDE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Stores a sample. It doesn't allocate and takes constant time.
+     * @param value Sample in nanoseconds.
+     */
+    public void record (final long value) {
+        long sample = Math.max (value, 0);
+
+        ++counts [getBucket (sample)];
+        ++count;
+        total += sample;
+        if (sample > max) {
+            max = sample;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Discards every sample.
+     */
+    public void reset () {
+        Arrays.fill (counts, 0);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds the samples of another histogram to this one.
+     * @param other Histogram.
+     */
+    public void add (final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts [i] += other.counts [i];
+        }
+
+        count += other.count;
+        total += other.total;
+        max = Math.max (max, other.max);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of samples recorded.
+     * @return The number of samples.
+     */
+    public long getCount () {
+        return count;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Largest sample recorded.
+     * @return The sample in nanoseconds.
+     */
+    public long getMax () {
+        return max;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Average of the samples.
+     * @return The average in nanoseconds.
+     */
+    public long getMean () {
+        return count == 0 ? 0 : total / count;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Estimates a percentile of the samples. The result is the largest value
+     * of the bucket the percentile falls in (never above the maximum).
+     * @param percentile Percentile (between 0 and 100).
+     * @return The percentile in nanoseconds.
+     */
+    public long getPercentile (final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max (1, (long) Math.ceil (percentile / 100.0 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts [i];
+            if (seen >= rank) {
+                return Math.min (getUpperBound (i), max);
+            }
+        }
+
+        return max;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a one line summary.
+     * @return Samples and latency percentiles in microseconds.
+     */
+    public String summary () {
+        return String.format ("n=%d mean=%dus p50=%dus p99=%dus max=%dus", count, getMean () / 1000,
+                              getPercentile (50) / 1000, getPercentile (99) / 1000, max / 1000);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Bucket a sample falls in. Small samples have a bucket each, from there
+     * on every power of two is split in SUB_BUCKETS buckets of the same width.
+     * @param sample Sample (not negative).
+     * @return Position of the bucket in counts.
+     */
+    private static int getBucket (final long sample) {
+        if (sample < LINEAR_LIMIT) {
+            return (int) sample;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros (sample);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (sample >> shift) - SUB_BUCKETS;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Largest value that falls in a bucket.
+     * @param bucket Position of the bucket in counts.
+     * @return The value in nanoseconds.
+     */
+    private static long getUpperBound (final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
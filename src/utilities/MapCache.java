@@ -0,0 +1,413 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Items;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class MapCache {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** All the NavPoints of the map sorted by id */
+    private NavPoint navPoints [];
+    /** Position in navPoints of the path nodes of the map (see Initialization.initializePathNodes) */
+    private int pathNodes [];
+    /** Position in navPoints of the important areas of the map (see Initialization.initializeAreas) */
+    private int areas [];
+    /** Travel distances from every NavPoint to every item spot */
+    private NavigationDistances navigationDistances;
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** System property with the directory where the cache files are kept */
+    public final static String DIRECTORY_PROPERTY = "expertagent.cache";
+    /** Directory used if the DIRECTORY_PROPERTY system property isn't set */
+    private final static String DEFAULT_DIRECTORY = "cache";
+    /** Extension of the cache files */
+    private final static String EXTENSION = ".map";
+
+    /** First bytes of every cache file */
+    private final static int MAGIC = 0x45414d43;
+    /**
+     * Version of the file format, it has to be increased whenever the format or
+     * the way the data is derived from the map change (older files are ignored).
+     */
+    private final static int VERSION = 1;
+    /** Size of the header: magic, version, checksum and four counts */
+    private final static int HEADER_SIZE = 4 + 4 + 8 + 4 * 4;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * It retrieves the data derived from the current map. It is read from the
+     * cache file of the map if there is one that matches the map, otherwise it
+     * is computed and saved for the next time.
+     * @param mapName Name of the current map.
+     * @param world IVisionWorldView.
+     * @param items The items from the current map.
+     * @return The data of the map.
+     */
+    public static MapCache load (final String mapName, final IVisionWorldView world, final Items items) {
+        NavPoint navPoints [] = world.getAll (NavPoint.class).values ().toArray (new NavPoint [0]);
+        Arrays.sort (navPoints, new Comparator <NavPoint> () {
+            public int compare (final NavPoint a, final NavPoint b) {
+                return a.getId ().getStringId ().compareTo (b.getId ().getStringId ());
+            }
+        });
+
+        long checksum = computeChecksum (navPoints, items);
+        File file = new File (getDirectory (), sanitize (mapName) + EXTENSION);
+
+        MapCache cache = new MapCache ();
+        cache.navPoints = navPoints;
+
+        try {
+            if (file.isFile () && cache.read (file, checksum)) {
+                return cache;
+            }
+        }
+        catch (IOException e) {
+            // The file is corrupt, the data is computed again and it is overwritten
+        }
+
+        Map <UnrealId, Integer> index = new HashMap <UnrealId, Integer> ();
+        for (int i = 0; i < navPoints.length; ++i) {
+            index.put (navPoints [i].getId (), i);
+        }
+
+        cache.pathNodes = getPositions (Initialization.initializePathNodes (world), index);
+        cache.areas = getPositions (Initialization.initializeAreas (items), index);
+        cache.navigationDistances = new NavigationDistances (navPoints, Initialization.initializeItemSpots (items));
+
+        try {
+            cache.write (file, checksum);
+        }
+        catch (IOException e) {
+            // We can't save it (e.g. read only directory), it will be computed next time
+        }
+
+        return cache;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Default constructor.
+     */
+    private MapCache () {
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * All the NavPoints of the map.
+     * @return The NavPoints sorted by id.
+     */
+    public NavPoint [] getNavPoints () {
+        return navPoints;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Path nodes of the map.
+     * @return Position of every path node in getNavPoints.
+     */
+    public int [] getPathNodes () {
+        return pathNodes;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Important areas of the map.
+     * @return Position of every area in getNavPoints.
+     */
+    public int [] getAreas () {
+        return areas;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Travel distances from every NavPoint to every item spot.
+     * @return The navigation distances.
+     */
+    public NavigationDistances getNavigationDistances () {
+        return navigationDistances;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads the data from a cache file mapped in memory. The distances aren't
+     * copied, they are read from the mapped file when they are needed.
+     * @param file Cache file.
+     * @param checksum Checksum of the current map.
+     * @return False if the file belongs to another version or map.
+     * @throws IOException If the file can't be read or it is corrupt.
+     */
+    private boolean read (final File file, final long checksum) throws IOException {
+        RandomAccessFile stream = new RandomAccessFile (file, "r");
+        MappedByteBuffer buffer;
+
+        try {
+            buffer = stream.getChannel ().map (FileChannel.MapMode.READ_ONLY, 0, stream.length ());
+        }
+        finally {
+            // The mapping stays valid once the file is closed
+            stream.close ();
+        }
+
+        if (buffer.capacity () < HEADER_SIZE || buffer.getInt () != MAGIC || buffer.getInt () != VERSION
+            || buffer.getLong () != checksum || buffer.getInt () != navPoints.length) {
+
+            return false;
+        }
+
+        int pathNodeCount = buffer.getInt ();
+        int areaCount = buffer.getInt ();
+        int targetCount = buffer.getInt ();
+
+        long size = HEADER_SIZE + 4L * (pathNodeCount + areaCount + targetCount) + 4L * targetCount * navPoints.length;
+        if (pathNodeCount < 0 || areaCount < 0 || targetCount < 0 || size != buffer.capacity ()) {
+            throw new IOException ("Wrong size");
+        }
+
+        pathNodes = readPositions (buffer, pathNodeCount);
+        areas = readPositions (buffer, areaCount);
+        int targets [] = readPositions (buffer, targetCount);
+
+        FloatBuffer distances = buffer.slice ().asFloatBuffer ();
+        navigationDistances = new NavigationDistances (navPoints, targets, distances);
+
+        return true;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Reads a vector of positions in navPoints.
+     * @param buffer Buffer holding the file.
+     * @param count Number of NavPoints.
+     * @return The positions.
+     * @throws IOException If a position is out of range.
+     */
+    private int [] readPositions (final ByteBuffer buffer, final int count) throws IOException {
+        int result [] = new int [count];
+
+        for (int i = 0; i < count; ++i) {
+            result [i] = buffer.getInt ();
+            if (result [i] < 0 || result [i] >= navPoints.length) {
+                throw new IOException ("Wrong NavPoint " + result [i]);
+            }
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes the data in a cache file. It is written in a temporary file that
+     * replaces the cache file when it is complete, so a bot that is reading
+     * it never gets half a file.
+     * @param file Cache file.
+     * @param checksum Checksum of the current map.
+     * @throws IOException If the file can't be written.
+     */
+    private void write (final File file, final long checksum) throws IOException {
+        int targets [] = navigationDistances.getTargets ();
+        FloatBuffer distances = navigationDistances.getDistances ();
+
+        ByteBuffer buffer = ByteBuffer.allocate (HEADER_SIZE + 4 * (pathNodes.length + areas.length + targets.length)
+                                                 + 4 * distances.remaining ());
+        buffer.putInt (MAGIC);
+        buffer.putInt (VERSION);
+        buffer.putLong (checksum);
+        buffer.putInt (navPoints.length);
+        buffer.putInt (pathNodes.length);
+        buffer.putInt (areas.length);
+        buffer.putInt (targets.length);
+
+        writePositions (buffer, pathNodes);
+        writePositions (buffer, areas);
+        writePositions (buffer, targets);
+        buffer.asFloatBuffer ().put (distances);
+
+        File directory = file.getAbsoluteFile ().getParentFile ();
+        if (!directory.isDirectory () && !directory.mkdirs ()) {
+            throw new IOException ("Can't create " + directory);
+        }
+
+        File temporary = File.createTempFile (file.getName (), ".tmp", directory);
+        try {
+            FileOutputStream stream = new FileOutputStream (temporary);
+            try {
+                stream.write (buffer.array ());
+            }
+            finally {
+                stream.close ();
+            }
+
+            // Some file systems don't replace an existing file when renaming
+            if (!temporary.renameTo (file) && (!file.delete () || !temporary.renameTo (file))) {
+                throw new IOException ("Can't replace " + file);
+            }
+        }
+        finally {
+            temporary.delete ();
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Writes a vector of positions in navPoints.
+     * @param buffer Buffer holding the file.
+     * @param positions Positions.
+     */
+    private static void writePositions (final ByteBuffer buffer, final int positions []) {
+        for (int i = 0; i < positions.length; ++i) {
+            buffer.putInt (positions [i]);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Turns a vector of NavPoints into their positions in navPoints. The
+     * NavPoints that aren't in the map are left out.
+     * @param spots NavPoints.
+     * @param index Position of every NavPoint in navPoints.
+     * @return The positions.
+     */
+    private static int [] getPositions (final NavPoint spots [], final Map <UnrealId, Integer> index) {
+        int positions [] = new int [spots.length];
+        int count = 0;
+
+        for (int i = 0; i < spots.length; ++i) {
+            Integer position = spots [i] != null ? index.get (spots [i].getId ()) : null;
+            if (position != null) {
+                positions [count++] = position;
+            }
+        }
+
+        int result [] = new int [count];
+        System.arraycopy (positions, 0, result, 0, count);
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Checksum of everything the cached data depends on: the NavPoints (id,
+     * location, whether it is a path node and its edges) and the items (id and
+     * the NavPoint where they spawn).
+     * @param navPoints All the NavPoints sorted by id.
+     * @param items The items from the current map.
+     * @return The checksum.
+     */
+    private static long computeChecksum (final NavPoint navPoints [], final Items items) {
+        ByteBuffer buffer = ByteBuffer.allocate (8 * 3);
+        CRC32 crc = new CRC32 ();
+
+        for (int i = 0; i < navPoints.length; ++i) {
+            crc.update (navPoints [i].getId ().getStringId ().getBytes ());
+
+            Location location = navPoints [i].getLocation ();
+            buffer.clear ();
+            buffer.putDouble (location.x).putDouble (location.y).putDouble (location.z);
+            crc.update (buffer.array ());
+            crc.update (Initialization.isPathNode (navPoints [i]) ? 1 : 0);
+
+            if (navPoints [i].getOutgoingEdges () != null) {
+                String edges [] = new String [navPoints [i].getOutgoingEdges ().size ()];
+                int j = 0;
+                for (UnrealId id : navPoints [i].getOutgoingEdges ().keySet ()) {
+                    edges [j++] = id.getStringId ();
+                }
+
+                Arrays.sort (edges);
+                for (j = 0; j < edges.length; ++j) {
+                    crc.update (edges [j].getBytes ());
+                }
+            }
+        }
+
+        Item spots [] = items.getAllItems ().values ().toArray (new Item [0]);
+        Arrays.sort (spots, new Comparator <Item> () {
+            public int compare (final Item a, final Item b) {
+                return a.getId ().getStringId ().compareTo (b.getId ().getStringId ());
+            }
+        });
+
+        for (int i = 0; i < spots.length; ++i) {
+            crc.update (spots [i].getId ().getStringId ().getBytes ());
+            if (spots [i].getNavPointId () != null) {
+                crc.update (spots [i].getNavPointId ().getStringId ().getBytes ());
+            }
+        }
+
+        return crc.getValue ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Directory where the cache files are kept.
+     * @return The directory.
+     */
+    private static File getDirectory () {
+        String path = System.getProperty (DIRECTORY_PROPERTY);
+
+        return new File (path != null ? path : DEFAULT_DIRECTORY);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Turns a map name into a valid file name.
+     * @param mapName Name of the map.
+     * @return The file name (without extension).
+     */
+    private static String sanitize (final String mapName) {
+        return (mapName != null ? mapName : "unknown").replaceAll ("[^A-Za-z0-9_.-]", "_");
+    }
+}
@@ -0,0 +1,228 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.IVisionWorldView;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Items;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class MapKnowledge {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Name of the map */
+    private String mapName;
+    /** Number of bots using it, guarded by the lock of loaded */
+    private int references = 0;
+    /** Id of every NavPoint of the map, sorted */
+    private UnrealId navPointIds [];
+    /** Position in navPointIds of every path node */
+    private int pathNodes [];
+    /** Position in navPointIds of every important area */
+    private int areas [];
+    /** Spatial index over the path nodes, in the order of pathNodes */
+    private NavPointIndex pathNodeIndex;
+    /** Travel distances from every NavPoint to every item spot */
+    private NavigationDistances navigationDistances;
+
+
+    // *************************************************************************
+    //                           STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Knowledge of the maps that some bot is using, indexed by map name */
+    private final static Map <String, MapKnowledge> loaded = new HashMap <String, MapKnowledge> ();
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * It retrieves the knowledge of a map. The first bot that plays in a map
+     * builds it (or reads it from the map cache) and the rest of bots in the
+     * JVM share it until all of them release it. Bots that ask for it while
+     * it is being built wait for it.
+     * @param mapName Name of the current map.
+     * @param world IVisionWorldView.
+     * @param items The items from the current map.
+     * @return The knowledge of the map, it has to be released (see release)
+     * when the bot stops playing in the map.
+     */
+    public static MapKnowledge acquire (final String mapName, final IVisionWorldView world, final Items items) {
+        synchronized (loaded) {
+            MapKnowledge knowledge = loaded.get (mapName);
+
+            if (knowledge == null) {
+                knowledge = new MapKnowledge (mapName, MapCache.load (mapName, world, items));
+                loaded.put (mapName, knowledge);
+            }
+
+            ++knowledge.references;
+
+            return knowledge;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. It keeps the ids, locations and positions
+     * of the data read from the map cache, but not the NavPoints of the bot
+     * that built it.
+     * @param mapName Name of the map.
+     * @param cache Data derived from the map.
+     */
+    private MapKnowledge (final String mapName, final MapCache cache) {
+        this.mapName = mapName;
+
+        NavPoint navPoints [] = cache.getNavPoints ();
+        navPointIds = new UnrealId [navPoints.length];
+        for (int i = 0; i < navPoints.length; ++i) {
+            navPointIds [i] = navPoints [i].getId ();
+        }
+
+        pathNodes = cache.getPathNodes ();
+        areas = cache.getAreas ();
+        navigationDistances = cache.getNavigationDistances ();
+
+        double coordinates [] = new double [pathNodes.length * 3];
+        for (int i = 0; i < pathNodes.length; ++i) {
+            Location location = navPoints [pathNodes [i]].getLocation ();
+            coordinates [i * 3] = location.x;
+            coordinates [i * 3 + 1] = location.y;
+            coordinates [i * 3 + 2] = location.z;
+        }
+
+        pathNodeIndex = new NavPointIndex (coordinates);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The bot doesn't need the knowledge anymore. When the last bot releases
+     * it, it is forgotten.
+     */
+    public void release () {
+        synchronized (loaded) {
+            if (--references == 0) {
+                loaded.remove (mapName);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Name of the map.
+     * @return The map name.
+     */
+    public String getMapName () {
+        return mapName;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * All the NavPoints of the map as seen by a bot, in the order the
+     * positions used by the rest of methods refer to.
+     * @param world IVisionWorldView of the bot.
+     * @return The NavPoints of the bot.
+     */
+    public NavPoint [] getNavPoints (final IVisionWorldView world) {
+        NavPoint result [] = new NavPoint [navPointIds.length];
+
+        for (int i = 0; i < navPointIds.length; ++i) {
+            result [i] = (NavPoint) world.get (navPointIds [i]);
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Path nodes of the map as seen by a bot.
+     * @param navPoints NavPoints of the bot (see getNavPoints).
+     * @return The path nodes, in the order of getPathNodeIndex.
+     */
+    public NavPoint [] getPathNodes (final NavPoint navPoints []) {
+        return select (navPoints, pathNodes);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Important areas of the map as seen by a bot.
+     * @param navPoints NavPoints of the bot (see getNavPoints).
+     * @return The areas.
+     */
+    public NavPoint [] getAreas (final NavPoint navPoints []) {
+        return select (navPoints, areas);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Spatial index over the path nodes.
+     * @return The index, its positions refer to the vector returned by
+     * getPathNodes.
+     */
+    public NavPointIndex getPathNodeIndex () {
+        return pathNodeIndex;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Spatial index over all the NavPoints.
+     * @return The index, its positions refer to the vector returned by
+     * getNavPoints.
+     */
+    public NavPointIndex getNavPointIndex () {
+        return navigationDistances.getNavPointIndex ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Travel distances from every NavPoint to every item spot.
+     * @return The navigation distances.
+     */
+    public NavigationDistances getNavigationDistances () {
+        return navigationDistances;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It picks some NavPoints of a vector.
+     * @param navPoints NavPoints.
+     * @param positions Positions of the NavPoints wanted.
+     * @return The NavPoints in those positions.
+     */
+    private static NavPoint [] select (final NavPoint navPoints [], final int positions []) {
+        NavPoint result [] = new NavPoint [positions.length];
+
+        for (int i = 0; i < positions.length; ++i) {
+            result [i] = navPoints [positions [i]];
+        }
+
+        return result;
+    }
+}
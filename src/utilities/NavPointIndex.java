@@ -0,0 +1,396 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class NavPointIndex {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Coordinates of every NavPoint indexed, in the order they were given (x, y and z one after the other) */
+    private double coordinates [];
+    /**
+     * Implicit k-d tree: the node of the range [low, high) is the NavPoint in
+     * the middle of the range, the lower half is its left subtree and the upper
+     * half its right subtree.
+     */
+    private int tree [];
+    /** Axis each node splits (0 = x, 1 = y, 2 = z), indexed like tree */
+    private byte axis [];
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. It builds the tree (O(n log n) on average).
+     * Only the locations are kept, not the NavPoints.
+     * @param navPoints NavPoints to be indexed (the vector isn't modified).
+     */
+    public NavPointIndex (final NavPoint navPoints []) {
+        coordinates = new double [navPoints.length * 3];
+
+        for (int i = 0; i < navPoints.length; ++i) {
+            Location location = navPoints [i].getLocation ();
+            coordinates [i * 3] = location.x;
+            coordinates [i * 3 + 1] = location.y;
+            coordinates [i * 3 + 2] = location.z;
+        }
+
+        build ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor. It builds the tree (O(n log n) on average).
+     * @param coordinates Coordinates of the NavPoints to be indexed (x, y and z
+     * one after the other). The vector isn't copied, so it mustn't be modified.
+     */
+    public NavPointIndex (final double coordinates []) {
+        this.coordinates = coordinates;
+
+        build ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of NavPoints indexed.
+     * @return The number of NavPoints.
+     */
+    public int size () {
+        return tree.length;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Distance from a spot to a NavPoint.
+     * @param node Position of the NavPoint in the vector given to the constructor.
+     * @param spot Location.
+     * @return The distance.
+     */
+    public double getDistance (final int node, final Location spot) {
+        double dx = coordinates [node * 3] - spot.x;
+        double dy = coordinates [node * 3 + 1] - spot.y;
+        double dz = coordinates [node * 3 + 2] - spot.z;
+
+        return Math.sqrt (dx * dx + dy * dy + dz * dz);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the closest NavPoint to a given spot. If several NavPoints
+     * are at the same distance, the first one in the vector given to the
+     * constructor is returned (as a linear scan would do).
+     * @param spot Location.
+     * @return Position of the closest NavPoint in the vector given to the
+     * constructor (-1 if there are no NavPoints).
+     */
+    public int getNearestIndex (final Location spot) {
+        if (tree.length == 0) {
+            return -1;
+        }
+
+        // Asked every tick, so it doesn't allocate the vectors of the k search
+        return searchNearest (0, tree.length, spot.x, spot.y, spot.z, -1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the k closest NavPoints to a given spot, closest first.
+     * @param spot Location.
+     * @param nearest Vector where the positions of the NavPoints are stored,
+     * its length is k.
+     * @return Number of NavPoints stored (k unless there are less NavPoints).
+     */
+    public int getNearestIndexes (final Location spot, final int nearest []) {
+        int k = Math.min (nearest.length, tree.length);
+        if (k == 0) {
+            return 0;
+        }
+
+        double bestDistance [] = new double [k];
+        for (int i = 0; i < k; ++i) {
+            nearest [i] = -1;
+            bestDistance [i] = Double.POSITIVE_INFINITY;
+        }
+
+        search (0, tree.length, spot.x, spot.y, spot.z, nearest, bestDistance, k);
+
+        return k;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the tree over all the coordinates.
+     */
+    private void build () {
+        int n = coordinates.length / 3;
+        tree = new int [n];
+        axis = new byte [n];
+
+        for (int i = 0; i < n; ++i) {
+            tree [i] = i;
+        }
+
+        build (0, n);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the subtree of a range: the NavPoint with the median coordinate
+     * in the axis with the biggest spread goes to the middle of the range.
+     * @param low First position of the range.
+     * @param high Position after the last one of the range.
+     */
+    private void build (final int low, final int high) {
+        if (high - low <= 1) {
+            return;
+        }
+
+        // Split along the axis where the NavPoints are more spread
+        int splitAxis = 0;
+        double maximumSpread = -1;
+        for (int a = 0; a < 3; ++a) {
+            double minimum = Double.POSITIVE_INFINITY, maximum = Double.NEGATIVE_INFINITY;
+            for (int i = low; i < high; ++i) {
+                double value = coordinates [tree [i] * 3 + a];
+                minimum = Math.min (minimum, value);
+                maximum = Math.max (maximum, value);
+            }
+
+            if (maximum - minimum > maximumSpread) {
+                maximumSpread = maximum - minimum;
+                splitAxis = a;
+            }
+        }
+
+        int middle = (low + high) >>> 1;
+        select (low, high - 1, middle, splitAxis);
+        axis [middle] = (byte) splitAxis;
+
+        build (low, middle);
+        build (middle + 1, high);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Quickselect: reorders a range so that the NavPoint at position k is the
+     * one that would be there if the range was sorted along an axis.
+     * @param low First position of the range.
+     * @param high Last position of the range (included).
+     * @param k Position to be selected.
+     * @param a Axis.
+     */
+    private void select (int low, int high, final int k, final int a) {
+        while (low < high) {
+            double pivot = coordinates [tree [(low + high) >>> 1] * 3 + a];
+            int i = low, j = high;
+
+            while (i <= j) {
+                while (coordinates [tree [i] * 3 + a] < pivot) {
+                    ++i;
+                }
+                while (coordinates [tree [j] * 3 + a] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    int swap = tree [i];
+                    tree [i] = tree [j];
+                    tree [j] = swap;
+                    ++i;
+                    --j;
+                }
+            }
+
+            if (k <= j) {
+                high = j;
+            }
+            else if (k >= i) {
+                low = i;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Searches the k closest NavPoints in the subtree of a range.
+     * @param low First position of the range.
+     * @param high Position after the last one of the range.
+     * @param x X coordinate of the spot.
+     * @param y Y coordinate of the spot.
+     * @param z Z coordinate of the spot.
+     * @param best Indexes of the closest NavPoints found so far (closest first, -1 if empty).
+     * @param bestDistance Squared distances of the closest NavPoints found so far.
+     * @param k Number of NavPoints wanted.
+     */
+    private void search (final int low, final int high, final double x, final double y, final double z,
+                         final int best [], final double bestDistance [], final int k) {
+        if (low >= high) {
+            return;
+        }
+
+        int middle = (low + high) >>> 1;
+        int node = tree [middle];
+        double dx = coordinates [node * 3] - x;
+        double dy = coordinates [node * 3 + 1] - y;
+        double dz = coordinates [node * 3 + 2] - z;
+        insert (node, dx * dx + dy * dy + dz * dz, best, bestDistance, k);
+
+        if (high - low == 1) {
+            return;
+        }
+
+        int a = axis [middle];
+        double difference = (a == 0 ? x : a == 1 ? y : z) - coordinates [node * 3 + a];
+
+        // Visit first the half where the spot is, the other one only if it can
+        // hold something closer (or as close, to break ties as a linear scan)
+        if (difference < 0) {
+            search (low, middle, x, y, z, best, bestDistance, k);
+            if (difference * difference <= bestDistance [k - 1]) {
+                search (middle + 1, high, x, y, z, best, bestDistance, k);
+            }
+        }
+        else {
+            search (middle + 1, high, x, y, z, best, bestDistance, k);
+            if (difference * difference <= bestDistance [k - 1]) {
+                search (low, middle, x, y, z, best, bestDistance, k);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Searches the closest NavPoint in the subtree of a range (as search with
+     * k = 1, but the best NavPoint found is passed around instead of stored).
+     * @param low First position of the range.
+     * @param high Position after the last one of the range.
+     * @param x X coordinate of the spot.
+     * @param y Y coordinate of the spot.
+     * @param z Z coordinate of the spot.
+     * @param best Index of the closest NavPoint found so far (-1 if none).
+     * @return Index of the closest NavPoint found.
+     */
+    private int searchNearest (final int low, final int high, final double x, final double y, final double z, int best) {
+        if (low >= high) {
+            return best;
+        }
+
+        int middle = (low + high) >>> 1;
+        int node = tree [middle];
+        double bestDistance = getSquaredDistance (best, x, y, z);
+        if (closer (node, getSquaredDistance (node, x, y, z), best, bestDistance)) {
+            best = node;
+        }
+
+        if (high - low == 1) {
+            return best;
+        }
+
+        int a = axis [middle];
+        double difference = (a == 0 ? x : a == 1 ? y : z) - coordinates [node * 3 + a];
+
+        if (difference < 0) {
+            best = searchNearest (low, middle, x, y, z, best);
+            if (difference * difference <= getSquaredDistance (best, x, y, z)) {
+                best = searchNearest (middle + 1, high, x, y, z, best);
+            }
+        }
+        else {
+            best = searchNearest (middle + 1, high, x, y, z, best);
+            if (difference * difference <= getSquaredDistance (best, x, y, z)) {
+                best = searchNearest (low, middle, x, y, z, best);
+            }
+        }
+
+        return best;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Squared distance from a NavPoint to a spot.
+     * @param node Index of the NavPoint (-1 if there is none).
+     * @param x X coordinate of the spot.
+     * @param y Y coordinate of the spot.
+     * @param z Z coordinate of the spot.
+     * @return The squared distance, infinity if there is no NavPoint.
+     */
+    private double getSquaredDistance (final int node, final double x, final double y, final double z) {
+        if (node < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double dx = coordinates [node * 3] - x;
+        double dy = coordinates [node * 3 + 1] - y;
+        double dz = coordinates [node * 3 + 2] - z;
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Inserts a NavPoint in the list of closest NavPoints if it belongs there.
+     * Ties are broken by the position in the vector given to the constructor.
+     * @param node Index of the NavPoint.
+     * @param distance Squared distance to the spot.
+     * @param best Indexes of the closest NavPoints found so far.
+     * @param bestDistance Squared distances of the closest NavPoints found so far.
+     * @param k Number of NavPoints wanted.
+     */
+    private static void insert (final int node, final double distance, final int best [], final double bestDistance [], final int k) {
+        if (!closer (node, distance, best [k - 1], bestDistance [k - 1])) {
+            return;
+        }
+
+        int i = k - 1;
+        while (i > 0 && closer (node, distance, best [i - 1], bestDistance [i - 1])) {
+            best [i] = best [i - 1];
+            bestDistance [i] = bestDistance [i - 1];
+            --i;
+        }
+
+        best [i] = node;
+        bestDistance [i] = distance;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Compares two candidates.
+     * @param node Index of the first NavPoint.
+     * @param distance Squared distance of the first NavPoint.
+     * @param other Index of the second NavPoint (-1 if there is none).
+     * @param otherDistance Squared distance of the second NavPoint.
+     * @return True if the first NavPoint goes before the second one.
+     */
+    private static boolean closer (final int node, final double distance, final int other, final double otherDistance) {
+        return other < 0 || distance < otherDistance || (distance == otherDistance && node < other);
+    }
+}
@@ -0,0 +1,391 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Item;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPointNeighbourLink;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class NavigationDistances {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Spatial index over the NavPoints to find the node where a route starts */
+    private NavPointIndex navPointIndex;
+    /** Number of NavPoints of the navigation graph */
+    private int nodeCount;
+    /** Position of the NavPoints whose distances are known (each one is a row of distances) */
+    private int targets [];
+    /** Row in distances of every target */
+    private Map <UnrealId, Integer> targetRows;
+    /**
+     * Length of the shortest route from every NavPoint to every target, one
+     * row per target with a column per NavPoint (infinity if the target can't
+     * be reached). It may be backed by a file mapped in memory.
+     */
+    private FloatBuffer distances;
+
+    // Reversed navigation graph (the edges of each NavPoint are the ones that
+    // lead to it) stored as adjacency lists one after the other. It is only
+    // needed while the distances are computed.
+
+    /** Position in edgeSource of the first edge of every NavPoint (plus the end of the last one) */
+    private int edgeStart [];
+    /** NavPoint where every edge starts */
+    private int edgeSource [];
+    /** Length of every edge */
+    private float edgeLength [];
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor. It builds the navigation graph and computes
+     * the shortest routes from every NavPoint to every target, each target in
+     * a different task spread over all the cores. The NavPoints aren't kept,
+     * only their locations and ids.
+     * @param navPoints All the NavPoints of the current map.
+     * @param targets NavPoints we may want to go to (areas, item spots...).
+     */
+    public NavigationDistances (final NavPoint navPoints [], final NavPoint targets []) {
+        navPointIndex = new NavPointIndex (navPoints);
+        nodeCount = navPoints.length;
+
+        Map <UnrealId, Integer> index = new HashMap <UnrealId, Integer> ();
+        for (int i = 0; i < navPoints.length; ++i) {
+            index.put (navPoints [i].getId (), i);
+        }
+
+        buildGraph (navPoints, index);
+
+        targetRows = new HashMap <UnrealId, Integer> ();
+        List <Integer> targetNodes = new ArrayList <Integer> ();
+        for (int i = 0; i < targets.length; ++i) {
+            Integer node = targets [i] != null ? index.get (targets [i].getId ()) : null;
+            if (node != null && !targetRows.containsKey (targets [i].getId ())) {
+                targetRows.put (targets [i].getId (), targetNodes.size ());
+                targetNodes.add (node);
+            }
+        }
+
+        this.targets = new int [targetNodes.size ()];
+        for (int i = 0; i < this.targets.length; ++i) {
+            this.targets [i] = targetNodes.get (i);
+        }
+
+        distances = FloatBuffer.wrap (computeDistances ());
+        edgeStart = edgeSource = null;
+        edgeLength = null;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Argument based constructor for distances that were computed before (see
+     * getTargets and getDistances).
+     * @param navPoints All the NavPoints of the current map, in the same order
+     * they had when the distances were computed (they aren't kept).
+     * @param targets Position in navPoints of the NavPoint of every row of
+     * distances.
+     * @param distances Distance from every NavPoint to every target.
+     */
+    public NavigationDistances (final NavPoint navPoints [], final int targets [], final FloatBuffer distances) {
+        if (distances.remaining () != navPoints.length * targets.length) {
+            throw new IllegalArgumentException ("There must be a distance for every NavPoint and target");
+        }
+
+        this.targets = targets;
+        this.distances = distances.slice ();
+        navPointIndex = new NavPointIndex (navPoints);
+        nodeCount = navPoints.length;
+
+        targetRows = new HashMap <UnrealId, Integer> ();
+        for (int i = 0; i < targets.length; ++i) {
+            targetRows.put (navPoints [targets [i]].getId (), i);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * NavPoints whose distances are known, in the order of the rows of
+     * getDistances.
+     * @return Position of every target in the NavPoints given to the constructor.
+     */
+    public int [] getTargets () {
+        return targets;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Distance from every NavPoint to every target (a row per target with a
+     * column per NavPoint).
+     * @return Read only view of the distances.
+     */
+    public FloatBuffer getDistances () {
+        return distances.asReadOnlyBuffer ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Spatial index over all the NavPoints of the navigation graph, in the
+     * order given to the constructor.
+     * @return The index.
+     */
+    public NavPointIndex getNavPointIndex () {
+        return navPointIndex;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It retrieves the NavPoint where the routes from a spot start (the
+     * closest one). It is meant to be computed once and used for all the
+     * targets we want to compare.
+     * @param spot Location.
+     * @return Index of the NavPoint (-1 if there are no NavPoints).
+     */
+    public int getNode (final Location spot) {
+        return navPointIndex.getNearestIndex (spot);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It estimates how long it takes to go from a spot to a NavPoint following
+     * the navigation graph. If the NavPoint isn't a target or it can't be
+     * reached, the straight line distance is returned.
+     * @param node NavPoint where the routes from the spot start (see getNode).
+     * @param spot Location where we are.
+     * @param target NavPoint we want to go to.
+     * @return Travel distance.
+     */
+    public double getDistance (final int node, final Location spot, final NavPoint target) {
+        return getDistance (node, spot, target.getId (), target.getLocation ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It estimates how long it takes to go from a spot to an item following
+     * the navigation graph. If the spot of the item isn't a target or it can't
+     * be reached, the straight line distance is returned.
+     * @param node NavPoint where the routes from the spot start (see getNode).
+     * @param spot Location where we are.
+     * @param item Item we want to pick up.
+     * @return Travel distance.
+     */
+    public double getDistance (final int node, final Location spot, final Item item) {
+        return getDistance (node, spot, item.getNavPointId (), item.getLocation ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * It estimates how long it takes to go from a spot to a target.
+     * @param node NavPoint where the routes from the spot start.
+     * @param spot Location where we are.
+     * @param target Id of the NavPoint we want to go to.
+     * @param targetLocation Location of the target.
+     * @return Travel distance.
+     */
+    private double getDistance (final int node, final Location spot, final UnrealId target, final Location targetLocation) {
+        Integer row = target != null ? targetRows.get (target) : null;
+
+        if (node >= 0 && row != null) {
+            float distance = distances.get (row * nodeCount + node);
+            if (distance != Float.POSITIVE_INFINITY) {
+                return navPointIndex.getDistance (node, spot) + distance;
+            }
+        }
+
+        return spot.getDistance (targetLocation);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the reversed navigation graph from the outgoing edges of every
+     * NavPoint, so the routes to a target can be computed from the target.
+     * @param navPoints All the NavPoints of the current map.
+     * @param index Position of every NavPoint in navPoints.
+     */
+    private void buildGraph (final NavPoint navPoints [], final Map <UnrealId, Integer> index) {
+        int n = navPoints.length;
+        List <int []> edges = new ArrayList <int []> ();
+        edgeStart = new int [n + 1];
+
+        for (int from = 0; from < n; ++from) {
+            Map <UnrealId, NavPointNeighbourLink> outgoing = navPoints [from].getOutgoingEdges ();
+            if (outgoing == null) {
+                continue;
+            }
+
+            for (UnrealId id : outgoing.keySet ()) {
+                Integer to = index.get (id);
+                if (to != null && to != from) {
+                    edges.add (new int [] {from, to});
+                    ++edgeStart [to + 1];
+                }
+            }
+        }
+
+        for (int i = 0; i < n; ++i) {
+            edgeStart [i + 1] += edgeStart [i];
+        }
+
+        int next [] = new int [n];
+        System.arraycopy (edgeStart, 0, next, 0, n);
+        edgeSource = new int [edges.size ()];
+        edgeLength = new float [edges.size ()];
+
+        for (int edge [] : edges) {
+            int position = next [edge [1]]++;
+            edgeSource [position] = edge [0];
+            edgeLength [position] = (float) navPoints [edge [0]].getLocation ().getDistance (navPoints [edge [1]].getLocation ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Computes the row of every target in parallel.
+     * @return Distance from every NavPoint to every target, a row per target.
+     */
+    private float [] computeDistances () {
+        final float result [] = new float [targets.length * nodeCount];
+        int threads = Math.max (1, Math.min (Runtime.getRuntime ().availableProcessors (), targets.length));
+        ExecutorService executor = Executors.newFixedThreadPool (threads);
+
+        try {
+            List <Callable <Object>> tasks = new ArrayList <Callable <Object>> ();
+            for (int i = 0; i < targets.length; ++i) {
+                final int row = i;
+                final int target = targets [i];
+
+                tasks.add (new Callable <Object> () {
+                    public Object call () {
+                        computeRow (target, result, row * nodeCount);
+                        return null;
+                    }
+                });
+            }
+
+            for (Future <Object> task : executor.invokeAll (tasks)) {
+                task.get ();
+            }
+        }
+        catch (Exception e) {
+            throw new IllegalStateException ("The navigation distances couldn't be computed", e);
+        }
+        finally {
+            executor.shutdown ();
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Dijkstra over the reversed graph: length of the shortest route from every
+     * NavPoint to a target.
+     * @param target Index of the target.
+     * @param distances Vector where the distance from every NavPoint to the
+     * target is stored.
+     * @param offset Position in distances of the first NavPoint.
+     */
+    private void computeRow (final int target, final float distances [], final int offset) {
+        float distance [] = new float [nodeCount];
+        for (int i = 0; i < distance.length; ++i) {
+            distance [i] = Float.POSITIVE_INFINITY;
+        }
+
+        // Binary heap of pending NavPoints, a NavPoint may be in it more than
+        // once (only the entry with its current distance counts)
+        int heapNode [] = new int [edgeSource.length + 1];
+        float heapDistance [] = new float [edgeSource.length + 1];
+        int heapSize = 0;
+
+        distance [target] = 0;
+        heapNode [0] = target;
+        heapDistance [0] = 0;
+        heapSize = 1;
+
+        while (heapSize > 0) {
+            int node = heapNode [0];
+            float nodeDistance = heapDistance [0];
+
+            // Pop the top of the heap
+            --heapSize;
+            int last = heapNode [heapSize];
+            float lastDistance = heapDistance [heapSize];
+            int hole = 0;
+            while (2 * hole + 1 < heapSize) {
+                int child = 2 * hole + 1;
+                if (child + 1 < heapSize && heapDistance [child + 1] < heapDistance [child]) {
+                    ++child;
+                }
+                if (heapDistance [child] >= lastDistance) {
+                    break;
+                }
+
+                heapNode [hole] = heapNode [child];
+                heapDistance [hole] = heapDistance [child];
+                hole = child;
+            }
+            heapNode [hole] = last;
+            heapDistance [hole] = lastDistance;
+
+            if (nodeDistance > distance [node]) {
+                continue;
+            }
+
+            for (int edge = edgeStart [node]; edge < edgeStart [node + 1]; ++edge) {
+                int source = edgeSource [edge];
+                float sourceDistance = nodeDistance + edgeLength [edge];
+
+                if (sourceDistance < distance [source]) {
+                    distance [source] = sourceDistance;
+
+                    // Push it into the heap
+                    hole = heapSize++;
+                    while (hole > 0 && heapDistance [(hole - 1) / 2] > sourceDistance) {
+                        heapNode [hole] = heapNode [(hole - 1) / 2];
+                        heapDistance [hole] = heapDistance [(hole - 1) / 2];
+                        hole = (hole - 1) / 2;
+                    }
+                    heapNode [hole] = source;
+                    heapDistance [hole] = sourceDistance;
+                }
+            }
+        }
+
+        System.arraycopy (distance, 0, distances, offset, distance.length);
+    }
+}
@@ -0,0 +1,159 @@
+package utilities;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class PhaseProfile {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Duration of every phase, one histogram per phase and primary state */
+    private LatencyHistogram histograms [][];
+    /** Name of every primary state */
+    private String stateNames [];
+
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Identifies the estimation of the primary state (the capture of the world snapshot included) */
+    public static final int PRIMARY_STATE = 0;
+    /** Identifies the estimation of the secondary state */
+    public static final int SECONDARY_STATE = 1;
+    /** Identifies the estimation of the destination */
+    public static final int DESTINATION = 2;
+    /** Identifies the estimation of the target (combo or spam) */
+    public static final int TARGET = 3;
+    /** Identifies the weapon switch */
+    public static final int WEAPON = 4;
+    /** Identifies the movement */
+    public static final int MOVEMENT = 5;
+    /** Identifies the engagement */
+    public static final int ENGAGE = 6;
+
+    /** Name of every phase */
+    public static final String PHASE_NAMES [] = {"primaryState", "secondaryState", "destination", "target",
+                                                  "weapon", "movement", "engage"};
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param stateNames Name of every primary state, in the order of their identifiers.
+     */
+    public PhaseProfile (final String stateNames []) {
+        this.stateNames = stateNames;
+
+        histograms = new LatencyHistogram [PHASE_NAMES.length][stateNames.length];
+        for (int phase = 0; phase < PHASE_NAMES.length; ++phase) {
+            for (int state = 0; state < stateNames.length; ++state) {
+                histograms [phase][state] = new LatencyHistogram ();
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores the duration of a phase. It is meant to be chained, the moment
+     * a phase finishes is the moment the next one starts.
+     * @param phase Phase that has just finished.
+     * @param primaryState Primary state of the tick.
+     * @param start Moment the phase started (System.nanoTime).
+     * @return Moment the phase finished (System.nanoTime).
+     */
+    public long record (final int phase, final int primaryState, final long start) {
+        long end = System.nanoTime ();
+
+        synchronized (this) {
+            histograms [phase][primaryState].record (end - start);
+        }
+
+        return end;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Discards every sample (used to skip the warm up).
+     */
+    public synchronized void reset () {
+        for (int phase = 0; phase < PHASE_NAMES.length; ++phase) {
+            for (int state = 0; state < stateNames.length; ++state) {
+                histograms [phase][state].reset ();
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Duration of a phase in every primary state.
+     * @param phase Phase.
+     * @return A copy of the samples of the phase.
+     */
+    public synchronized LatencyHistogram getPhase (final int phase) {
+        LatencyHistogram result = new LatencyHistogram ();
+
+        for (int state = 0; state < stateNames.length; ++state) {
+            result.add (histograms [phase][state]);
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Duration of a phase in a primary state.
+     * @param phase Phase.
+     * @param primaryState Primary state.
+     * @return A copy of the samples of the phase in that state.
+     */
+    public synchronized LatencyHistogram getPhase (final int phase, final int primaryState) {
+        LatencyHistogram result = new LatencyHistogram ();
+        result.add (histograms [phase][primaryState]);
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a summary with a line per phase, followed by a line per phase and
+     * primary state (only the states that were used).
+     * @return Samples and latency percentiles in microseconds.
+     */
+    public String summary () {
+        StringBuilder summary = new StringBuilder ();
+
+        for (int phase = 0; phase < PHASE_NAMES.length; ++phase) {
+            summary.append (String.format ("%-15s %-7s %s%n", PHASE_NAMES [phase], "all", getPhase (phase).summary ()));
+        }
+
+        for (int state = 0; state < stateNames.length; ++state) {
+            for (int phase = 0; phase < PHASE_NAMES.length; ++phase) {
+                LatencyHistogram histogram = getPhase (phase, state);
+
+                if (histogram.getCount () > 0) {
+                    summary.append (String.format ("%-15s %-7s %s%n", PHASE_NAMES [phase], stateNames [state], histogram.summary ()));
+                }
+            }
+        }
+
+        return summary.toString ();
+    }
+}
@@ -0,0 +1,146 @@
+package utilities;
+
+import java.util.Arrays;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TickStatistics {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Duration of the latest ticks in nanoseconds (a ring, the oldest one is overwritten) */
+    private long samples [];
+    /** Number of samples stored */
+    private int count = 0;
+    /** Position where the next sample is stored */
+    private int next = 0;
+    /** Number of ticks recorded (including the ones that were overwritten) */
+    private int ticks = 0;
+    /** Number of ticks that threw an exception */
+    private int errors = 0;
+    /** Moment the first sample was taken (nanoseconds) */
+    private long firstSample = -1;
+    /** Moment the last sample was taken (nanoseconds) */
+    private long lastSample = -1;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param capacity Maximum number of samples stored, the percentiles are
+     * computed over the latest ones.
+     */
+    public TickStatistics (final int capacity) {
+        samples = new long [Math.max (capacity, 16)];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Stores the duration of a tick.
+     * @param start Moment the tick started (System.nanoTime).
+     * @param end Moment the tick finished (System.nanoTime).
+     * @param failed True if the tick threw an exception.
+     */
+    public synchronized void record (long start, long end, boolean failed) {
+        samples [next] = end - start;
+        next = (next + 1) % samples.length;
+        count = Math.min (count + 1, samples.length);
+        ++ticks;
+
+        if (failed) {
+            ++errors;
+        }
+
+        if (firstSample == -1) {
+            firstSample = start;
+        }
+        lastSample = end;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Discards every sample (used to skip the warm up).
+     */
+    public synchronized void reset () {
+        count = 0;
+        next = 0;
+        ticks = 0;
+        errors = 0;
+        firstSample = -1;
+        lastSample = -1;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of ticks recorded */
+    public synchronized int getTicks () {
+        return ticks;
+    }
+
+    //__________________________________________________________________________
+
+    /** Get the number of ticks that threw an exception */
+    public synchronized int getErrors () {
+        return errors;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Estimates the number of ticks per second.
+     * @return Ticks per second between the first and the last sample.
+     */
+    public synchronized double getTicksPerSecond () {
+        if (ticks < 2) {
+            return 0;
+        }
+
+        return (ticks - 1) * 1e9 / (lastSample - firstSample);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Computes a percentile of the duration of the latest ticks.
+     * @param percentile Percentile (between 0 and 100).
+     * @return Tick duration in nanoseconds.
+     */
+    public synchronized long getPercentile (double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long sorted [] = new long [count];
+        System.arraycopy (samples, 0, sorted, 0, count);
+        Arrays.sort (sorted);
+
+        int index = (int) Math.ceil (percentile / 100.0 * count) - 1;
+        return sorted [Math.min (Math.max (index, 0), count - 1)];
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a one line summary.
+     * @return Ticks, ticks per second and latency percentiles in microseconds.
+     */
+    public String summary () {
+        return String.format ("ticks=%d errors=%d ticks/s=%.2f p50=%dus p90=%dus p99=%dus max=%dus",
+                              getTicks (), getErrors (), getTicksPerSecond (), getPercentile (50) / 1000,
+                              getPercentile (90) / 1000, getPercentile (99) / 1000, getPercentile (100) / 1000);
+    }
+}
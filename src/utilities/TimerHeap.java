@@ -0,0 +1,201 @@
+package utilities;
+
+import java.util.Arrays;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TimerHeap {
+
+    // *************************************************************************
+    //                             INSTANCE FIELDS
+    // *************************************************************************
+
+
+    /** Binary heap of ids, the one with the earliest time first */
+    private int heap [];
+    /** Position of every id in heap (-1 if it isn't in the heap) */
+    private int positions [];
+    /** Time of every id in the heap */
+    private double times [];
+    /** Number of ids in the heap */
+    private int size = 0;
+
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Argument based constructor.
+     * @param capacity Number of ids (they go from 0 to capacity - 1).
+     */
+    public TimerHeap (final int capacity) {
+        heap = new int [capacity];
+        positions = new int [capacity];
+        times = new double [capacity];
+
+        Arrays.fill (positions, -1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds an id, or changes its time if it is already in the heap.
+     * O(log n).
+     * @param id Id.
+     * @param time Time.
+     */
+    public void add (final int id, final double time) {
+        if (positions [id] == -1) {
+            positions [id] = size;
+            heap [size++] = id;
+            times [id] = time;
+            siftUp (positions [id]);
+        }
+        else {
+            double previous = times [id];
+            times [id] = time;
+
+            if (time < previous) {
+                siftUp (positions [id]);
+            }
+            else {
+                siftDown (positions [id]);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Removes an id (nothing happens if it isn't in the heap). O(log n).
+     * @param id Id.
+     */
+    public void remove (final int id) {
+        int position = positions [id];
+
+        if (position != -1) {
+            int last = heap [--size];
+            positions [id] = -1;
+
+            if (last != id) {
+                heap [position] = last;
+                positions [last] = position;
+                siftUp (position);
+                siftDown (positions [last]);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Whether an id is in the heap.
+     * @param id Id.
+     * @return True if it is in the heap.
+     */
+    public boolean contains (final int id) {
+        return positions [id] != -1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Number of ids in the heap.
+     * @return The number of ids.
+     */
+    public int size () {
+        return size;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Id with the earliest time. O(1).
+     * @return The id, -1 if the heap is empty.
+     */
+    public int peek () {
+        return size > 0 ? heap [0] : -1;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Earliest time of the heap. O(1).
+     * @return The time, infinity if the heap is empty.
+     */
+    public double peekTime () {
+        return size > 0 ? times [heap [0]] : Double.POSITIVE_INFINITY;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Time of an id.
+     * @param id Id.
+     * @return The time, NaN if the id isn't in the heap.
+     */
+    public double getTime (final int id) {
+        return positions [id] != -1 ? times [id] : Double.NaN;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Moves an id up until its parent is earlier.
+     * @param position Position of the id.
+     */
+    private void siftUp (int position) {
+        int id = heap [position];
+
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (times [heap [parent]] <= times [id]) {
+                break;
+            }
+
+            heap [position] = heap [parent];
+            positions [heap [position]] = position;
+            position = parent;
+        }
+
+        heap [position] = id;
+        positions [id] = position;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Moves an id down until its children are later.
+     * @param position Position of the id.
+     */
+    private void siftDown (int position) {
+        int id = heap [position];
+
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && times [heap [child + 1]] < times [heap [child]]) {
+                ++child;
+            }
+            if (times [id] <= times [heap [child]]) {
+                break;
+            }
+
+            heap [position] = heap [child];
+            positions [heap [position]] = position;
+            position = child;
+        }
+
+        heap [position] = id;
+        positions [id] = position;
+    }
+}
@@ -0,0 +1,886 @@
+package behaviour.primaryStates;
+
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import knowledge.WeaponKnowledge;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static behaviour.primaryStates.PrimaryState.CLOSE;
+import static behaviour.primaryStates.PrimaryState.AVERAGE;
+import static behaviour.primaryStates.PrimaryState.FAR;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class PrimaryStateTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Weapons checked (the redeemer isn't in the knowledge base) */
+    private static final ItemType WEAPONS [] = {
+        ItemType.SHIELD_GUN, ItemType.ASSAULT_RIFLE, ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN,
+        ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER, ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE,
+        ItemType.LIGHTNING_GUN, ItemType.REDEEMER
+    };
+
+    /** Distances on both sides of every band edge */
+    private static final double DISTANCES [] = {
+        0, 350, 599, 600, 601, 699.99, 700, 700.01, 950, 1199.99, 1200, 1200.01, 1350, 1499.99, 1500, 1500.01, 4000
+    };
+
+    /** Heights as returned by Arithmetic.estimateHeight */
+    private static final int HEIGHTS [] = {-1, 0, 1};
+
+    /** Enemy's health plus armor on both sides of every threshold */
+    private static final int HEALTH_ARMOR [] = {0, 69, 70, 99, 100, 149, 150, 250};
+
+
+    // *************************************************************************
+    //                             STATIC FIELDS
+    // *************************************************************************
+
+
+    /** Weapon knowledge base shipped with the bot */
+    private static WeaponKnowledge knowledge;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * Loads the weapon knowledge base shipped with the bot.
+     */
+    @BeforeClass
+    public static void loadKnowledge () {
+        knowledge = WeaponKnowledge.load ();
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The advantage read from the knowledge base is the one the original
+     * estimateWeaponAdvantage gave, for an enemy on sight, a spam and an enemy
+     * that is not on sight.
+     */
+    @Test
+    public void advantageMatchesBaseline () {
+        for (ItemType type : WEAPONS) {
+            int weapon = WeaponKnowledge.getWeapon (type);
+
+            for (double distance : DISTANCES) {
+                for (int height : HEIGHTS) {
+                    for (int healthArmor : HEALTH_ARMOR) {
+                        String input = type.getName () + " distance=" + distance + " height=" + height + " healthArmor=" + healthArmor;
+                        int profit = knowledge.getProfit (weapon, PrimaryState.estimateRange (distance), WeaponKnowledge.getHeightBand (height), healthArmor);
+
+                        assertEquals (input, baselineAdvantage (type, true, false, distance, height, healthArmor), profit);
+                    }
+                }
+            }
+
+            assertEquals (type.getName (), baselineAdvantage (type, false, true, 0, 0, 0), knowledge.getSpamProfit (weapon));
+            assertEquals (type.getName (), baselineAdvantage (type, false, false, 0, 0, 0), knowledge.getUnseenProfit (weapon));
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The fire mode read from the knowledge base is the one the original
+     * engage used to shoot an enemy on sight, edges of the bands included.
+     */
+    @Test
+    public void fireActionMatchesBaseline () {
+        for (ItemType type : WEAPONS) {
+            int weapon = WeaponKnowledge.getWeapon (type);
+
+            for (double distance : DISTANCES) {
+                for (int height : HEIGHTS) {
+                    for (boolean secondaryAmmo : new boolean [] {false, true}) {
+                        String input = type.getName () + " distance=" + distance + " height=" + height + " secondaryAmmo=" + secondaryAmmo;
+                        int range = PrimaryState.estimateFireRange (distance);
+                        int band = WeaponKnowledge.getHeightBand (height);
+
+                        assertEquals (input, baselineFire (type, distance, height, secondaryAmmo),
+                                      describe (knowledge.getFireAction (weapon, range, band, secondaryAmmo),
+                                                knowledge.getFireCharge (weapon, range, band, secondaryAmmo)));
+                    }
+                }
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The fire mode read from the knowledge base is the one the original
+     * engage used to shoot a spam, edges of the bands included.
+     */
+    @Test
+    public void spamActionMatchesBaseline () {
+        for (ItemType type : WEAPONS) {
+            int weapon = WeaponKnowledge.getWeapon (type);
+
+            for (double distance : DISTANCES) {
+                for (int height : HEIGHTS) {
+                    String input = type.getName () + " distance=" + distance + " height=" + height;
+                    int range = PrimaryState.estimateFireRange (distance);
+                    int band = WeaponKnowledge.getHeightBand (height);
+
+                    assertEquals (input, baselineSpam (type, distance, height),
+                                  describe (knowledge.getSpamAction (weapon, range, band), knowledge.getSpamCharge (weapon, range, band)));
+                }
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Advantage bands include their upper limit and fire mode bands exclude it.
+     */
+    @Test
+    public void bandEdges () {
+        assertEquals (WeaponKnowledge.CLOSE_RANGE, PrimaryState.estimateRange (CLOSE));
+        assertEquals (WeaponKnowledge.AVERAGE_RANGE, PrimaryState.estimateRange (AVERAGE));
+        assertEquals (WeaponKnowledge.FAR_RANGE, PrimaryState.estimateRange (FAR));
+
+        assertEquals (WeaponKnowledge.AVERAGE_RANGE, PrimaryState.estimateFireRange (CLOSE));
+        assertEquals (WeaponKnowledge.FAR_RANGE, PrimaryState.estimateFireRange (AVERAGE));
+        assertEquals (WeaponKnowledge.VERY_FAR_RANGE, PrimaryState.estimateFireRange (FAR));
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Describes a fire action the same way the baseline functions do.
+     * @param action NONE, STOP, PRIMARY, SECONDARY or SECONDARY_CHARGED.
+     * @param charge Seconds of charge (only for SECONDARY_CHARGED).
+     * @return The description.
+     */
+    private static String describe (final int action, final double charge) {
+        switch (action) {
+            case WeaponKnowledge.STOP: return "stop";
+            case WeaponKnowledge.PRIMARY: return "primary";
+            case WeaponKnowledge.SECONDARY: return "secondary";
+            case WeaponKnowledge.SECONDARY_CHARGED: return "charged:" + charge;
+            default: return "none";
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Fire mode of the original engage for an enemy on sight (calls to shoot
+     * are turned into descriptions).
+     */
+    private static String baselineFire (final ItemType weaponType, final double enemyDistance, final int enemyHeight,
+                                        final boolean secondaryAmmo) {
+        if (weaponType.equals(ItemType.SHIELD_GUN)) {
+            return "primary";
+        }
+        else if (weaponType.equals(ItemType.ASSAULT_RIFLE)) {
+            if (enemyDistance < CLOSE) {
+                return secondaryAmmo ? "primary" : "charged:" + 2.0;
+            }
+            else {
+                return secondaryAmmo ? "primary" : "charged:" + 3.0;
+            }
+        }
+        else if (weaponType.equals(ItemType.BIO_RIFLE)) {
+            if (enemyDistance < CLOSE) {
+                return "primary";
+            }
+            else {
+                return "charged:" + 3.0;
+            }
+        }
+        else if (weaponType.equals(ItemType.LINK_GUN)) {
+            if (enemyDistance < CLOSE) {
+                return "secondary";
+            }
+            else if (enemyDistance < AVERAGE) {
+                return "secondary";
+            }
+            else {
+                return "primary";
+            }
+        }
+        else if (weaponType.equals(ItemType.MINIGUN)) {
+            if (enemyDistance >= FAR) {
+                return "secondary";
+            }
+            else {
+                return "primary";
+            }
+        }
+        else if (weaponType.equals(ItemType.FLAK_CANNON)) {
+            if (enemyDistance < CLOSE) {
+                return "primary";
+            }
+            else if (enemyDistance < AVERAGE) {
+                if (enemyHeight == 0) {
+                    if (enemyDistance < AVERAGE/2) {
+                        return "primary";
+                    }
+                    else {
+                        return "secondary";
+                    }
+                }
+                else if (enemyHeight < 0) {
+                    return "primary";
+                }
+                else {
+                    return "secondary";
+                }
+            }
+            else if (enemyDistance < FAR) {
+                if (enemyHeight == 0 || enemyHeight < 0) {
+                    return "primary";
+                }
+                else {
+                    return "secondary";
+                }
+            }
+            else {
+                return "primary";
+            }
+        }
+        else if (weaponType.equals(ItemType.ROCKET_LAUNCHER)) {
+            return "primary";
+        }
+        else if (weaponType.equals(ItemType.SHOCK_RIFLE)) {
+            return "primary";
+        }
+        else if (weaponType.equals(ItemType.SNIPER_RIFLE) || weaponType.equals(ItemType.LIGHTNING_GUN)) {
+            return "primary";
+        }
+
+        return "none";
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Fire mode of the original engage for a spam (calls to shoot are turned
+     * into descriptions).
+     */
+    private static String baselineSpam (final ItemType weaponType, final double bullseyeDistance, final int bullseyeHeight) {
+        if(weaponType.equals(ItemType.ASSAULT_RIFLE)) {
+            if (bullseyeDistance < CLOSE) {
+                return "charged:" + 1.0;
+            }
+            else if (bullseyeDistance < AVERAGE) {
+                return "charged:" + 2.0;
+            }
+            else {
+                return "charged:" + 3.0;
+            }
+        }
+        else if(weaponType.equals(ItemType.BIO_RIFLE)) {
+            if (bullseyeDistance < CLOSE) {
+                return "charged:" + 1.5;
+            }
+            else {
+                return "charged:" + 3.0;
+            }
+        }
+        else if(weaponType.equals(ItemType.LINK_GUN)) {
+            return "primary";
+        }
+        else if(weaponType.equals(ItemType.FLAK_CANNON)) {
+            if (bullseyeDistance < CLOSE) {
+                return "primary";
+            }
+            else if (bullseyeDistance < AVERAGE) {
+                if (bullseyeHeight == 0) {
+                    return "primary";
+                }
+                else {
+                    return "secondary";
+                }
+            }
+            else if (bullseyeDistance < FAR) {
+                if (bullseyeHeight == 0 || bullseyeHeight < 0) {
+                    return "primary";
+                }
+                else {
+                    return "secondary";
+                }
+            }
+            else {
+                return "primary";
+            }
+        }
+        else if(weaponType.equals(ItemType.ROCKET_LAUNCHER)) {
+            return "primary";
+        }
+        else if (weaponType.equals(ItemType.SHOCK_RIFLE)) {
+            return "secondary";
+        }
+        else {
+            return "stop";
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * PrimaryState.estimateWeaponAdvantage as it was before the knowledge
+     * base, kept as the reference (the block comments are left out).
+     */
+    private static int baselineAdvantage (final ItemType type, final boolean enemyOnSight, final boolean spam,
+                                          final double enemyDistance, final int height, final int enemyHealthArmor) {
+        int profit = 0;
+
+        if (enemyOnSight) {
+            // SHIELD GUN
+
+            if(type.equals(ItemType.SHIELD_GUN)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 5;
+                    }
+                    else if (height < 0) {
+                        profit = 1;
+                    }
+                    else {
+                        profit = 1;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 0;
+                    }
+                    else if (height < 0) {
+                        profit = 1;
+                    }
+                    else {
+                        profit = 1;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 0;
+                    }
+                    else if (height < 0) {
+                        profit = 1;
+                    }
+                    else {
+                        profit = 1;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 1;
+                    }
+                    else if (height < 0) {
+                        profit = 1;
+                    }
+                    else {
+                        profit = 1;
+                    }
+                }
+            }
+
+            // ASSAULT RIFLE
+
+            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 10;
+                    }
+                    else if (height < 0) {
+                        profit = 10;
+                    }
+                    else {
+                        profit = 10;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 10;
+                    }
+                    else if (height < 0) {
+                        profit = 10;
+                    }
+                    else {
+                        profit = 20;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 10;
+                    }
+                    else if (height < 0) {
+                        profit = 20;
+                    }
+                    else {
+                        profit = 30;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 10;
+                    }
+                    else if (height < 0) {
+                        profit = 30;
+                    }
+                    else {
+                        profit = 30;
+                    }
+                }
+            }
+
+            // BIO RIFLE
+
+            else if (type.equals(ItemType.BIO_RIFLE)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 20;
+                    }
+                    else if (height < 0) {
+                        profit = 50;
+                    }
+                    else {
+                        profit = 50;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 30;
+                    }
+                    else if (height < 0) {
+                        profit = 40;
+                    }
+                    else {
+                        profit = 30;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 15;
+                    }
+                    else if (height < 0) {
+                        profit = 10;
+                    }
+                    else {
+                        profit = 10;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 0;
+                    }
+                    else if (height < 0) {
+                        profit = 0;
+                    }
+                    else {
+                        profit = 0;
+                    }
+                }
+            }
+
+            // LINK GUN
+
+            else if (type.equals(ItemType.LINK_GUN)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 80;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                    else if (height < 0) {
+                        profit = 40;
+                    }
+                    else {
+                        profit = 40;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 50;
+
+                        if (enemyHealthArmor < 100) {
+                            profit = 90;
+                        }
+                    }
+                    else if (height < 0) {
+                        profit = 20;
+                    }
+                    else {
+                        profit = 50;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 20;
+                    }
+                    else if (height < 0) {
+                        profit = 40;
+                    }
+                    else {
+                        profit = 50;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 20;
+                    }
+                    else if (height < 0) {
+                        profit = 40;
+                    }
+                    else {
+                        profit = 50;
+                    }
+                }
+            }
+
+            // MINIGUN
+
+            else if (type.equals(ItemType.MINIGUN)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 40;
+
+                        if (enemyHealthArmor < 100) {
+                            profit = 97;
+                        }
+                    }
+                    else if (height < 0) {
+                        profit = 60;
+                    }
+                    else {
+                        profit = 20;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 70;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                    else if (height < 0) {
+                        profit = 60;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                    else {
+                        profit = 60;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 80;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                    else if (height < 0) {
+                        profit = 60;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                    else {
+                        profit = 60;
+
+                        if (enemyHealthArmor < 70) {
+                            profit = 100;
+                        }
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 50;
+                    }
+                    else if (height < 0) {
+                        profit = 70;
+                    }
+                    else {
+                        profit = 70;
+                    }
+                }
+            }
+
+            // FLAK CANNON
+
+            else if (type.equals(ItemType.FLAK_CANNON)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 95;
+                    }
+                    else if (height < 0) {
+                        profit = 90;
+                    }
+                    else {
+                        profit = 100;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 80;
+                    }
+                    else if (height < 0) {
+                        profit = 80;
+                    }
+                    else {
+                        profit = 90;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 40;
+                    }
+                    else if (height < 0) {
+                        profit = 50;
+                    }
+                    else {
+                        profit = 70;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 20;
+                    }
+                    else if (height < 0) {
+                        profit = 60;
+                    }
+                    else {
+                        profit = 60;
+                    }
+                }
+            }
+
+            // ROCKET LAUNCHER
+
+            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 95;
+                    }
+                    else if (height < 0) {
+                        profit = 100;
+                    }
+                    else {
+                        profit = 60;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 90;
+                    }
+                    else if (height < 0) {
+                        profit = 90;
+                    }
+                    else {
+                        profit = 40;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 30;
+                    }
+                    else if (height < 0) {
+                        profit = 70;
+                    }
+                    else {
+                        profit = 40;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 10;
+                    }
+                    else if (height < 0) {
+                        profit = 50;
+                    }
+                    else {
+                        profit = 40;
+                    }
+                }
+            }
+
+            // SHOCK RIFLE
+
+            else if (type.equals(ItemType.SHOCK_RIFLE)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 30;
+                    }
+                    else if (height < 0) {
+                        profit = 80;
+                    }
+                    else {
+                        profit = 90;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 97;
+                    }
+                    else if (height < 0) {
+                        profit = 97;
+                    }
+                    else {
+                        profit = 100;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 80;
+                    }
+                    else if (height < 0) {
+                        profit = 90;
+                    }
+                    else {
+                        profit = 90;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 80;
+                    }
+                    else if (height < 0) {
+                        profit = 80;
+                    }
+                    else {
+                        profit = 80;
+                    }
+                }
+            }
+
+            // SNIPER RIFLE/LIGHTNING GUN
+
+            else if (type.equals(ItemType.SNIPER_RIFLE) || type.equals(ItemType.LIGHTNING_GUN)) {
+                if (enemyDistance <= CLOSE) {
+                    if (height == 0) {
+                        profit = 15;
+                    }
+                    else if (height < 0) {
+                        profit = 70;
+                    }
+                    else {
+                        profit = 70;
+                    }
+                }
+                else if (enemyDistance <= AVERAGE) {
+                    if (height == 0) {
+                        profit = 40;
+                    }
+                    else if (height < 0) {
+                        profit = 70;
+                    }
+                    else {
+                        profit = 70;
+                    }
+                }
+                else if (enemyDistance <= FAR) {
+                    if (height == 0) {
+                        profit = 90;
+                    }
+                    else if (height < 0) {
+                        profit = 80;
+                    }
+                    else {
+                        profit = 80;
+                    }
+                }
+                else if (enemyDistance > FAR) {
+                    if (height == 0) {
+                        profit = 100;
+                    }
+                    else if (height < 0) {
+                        profit = 100;
+                    }
+                    else {
+                        profit = 100;
+                    }
+                }
+            }
+        }
+        else if (spam) {
+            // If we are going to shoot a spam
+            if (type.equals(ItemType.SHIELD_GUN)) {
+                profit = 1;
+            }
+            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
+                profit = 50;
+            }
+            else if (type.equals(ItemType.BIO_RIFLE)) {
+                profit = 40;
+            }
+            else if (type.equals(ItemType.LINK_GUN)) {
+                profit = 60;
+            }
+            else if (type.equals(ItemType.MINIGUN)) {
+                profit = 5;
+            }
+            else if (type.equals(ItemType.FLAK_CANNON)) {
+                profit = 70;
+            }
+            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
+                profit = 90;
+            }
+            else if (type.equals(ItemType.SHOCK_RIFLE)) {
+                profit = 80;
+            }
+            else if (type.equals(ItemType.SHOCK_RIFLE) || type.equals(ItemType.SNIPER_RIFLE)) {
+                profit = 10;
+            }
+        }
+        // If the enemy is not on sight
+        else {
+            if (type.equals(ItemType.SHIELD_GUN)) {
+                profit = 1;
+            }
+            else if (type.equals(ItemType.ASSAULT_RIFLE)) {
+                profit = 10;
+            }
+            else if (type.equals(ItemType.BIO_RIFLE)) {
+                profit = 20;
+            }
+            else if (type.equals(ItemType.LINK_GUN)) {
+                profit = 50;
+            }
+            else if (type.equals(ItemType.MINIGUN)) {
+                profit = 40;
+            }
+            else if (type.equals(ItemType.FLAK_CANNON)) {
+                profit = 80;
+            }
+            else if (type.equals(ItemType.ROCKET_LAUNCHER)) {
+                profit = 70;
+            }
+            else if (type.equals(ItemType.SHOCK_RIFLE)) {
+                profit = 90;
+            }
+            else if (type.equals(ItemType.SHOCK_RIFLE) || type.equals(ItemType.SNIPER_RIFLE)) {
+                profit = 100;
+            }
+        }
+
+        return profit;
+    }
+}
@@ -0,0 +1,222 @@
+package bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class EventInboxTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random batch sizes (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Number of events that may wait in the inboxes of the tests */
+    private static final int CAPACITY = 8;
+    /** Number of batches offered and drained */
+    private static final int BATCHES = 1000;
+    /** Number of events offered by the producer thread */
+    private static final int EVENTS = 200000;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * The capacity is rounded up to a power of two.
+     */
+    @Test
+    public void capacityIsAPowerOfTwo () {
+        assertEquals (1, new EventInbox <Integer> (1).getCapacity ());
+        assertEquals (8, new EventInbox <Integer> (5).getCapacity ());
+        assertEquals (8, new EventInbox <Integer> (8).getCapacity ());
+        assertEquals (1024, new EventInbox <Integer> (1000).getCapacity ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Batches of every size, so the positions wrap around the end of the ring
+     * many times: every event is drained once, in arrival order and with its
+     * time.
+     */
+    @Test
+    public void drainsInArrivalOrderAcrossTheWrapAround () {
+        Random random = new Random (SEED);
+        EventInbox <Integer> inbox = new EventInbox <Integer> (CAPACITY);
+        Recorder recorder = new Recorder ();
+
+        int offered = 0;
+        for (int batch = 0; batch < BATCHES; ++batch) {
+            int size = random.nextInt (CAPACITY + 1);
+            for (int i = 0; i < size; ++i, ++offered) {
+                assertTrue (inbox.offer (offered, offered / 2.0));
+            }
+            assertEquals (size, inbox.size ());
+
+            assertEquals (size, inbox.drain (recorder));
+            assertEquals (0, inbox.size ());
+        }
+
+        assertTrue (offered > 4 * CAPACITY);
+        assertEquals (offered, recorder.events.size ());
+        for (int i = 0; i < offered; ++i) {
+            assertEquals (i, recorder.events.get (i).intValue ());
+            assertEquals (i / 2.0, recorder.times.get (i), 0);
+        }
+        assertEquals (0, inbox.getDropped ());
+        assertEquals (offered, inbox.getArrivals ());
+        assertEquals (BATCHES, inbox.getDrains ());
+        assertEquals (CAPACITY, inbox.getLargestBatch ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * When the inbox is full the new events are dropped and counted, the
+     * waiting ones are kept. Once it is drained there is room again.
+     */
+    @Test
+    public void dropsWhenFull () {
+        EventInbox <Integer> inbox = new EventInbox <Integer> (CAPACITY);
+        Recorder recorder = new Recorder ();
+
+        // Leave the positions in the middle of the ring before filling it
+        inbox.offer (-1, 0);
+        inbox.drain (recorder);
+        recorder.events.clear ();
+
+        for (int i = 0; i < CAPACITY + 3; ++i) {
+            assertEquals (i < CAPACITY, inbox.offer (i, i));
+        }
+        assertEquals (CAPACITY, inbox.size ());
+        assertEquals (3, inbox.getDropped ());
+        assertEquals (1 + CAPACITY + 3, inbox.getArrivals ());
+
+        assertEquals (CAPACITY, inbox.drain (recorder));
+        for (int i = 0; i < CAPACITY; ++i) {
+            assertEquals (i, recorder.events.get (i).intValue ());
+        }
+
+        assertTrue (inbox.offer (CAPACITY, 0));
+        assertEquals (1, inbox.drain (recorder));
+        assertEquals (CAPACITY, recorder.events.get (CAPACITY).intValue ());
+        assertEquals (3, inbox.getDropped ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * If the handler throws, the event that made it throw isn't handled
+     * again, the next drain goes on with the following one.
+     */
+    @Test
+    public void failedEventsAreNotHandledAgain () {
+        EventInbox <Integer> inbox = new EventInbox <Integer> (CAPACITY);
+        for (int i = 0; i < 4; ++i) {
+            inbox.offer (i, i);
+        }
+
+        final List <Integer> handled = new ArrayList <Integer> ();
+        try {
+            inbox.drain (new EventInbox.Handler <Integer> () {
+                public void handle (final Integer event, final double time) {
+                    handled.add (event);
+                    if (event == 1) {
+                        throw new IllegalStateException ();
+                    }
+                }
+            });
+            fail ();
+        }
+        catch (IllegalStateException e) {
+            // Expected
+        }
+
+        Recorder recorder = new Recorder ();
+        assertEquals (2, inbox.drain (recorder));
+        assertEquals (2, recorder.events.get (0).intValue ());
+        assertEquals (3, recorder.events.get (1).intValue ());
+        assertEquals (2, handled.size ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A producer thread offers events while the consumer drains them: every
+     * event is either drained, in arrival order, or counted as dropped.
+     */
+    @Test
+    public void producerAndConsumerThreads () throws InterruptedException {
+        final EventInbox <Integer> inbox = new EventInbox <Integer> (CAPACITY);
+        Thread producer = new Thread () {
+            @Override
+            public void run () {
+                for (int i = 0; i < EVENTS; ++i) {
+                    inbox.offer (i, i);
+                }
+            }
+        };
+
+        OrderChecker checker = new OrderChecker ();
+        producer.start ();
+        while (producer.isAlive ()) {
+            inbox.drain (checker);
+        }
+        producer.join ();
+        inbox.drain (checker);
+
+        assertEquals (EVENTS, checker.handled + inbox.getDropped ());
+        assertEquals (EVENTS, inbox.getArrivals ());
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Handler that keeps every event and its time.
+     */
+    private static class Recorder implements EventInbox.Handler <Integer> {
+        private List <Integer> events = new ArrayList <Integer> ();
+        private List <Double> times = new ArrayList <Double> ();
+
+        public void handle (final Integer event, final double time) {
+            events.add (event);
+            times.add (time);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Handler that checks the events arrive in increasing order with their
+     * own time.
+     */
+    private static class OrderChecker implements EventInbox.Handler <Integer> {
+        private int last = -1;
+        private int handled = 0;
+
+        public void handle (final Integer event, final double time) {
+            assertTrue (event + " after " + last, event > last);
+            assertEquals (event.doubleValue (), time, 0);
+            last = event;
+            ++handled;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package bot;
+
+import behaviour.primaryStates.PrimaryState;
+import brain.Brain;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+import fixtures.Fixtures;
+import java.lang.management.ManagementFactory;
+import knowledge.EnemyInfo;
+import knowledge.WeaponKnowledge;
+import knowledge.WorldSnapshot;
+import knowledge.WorldSnapshotPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class SteadyStateTickTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Weaponries of the ticks: the default one and a full one */
+    private static final ItemType WEAPONRIES [][] = {
+        {ItemType.SHIELD_GUN, ItemType.ASSAULT_RIFLE},
+        {ItemType.SHIELD_GUN, ItemType.ASSAULT_RIFLE, ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN,
+         ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER, ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE, ItemType.LIGHTNING_GUN}
+    };
+    /** Distances to the enemy (-1 if it isn't on sight) */
+    private static final double DISTANCES [] = {-1, 300, 1400, 2500};
+    /** Ticks run before measuring, so the JIT has compiled them */
+    private static final int WARM_UP = 100000;
+    /** Ticks measured */
+    private static final int TICKS = 10000;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * Once warmed up, the decisions of a logic tick that don't need a game
+     * (snapshot, states, weapon, random draws and trace) allocate nothing.
+     */
+    @Test
+    public void steadyStateTickDoesNotAllocate () {
+        com.sun.management.ThreadMXBean threads = getThreads ();
+        assumeTrue (threads != null);
+
+        long id = Thread.currentThread ().getId ();
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; ++i) {
+            long before = threads.getThreadAllocatedBytes (id);
+            overhead = Math.min (overhead, threads.getThreadAllocatedBytes (id) - before);
+        }
+
+        for (ItemType weapons [] : WEAPONRIES) {
+            for (double distance : DISTANCES) {
+                Tick tick = new Tick (weapons, distance);
+                tick.run (WARM_UP);
+
+                long before = threads.getThreadAllocatedBytes (id);
+                tick.run (TICKS);
+                long bytes = threads.getThreadAllocatedBytes (id) - before - overhead;
+
+                assertEquals ("weapons=" + weapons.length + " distance=" + distance + " B/tick=" + (double) bytes / TICKS,
+                              0, bytes);
+            }
+        }
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Allocation counters of the threads.
+     * @return The bean, null if the JVM doesn't count the allocated bytes.
+     */
+    private static com.sun.management.ThreadMXBean getThreads () {
+        try {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean ();
+            if (!threads.isThreadAllocatedMemorySupported ()) {
+                return null;
+            }
+
+            threads.setThreadAllocatedMemoryEnabled (true);
+            return threads;
+        }
+        catch (ClassCastException e) {
+            return null;
+        }
+        catch (NoClassDefFoundError e) {
+            return null;
+        }
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Decisions of a logic tick with a fixed state of the world.
+     */
+    private static class Tick {
+        private BotContext context = new BotContext ();
+        private Brain brain = new Brain (null, context);
+        private WeaponKnowledge knowledge = WeaponKnowledge.load ();
+        private WorldSnapshotPool snapshots = new WorldSnapshotPool ();
+        private DecisionTrace trace = new DecisionTrace (64);
+        private Weaponry weaponry;
+        private AgentInfo info = Fixtures.info (110, new Location (0, 0, 0));
+        private Game game = Fixtures.game (10);
+        private Player enemy;
+        private EnemyInfo enemyInfo = new EnemyInfo (100, 0, new boolean [] {true, true, false, false, false, false, false, true, true});
+        private int loadedWeapons = 0;
+        private long sink = 0;
+
+        private Tick (final ItemType weapons [], final double distance) {
+            weaponry = Fixtures.weaponry (weapons);
+            enemy = distance != -1 ? Fixtures.enemy ("DM-Test.xPawn0", new Location (distance, 0, 0)) : null;
+
+            for (ItemType type : weapons) {
+                if (WeaponKnowledge.getWeapon (type) != -1) {
+                    loadedWeapons |= 1 << WeaponKnowledge.getWeapon (type);
+                }
+            }
+        }
+
+        private void run (final int ticks) {
+            for (int i = 0; i < ticks; ++i) {
+                WorldSnapshot snapshot = snapshots.take (info, weaponry, game, enemy, enemyInfo);
+                int primaryState = brain.estimatePrimaryState (snapshot);
+                int secondaryState = brain.estimateSecondaryState (primaryState, snapshot);
+                int weapon = PrimaryState.estimateBestWeapon (knowledge, loadedWeapons, false, snapshot);
+                trace.record (snapshot, primaryState, secondaryState, null, null, loadedWeapons, null, 0);
+                sink += primaryState + secondaryState + weapon + context.random.nextInt (100);
+            }
+        }
+    }
+}
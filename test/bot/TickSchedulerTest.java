@@ -0,0 +1,176 @@
+package bot;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TickSchedulerTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Number of bots (and workers) */
+    private static final int BOTS = 4;
+    /** Number of ticks run by every bot */
+    private static final int TICKS = 200;
+    /** Number of times the wake up of the waiting bots is checked */
+    private static final int ROUNDS = 30;
+    /** Time a tick may wait for a worker (nanoseconds) */
+    private static final long DEADLINE = 10000000000L;
+    /** Time the bots wait for each other before we say they were serialized (milliseconds) */
+    private static final long TIMEOUT = 5000;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * With as many workers as bots every tick runs at the same time as the
+     * ticks of the other bots, none of them waits for a worker.
+     */
+    @Test
+    public void botsWithAWorkerEachNeverSerialize () throws Throwable {
+        TickScheduler scheduler = new TickScheduler (BOTS);
+        CyclicBarrier together = new CyclicBarrier (BOTS);
+
+        TickThread threads [] = new TickThread [BOTS];
+        for (int i = 0; i < BOTS; ++i) {
+            threads [i] = new TickThread (scheduler, scheduler.register ("Bot" + i, TickScheduler.getDefaultQuota ()),
+                                          together, TICKS);
+            threads [i].start ();
+        }
+
+        for (TickThread thread : threads) {
+            thread.check ();
+            assertEquals (TICKS, thread.account.getTicks ());
+            assertEquals (0, thread.account.getSkipped ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * When several workers are given back at once every waiting bot gets one,
+     * even if it wakes up before the bot that has to go first and goes back to
+     * sleep.
+     */
+    @Test
+    public void freedWorkersWakeEveryWaitingBot () throws Throwable {
+        for (int round = 0; round < ROUNDS; ++round) {
+            TickScheduler scheduler = new TickScheduler (2);
+            TickAccount holders [] = {scheduler.register ("Holder0", TickScheduler.getDefaultQuota ()),
+                                      scheduler.register ("Holder1", TickScheduler.getDefaultQuota ())};
+            for (TickAccount holder : holders) {
+                assertTrue (scheduler.begin (holder, System.nanoTime () + DEADLINE));
+            }
+
+            // The bot that arrives last has used less CPU, so it has to go first
+            CyclicBarrier together = new CyclicBarrier (2);
+            TickThread late = new TickThread (scheduler, scheduler.register ("Late", TickScheduler.getDefaultQuota ()),
+                                              together, 1);
+            TickThread early = new TickThread (scheduler, scheduler.register ("Early", TickScheduler.getDefaultQuota ()),
+                                               together, 1);
+            late.account.recordTick (1000000);
+            late.start ();
+            waitUntilBlocked (late);
+            early.start ();
+            waitUntilBlocked (early);
+
+            for (TickAccount holder : holders) {
+                scheduler.end (holder);
+            }
+
+            late.check ();
+            early.check ();
+            assertEquals ("round " + round, 0, late.account.getSkipped () + early.account.getSkipped ());
+        }
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Waits until a thread is waiting for a worker.
+     * @param thread Thread.
+     */
+    private static void waitUntilBlocked (final Thread thread) throws InterruptedException {
+        while (thread.getState () != Thread.State.TIMED_WAITING) {
+            Thread.sleep (1);
+        }
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Bot that runs its ticks through the scheduler. Every tick waits until
+     * the other bots are running a tick too.
+     */
+    private static class TickThread extends Thread {
+        private TickScheduler scheduler;
+        private TickAccount account;
+        private CyclicBarrier together;
+        private int ticks;
+        private Throwable failure = null;
+
+        private TickThread (final TickScheduler scheduler, final TickAccount account,
+                            final CyclicBarrier together, final int ticks) {
+            this.scheduler = scheduler;
+            this.account = account;
+            this.together = together;
+            this.ticks = ticks;
+        }
+
+        @Override
+        public void run () {
+            try {
+                for (int i = 0; i < ticks; ++i) {
+                    assertTrue (account.getName () + " skipped a tick",
+                                scheduler.begin (account, System.nanoTime () + DEADLINE));
+                    try {
+                        together.await (TIMEOUT, TimeUnit.MILLISECONDS);
+                    }
+                    finally {
+                        scheduler.end (account);
+                    }
+                }
+            }
+            catch (TimeoutException e) {
+                failure = new AssertionError (account.getName () + " ran its tick alone");
+            }
+            catch (BrokenBarrierException e) {
+                failure = new AssertionError (account.getName () + " ran its tick alone");
+            }
+            catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private void check () throws Throwable {
+            join ();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
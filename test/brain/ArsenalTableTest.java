@@ -0,0 +1,342 @@
+package brain;
+
+import bot.BotContext;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import fixtures.Fixtures;
+import java.util.ArrayList;
+import java.util.List;
+import knowledge.EnemyInfo;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class ArsenalTableTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Weapons read by compareArsenals */
+    private static final ItemType WEAPONS [] = {
+        ItemType.LINK_GUN, ItemType.MINIGUN, ItemType.FLAK_CANNON, ItemType.ROCKET_LAUNCHER,
+        ItemType.SHOCK_RIFLE, ItemType.LIGHTNING_GUN, ItemType.SNIPER_RIFLE
+    };
+
+    /** Length of the arsenal vector of EnemyInfo */
+    private static final int ARSENAL_SLOTS = EnemyInfo.LIGHTNING_GUN + 1;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * Every set of weapons we may carry against every arsenal vector the enemy
+     * may have: the table gives the scores, best score and best ranges of the
+     * original compareArsenals.
+     */
+    @Test
+    public void tableMatchesBaseline () {
+        Brain brain = new Brain (null, new BotContext ());
+
+        for (int weapons = 0; weapons < 1 << WEAPONS.length; ++weapons) {
+            Weaponry weaponry = weaponry (weapons);
+            int ownMask = ArsenalTable.getMask (weaponry);
+
+            for (int vector = 0; vector < 1 << ARSENAL_SLOTS; ++vector) {
+                boolean enemyArsenal [] = arsenal (vector);
+                int expected [] = baselineCompareArsenals (weaponry, enemyArsenal);
+                int comparison = ArsenalTable.compare (ownMask, ArsenalTable.getMask (enemyArsenal));
+                String input = "weapons=" + weapons + " arsenal=" + vector;
+
+                for (int range = 0; range < 3; ++range) {
+                    assertEquals (input, expected [range], ArsenalTable.getScore (comparison, range));
+                }
+                assertArrayEquals (input, expected, brain.compareArsenals (weaponry, enemyArsenal));
+
+                // Best score and best ranges as estimateSecondaryState used to compute them
+                int arsenalScore = expected [0];
+                int bestDefensiveRange = 0, bestOfensiveRange = 0;
+                for (int i = 1; i < expected.length; ++i) {
+                    if (expected [i] >= arsenalScore) {
+                        if (expected [i] == arsenalScore) {
+                            bestDefensiveRange = i;
+                        }
+                        else {
+                            bestOfensiveRange = i;
+                            bestDefensiveRange = i;
+                        }
+
+                        arsenalScore = expected [i];
+                    }
+                }
+
+                assertEquals (input, arsenalScore, ArsenalTable.getBestScore (comparison));
+                assertEquals (input, bestOfensiveRange, ArsenalTable.getBestOfensiveRange (comparison));
+                assertEquals (input, bestDefensiveRange, ArsenalTable.getBestDefensiveRange (comparison));
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The bit per slot encoding of the registry gives the same mask as the
+     * arsenal vector.
+     */
+    @Test
+    public void intMaskMatchesVectorMask () {
+        for (int vector = 0; vector < 1 << ARSENAL_SLOTS; ++vector) {
+            assertEquals (ArsenalTable.getMask (arsenal (vector)), ArsenalTable.getMask (vector));
+        }
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Weaponry that carries a subset of WEAPONS.
+     * @param subset Bit i set if WEAPONS [i] is carried.
+     * @return The weaponry.
+     */
+    private static Weaponry weaponry (final int subset) {
+        List <ItemType> carried = new ArrayList <ItemType> ();
+        for (int i = 0; i < WEAPONS.length; ++i) {
+            if ((subset & (1 << i)) != 0) {
+                carried.add (WEAPONS [i]);
+            }
+        }
+
+        return Fixtures.weaponry (carried.toArray (new ItemType [carried.size ()]));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Arsenal vector (indexed as in EnemyInfo) of a bit per slot.
+     * @param vector Bit i set if slot i is true.
+     * @return The arsenal vector.
+     */
+    private static boolean [] arsenal (final int vector) {
+        boolean arsenal [] = new boolean [ARSENAL_SLOTS];
+        for (int i = 0; i < ARSENAL_SLOTS; ++i) {
+            arsenal [i] = (vector & (1 << i)) != 0;
+        }
+
+        return arsenal;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Brain.compareArsenals as it was before the table, kept verbatim as the
+     * reference.
+     */
+    private static int [] baselineCompareArsenals (final Weaponry weaponry, final boolean enemyArsenal []) {
+        int arsenalProfit [] = new int [3];
+        int enemyTotalProfit [] = new int [3];
+        int ownTotalProfit [] = new int [3];
+        int ownProfit = 0;
+        int enemyProfit = 0;
+
+        // FAR DISTANCE
+
+        if ((weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN) || weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE)) && weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
+            ownProfit = 100;
+        }
+        else if (weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN) || weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE)) {
+            ownProfit = 90;
+        }
+        else if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
+            ownProfit = 80;
+        }
+        else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+            ownProfit = 40;
+        }
+
+        if (enemyArsenal [EnemyInfo.LIGHTNING_GUN] && enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            enemyProfit = 100;
+        }
+        else if (enemyArsenal [EnemyInfo.LIGHTNING_GUN]) {
+            enemyProfit = 90;
+        }
+        else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+            enemyProfit = 80;
+        }
+        else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+            enemyProfit = 40;
+        }
+
+        ownTotalProfit [2] = ownProfit;
+        enemyTotalProfit [2] = enemyProfit;
+
+        ownProfit = enemyProfit = 0;
+
+        // AVERAGE DISTANCE
+
+        if ((weaponry.hasLoadedWeapon(ItemType.FLAK_CANNON) || weaponry.hasLoadedWeapon(ItemType.ROCKET_LAUNCHER))) {
+            if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE) && weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+                ownProfit = 100;
+            }
+            else if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE)) {
+                ownProfit = 95;
+            }
+            else if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+                ownProfit = 90;
+            }
+            else if (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN)) {
+                ownProfit = 85;
+            }
+            else {
+                ownProfit = 80;
+            }
+        }
+        else {
+            if (weaponry.hasLoadedWeapon(ItemType.SHOCK_RIFLE) && (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN))) {
+                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+                    ownProfit = 80;
+                }
+                else {
+                    ownProfit = 75;
+                }
+            }
+            else if (weaponry.hasLoadedWeapon (ItemType.SHOCK_RIFLE)) {
+                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+                    ownProfit = 60;
+                }
+                else {
+                    ownProfit = 50;
+                }
+            }
+            else if (weaponry.hasLoadedWeapon(ItemType.SNIPER_RIFLE) || weaponry.hasLoadedWeapon(ItemType.LIGHTNING_GUN)) {
+                if (weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+                    ownProfit = 40;
+                }
+                else {
+                    ownProfit = 10;
+                }
+            }
+            else if (weaponry.hasLoadedWeapon (ItemType.MINIGUN)) {
+                ownProfit = 30;
+            }
+        }
+
+        if ((enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal [EnemyInfo.ROCKET_LAUNCHER])) {
+            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 100;
+            }
+            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                enemyProfit = 90;
+            }
+            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 80;
+            }
+            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                enemyProfit = 70;
+            }
+            else {
+                enemyProfit = 60;
+            }
+        }
+        else {
+            if (enemyArsenal [EnemyInfo.SHOCK_RIFLE] && (enemyArsenal [EnemyInfo.SNIPER_RIFLE])) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 90;
+                }
+                else {
+                    enemyProfit = 60;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.SHOCK_RIFLE]) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 55;
+                }
+                else {
+                    enemyProfit = 50;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.SNIPER_RIFLE]) {
+                if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                    enemyProfit = 40;
+                }
+                else {
+                    enemyProfit = 10;
+                }
+            }
+            else if (enemyArsenal [EnemyInfo.MINIGUN]) {
+                enemyProfit = 30;
+            }
+        }
+
+        ownTotalProfit [1] = ownProfit;
+        enemyTotalProfit [1] = enemyProfit;
+
+        ownProfit = enemyProfit = 0;
+
+        // CLOSE DISTANCE
+
+        if (weaponry.hasLoadedWeapon(ItemType.FLAK_CANNON) || weaponry.hasLoadedWeapon(ItemType.ROCKET_LAUNCHER)) {
+            if (weaponry.hasLoadedWeapon(ItemType.LINK_GUN) || weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+               ownProfit = 100;
+            }
+            else {
+                ownProfit = 90;
+            }
+        }
+        else if (weaponry.hasLoadedWeapon(ItemType.LINK_GUN) || weaponry.hasLoadedWeapon(ItemType.MINIGUN)) {
+            ownProfit = 50;
+        }
+
+        if (enemyArsenal [EnemyInfo.FLAK_CANNON] || enemyArsenal[EnemyInfo.ROCKET_LAUNCHER]) {
+            if (enemyArsenal[EnemyInfo.LINK_GUN] || enemyArsenal[EnemyInfo.MINIGUN]) {
+               enemyProfit = 100;
+            }
+            else {
+                enemyProfit = 90;
+            }
+        }
+        else if (enemyArsenal[EnemyInfo.LINK_GUN] || enemyArsenal[EnemyInfo.MINIGUN]) {
+            enemyProfit = 50;
+        }
+
+        ownTotalProfit [0] = ownProfit;
+        enemyTotalProfit [0] = enemyProfit;
+
+        // RESULTS
+
+        for (int i = 0; i < 3; ++i) {
+            int dif = ownTotalProfit [i] - enemyTotalProfit [i];
+            if (dif >= -10 && dif <= 10 ) {
+                arsenalProfit [i] = 3;
+            }
+            else if(dif >= 0) {
+                if (dif > 10 && dif <= 30) {
+                    arsenalProfit [i] = 4;
+                }
+                else
+                    arsenalProfit [i] = 5;
+            }
+            else {
+                if (dif < -10 && dif >= -30) {
+                    arsenalProfit [i] = 2;
+                }
+                else
+                    arsenalProfit [i] = 1;
+            }
+        }
+
+        return arsenalProfit;
+    }
+}
@@ -0,0 +1,250 @@
+package fixtures;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Rotation;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Velocity;
+import cz.cuni.amis.pogamut.unreal.communication.messages.UnrealId;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.Game;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPointMessage;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPointNeighbourLink;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.Player;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.PlayerMessage;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class Fixtures {
+
+    // *************************************************************************
+    //                                METHODS
+    // *************************************************************************
+
+
+    /**
+     * Builds a weaponry that carries the given weapons, all of them loaded.
+     * @param weapons Weapons carried.
+     * @return The weaponry.
+     */
+    public static Weaponry weaponry (final ItemType ... weapons) {
+        FixedWeaponry weaponry = allocate (FixedWeaponry.class);
+        weaponry.carried = new HashSet <ItemType> ();
+        weaponry.loaded = new HashSet <ItemType> ();
+
+        for (ItemType type : weapons) {
+            weaponry.carried.add (type);
+            weaponry.loaded.add (type);
+        }
+
+        return weaponry;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Marks a weapon of a fixture weaponry as carried but without ammo.
+     * @param weaponry Weaponry built by weaponry ().
+     * @param type Weapon.
+     */
+    public static void empty (final Weaponry weaponry, final ItemType type) {
+        ((FixedWeaponry) weaponry).carried.add (type);
+        ((FixedWeaponry) weaponry).loaded.remove (type);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the agent information of a bot.
+     * @param health Bot's health.
+     * @param location Bot's location.
+     * @return The agent information.
+     */
+    public static AgentInfo info (final int health, final Location location) {
+        FixedAgentInfo info = allocate (FixedAgentInfo.class);
+        info.health = health;
+        info.location = location;
+
+        return info;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds the game information.
+     * @param time Current game time.
+     * @return The game information.
+     */
+    public static Game game (final double time) {
+        FixedGame game = allocate (FixedGame.class);
+        game.time = time;
+
+        return game;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds an enemy on sight holding a flak cannon.
+     * @param id Id of the enemy.
+     * @param location Location of the enemy.
+     * @return The enemy.
+     */
+    public static Player enemy (final String id, final Location location) {
+        return new PlayerMessage (UnrealId.get (id), "", "Enemy", "", true, new Rotation (0, 0, 0),
+                                  location, new Velocity (0, 0, 0), 255, "XWeapons.FlakCannon", true, 0);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a NavPoint without edges.
+     * @param id Id of the NavPoint.
+     * @param location Location of the NavPoint.
+     * @return The NavPoint.
+     */
+    public static NavPoint navPoint (final String id, final Location location) {
+        return new FixedNavPoint (UnrealId.get (id), location);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Adds an edge to the navigation graph.
+     * @param from NavPoint built by navPoint () where the edge starts.
+     * @param to NavPoint where the edge ends.
+     */
+    public static void link (final NavPoint from, final NavPoint to) {
+        from.getOutgoingEdges ().put (to.getId (), new NavPointNeighbourLink ());
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Creates an instance without running its constructors, Pogamut modules
+     * can't be built without a connected bot and the tests don't need one.
+     * @param type Class to be instantiated.
+     * @return The instance (its fields are not initialized).
+     */
+    @SuppressWarnings ("unchecked")
+    public static <T> T allocate (final Class <T> type) {
+        try {
+            Class <?> factoryClass = Class.forName ("sun.reflect.ReflectionFactory");
+            Object factory = factoryClass.getMethod ("getReflectionFactory").invoke (null);
+            Constructor <?> constructor = (Constructor <?>) factoryClass
+                .getMethod ("newConstructorForSerialization", Class.class, Constructor.class)
+                .invoke (factory, type, Object.class.getDeclaredConstructor ());
+
+            return (T) constructor.newInstance ();
+        }
+        catch (Exception e) {
+            throw new IllegalStateException ("Can't allocate " + type.getName (), e);
+        }
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Weaponry with a fixed set of weapons.
+     */
+    private static class FixedWeaponry extends Weaponry {
+        private Set <ItemType> carried;
+        private Set <ItemType> loaded;
+
+        private FixedWeaponry () {
+            super (null);
+        }
+
+        @Override
+        public boolean hasLoadedWeapon (ItemType type) {
+            return loaded.contains (type);
+        }
+
+        @Override
+        public boolean hasWeapon (ItemType type) {
+            return carried.contains (type);
+        }
+
+        @Override
+        public boolean isLoaded (ItemType type) {
+            return loaded.contains (type);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Agent information with a fixed health and location.
+     */
+    private static class FixedAgentInfo extends AgentInfo {
+        // Boxed once, as the Self message keeps it, so reading it doesn't allocate
+        private Integer health;
+        private Location location;
+
+        private FixedAgentInfo () {
+            super (null);
+        }
+
+        @Override
+        public Integer getHealth () {
+            return health;
+        }
+
+        @Override
+        public Location getLocation () {
+            return location;
+        }
+
+        @Override
+        public Double getDistance (ILocated target) {
+            return location.getDistance (target.getLocation ());
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Game information with a fixed time.
+     */
+    private static class FixedGame extends Game {
+        private double time;
+
+        private FixedGame () {
+            super (null);
+        }
+
+        @Override
+        public double getTime () {
+            return time;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * NavPoint that only has an id, a location and outgoing edges.
+     */
+    private static class FixedNavPoint extends NavPointMessage {
+        private FixedNavPoint (final UnrealId id, final Location location) {
+            Id = id;
+            Location = location;
+            OutgoingEdges = new HashMap <UnrealId, NavPointNeighbourLink> ();
+            IncomingEdges = new HashMap <UnrealId, NavPointNeighbourLink> ();
+        }
+    }
+}
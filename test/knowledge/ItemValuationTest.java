@@ -0,0 +1,546 @@
+package knowledge;
+
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensomotoric.Weaponry;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.ItemType.Category;
+import fixtures.Fixtures;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class ItemValuationTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Weapons whose state matters to the valuations */
+    private static final ItemType WEAPONS [] = {
+        ItemType.BIO_RIFLE, ItemType.LINK_GUN, ItemType.MINIGUN, ItemType.FLAK_CANNON,
+        ItemType.ROCKET_LAUNCHER, ItemType.SHOCK_RIFLE, ItemType.SNIPER_RIFLE, ItemType.LIGHTNING_GUN
+    };
+
+    /** Health on both sides of every band edge */
+    private static final int HEALTH [] = {1, 69, 70, 99, 100, 149, 150, 199};
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * Every item type against every weaponry (each weapon missing, empty or
+     * loaded) and health: the greedy valuation gives the priority of the
+     * original Greedy.estimateItemPriority.
+     */
+    @Test
+    public void greedyMatchesBaseline () {
+        ItemValuation valuation = ItemValuation.greedy ();
+        List <ItemType> types = getItemTypes ();
+
+        for (int states = 0; states < pow3 (WEAPONS.length); ++states) {
+            Weaponry weaponry = weaponry (states);
+            valuation.update (weaponry);
+
+            for (ItemType type : types) {
+                for (int health : HEALTH) {
+                    assertEquals (type.getName () + " states=" + states + " health=" + health,
+                                  baselineGreedy (type, health, weaponry), valuation.getPriority (type, health));
+                }
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Every item type against every weaponry: the destination valuation gives
+     * the priority of the original Brain.estimateItemPriority, whatever our
+     * health is.
+     */
+    @Test
+    public void destinationMatchesBaseline () {
+        ItemValuation valuation = ItemValuation.destination ();
+        List <ItemType> types = getItemTypes ();
+
+        for (int states = 0; states < pow3 (WEAPONS.length); ++states) {
+            Weaponry weaponry = weaponry (states);
+            valuation.update (weaponry);
+
+            for (ItemType type : types) {
+                for (int health : HEALTH) {
+                    assertEquals (type.getName () + " states=" + states + " health=" + health,
+                                  baselineDestination (type, weaponry), valuation.getPriority (type, health));
+                }
+            }
+        }
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Every item type Pogamut knows about.
+     * @return The item types.
+     */
+    private static List <ItemType> getItemTypes () {
+        List <ItemType> types = new ArrayList <ItemType> ();
+
+        for (Field field : ItemType.class.getFields ()) {
+            if (Modifier.isStatic (field.getModifiers ()) && field.getType ().equals (ItemType.class)) {
+                try {
+                    types.add ((ItemType) field.get (null));
+                }
+                catch (IllegalAccessException e) {
+                    throw new IllegalStateException (e);
+                }
+            }
+        }
+
+        return types;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Weaponry where every weapon of WEAPONS is missing, empty or loaded.
+     * @param states State of every weapon in base 3 (0 missing, 1 empty, 2 loaded).
+     * @return The weaponry.
+     */
+    private static Weaponry weaponry (final int states) {
+        List <ItemType> loaded = new ArrayList <ItemType> ();
+        for (int i = 0, state = states; i < WEAPONS.length; ++i, state /= 3) {
+            if (state % 3 == 2) {
+                loaded.add (WEAPONS [i]);
+            }
+        }
+
+        Weaponry weaponry = Fixtures.weaponry (loaded.toArray (new ItemType [loaded.size ()]));
+        for (int i = 0, state = states; i < WEAPONS.length; ++i, state /= 3) {
+            if (state % 3 == 1) {
+                Fixtures.empty (weaponry, WEAPONS [i]);
+            }
+        }
+
+        return weaponry;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Power of 3.
+     * @param exponent Exponent.
+     * @return 3 raised to the exponent.
+     */
+    private static int pow3 (final int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; ++i) {
+            result *= 3;
+        }
+
+        return result;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Brain.estimateItemPriority as it was before the valuation table, kept
+     * verbatim as the reference.
+     */
+    private static int baselineDestination (final ItemType type, final Weaponry weaponry) {
+        int priority = -1;
+
+        if (type.equals (ItemType.SUPER_SHIELD_PACK)) {
+            priority = 100;
+        }
+        else if (type.equals (ItemType.SHIELD_PACK)) {
+            priority = 90;
+        }
+        else if (type.equals (ItemType.SNIPER_RIFLE) || type.equals (ItemType.LIGHTNING_GUN)) {
+            if (!weaponry.hasLoadedWeapon (type)) {
+                priority = 90;
+            }
+        }
+        else if (type.equals (ItemType.SHOCK_RIFLE)) {
+            if (!weaponry.hasLoadedWeapon (type)) {
+                priority = 90;
+            }
+        }
+        else if (type.equals (ItemType.FLAK_CANNON) || type.equals (ItemType.ROCKET_LAUNCHER)) {
+            if (!weaponry.hasWeapon(ItemType.FLAK_CANNON) && !weaponry.hasWeapon(ItemType.ROCKET_LAUNCHER)) {
+                priority = 85;
+            }
+        }
+        else if (type.equals (ItemType.MINIGUN)) {
+            if (!weaponry.hasWeapon (type)) {
+                priority = 80;
+            }
+        }
+
+        return priority;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Greedy.estimateItemPriority as it was before the valuation table, kept
+     * as the reference (the repeated comments are left out).
+     */
+    private static int baselineGreedy (final ItemType type, final int health, final Weaponry weaponry) {
+        int priority = 0;
+
+        if (type.equals(ItemType.MINI_HEALTH_PACK)) {
+            if (health < 70) {
+                priority = 90;
+            }
+            else if (health < 100) {
+                priority = 65;
+            }
+            else if (health < 150) {
+                priority = 75;
+            }
+            else {
+                priority = 65;
+            }
+        }
+        else if (type.equals(ItemType.HEALTH_PACK)) {
+            if (health < 70) {
+                priority = 95;
+            }
+            else if (health < 100) {
+                priority = 75;
+            }
+            else {
+                priority = 0;
+            }
+        }
+        else if (type.equals(ItemType.SUPER_SHIELD_PACK)) {
+            if (health < 70) {
+                priority = 99;
+            }
+            else if (health < 100) {
+                priority = 99;
+            }
+            else if (health < 150) {
+                priority = 99;
+            }
+            else {
+                priority = 99;
+            }
+        }
+        else if (type.equals(ItemType.SHIELD_PACK)) {
+            if (health < 70) {
+                priority = 85;
+            }
+            else if (health < 100) {
+                priority = 98;
+            }
+            else if (health < 150) {
+                priority = 98;
+            }
+            else {
+                priority = 98;
+            }
+        }
+        else if (type.equals (ItemType.U_DAMAGE_PACK)) {
+            if (health < 70) {
+                priority = 100;
+            }
+            else if (health < 100) {
+                priority = 100;
+            }
+            else if (health < 150) {
+                priority = 100;
+            }
+            else {
+                priority = 100;
+            }
+        }
+        else if (type.equals (ItemType.ADRENALINE_PACK)) {
+            if (health < 70) {
+                priority = 40;
+            }
+            else if (health < 100) {
+                priority = 40;
+            }
+            else if (health < 150) {
+                priority = 40;
+            }
+            else {
+                priority = 40;
+            }
+        }
+        else if (type.getCategory().equals(Category.AMMO)) {
+            if (health < 70) {
+                priority = 20;
+            }
+            else if (health < 100) {
+                priority = 20;
+            }
+            else if (health < 150) {
+                priority = 20;
+            }
+            else {
+                priority = 20;
+            }
+        }
+        else if (type.equals (ItemType.BIO_RIFLE)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 50;
+                }
+                else {
+                    priority = 25;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 55;
+                }
+                else {
+                    priority = 25;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 60;
+                }
+                else {
+                    priority = 35;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 60;
+                }
+                else {
+                    priority = 35;
+                }
+            }
+        }
+        else if (type.equals (ItemType.LINK_GUN)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 55;
+                }
+                else {
+                    priority = 30;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 60;
+                }
+                else {
+                    priority = 35;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 65;
+                }
+                else {
+                    priority = 40;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 70;
+                }
+                else {
+                    priority = 45;
+                }
+            }
+        }
+        else if (type.equals (ItemType.MINIGUN)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 65;
+                }
+                else {
+                    priority = 40;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 80;
+                }
+                else {
+                    priority = 55;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 80;
+                }
+                else {
+                    priority = 55;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 80;
+                }
+                else {
+                    priority = 55;
+                }
+            }
+        }
+        else if (type.equals (ItemType.FLAK_CANNON)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 70;
+                }
+                else {
+                    priority = 45;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 85;
+                }
+                else {
+                    priority = 60;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 85;
+                }
+                else {
+                    priority = 60;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 85;
+                }
+                else {
+                    priority = 60;
+                }
+            }
+        }
+        else if (type.equals (ItemType.ROCKET_LAUNCHER)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 60;
+                }
+                else {
+                    priority = 35;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 70;
+                }
+                else {
+                    priority = 45;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 70;
+                }
+                else {
+                    priority = 45;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 75;
+                }
+                else {
+                    priority = 50;
+                }
+            }
+        }
+        else if (type.equals (ItemType.SHOCK_RIFLE)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 80;
+                }
+                else {
+                    priority = 55;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 95;
+                }
+                else {
+                    priority = 80;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 95;
+                }
+                else {
+                    priority = 80;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 95;
+                }
+                else {
+                    priority = 80;
+                }
+            }
+        }
+        else if (type.equals (ItemType.SNIPER_RIFLE) || type.equals(ItemType.LIGHTNING_GUN)) {
+            if (health < 70) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 75;
+                }
+                else {
+                    priority = 50;
+                }
+            }
+            else if (health < 100) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 90;
+                }
+                else {
+                    priority = 65;
+                }
+            }
+            else if (health < 150) {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 90;
+                }
+                else {
+                    priority = 65;
+                }
+            }
+            else {
+                if (!weaponry.hasWeapon(type) || !weaponry.isLoaded(type)) {
+                    priority = 90;
+                }
+                else {
+                    priority = 65;
+                }
+            }
+        }
+        else {
+            priority = -1;
+        }
+
+        return priority;
+    }
+}
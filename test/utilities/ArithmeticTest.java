@@ -0,0 +1,180 @@
+package utilities;
+
+import bot.BotContext;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Rotation;
+import cz.cuni.amis.pogamut.ut2004.agent.module.sensor.AgentInfo;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+import fixtures.Fixtures;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class ArithmeticTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random inputs (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Focus points are compared with this absolute error (UT units) */
+    private static final double PRECISION = 1e-9;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * When every pair of NavPoints is joined by an edge the travel distance is
+     * the straight line, so standing on NavPoints the run zone is the one the
+     * original straight line getBestRunZone chose.
+     */
+    @Test
+    public void bestRunZoneMatchesBaselineOnOpenMaps () {
+        Random random = new Random (SEED);
+
+        for (int map = 0; map < 20; ++map) {
+            NavPoint navPoints [] = new NavPoint [30];
+            for (int i = 0; i < navPoints.length; ++i) {
+                navPoints [i] = Fixtures.navPoint ("DM-Test.PathNode" + i, new Location (random.nextInt (6000) - 3000,
+                                                   random.nextInt (6000) - 3000, random.nextInt (600)));
+            }
+            for (NavPoint from : navPoints) {
+                for (NavPoint to : navPoints) {
+                    if (from != to) {
+                        Fixtures.link (from, to);
+                    }
+                }
+            }
+
+            BotContext context = new BotContext ();
+            context.areas = new NavPoint [10];
+            System.arraycopy (navPoints, 0, context.areas, 0, context.areas.length);
+            context.navigationDistances = new NavigationDistances (navPoints, context.areas);
+
+            for (int i = 0; i < navPoints.length; ++i) {
+                for (int j = 0; j < navPoints.length; ++j) {
+                    AgentInfo info = Fixtures.info (100, navPoints [i].getLocation ());
+                    Location enemyLocation = navPoints [j].getLocation ();
+
+                    assertEquals ("map=" + map + " bot=" + i + " enemy=" + j, baselineBestRunZone (enemyLocation, info, context.areas),
+                                  Arithmetic.getBestRunZone (enemyLocation, info, context));
+                }
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A wall between the bot and an area makes it a worse run zone than the
+     * straight line says.
+     */
+    @Test
+    public void bestRunZoneFollowsTheGraph () {
+        NavPoint bot = Fixtures.navPoint ("DM-Test.PathNode0", new Location (0, 0, 0));
+        NavPoint enemy = Fixtures.navPoint ("DM-Test.PathNode1", new Location (-1000, 0, 0));
+        NavPoint behindWall = Fixtures.navPoint ("DM-Test.PathNode2", new Location (1000, 0, 0));
+        NavPoint detour = Fixtures.navPoint ("DM-Test.PathNode3", new Location (-1000, 3000, 0));
+        NavPoint aside = Fixtures.navPoint ("DM-Test.PathNode4", new Location (0, 900, 0));
+
+        // The area behind the wall can only be reached through the detour
+        Fixtures.link (bot, aside);
+        Fixtures.link (aside, bot);
+        Fixtures.link (enemy, bot);
+        Fixtures.link (bot, enemy);
+        Fixtures.link (aside, detour);
+        Fixtures.link (enemy, detour);
+        Fixtures.link (detour, behindWall);
+
+        BotContext context = new BotContext ();
+        context.areas = new NavPoint [] {behindWall, aside};
+        context.navigationDistances = new NavigationDistances (new NavPoint [] {bot, enemy, behindWall, detour, aside}, context.areas);
+        AgentInfo info = Fixtures.info (100, bot.getLocation ());
+
+        assertEquals (behindWall.getLocation (), baselineBestRunZone (enemy.getLocation (), info, context.areas));
+        assertEquals (aside.getLocation (), Arithmetic.getBestRunZone (enemy.getLocation (), info, context));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * The focus point worked out in closed form is the one Rotation.toLocation
+     * gave, roll included.
+     */
+    @Test
+    public void rotationToLocationMatchesBaseline () {
+        Random random = new Random (SEED);
+
+        for (int i = 0; i < 10000; ++i) {
+            Location botLocation = new Location (random.nextInt (6000) - 3000, random.nextInt (6000) - 3000, random.nextInt (600));
+            // Whole turns (and beyond) in both directions, as UT sends them
+            Rotation rotation = new Rotation (random.nextInt (131072) - 65536, random.nextInt (131072) - 65536,
+                                              random.nextInt (131072) - 65536);
+            AgentInfo info = Fixtures.info (100, botLocation);
+
+            Location expected = baselineRotationToLocation (info, rotation);
+            Location actual = Arithmetic.rotationToLocation (info, rotation);
+
+            assertEquals (rotation.toString (), expected.x, actual.x, PRECISION);
+            assertEquals (rotation.toString (), expected.y, actual.y, PRECISION);
+            assertEquals (rotation.toString (), expected.z, actual.z, PRECISION);
+        }
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Arithmetic.rotationToLocation as it was before the closed form.
+     * @param info Agent information.
+     * @param rotation Rotation.
+     * @return Spot 500 units away from the bot in the direction of the rotation.
+     */
+    private static Location baselineRotationToLocation (final AgentInfo info, final Rotation rotation) {
+        Location directionVector = rotation.toLocation().getNormalized();
+        Location botLocation = info.getLocation();
+
+        return botLocation.add (directionVector.scale(500));
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Arithmetic.getBestRunZone as it was before the travel distances.
+     * @param enemyLocation Position of the enemy.
+     * @param info Agent information.
+     * @param areas Important areas of the map.
+     * @return Best run spot to stay away from the enemy.
+     */
+    private static Location baselineBestRunZone (final Location enemyLocation, final AgentInfo info, final NavPoint areas []) {
+        Location targetSpot = null;
+
+        double maxDistToEnemy = 0;
+        for (int i = 0; i < areas.length; ++i) {
+            Location currentSpot = areas [i].getLocation();
+            double distToEnemy = enemyLocation.getDistance (currentSpot);
+
+            if (distToEnemy > maxDistToEnemy && info.getDistance (currentSpot) < distToEnemy) {
+                maxDistToEnemy = distToEnemy;
+                targetSpot = areas [i].getLocation ();
+            }
+        }
+
+        return targetSpot;
+    }
+}
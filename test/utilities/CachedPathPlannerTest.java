@@ -0,0 +1,294 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base.agent.navigation.IPathFuture;
+import cz.cuni.amis.pogamut.base.agent.navigation.IPathPlanner;
+import cz.cuni.amis.pogamut.base.agent.navigation.impl.PathFuture;
+import cz.cuni.amis.pogamut.base.agent.navigation.impl.PrecomputedPathFuture;
+import cz.cuni.amis.pogamut.base3d.worldview.object.ILocated;
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+import cz.cuni.amis.utils.future.FutureStatus;
+import fixtures.Fixtures;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class CachedPathPlannerTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random map and queries (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Number of NavPoints of the map */
+    private static final int NAVPOINTS = 40;
+    /** Number of paths asked */
+    private static final int QUERIES = 3000;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * A planner that puts the start and the goal in the route gets, from the
+     * cache, the same route it would have computed, with our endpoints.
+     */
+    @Test
+    public void cachedRoutesMatchThePlannerWithEndpoints () {
+        checkAgainstPlanner (true);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A planner that only puts NavPoints in the route gets, from the cache,
+     * the same NavPoints it would have computed.
+     */
+    @Test
+    public void cachedRoutesMatchThePlannerWithoutEndpoints () {
+        checkAgainstPlanner (false);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A path that is being computed is only shared with requests for the same
+     * spots.
+     */
+    @Test
+    public void pendingPathsAreOnlySharedWithTheSameSpots () {
+        NavPoint navPoints [] = randomMap (new Random (SEED));
+        PendingPlanner planner = new PendingPlanner ();
+        CachedPathPlanner cache = new CachedPathPlanner (planner, CachedPathPlanner.DEFAULT_CAPACITY);
+        cache.reset (new NavPointIndex (navPoints));
+
+        Location from = offset (navPoints [0].getLocation (), 5);
+        Location to = offset (navPoints [1].getLocation (), 5);
+        IPathFuture <ILocated> first = cache.computePath (from, to);
+
+        assertSame (first, cache.computePath (new Location (from), new Location (to)));
+        assertEquals (1, planner.calls);
+
+        Location moved = offset (from, 1);
+        IPathFuture <ILocated> other = cache.computePath (moved, to);
+        assertNotSame (first, other);
+        assertSame (moved, other.getPathFrom ());
+        assertEquals (2, planner.calls);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * After a reset to another map (or to no map) the old paths are not used.
+     */
+    @Test
+    public void resetForgetsThePaths () {
+        NavPoint navPoints [] = randomMap (new Random (SEED));
+        GraphPlanner planner = new GraphPlanner (navPoints, true);
+        CachedPathPlanner cache = new CachedPathPlanner (planner, CachedPathPlanner.DEFAULT_CAPACITY);
+        cache.reset (new NavPointIndex (navPoints));
+
+        Location from = navPoints [0].getLocation ();
+        Location to = navPoints [1].getLocation ();
+        cache.computePath (from, to);
+        cache.computePath (from, to);
+        assertEquals (1, cache.getHits ());
+
+        cache.reset (null);
+        cache.computePath (from, to);
+        cache.reset (new NavPointIndex (navPoints));
+        cache.computePath (from, to);
+        assertEquals (1, cache.getHits ());
+        assertEquals (3, planner.calls);
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Asks for random paths through the cache and straight to the planner and
+     * checks they are the same.
+     * @param endpoints True if the planner puts the start and the goal in the
+     * route.
+     */
+    private static void checkAgainstPlanner (final boolean endpoints) {
+        Random random = new Random (SEED);
+        NavPoint navPoints [] = randomMap (random);
+        GraphPlanner planner = new GraphPlanner (navPoints, endpoints);
+        CachedPathPlanner cache = new CachedPathPlanner (planner, 64);
+        cache.reset (new NavPointIndex (navPoints));
+
+        for (int i = 0; i < QUERIES; ++i) {
+            // Spots around a few NavPoints so that many requests share them
+            Location from = offset (navPoints [random.nextInt (8)].getLocation (), 1 + random.nextInt (40));
+            Location to = offset (navPoints [random.nextInt (8)].getLocation (), 1 + random.nextInt (40));
+
+            IPathFuture <ILocated> cached = cache.computePath (from, to);
+            IPathFuture <ILocated> expected = planner.computePath (from, to);
+
+            String input = from + " -> " + to;
+            assertSame (input, from, cached.getPathFrom ());
+            assertSame (input, to, cached.getPathTo ());
+            assertEquals (input, locations (expected.get ()), locations (cached.get ()));
+        }
+
+        assertTrue (cache.getHits () > QUERIES / 2);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a random connected map.
+     * @param random Random number generator.
+     * @return The NavPoints of the map.
+     */
+    private static NavPoint [] randomMap (final Random random) {
+        NavPoint navPoints [] = new NavPoint [NAVPOINTS];
+        for (int i = 0; i < navPoints.length; ++i) {
+            navPoints [i] = Fixtures.navPoint ("DM-Test.PathNode" + i, new Location (random.nextInt (6000) - 3000,
+                                               random.nextInt (6000) - 3000, random.nextInt (600)));
+        }
+
+        for (int i = 1; i < navPoints.length; ++i) {
+            // A chain that keeps it connected plus a few shortcuts
+            Fixtures.link (navPoints [i - 1], navPoints [i]);
+            Fixtures.link (navPoints [i], navPoints [i - 1]);
+            Fixtures.link (navPoints [i], navPoints [random.nextInt (navPoints.length)]);
+        }
+
+        return navPoints;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Moves a location along the x and y axes.
+     * @param location Location.
+     * @param delta Units moved along every axis.
+     * @return The new location.
+     */
+    private static Location offset (final Location location, final double delta) {
+        return new Location (location.x + delta, location.y + delta, location.z);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Locations of the elements of a route.
+     * @param route Route.
+     * @return Their locations.
+     */
+    private static List <Location> locations (final List <ILocated> route) {
+        List <Location> locations = new ArrayList <Location> ();
+        for (ILocated element : route) {
+            locations.add (element.getLocation ());
+        }
+
+        return locations;
+    }
+
+
+    // *************************************************************************
+    //                                FIXTURES
+    // *************************************************************************
+
+
+    /**
+     * Planner that follows the fewest edges between the NavPoints closest to
+     * the start and the goal.
+     */
+    private static class GraphPlanner implements IPathPlanner <ILocated> {
+        private NavPoint navPoints [];
+        private boolean endpoints;
+        private int calls = 0;
+
+        private GraphPlanner (final NavPoint navPoints [], final boolean endpoints) {
+            this.navPoints = navPoints;
+            this.endpoints = endpoints;
+        }
+
+        public IPathFuture <ILocated> computePath (final ILocated from, final ILocated to) {
+            ++calls;
+
+            int start = nearest (from.getLocation ());
+            int goal = nearest (to.getLocation ());
+
+            // Breadth first search from the goal, so every NavPoint knows the next one
+            int next [] = new int [navPoints.length];
+            Arrays.fill (next, -1);
+            next [goal] = goal;
+            LinkedList <Integer> open = new LinkedList <Integer> ();
+            open.add (goal);
+            while (!open.isEmpty ()) {
+                int current = open.removeFirst ();
+                for (int i = 0; i < navPoints.length; ++i) {
+                    if (next [i] == -1 && navPoints [i].getOutgoingEdges ().containsKey (navPoints [current].getId ())) {
+                        next [i] = current;
+                        open.add (i);
+                    }
+                }
+            }
+
+            List <ILocated> route = new ArrayList <ILocated> ();
+            if (endpoints) {
+                route.add (from);
+            }
+            for (int i = start; next [i] != i; i = next [i]) {
+                route.add (navPoints [i]);
+            }
+            route.add (navPoints [goal]);
+            if (endpoints) {
+                route.add (to);
+            }
+
+            return new PrecomputedPathFuture <ILocated> (from, to, route);
+        }
+
+        private int nearest (final Location spot) {
+            int nearest = 0;
+            for (int i = 1; i < navPoints.length; ++i) {
+                if (spot.getDistance (navPoints [i].getLocation ()) < spot.getDistance (navPoints [nearest].getLocation ())) {
+                    nearest = i;
+                }
+            }
+
+            return nearest;
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Planner whose paths never finish.
+     */
+    private static class PendingPlanner implements IPathPlanner <ILocated> {
+        private int calls = 0;
+
+        public IPathFuture <ILocated> computePath (final ILocated from, final ILocated to) {
+            ++calls;
+
+            PathFuture <ILocated> path = new PathFuture <ILocated> (from, to);
+            assertEquals (FutureStatus.FUTURE_IS_BEING_COMPUTED, path.getStatus ());
+
+            return path;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class NavPointIndexTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random maps and queries (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Queries run against every map */
+    private static final int QUERIES = 2000;
+    /** Number of neighbours asked in the k nearest queries */
+    private static final int K = 6;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * On maps with scattered NavPoints the index returns the NavPoint the
+     * original linear scan of getClosestPathNodeToLocation returned.
+     */
+    @Test
+    public void nearestMatchesLinearScanOnRandomMaps () {
+        Random random = new Random (SEED);
+
+        for (int size : new int [] {1, 2, 7, 64, 500}) {
+            double coordinates [] = new double [size * 3];
+            for (int i = 0; i < coordinates.length; ++i) {
+                coordinates [i] = random.nextDouble () * 8000 - 4000;
+            }
+
+            checkQueries (coordinates, random, 4500);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * On grid maps, where many NavPoints are at the same distance from the
+     * query, ties go to the first NavPoint as in the linear scan.
+     */
+    @Test
+    public void nearestMatchesLinearScanOnGrids () {
+        Random random = new Random (SEED);
+
+        for (int side : new int [] {3, 8, 16}) {
+            double coordinates [] = new double [side * side * 2 * 3];
+            int node = 0;
+            for (int z = 0; z < 2; ++z) {
+                for (int y = 0; y < side; ++y) {
+                    for (int x = 0; x < side; ++x, ++node) {
+                        coordinates [node * 3] = x * 100;
+                        coordinates [node * 3 + 1] = y * 100;
+                        coordinates [node * 3 + 2] = z * 100;
+                    }
+                }
+            }
+
+            // Queries on the grid (and half way between nodes) produce exact ties
+            NavPointIndex index = new NavPointIndex (coordinates);
+            for (int i = 0; i < QUERIES; ++i) {
+                Location spot = new Location (random.nextInt (side * 2) * 50, random.nextInt (side * 2) * 50, random.nextInt (3) * 50);
+                assertEquals (spot.toString (), linearScan (coordinates, spot), index.getNearestIndex (spot));
+            }
+
+            checkQueries (coordinates, random, side * 100);
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * An empty map has no nearest NavPoint.
+     */
+    @Test
+    public void emptyIndex () {
+        NavPointIndex index = new NavPointIndex (new double [0]);
+
+        assertEquals (-1, index.getNearestIndex (new Location (0, 0, 0)));
+        assertEquals (0, index.getNearestIndexes (new Location (0, 0, 0), new int [K]));
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Runs random queries against an index of the coordinates and checks the
+     * nearest and the k nearest NavPoints against linear scans.
+     * @param coordinates Coordinates of the NavPoints.
+     * @param random Random number generator.
+     * @param extent Queries are taken inside [-extent, extent] on every axis.
+     */
+    private static void checkQueries (final double coordinates [], final Random random, final double extent) {
+        NavPointIndex index = new NavPointIndex (coordinates);
+        int size = coordinates.length / 3;
+        int nearest [] = new int [K];
+
+        for (int i = 0; i < QUERIES; ++i) {
+            Location spot = new Location ((random.nextDouble () * 2 - 1) * extent, (random.nextDouble () * 2 - 1) * extent,
+                                          (random.nextDouble () * 2 - 1) * extent);
+            int expected = linearScan (coordinates, spot);
+
+            assertEquals (spot.toString (), expected, index.getNearestIndex (spot));
+
+            int found = index.getNearestIndexes (spot, nearest);
+            assertEquals (Math.min (K, size), found);
+            assertEquals (spot.toString (), expected, nearest [0]);
+            for (int j = 1; j < found; ++j) {
+                assertTrue (spot.toString (), index.getDistance (nearest [j - 1], spot) <= index.getDistance (nearest [j], spot));
+            }
+
+            // Nothing outside the k nearest is closer than the last one
+            if (found > 0) {
+                double furthest = index.getDistance (nearest [found - 1], spot);
+                int closer = 0;
+                for (int node = 0; node < size; ++node) {
+                    if (index.getDistance (node, spot) < furthest) {
+                        ++closer;
+                    }
+                }
+                assertTrue (spot.toString (), closer < found);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Arithmetic.getClosestPathNodeToLocation as it was before the index.
+     * @param coordinates Coordinates of the NavPoints.
+     * @param spot Location.
+     * @return Position of the closest NavPoint, -1 if there are none.
+     */
+    private static int linearScan (final double coordinates [], final Location spot) {
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        double currentDistance = 0;
+        int newDestination = -1;
+
+        for (int i = 0; i < coordinates.length / 3; ++i) {
+            currentDistance = spot.getDistance (new Location (coordinates [i * 3], coordinates [i * 3 + 1], coordinates [i * 3 + 2]));
+
+            if (currentDistance < minimumDistance) {
+                minimumDistance = currentDistance;
+                newDestination = i;
+            }
+        }
+
+        return newDestination;
+    }
+}
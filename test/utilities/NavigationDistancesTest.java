@@ -0,0 +1,210 @@
+package utilities;
+
+import cz.cuni.amis.pogamut.base3d.worldview.object.Location;
+import cz.cuni.amis.pogamut.ut2004.communication.messages.gbinfomessages.NavPoint;
+import fixtures.Fixtures;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class NavigationDistancesTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random graphs (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Distances are stored as floats, so they are compared with this relative error */
+    private static final double PRECISION = 1e-5;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * On random directed graphs, some of them disconnected, the travel distance
+     * from every NavPoint to every target is the one Floyd-Warshall gives, and
+     * unreachable targets fall back to the straight line.
+     */
+    @Test
+    public void distancesMatchFloydWarshall () {
+        Random random = new Random (SEED);
+
+        for (int size : new int [] {1, 2, 5, 20, 60}) {
+            for (double density : new double [] {0.05, 0.2, 0.6}) {
+                NavPoint navPoints [] = randomGraph (random, size, density);
+                NavPoint targets [] = randomTargets (random, navPoints);
+                double shortest [][] = floydWarshall (navPoints);
+
+                NavigationDistances distances = new NavigationDistances (navPoints, targets);
+                checkDistances (distances, navPoints, targets, shortest);
+
+                // The same distances read back the way the map cache does
+                NavigationDistances cached = new NavigationDistances (navPoints, distances.getTargets (), distances.getDistances ());
+                checkDistances (cached, navPoints, targets, shortest);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Starting off a NavPoint adds the straight line to the NavPoint where the
+     * route starts.
+     */
+    @Test
+    public void distanceFromSpotAddsTheWayToTheStart () {
+        NavPoint a = Fixtures.navPoint ("DM-Test.PathNode0", new Location (0, 0, 0));
+        NavPoint b = Fixtures.navPoint ("DM-Test.PathNode1", new Location (300, 0, 0));
+        NavPoint c = Fixtures.navPoint ("DM-Test.PathNode2", new Location (300, 400, 0));
+        Fixtures.link (a, b);
+        Fixtures.link (b, c);
+
+        NavigationDistances distances = new NavigationDistances (new NavPoint [] {a, b, c}, new NavPoint [] {c});
+        Location spot = new Location (0, -100, 0);
+        int node = distances.getNode (spot);
+
+        assertEquals (0, node);
+        assertEquals (100 + 300 + 400, distances.getDistance (node, spot, c), PRECISION);
+        // A NavPoint that isn't a target is measured in a straight line
+        assertEquals (spot.getDistance (b.getLocation ()), distances.getDistance (node, spot, b), PRECISION);
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Checks the distance from every NavPoint (standing on it) to every target.
+     * @param distances Distances under test.
+     * @param navPoints NavPoints of the graph.
+     * @param targets Targets given to the distances.
+     * @param shortest Shortest routes between every pair of NavPoints.
+     */
+    private static void checkDistances (final NavigationDistances distances, final NavPoint navPoints [],
+                                        final NavPoint targets [], final double shortest [][]) {
+        for (int from = 0; from < navPoints.length; ++from) {
+            Location spot = navPoints [from].getLocation ();
+
+            for (NavPoint target : targets) {
+                int to = indexOf (navPoints, target);
+                double expected = shortest [from][to] != Double.POSITIVE_INFINITY ? shortest [from][to]
+                                                                                  : spot.getDistance (target.getLocation ());
+                String input = navPoints.length + " NavPoints, " + from + " -> " + to;
+
+                assertEquals (input, expected, distances.getDistance (from, spot, target), Math.max (expected, 1) * PRECISION);
+            }
+        }
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Builds a random directed graph.
+     * @param random Random number generator.
+     * @param size Number of NavPoints.
+     * @param density Probability of every edge.
+     * @return The NavPoints of the graph.
+     */
+    private static NavPoint [] randomGraph (final Random random, final int size, final double density) {
+        NavPoint navPoints [] = new NavPoint [size];
+        for (int i = 0; i < size; ++i) {
+            navPoints [i] = Fixtures.navPoint ("DM-Test.PathNode" + i, new Location (random.nextInt (6000) - 3000,
+                                               random.nextInt (6000) - 3000, random.nextInt (600)));
+        }
+
+        for (int from = 0; from < size; ++from) {
+            for (int to = 0; to < size; ++to) {
+                if (from != to && random.nextDouble () < density) {
+                    Fixtures.link (navPoints [from], navPoints [to]);
+                }
+            }
+        }
+
+        return navPoints;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Picks about a third of the NavPoints as targets (at least one).
+     * @param random Random number generator.
+     * @param navPoints NavPoints of the graph.
+     * @return The targets.
+     */
+    private static NavPoint [] randomTargets (final Random random, final NavPoint navPoints []) {
+        int count = Math.max (1, navPoints.length / 3);
+        NavPoint targets [] = new NavPoint [count];
+        for (int i = 0; i < count; ++i) {
+            targets [i] = navPoints [random.nextInt (navPoints.length)];
+        }
+
+        return targets;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Shortest route between every pair of NavPoints.
+     * @param navPoints NavPoints of the graph.
+     * @return Length of the shortest route from i to j (infinity if there is none).
+     */
+    private static double [][] floydWarshall (final NavPoint navPoints []) {
+        int n = navPoints.length;
+        double shortest [][] = new double [n][n];
+
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                shortest [i][j] = i == j ? 0 : Double.POSITIVE_INFINITY;
+            }
+            for (int j = 0; j < n; ++j) {
+                if (navPoints [i].getOutgoingEdges ().containsKey (navPoints [j].getId ()) && i != j) {
+                    shortest [i][j] = navPoints [i].getLocation ().getDistance (navPoints [j].getLocation ());
+                }
+            }
+        }
+
+        for (int k = 0; k < n; ++k) {
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    if (shortest [i][k] + shortest [k][j] < shortest [i][j]) {
+                        shortest [i][j] = shortest [i][k] + shortest [k][j];
+                    }
+                }
+            }
+        }
+
+        return shortest;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Position of a NavPoint.
+     * @param navPoints NavPoints of the graph.
+     * @param navPoint NavPoint.
+     * @return Its position in navPoints.
+     */
+    private static int indexOf (final NavPoint navPoints [], final NavPoint navPoint) {
+        for (int i = 0; i < navPoints.length; ++i) {
+            if (navPoints [i] == navPoint) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,71 @@
+package utilities;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TickStatisticsTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Number of samples stored */
+    private static final int CAPACITY = 100;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * When it is full the oldest samples are overwritten, every tick is still
+     * counted.
+     */
+    @Test
+    public void keepsTheLatestSamples () {
+        TickStatistics statistics = new TickStatistics (CAPACITY);
+
+        // 10 * CAPACITY ticks, the last CAPACITY ones last from 1 to CAPACITY
+        int ticks = 10 * CAPACITY;
+        for (int i = 0; i < ticks; ++i) {
+            long duration = i < ticks - CAPACITY ? 1000000 : i - (ticks - CAPACITY) + 1;
+            statistics.record (i * 1000000L, i * 1000000L + duration, false);
+        }
+
+        assertEquals (ticks, statistics.getTicks ());
+        assertEquals (1, statistics.getPercentile (0));
+        assertEquals (CAPACITY / 2, statistics.getPercentile (50));
+        assertEquals (CAPACITY, statistics.getPercentile (100));
+        assertEquals (1000, statistics.getTicksPerSecond (), 1);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * A reset discards every sample and error.
+     */
+    @Test
+    public void resetDiscardsTheSamples () {
+        TickStatistics statistics = new TickStatistics (CAPACITY);
+        for (int i = 0; i < 3 * CAPACITY; ++i) {
+            statistics.record (i, i + 1000, i % 2 == 0);
+        }
+
+        statistics.reset ();
+        statistics.record (0, 7, false);
+
+        assertEquals (1, statistics.getTicks ());
+        assertEquals (0, statistics.getErrors ());
+        assertEquals (7, statistics.getPercentile (50));
+        assertEquals (7, statistics.getPercentile (100));
+    }
+}
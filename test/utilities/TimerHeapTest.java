@@ -0,0 +1,176 @@
+package utilities;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ *
+ * @author Francisco Aisa García
+ */
+
+
+public class TimerHeapTest {
+
+    // *************************************************************************
+    //                               CONSTANTS
+    // *************************************************************************
+
+
+    /** Seed of the random operations (fixed so that failures can be reproduced) */
+    private static final long SEED = 20111105;
+    /** Number of ids of the heaps */
+    private static final int IDS = 64;
+    /** Number of random operations */
+    private static final int OPERATIONS = 20000;
+
+
+    // *************************************************************************
+    //                                 TESTS
+    // *************************************************************************
+
+
+    /**
+     * Adding an id that is already in the heap with an earlier time moves it
+     * up, with a later time moves it down.
+     */
+    @Test
+    public void addChangesTheTimeOfIdsInTheHeap () {
+        TimerHeap heap = new TimerHeap (IDS);
+        for (int id = 0; id < 10; ++id) {
+            heap.add (id, 100 + id);
+        }
+        assertEquals (0, heap.peek ());
+
+        // Decrease key from the bottom of the heap
+        heap.add (9, 50);
+        assertEquals (9, heap.peek ());
+        assertEquals (50, heap.peekTime (), 0);
+        assertEquals (10, heap.size ());
+
+        // Increase key from the top of the heap
+        heap.add (9, 200);
+        assertEquals (0, heap.peek ());
+        assertEquals (200, heap.getTime (9), 0);
+
+        assertArrayEquals (new double [] {100, 101, 102, 103, 104, 105, 106, 107, 108, 200}, drain (heap), 0);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Removing an id from the middle of the heap keeps the others in order,
+     * even when the last one, which takes its place, is earlier than its new
+     * parent. Removing an id that isn't in the heap does nothing.
+     */
+    @Test
+    public void removeFromTheMiddle () {
+        // Added in this order every id stays where it is added, the last one
+        // (6) is a leaf of the subtree of 2
+        double times [] = {1, 20, 2, 21, 22, 3, 4, 23, 24, 25, 26, 5, 6};
+        TimerHeap heap = new TimerHeap (IDS);
+        for (int id = 0; id < times.length; ++id) {
+            heap.add (id, times [id]);
+        }
+
+        // 6 takes the place of 21, below 20, so it has to move up
+        heap.remove (3);
+        heap.remove (3);
+
+        assertEquals (12, heap.size ());
+        assertFalse (heap.contains (3));
+        assertTrue (Double.isNaN (heap.getTime (3)));
+        assertTrue (heap.contains (12));
+        assertArrayEquals (new double [] {1, 2, 3, 4, 5, 6, 20, 22, 23, 24, 25, 26}, drain (heap), 0);
+        assertEquals (-1, heap.peek ());
+        assertEquals (Double.POSITIVE_INFINITY, heap.peekTime (), 0);
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Random adds, time changes and removals: the earliest id is always the
+     * one of a sorted reference, and the heap empties in its order.
+     */
+    @Test
+    public void orderMatchesSortedReference () {
+        Random random = new Random (SEED);
+        TimerHeap heap = new TimerHeap (IDS);
+        double reference [] = new double [IDS];
+        Arrays.fill (reference, Double.NaN);
+
+        for (int i = 0; i < OPERATIONS; ++i) {
+            int id = random.nextInt (IDS);
+
+            if (random.nextInt (3) == 0) {
+                heap.remove (id);
+                reference [id] = Double.NaN;
+            }
+            else {
+                double time = random.nextInt (1000) / 4.0;
+                heap.add (id, time);
+                reference [id] = time;
+            }
+
+            double sorted [] = sorted (reference);
+            assertEquals ("operation " + i, sorted.length, heap.size ());
+            if (sorted.length > 0) {
+                assertEquals ("operation " + i, sorted [0], heap.peekTime (), 0);
+                assertEquals ("operation " + i, sorted [0], reference [heap.peek ()], 0);
+            }
+        }
+
+        assertArrayEquals (sorted (reference), drain (heap), 0);
+    }
+
+
+    // *************************************************************************
+    //                                HELPERS
+    // *************************************************************************
+
+
+    /**
+     * Takes the ids out of a heap, earliest first.
+     * @param heap Heap (it ends up empty).
+     * @return Times of the ids in the order they came out.
+     */
+    private static double [] drain (final TimerHeap heap) {
+        double times [] = new double [heap.size ()];
+
+        for (int i = 0; i < times.length; ++i) {
+            int id = heap.peek ();
+            times [i] = heap.peekTime ();
+            assertEquals (times [i], heap.getTime (id), 0);
+
+            heap.remove (id);
+            assertFalse (heap.contains (id));
+        }
+
+        return times;
+    }
+
+    //__________________________________________________________________________
+
+    /**
+     * Times of the ids that are in a reference, in order.
+     * @param reference Time of every id (NaN if it isn't in the heap).
+     * @return The sorted times.
+     */
+    private static double [] sorted (final double reference []) {
+        int count = 0;
+        double times [] = new double [reference.length];
+        for (double time : reference) {
+            if (!Double.isNaN (time)) {
+                times [count++] = time;
+            }
+        }
+
+        double sorted [] = new double [count];
+        System.arraycopy (times, 0, sorted, 0, count);
+        Arrays.sort (sorted);
+
+        return sorted;
+    }
+}